@@ -0,0 +1,101 @@
+package org.fax4j.spi;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.common.LogLevel;
+import org.fax4j.common.Logger;
+import org.fax4j.common.SimpleLogger;
+
+/**
+ * Local stand-in fax client SPI used by the benchmarks.<br>
+ * All fax actions are no-ops and no external resources are used.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class BenchmarkFaxClientSpi extends AbstractFax4JClientSpi {
+    /** The status returned for all fax jobs */
+    private volatile FaxJobStatus faxJobStatus;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param faxJobMonitor
+     *            The fax job monitor
+     */
+    public BenchmarkFaxClientSpi(FaxJobMonitor faxJobMonitor) {
+        super();
+
+        this.faxJobStatus = FaxJobStatus.IN_PROGRESS;
+
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.spi.polling.pool.size", "1");
+        this.initialize(configuration, BenchmarkFaxClientSpi.createLogger(), faxJobMonitor);
+    }
+
+    /**
+     * This function creates a logger which does not log anything.
+     *
+     * @return The logger
+     */
+    public static Logger createLogger() {
+        Logger logger = new SimpleLogger();
+        logger.setLogLevel(LogLevel.NONE);
+
+        return logger;
+    }
+
+    /**
+     * This function sets the status returned for all fax jobs.
+     *
+     * @param faxJobStatus
+     *            The fax job status
+     */
+    public void setFaxJobStatus(FaxJobStatus faxJobStatus) {
+        this.faxJobStatus = faxJobStatus;
+    }
+
+    /**
+     * Empty method.
+     */
+    @Override
+    protected void initializeImpl() {
+        // empty
+    }
+
+    /**
+     * This function returns true if the fax monitor events are supported by this SPI.
+     *
+     * @return True if the fax monitor events are supported by this SPI
+     */
+    @Override
+    public boolean isFaxMonitorEventsSupported() {
+        return true;
+    }
+
+    /**
+     * This function will submit a new fax job.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    @Override
+    protected void submitFaxJobImpl(FaxJob faxJob) {
+        faxJob.setID("1");
+    }
+
+    /**
+     * This function returns the fax job status.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The fax job status
+     */
+    @Override
+    protected FaxJobStatus getFaxJobStatusImpl(FaxJob faxJob) {
+        return this.faxJobStatus;
+    }
+}
@@ -0,0 +1,148 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.util.ReflectionHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the fax client SPI proxy dispatch with N interceptors.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaxClientSpiProxyBenchmark {
+    /** The proxy class name */
+    @Param({ "org.fax4j.spi.FaxClientSpiProxyImpl", "org.fax4j.spi.InterceptorChainFaxClientSpiProxyImpl" })
+    public String proxyClassName;
+    /** The amount of interceptors */
+    @Param({ "0", "1", "5" })
+    public int interceptorsAmount;
+    /** The fax client SPI without proxy */
+    private FaxClientSpi faxClientSpi;
+    /** The proxied fax client SPI */
+    private FaxClientSpi proxiedFaxClientSpi;
+    /** The fax job */
+    private FaxJob faxJob;
+
+    /**
+     * Creates the proxy.
+     */
+    @Setup
+    public void setup() {
+        this.faxClientSpi = new BenchmarkFaxClientSpi(new FaxJobMonitorImpl());
+
+        FaxClientSpiInterceptor[] interceptors = new FaxClientSpiInterceptor[this.interceptorsAmount];
+        for (int index = 0; index < interceptors.length; index++) {
+            interceptors[index] = new CountingFaxClientSpiInterceptor();
+        }
+
+        FaxClientSpiProxy proxy = (FaxClientSpiProxy) ReflectionHelper.createInstance(this.proxyClassName);
+        proxy.initialize(this.faxClientSpi, interceptors);
+        this.proxiedFaxClientSpi = (FaxClientSpi) Proxy.newProxyInstance(FaxClientSpi.class.getClassLoader(),
+                new Class<?>[] { FaxClientSpi.class }, proxy);
+
+        this.faxJob = new FaxJobImpl();
+        this.faxJob.setID("1");
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The fax job status
+     */
+    @Benchmark
+    public FaxJobStatus getFaxJobStatusDirect() {
+        return this.faxClientSpi.getFaxJobStatus(this.faxJob);
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The fax job status
+     */
+    @Benchmark
+    public FaxJobStatus getFaxJobStatusProxied() {
+        return this.proxiedFaxClientSpi.getFaxJobStatus(this.faxJob);
+    }
+
+    /**
+     * Interceptor which only counts invocations.
+     *
+     * @author Sagie Gur-Ari
+     */
+    public static class CountingFaxClientSpiInterceptor implements FaxClientSpiInterceptor {
+        /** The invocations counter */
+        public long counter;
+
+        /**
+         * This function initializes the fax client SPI interceptor.
+         *
+         * @param faxClientSpi
+         *            The fax client SPI
+         */
+        public void initialize(FaxClientSpi faxClientSpi) {
+            // empty
+        }
+
+        /**
+         * This function is invoked before invoking the method in the fax client SPI itself.
+         *
+         * @param method
+         *            The method invoked
+         * @param arguments
+         *            The method arguments
+         */
+        public void preMethodInvocation(Method method, Object[] arguments) {
+            this.counter++;
+        }
+
+        /**
+         * This function is invoked after invoking the method in the fax client SPI itself.
+         *
+         * @param method
+         *            The method invoked
+         * @param arguments
+         *            The method arguments
+         * @param output
+         *            The method output
+         */
+        public void postMethodInvocation(Method method, Object[] arguments, Object output) {
+            this.counter++;
+        }
+
+        /**
+         * This function is invoked in case of an error while invoking the method in the fax client SPI itself.
+         *
+         * @param method
+         *            The method invoked
+         * @param arguments
+         *            The method arguments
+         * @param throwable
+         *            The throwable while invoking the method
+         */
+        public void onMethodInvocationError(Method method, Object[] arguments, Throwable throwable) {
+            this.counter++;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.fax4j.spi;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxJob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a single fax job monitor polling cycle over many monitored fax jobs.<br>
+ * The polling interval is set high so the monitor background thread does not run cycles during the benchmark.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaxJobMonitorBenchmark {
+    /** The amount of monitored fax jobs */
+    @Param({ "10000" })
+    public int faxJobsAmount;
+    /** The fax job monitor */
+    private FaxJobMonitorImpl faxJobMonitor;
+    /** The fax client SPI */
+    private FaxClientSpi faxClientSpi;
+
+    /**
+     * Creates the monitor and the monitored fax jobs.
+     */
+    @Setup
+    public void setup() {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(FaxJobMonitorImpl.POLLING_INTERVAL_IN_MILLIES_PROPERTY_KEY, String.valueOf(3600000));
+        this.faxJobMonitor = new FaxJobMonitorImpl();
+        this.faxJobMonitor.initialize(configuration, BenchmarkFaxClientSpi.createLogger());
+
+        this.faxClientSpi = new BenchmarkFaxClientSpi(this.faxJobMonitor);
+        FaxJob faxJob = null;
+        for (int index = 0; index < this.faxJobsAmount; index++) {
+            faxJob = new FaxJobImpl();
+            faxJob.setID(String.valueOf(index));
+            this.faxJobMonitor.monitorFaxJob(this.faxClientSpi, faxJob);
+        }
+    }
+
+    /**
+     * Stops the monitor.
+     */
+    @TearDown
+    public void tearDown() {
+        this.faxJobMonitor.stopMonitoringAllFaxJobs(this.faxClientSpi);
+    }
+
+    /**
+     * Benchmark (no status changes)
+     */
+    @Benchmark
+    public void runPollingCycle() {
+        this.faxJobMonitor.runPollingCycle();
+    }
+}
@@ -0,0 +1,108 @@
+package org.fax4j.spi.http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the JSON/XML HTTP response handlers path extraction (including the error detection lookups).
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HTTPResponseHandlerBenchmark {
+    /** The value path */
+    private static final String PATH = "response;job;id";
+    /** True to use the XML streaming parser */
+    @Param({ "false", "true" })
+    public boolean xmlStreamingParser;
+    /** The JSON handler */
+    private JSONHTTPResponseHandler jsonHandler;
+    /** The XML handler */
+    private XMLHTTPResponseHandler xmlHandler;
+    /** The JSON response */
+    private HTTPResponse jsonResponse;
+    /** The XML response */
+    private HTTPResponse xmlResponse;
+
+    /**
+     * Creates the handlers and responses.
+     */
+    @Setup
+    public void setup() {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.spi.http.submit.json.output.path", HTTPResponseHandlerBenchmark.PATH);
+        configuration.put("org.fax4j.spi.http.json.error.detection.path", "response;error;flag");
+        configuration.put("org.fax4j.spi.http.json.error.message.path", "response;error;message");
+        configuration.put("org.fax4j.spi.http.submit.xml.output.path", HTTPResponseHandlerBenchmark.PATH);
+        configuration.put("org.fax4j.spi.http.xml.error.detection.path", "response;error;flag");
+        configuration.put("org.fax4j.spi.http.xml.error.message.path", "response;error;message");
+        configuration.put("org.fax4j.spi.http.xml.streaming.parser", String.valueOf(this.xmlStreamingParser));
+
+        this.jsonHandler = new JSONHTTPResponseHandler();
+        this.jsonHandler.setPropertyPart(HTTPFaxClientSpi.HTTP_PROPERTY_PART);
+        this.jsonHandler.initialize(configuration);
+        this.xmlHandler = new XMLHTTPResponseHandler();
+        this.xmlHandler.setPropertyPart(HTTPFaxClientSpi.HTTP_PROPERTY_PART);
+        this.xmlHandler.initialize(configuration);
+
+        // create responses with some noise around the value
+        StringBuilder jsonBuffer = new StringBuilder(10000);
+        StringBuilder xmlBuffer = new StringBuilder(10000);
+        jsonBuffer.append("{\"response\":{\"items\":[");
+        xmlBuffer.append("<response><items>");
+        for (int index = 0; index < 50; index++) {
+            if (index > 0) {
+                jsonBuffer.append(",");
+            }
+            jsonBuffer.append("{\"name\":\"item").append(index).append("\",\"value\":").append(index).append("}");
+            xmlBuffer.append("<item><name>item").append(index).append("</name><value>").append(index);
+            xmlBuffer.append("</value></item>");
+        }
+        jsonBuffer.append("],\"job\":{\"id\":\"12345\",\"status\":\"pending\"}}}");
+        xmlBuffer.append("</items><job><id>12345</id><status>pending</status></job></response>");
+
+        this.jsonResponse = new HTTPResponse();
+        this.jsonResponse.setContent(jsonBuffer.toString());
+        this.xmlResponse = new HTTPResponse();
+        this.xmlResponse.setContent(xmlBuffer.toString());
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The value
+     */
+    @Benchmark
+    public String findJSONValue() {
+        return this.jsonHandler.findValue(this.jsonResponse, HTTPResponseHandlerBenchmark.PATH);
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The value
+     */
+    @Benchmark
+    public String findXMLValue() {
+        return this.xmlHandler.findValue(this.xmlResponse, HTTPResponseHandlerBenchmark.PATH);
+    }
+}
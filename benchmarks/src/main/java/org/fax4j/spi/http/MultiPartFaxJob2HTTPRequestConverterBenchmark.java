@@ -0,0 +1,105 @@
+package org.fax4j.spi.http;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxJob;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.spi.FaxClientSpiFactory;
+import org.fax4j.spi.FaxJobImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the multi part HTTP request building.<br>
+ * The HTTP fax client SPI is created locally and no HTTP requests are sent.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiPartFaxJob2HTTPRequestConverterBenchmark {
+    /** The fax client SPI */
+    private HTTPFaxClientSpi faxClientSpi;
+    /** The converter */
+    private MultiPartFaxJob2HTTPRequestConverter converter;
+    /** The fax job */
+    private FaxJob faxJob;
+    /** The fax file */
+    private File file;
+
+    /**
+     * Creates the SPI, converter and fax job.
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Setup
+    public void setup() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.proxy.enabled", "false");
+        configuration.setProperty("org.fax4j.spi.http.faxjob2request.converter.class.name",
+                MultiPartFaxJob2HTTPRequestConverter.class.getName());
+        configuration.setProperty("org.fax4j.spi.http.host.name", "localhost");
+        configuration.setProperty("org.fax4j.spi.http.submit.resource", "submit");
+        configuration.setProperty("org.fax4j.spi.http.url.parameters", "param1=value1&param2=value2");
+        configuration.setProperty("org.fax4j.spi.http.multi.part.submit.file.content.parameter", "file");
+        configuration.setProperty("org.fax4j.spi.http.multi.part.submit.file.name.parameter", "filename");
+        configuration.setProperty("org.fax4j.spi.http.multi.part.submit.target.address.parameter", "target");
+        configuration.setProperty("org.fax4j.spi.http.multi.part.submit.sender.name.parameter", "sender");
+        configuration.setProperty("org.fax4j.spi.http.multi.part.parameter.key.KEY1", "VALUE1");
+        configuration.setProperty("org.fax4j.spi.http.multi.part.parameter.key.KEY2", "VALUE2");
+        this.faxClientSpi = (HTTPFaxClientSpi) FaxClientSpiFactory.createFaxClientSpi("http", configuration);
+        this.converter = (MultiPartFaxJob2HTTPRequestConverter) this.faxClientSpi.getFaxJob2HTTPRequestConverter();
+
+        this.file = File.createTempFile("fax4j_benchmark_", ".txt");
+        OutputStream outputStream = new FileOutputStream(this.file);
+        try {
+            outputStream.write(new byte[1024]);
+        } finally {
+            outputStream.close();
+        }
+
+        this.faxJob = new FaxJobImpl();
+        this.faxJob.setFile(this.file);
+        this.faxJob.setTargetAddress("12345");
+        this.faxJob.setSenderName("sender");
+    }
+
+    /**
+     * Deletes the fax file.
+     */
+    @TearDown
+    public void tearDown() {
+        if (!this.file.delete()) {
+            this.file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The HTTP request
+     */
+    @Benchmark
+    public HTTPRequest createSubmitHTTPRequest() {
+        return this.converter.createHTTPRequest(this.faxClientSpi, FaxActionType.SUBMIT_FAX_JOB, this.faxJob);
+    }
+}
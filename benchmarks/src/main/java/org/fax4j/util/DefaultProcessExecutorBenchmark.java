@@ -0,0 +1,53 @@
+package org.fax4j.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the process command parsing.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultProcessExecutorBenchmark {
+    /** The command */
+    private static final String COMMAND = "sendfax -n -d \"John Doe@555-1234\" -f \"sender@test.com\" -s a4 "
+            + "-m \"/var/spool/fax/some file.pdf\" -i 12345";
+    /** The process executor */
+    private DefaultProcessExecutor processExecutor;
+
+    /**
+     * Creates the process executor.
+     */
+    @Setup
+    public void setup() {
+        this.processExecutor = new DefaultProcessExecutor();
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The parsed command
+     */
+    @Benchmark
+    public List<String> parseCommand() {
+        return this.processExecutor.parseCommand(null, DefaultProcessExecutorBenchmark.COMMAND);
+    }
+}
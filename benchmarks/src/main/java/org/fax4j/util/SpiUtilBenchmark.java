@@ -0,0 +1,77 @@
+package org.fax4j.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxJob;
+import org.fax4j.spi.FaxJobImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the SPI template formatting.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpiUtilBenchmark {
+    /** The template */
+    private static final String TEMPLATE = "to=${target.address}&name=${target.name}&from=${sender.name}"
+            + "&fax=${sender.fax.number}&email=${sender.email}&id=${fax.job.id}";
+    /** The compiled templates cache */
+    private ConcurrentMap<String, CompiledTemplate> cache;
+    /** The fax job */
+    private FaxJob faxJob;
+
+    /**
+     * Creates the fax job.
+     */
+    @Setup
+    public void setup() {
+        this.cache = new ConcurrentHashMap<String, CompiledTemplate>();
+
+        this.faxJob = new FaxJobImpl();
+        this.faxJob.setID("12345");
+        this.faxJob.setTargetAddress("555-1234");
+        this.faxJob.setTargetName("target name");
+        this.faxJob.setSenderName("sender name");
+        this.faxJob.setSenderFaxNumber("555-4321");
+        this.faxJob.setSenderEmail("sender@test.com");
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The formatted template
+     */
+    @Benchmark
+    public String formatTemplate() {
+        return SpiUtil.formatTemplate(SpiUtilBenchmark.TEMPLATE, this.faxJob, SpiUtil.URL_ENCODER, false, false);
+    }
+
+    /**
+     * Benchmark
+     *
+     * @return The formatted template
+     */
+    @Benchmark
+    public String formatCompiledTemplate() {
+        return SpiUtil.getCompiledTemplate(SpiUtilBenchmark.TEMPLATE, this.cache).format(this.faxJob,
+                SpiUtil.URL_ENCODER, false, false);
+    }
+}
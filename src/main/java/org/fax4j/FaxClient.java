@@ -1,8 +1,14 @@
 package org.fax4j;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.fax4j.common.FaxActionType;
 import org.fax4j.common.FaxClientActions;
 import org.fax4j.common.Logger;
 import org.fax4j.spi.FaxClientSpi;
+import org.fax4j.util.ThreadPoolHelper;
 
 /**
  * This is the fax client.<br>
@@ -126,16 +132,37 @@ import org.fax4j.spi.FaxClientSpi;
  * <td>org.fax4j.FaxClient</td>
  * <td>false</td>
  * </tr>
+ * <tr>
+ * <td>org.fax4j.client.async.pool.size</td>
+ * <td>The maximum amount of threads used to invoke the asynchronous fax actions (per fax client SPI)</td>
+ * <td>5</td>
+ * <td>5</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.async.queue.size</td>
+ * <td>The maximum amount of asynchronous fax actions waiting for a free thread.<br>
+ * Once the queue is full, new asynchronous fax actions are rejected.</td>
+ * <td>100</td>
+ * <td>100</td>
+ * <td>false</td>
+ * </tr>
  * </table>
  * <br>
  * 
  * @author Sagie Gur-Ari
- * @version 1.08
+ * @version 1.09
  * @since 0.1
  */
 public class FaxClient implements FaxClientActions {
     /** The fax client SPI */
     private final FaxClientSpi FAX_CLIENT_SPI;
+    /** The asynchronous fax actions executor */
+    private ExecutorService asyncExecutor;
+    /** The asynchronous fax actions pool size property key */
+    public static final String ASYNC_POOL_SIZE_PROPERTY_KEY = "org.fax4j.client.async.pool.size";
+    /** The asynchronous fax actions queue size property key */
+    public static final String ASYNC_QUEUE_SIZE_PROPERTY_KEY = "org.fax4j.client.async.queue.size";
 
     /**
      * This is the default constructor.
@@ -197,6 +224,18 @@ public class FaxClient implements FaxClientActions {
         this.FAX_CLIENT_SPI.submitFaxJob(faxJob);
     }
 
+    /**
+     * This function will submit all the provided fax jobs.<br>
+     * Some SPIs submit the fax jobs in one batch (for example by reusing the same connection), others submit them one
+     * after the other.
+     * 
+     * @param faxJobs
+     *            The fax jobs to submit
+     */
+    public void submitFaxJobs(FaxJob[] faxJobs) {
+        this.FAX_CLIENT_SPI.submitFaxJobs(faxJobs);
+    }
+
     /**
      * This function will suspend an existing fax job.
      * 
@@ -241,6 +280,48 @@ public class FaxClient implements FaxClientActions {
         return this.FAX_CLIENT_SPI.getFaxJobStatus(faxJob);
     }
 
+    /**
+     * This function will submit a new fax job without blocking the caller.<br>
+     * The fax job is submitted by the fax client SPI in a background thread and the fax client action event is fired
+     * once the submission is done.<br>
+     * The returned future provides the submitted fax job (with the fax job ID if supported by the SPI) or the error in
+     * case the submission failed.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The future fax job
+     */
+    public Future<FaxJob> submitFaxJobAsync(FaxJob faxJob) {
+        return this.invokeAsyncFaxAction(FaxActionType.SUBMIT_FAX_JOB, faxJob);
+    }
+
+    /**
+     * This function will cancel an existing fax job without blocking the caller.<br>
+     * The fax job is cancelled by the fax client SPI in a background thread and the fax client action event is fired
+     * once the cancellation is done.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The future fax job
+     */
+    public Future<FaxJob> cancelFaxJobAsync(FaxJob faxJob) {
+        return this.invokeAsyncFaxAction(FaxActionType.CANCEL_FAX_JOB, faxJob);
+    }
+
+    /**
+     * This function returns the fax job status without blocking the caller.<br>
+     * Not all SPIs support extraction of the fax job status.<br>
+     * In case the SPI is unable to extract or does not support extracting of the fax job status, the future will
+     * provide the UNKNOWN status.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The future fax job status
+     */
+    public Future<FaxJobStatus> getFaxJobStatusAsync(FaxJob faxJob) {
+        return this.invokeAsyncFaxAction(FaxActionType.GET_FAX_JOB_STATUS, faxJob);
+    }
+
     /**
      * This function adds the fax client action event listener to the internal fax event listeners data structure.
      * 
@@ -299,4 +380,129 @@ public class FaxClient implements FaxClientActions {
     public void removeAllFaxMonitorEventListeners() {
         this.FAX_CLIENT_SPI.removeAllFaxMonitorEventListeners();
     }
-}
\ No newline at end of file
+
+    /**
+     * This function returns the asynchronous fax actions executor.<br>
+     * The executor is created on first invocation based on the fax client SPI configuration.
+     *
+     * @return The asynchronous fax actions executor
+     */
+    protected ExecutorService getAsyncExecutor() {
+        synchronized (this) {
+            if (this.asyncExecutor == null) {
+                // get pool configuration
+                int poolSize = ThreadPoolHelper.parseSize(
+                        this.FAX_CLIENT_SPI.getConfigurationValue(FaxClient.ASYNC_POOL_SIZE_PROPERTY_KEY), 5);
+                int queueSize = ThreadPoolHelper.parseSize(
+                        this.FAX_CLIENT_SPI.getConfigurationValue(FaxClient.ASYNC_QUEUE_SIZE_PROPERTY_KEY), 100);
+
+                // create executor
+                this.asyncExecutor = ThreadPoolHelper.createThreadPool("Fax Client Async Action", poolSize,
+                        queueSize);
+            }
+
+            return this.asyncExecutor;
+        }
+    }
+
+    /**
+     * This function invokes the requested fax action in a background thread.
+     *
+     * @param <T>
+     *            The fax action result type
+     * @param faxActionType
+     *            The fax action type
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The future fax action result
+     */
+    protected <T> Future<T> invokeAsyncFaxAction(FaxActionType faxActionType, FaxJob faxJob) {
+        // get executor
+        ExecutorService executor = this.getAsyncExecutor();
+
+        // create task
+        Callable<T> task = new AsyncFaxActionTask<T>(this, faxActionType, faxJob);
+
+        Future<T> future = null;
+        try {
+            // submit task
+            future = executor.submit(task);
+        } catch (RejectedExecutionException exception) {
+            throw new FaxException("Asynchronous fax actions queue is full, unable to invoke: " + faxActionType,
+                    exception);
+        }
+
+        return future;
+    }
+
+    /**
+     * This task invokes a single fax action on behalf of the asynchronous fax client functions.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     * @param <T>
+     *            The fax action result type
+     */
+    protected static class AsyncFaxActionTask<T> implements Callable<T> {
+        /** The fax client */
+        private final FaxClient FAX_CLIENT;
+        /** The fax action type */
+        private final FaxActionType FAX_ACTION_TYPE;
+        /** The fax job */
+        private final FaxJob FAX_JOB;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxClient
+         *            The fax client
+         * @param faxActionType
+         *            The fax action type
+         * @param faxJob
+         *            The fax job
+         */
+        public AsyncFaxActionTask(FaxClient faxClient, FaxActionType faxActionType, FaxJob faxJob) {
+            super();
+
+            this.FAX_CLIENT = faxClient;
+            this.FAX_ACTION_TYPE = faxActionType;
+            this.FAX_JOB = faxJob;
+        }
+
+        /**
+         * Invokes the fax action and returns the result.
+         *
+         * @return The fax action result
+         */
+        @SuppressWarnings("unchecked")
+        public T call() {
+            Object result = null;
+            switch (this.FAX_ACTION_TYPE) {
+            case SUBMIT_FAX_JOB:
+                this.FAX_CLIENT.submitFaxJob(this.FAX_JOB);
+                result = this.FAX_JOB;
+                break;
+            case SUSPEND_FAX_JOB:
+                this.FAX_CLIENT.suspendFaxJob(this.FAX_JOB);
+                result = this.FAX_JOB;
+                break;
+            case RESUME_FAX_JOB:
+                this.FAX_CLIENT.resumeFaxJob(this.FAX_JOB);
+                result = this.FAX_JOB;
+                break;
+            case CANCEL_FAX_JOB:
+                this.FAX_CLIENT.cancelFaxJob(this.FAX_JOB);
+                result = this.FAX_JOB;
+                break;
+            case GET_FAX_JOB_STATUS:
+                result = this.FAX_CLIENT.getFaxJobStatus(this.FAX_JOB);
+                break;
+            default:
+                throw new FaxException("Unsupported fax action type: " + this.FAX_ACTION_TYPE);
+            }
+
+            return (T) result;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.fax4j;
+
+/**
+ * This exception is thrown in case the fax action was rejected before the fax client SPI was invoked (for example by
+ * a circuit breaker, bulkhead or rate limit).<br>
+ * As the fax action never reached the fax client SPI (vendor), it can be retried without being sent twice.
+ * 
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FaxRejectedException extends FaxException {
+    /** Default serialization UID */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * This is the default constructor.
+     * 
+     * @param message
+     *            The error message
+     */
+    public FaxRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package org.fax4j;
+
+/**
+ * This exception is thrown in case the caller provided invalid input (for example a fax job without a target
+ * address).<br>
+ * These errors are caused by the caller and not by the fax client SPI (vendor), therefore they are not retried and do
+ * not affect the vendor health tracking.
+ * 
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FaxValidationException extends FaxException {
+    /** Default serialization UID */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * This is the default constructor.
+     * 
+     * @param message
+     *            The error message
+     */
+    public FaxValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,674 @@
+package org.fax4j;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxJob.FaxJobPriority;
+import org.fax4j.common.Logger;
+import org.fax4j.spi.FaxClientSpi;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.util.FaxJobJournal;
+import org.fax4j.util.FaxJobJournal.JournalRecord;
+import org.fax4j.util.IOHelper;
+import org.fax4j.util.SpiUtil;
+import org.fax4j.util.ThreadPoolHelper;
+import org.fax4j.util.ThreadPoolHelper.DaemonThreadFactory;
+
+/**
+ * This fax client stores submitted fax jobs in a durable on disk queue and submits them to the fax client SPI in
+ * background worker threads.<br>
+ * The submitFaxJob function copies the fax job document to the queue spool directory, appends the fax job to the queue
+ * journal and returns without waiting for the SPI submission, therefore the fax job ID is not populated.<br>
+ * Fax jobs created by this fax client are plain fax jobs which only hold the values, the SPI fax job is created by the
+ * worker thread when the queued fax job is submitted.<br>
+ * Once a fax job was submitted by a worker thread, the fax client action listeners are notified with the SPI fax job
+ * object which holds the fax job ID.<br>
+ * In case the JVM crashed or was stopped before all fax jobs were submitted, the pending fax jobs are submitted again
+ * once a new queued fax client is created for the same queue directory.<br>
+ * The delivery is at least once, a fax job may be submitted twice in case the JVM crashed after the SPI submission and
+ * before the fax job was acknowledged in the journal.<br>
+ * Each queued fax job has an idempotency key (provided by the caller or generated) which is kept in the queue journal
+ * and logged with the fax job ID once submitted, so that such duplicates can be detected. Submitting a fax job with a
+ * key which is already known by the queue does nothing, the queue knows the keys of all pending fax jobs and of the
+ * last handled fax jobs (up to the org.fax4j.client.queue.idempotency.keys.max amount, also after compaction and
+ * restart).<br>
+ * Failed submissions which are known to fail before the fax job reached the vendor (rejected fax actions and
+ * connection errors, see SpiUtil.isSubmitRetrySafe) are retried with exponential backoff. Once the max attempts are
+ * reached, or in case of any other error (caller errors which will never succeed, or errors which may have happened
+ * after the vendor accepted the fax job and so could send it twice), the fax job is removed from the queue and its
+ * document is moved to the failed directory under the queue directory.<br>
+ * To use this fax client, set the org.fax4j.client.class.name property to org.fax4j.QueuedFaxClient.<br>
+ * <br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.directory</td>
+ * <td>The queue directory which holds the journal and spooled fax job documents</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>true</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.workers</td>
+ * <td>The amount of worker threads submitting the queued fax jobs</td>
+ * <td>2</td>
+ * <td>2</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.sync</td>
+ * <td>True to force each journal write to the disk before the submitFaxJob function returns</td>
+ * <td>true</td>
+ * <td>true</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.max.attempts</td>
+ * <td>The max amount of submission attempts per fax job</td>
+ * <td>5</td>
+ * <td>5</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.retry.delay</td>
+ * <td>The delay in millies before the first retry (doubled with each additional retry)</td>
+ * <td>5000</td>
+ * <td>5000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.journal.max.size</td>
+ * <td>The journal size in bytes after which the journal is compacted</td>
+ * <td>67108864</td>
+ * <td>67108864</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.client.queue.idempotency.keys.max</td>
+ * <td>The amount of idempotency keys of handled fax jobs remembered by the queue (oldest keys are forgotten
+ * first)</td>
+ * <td>100000</td>
+ * <td>100000</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ * <br>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class QueuedFaxClient extends FaxClient {
+    /** The queue directory property key */
+    public static final String QUEUE_DIRECTORY_PROPERTY_KEY = "org.fax4j.client.queue.directory";
+    /** The queue workers property key */
+    public static final String QUEUE_WORKERS_PROPERTY_KEY = "org.fax4j.client.queue.workers";
+    /** The queue sync property key */
+    public static final String QUEUE_SYNC_PROPERTY_KEY = "org.fax4j.client.queue.sync";
+    /** The queue max attempts property key */
+    public static final String QUEUE_MAX_ATTEMPTS_PROPERTY_KEY = "org.fax4j.client.queue.max.attempts";
+    /** The queue retry delay property key */
+    public static final String QUEUE_RETRY_DELAY_PROPERTY_KEY = "org.fax4j.client.queue.retry.delay";
+    /** The queue journal max size property key */
+    public static final String QUEUE_JOURNAL_MAX_SIZE_PROPERTY_KEY = "org.fax4j.client.queue.journal.max.size";
+    /** The queue idempotency keys max property key */
+    public static final String QUEUE_IDEMPOTENCY_KEYS_MAX_PROPERTY_KEY = "org.fax4j.client.queue.idempotency.keys.max";
+    /** The journal */
+    private final FaxJobJournal JOURNAL;
+    /** The spool directory */
+    private final File SPOOL_DIRECTORY;
+    /** The failed fax jobs directory */
+    private final File FAILED_DIRECTORY;
+    /** The queue */
+    private final DelayQueue<QueuedFaxJob> QUEUE;
+    /** The worker threads */
+    private final Thread[] WORKERS;
+    /** True to force the journal and spooled documents to the disk */
+    private final boolean SYNC;
+    /** The max amount of submission attempts */
+    private final int MAX_ATTEMPTS;
+    /** The retry delay in millies */
+    private final long RETRY_DELAY;
+    /** True once the fax client was shutdown */
+    private volatile boolean shutdown;
+
+    /**
+     * This is the default constructor.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     */
+    public QueuedFaxClient(FaxClientSpi faxClientSpi) {
+        super(faxClientSpi);
+
+        // get configuration
+        String value = faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_DIRECTORY_PROPERTY_KEY);
+        if (value == null) {
+            throw new FaxException("Queue directory not defined in property: "
+                    + QueuedFaxClient.QUEUE_DIRECTORY_PROPERTY_KEY);
+        }
+        File directory = new File(value);
+        int workers = ThreadPoolHelper.parseSize(
+                faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_WORKERS_PROPERTY_KEY), 2);
+        value = faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_SYNC_PROPERTY_KEY);
+        this.SYNC = (value == null) || Boolean.parseBoolean(value);
+        this.MAX_ATTEMPTS = ThreadPoolHelper.parseSize(
+                faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_MAX_ATTEMPTS_PROPERTY_KEY), 5);
+        value = faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_RETRY_DELAY_PROPERTY_KEY);
+        this.RETRY_DELAY = (value == null) ? 5000 : Long.parseLong(value);
+        value = faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_JOURNAL_MAX_SIZE_PROPERTY_KEY);
+        long journalMaxSize = (value == null) ? 67108864 : Long.parseLong(value);
+        int maxIdempotencyKeys = ThreadPoolHelper.parseSize(
+                faxClientSpi.getConfigurationValue(QueuedFaxClient.QUEUE_IDEMPOTENCY_KEYS_MAX_PROPERTY_KEY), 100000);
+
+        // create directories
+        this.SPOOL_DIRECTORY = new File(directory, "spool");
+        this.FAILED_DIRECTORY = new File(directory, "failed");
+        if ((!this.SPOOL_DIRECTORY.exists()) && (!this.SPOOL_DIRECTORY.mkdirs())) {
+            throw new FaxException("Unable to create spool directory: " + this.SPOOL_DIRECTORY.getPath());
+        }
+
+        // open journal and replay pending fax jobs
+        this.JOURNAL = new FaxJobJournal(directory, this.SYNC, journalMaxSize, maxIdempotencyKeys);
+        this.QUEUE = new DelayQueue<QueuedFaxJob>();
+        List<JournalRecord> records = this.JOURNAL.getPendingRecords();
+        int amount = records.size();
+        if (amount > 0) {
+            faxClientSpi.getLogger().logInfo(new Object[] { "Replaying ", String.valueOf(amount),
+                    " pending fax jobs from queue directory: ", directory.getPath() }, null);
+        }
+        Set<String> spoolFilePaths = new HashSet<String>();
+        JournalRecord record = null;
+        File spoolFile = null;
+        for (int index = 0; index < amount; index++) {
+            record = records.get(index);
+            spoolFile = new File(record.getFilePath());
+            spoolFilePaths.add(spoolFile.getPath());
+            spoolFilePaths.add(spoolFile.getParentFile().getPath());
+
+            this.QUEUE.offer(new QueuedFaxJob(record, 0, 0));
+        }
+
+        // remove documents spooled by fax jobs which were not appended to the journal
+        File[] files = this.SPOOL_DIRECTORY.listFiles();
+        if (files != null) {
+            for (int index = 0; index < files.length; index++) {
+                if (!spoolFilePaths.contains(files[index].getPath())) {
+                    QueuedFaxClient.deleteSpoolFile(files[index]);
+                }
+            }
+        }
+
+        // start workers
+        ThreadFactory threadFactory = new DaemonThreadFactory("Fax Queue Worker", Thread.NORM_PRIORITY);
+        this.WORKERS = new Thread[workers];
+        for (int index = 0; index < workers; index++) {
+            this.WORKERS[index] = threadFactory.newThread(new QueueWorker(this));
+            this.WORKERS[index].start();
+        }
+    }
+
+    /**
+     * This function creates a new fax job instance to be used by the caller to submit a new fax job.<br>
+     * The fax job only holds the values and is not bound to the SPI (the SPI fax job is created by the worker thread
+     * when the queued fax job is submitted).
+     *
+     * @return The fax job instance
+     */
+    @Override
+    public FaxJob createFaxJob() {
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setPriority(FaxJobPriority.MEDIUM_PRIORITY);
+
+        return faxJob;
+    }
+
+    /**
+     * This function will add the fax job to the queue with a generated idempotency key.<br>
+     * The fax job is submitted to the SPI in the background, therefore the fax job ID is not populated.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    @Override
+    public void submitFaxJob(FaxJob faxJob) {
+        this.queueFaxJob(faxJob, null);
+    }
+
+    /**
+     * This function will add all the provided fax jobs to the queue with generated idempotency keys.<br>
+     * The fax jobs are submitted to the SPI in the background, therefore the fax job IDs are not populated.
+     *
+     * @param faxJobs
+     *            The fax jobs to submit
+     */
+    @Override
+    public void submitFaxJobs(FaxJob[] faxJobs) {
+        if (faxJobs == null || faxJobs.length == 0) {
+            throw new FaxValidationException("Fax jobs not provided.");
+        }
+
+        for (int index = 0; index < faxJobs.length; index++) {
+            this.queueFaxJob(faxJobs[index], null);
+        }
+    }
+
+    /**
+     * This function will add the fax job to the queue.<br>
+     * The fax job is submitted to the SPI in the background, therefore the fax job ID is not populated.<br>
+     * In case a fax job with the same idempotency key is already known by the queue, this function does nothing.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @param idempotencyKey
+     *            The idempotency key (null to generate a new key)
+     * @return The idempotency key
+     */
+    public String queueFaxJob(FaxJob faxJob, String idempotencyKey) {
+        if (this.shutdown) {
+            throw new FaxException("Queued fax client is shutdown.");
+        }
+
+        // validate input
+        File file = faxJob.getFile();
+        if ((file == null) || (!file.isFile())) {
+            throw new FaxException("Fax job file not provided or does not exist.");
+        }
+        if (faxJob.getTargetAddress() == null) {
+            throw new FaxException("Fax job target address not provided.");
+        }
+
+        // get idempotency key
+        String key = idempotencyKey;
+        if (key == null) {
+            key = UUID.randomUUID().toString();
+        }
+
+        Logger logger = this.getFaxClientSpi().getLogger();
+        boolean queued = false;
+        if (!this.JOURNAL.containsKey(key)) {
+            // the spool directory name is based on the key hash, so any key is a valid file name
+            File spoolDirectory = new File(this.SPOOL_DIRECTORY, QueuedFaxClient.getSpoolDirectoryName(key));
+
+            // the key is spooled by another caller in case the directory already exists
+            if (spoolDirectory.mkdir()) {
+                // copy document to spool directory (keep the original file name)
+                File spoolFile = new File(spoolDirectory, file.getName());
+                try {
+                    QueuedFaxClient.copyFile(file, spoolFile, this.SYNC);
+
+                    // create record
+                    JournalRecord record = new JournalRecord(key);
+                    record.setFilePath(spoolFile.getPath());
+                    record.setPriority(faxJob.getPriority());
+                    record.setTargetAddress(faxJob.getTargetAddress());
+                    record.setTargetName(faxJob.getTargetName());
+                    record.setSenderName(faxJob.getSenderName());
+                    record.setSenderFaxNumber(faxJob.getSenderFaxNumber());
+                    record.setSenderEmail(faxJob.getSenderEmail());
+                    if (faxJob instanceof FaxJobImpl) {
+                        record.getProperties().putAll(((FaxJobImpl) faxJob).getProperties());
+                    }
+
+                    // append to journal and queue
+                    queued = this.JOURNAL.appendIfAbsent(record);
+                    if (queued) {
+                        this.QUEUE.offer(new QueuedFaxJob(record, 0, 0));
+                    }
+                } catch (IOException exception) {
+                    throw new FaxException("Unable to copy fax job file to spool directory.", exception);
+                } finally {
+                    if (!queued) {
+                        QueuedFaxClient.deleteSpoolFile(spoolDirectory);
+                    }
+                }
+            }
+        }
+
+        if (!queued) {
+            logger.logInfo(new Object[] { "Fax job with idempotency key: ", key, " already queued." }, null);
+        }
+
+        return key;
+    }
+
+    /**
+     * This function returns the amount of fax jobs waiting to be submitted.
+     *
+     * @return The amount of queued fax jobs
+     */
+    public int getQueueSize() {
+        return this.JOURNAL.getPendingRecordsCount();
+    }
+
+    /**
+     * This function stops the worker threads and closes the journal.<br>
+     * Fax jobs which were not submitted will be submitted once a new queued fax client is created for the same queue
+     * directory.
+     */
+    public void shutdown() {
+        this.shutdown = true;
+        for (int index = 0; index < this.WORKERS.length; index++) {
+            this.WORKERS[index].interrupt();
+        }
+        for (int index = 0; index < this.WORKERS.length; index++) {
+            try {
+                this.WORKERS[index].join(5000);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        IOHelper.closeResource(this.JOURNAL);
+    }
+
+    /**
+     * This function submits the queued fax job to the fax client SPI.<br>
+     * In case of failure, the fax job is queued for retry in case the error is known to happen before the fax job
+     * reached the vendor, otherwise (or in case the max attempts were reached) the fax job is removed.
+     *
+     * @param queuedFaxJob
+     *            The queued fax job
+     */
+    protected void submitQueuedFaxJob(QueuedFaxJob queuedFaxJob) {
+        JournalRecord record = queuedFaxJob.getRecord();
+        String key = record.getKey();
+        Logger logger = this.getFaxClientSpi().getLogger();
+
+        // create SPI fax job
+        FaxJob faxJob = super.createFaxJob();
+        faxJob.setFilePath(record.getFilePath());
+        if (record.getPriority() != null) {
+            faxJob.setPriority(record.getPriority());
+        }
+        faxJob.setTargetAddress(record.getTargetAddress());
+        faxJob.setTargetName(record.getTargetName());
+        faxJob.setSenderName(record.getSenderName());
+        faxJob.setSenderFaxNumber(record.getSenderFaxNumber());
+        faxJob.setSenderEmail(record.getSenderEmail());
+        Iterator<Entry<Object, Object>> iterator = record.getProperties().entrySet().iterator();
+        Entry<Object, Object> entry = null;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            faxJob.setProperty(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        }
+
+        try {
+            // submit fax job
+            super.submitFaxJob(faxJob);
+
+            // acknowledge
+            this.JOURNAL.acknowledge(key);
+            this.deleteSpoolFile(record);
+
+            logger.logInfo(new Object[] { "Queued fax job: ", key, " submitted, fax job ID: ", faxJob.getID() },
+                    null);
+        } catch (RuntimeException exception) {
+            int attempts = queuedFaxJob.getAttempts() + 1;
+            boolean retry = SpiUtil.isSubmitRetrySafe(exception);
+            if ((!retry) || (attempts >= this.MAX_ATTEMPTS) || (this.shutdown)) {
+                // fax jobs which can be retried are kept in the journal on shutdown
+                if ((!retry) || (!this.shutdown)) {
+                    logger.logError(new Object[] { "Queued fax job: ", key, " failed after ",
+                            String.valueOf(attempts), " attempts (retry safe: ", String.valueOf(retry),
+                            "), moving document to: ", this.FAILED_DIRECTORY.getPath() }, exception);
+
+                    // remove from queue (keep the spool directory so the original file name is kept)
+                    this.JOURNAL.acknowledge(key);
+                    File file = new File(record.getFilePath());
+                    File spoolDirectory = file.getParentFile();
+                    if (spoolDirectory.equals(this.SPOOL_DIRECTORY)) {
+                        spoolDirectory = file;
+                    }
+                    if ((this.FAILED_DIRECTORY.exists()) || (this.FAILED_DIRECTORY.mkdirs())) {
+                        spoolDirectory.renameTo(new File(this.FAILED_DIRECTORY, spoolDirectory.getName()));
+                    }
+                }
+            } else {
+                long delay = this.RETRY_DELAY << Math.min(attempts - 1, 20);
+                logger.logDebug(new Object[] { "Queued fax job: ", key, " failed, retrying in ",
+                        String.valueOf(delay), " millies." }, exception);
+                this.QUEUE.offer(new QueuedFaxJob(record, attempts, delay));
+            }
+        }
+    }
+
+    /**
+     * This function deletes the spooled document of the provided record and its spool directory.
+     *
+     * @param record
+     *            The journal record
+     */
+    private void deleteSpoolFile(JournalRecord record) {
+        File file = new File(record.getFilePath());
+        File spoolDirectory = file.getParentFile();
+        if (spoolDirectory.equals(this.SPOOL_DIRECTORY)) {
+            spoolDirectory = file;
+        }
+        QueuedFaxClient.deleteSpoolFile(spoolDirectory);
+    }
+
+    /**
+     * This function deletes the provided spooled document or spool directory (including its documents).
+     *
+     * @param file
+     *            The spooled document or spool directory
+     */
+    private static void deleteSpoolFile(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (int index = 0; index < files.length; index++) {
+                files[index].delete();
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * This function returns the spool directory name of the provided idempotency key.<br>
+     * The name is the hex encoded SHA-256 hash of the key, so keys which are not valid file names (or contain path
+     * separators) can not be used to write outside the spool directory.
+     *
+     * @param key
+     *            The idempotency key
+     * @return The spool directory name
+     */
+    private static String getSpoolDirectoryName(String key) {
+        byte[] hash = null;
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            hash = messageDigest.digest(IOHelper.convertStringToBinary(key, "UTF-8"));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new FaxException("Unable to hash idempotency key.", exception);
+        }
+
+        StringBuilder buffer = new StringBuilder(hash.length * 2);
+        int value = 0;
+        for (int index = 0; index < hash.length; index++) {
+            value = hash[index] & 0xFF;
+            if (value < 16) {
+                buffer.append('0');
+            }
+            buffer.append(Integer.toHexString(value));
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * This function copies the source file to the target file.
+     *
+     * @param source
+     *            The source file
+     * @param target
+     *            The target file
+     * @param sync
+     *            True to force the target file content to the disk
+     * @throws IOException
+     *             Any IO exception
+     */
+    private static void copyFile(File source, File target, boolean sync) throws IOException {
+        FileInputStream inputStream = null;
+        FileOutputStream outputStream = null;
+        try {
+            inputStream = new FileInputStream(source);
+            outputStream = new FileOutputStream(target);
+            FileChannel sourceChannel = inputStream.getChannel();
+            FileChannel targetChannel = outputStream.getChannel();
+            long size = sourceChannel.size();
+            long position = 0;
+            while (position < size) {
+                position = position + targetChannel.transferFrom(sourceChannel, position, size - position);
+            }
+            if (sync) {
+                targetChannel.force(true);
+            }
+        } finally {
+            IOHelper.closeResource(inputStream);
+            IOHelper.closeResource(outputStream);
+        }
+    }
+
+    /**
+     * This class holds a queued fax job and its retry state.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class QueuedFaxJob implements Delayed {
+        /** The journal record */
+        private final JournalRecord RECORD;
+        /** The amount of failed attempts */
+        private final int ATTEMPTS;
+        /** The time (nanoseconds) the fax job can be submitted */
+        private final long SUBMIT_TIME;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param record
+         *            The journal record
+         * @param attempts
+         *            The amount of failed attempts
+         * @param delay
+         *            The delay in millies before the fax job can be submitted
+         */
+        public QueuedFaxJob(JournalRecord record, int attempts, long delay) {
+            super();
+
+            this.RECORD = record;
+            this.ATTEMPTS = attempts;
+            this.SUBMIT_TIME = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        }
+
+        /**
+         * This function returns the journal record.
+         *
+         * @return The journal record
+         */
+        public JournalRecord getRecord() {
+            return this.RECORD;
+        }
+
+        /**
+         * This function returns the amount of failed attempts.
+         *
+         * @return The amount of failed attempts
+         */
+        public int getAttempts() {
+            return this.ATTEMPTS;
+        }
+
+        /**
+         * This function returns the remaining delay.
+         *
+         * @param unit
+         *            The time unit
+         * @return The remaining delay
+         */
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.SUBMIT_TIME - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * This function compares the delays of the queued fax jobs.
+         *
+         * @param delayed
+         *            The other delayed object
+         * @return The compare result
+         */
+        public int compareTo(Delayed delayed) {
+            long diff = this.getDelay(TimeUnit.NANOSECONDS) - delayed.getDelay(TimeUnit.NANOSECONDS);
+            int result = 0;
+            if (diff < 0) {
+                result = -1;
+            } else if (diff > 0) {
+                result = 1;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * This worker submits the queued fax jobs until the fax client is shutdown.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class QueueWorker implements Runnable {
+        /** The fax client */
+        private final QueuedFaxClient FAX_CLIENT;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxClient
+         *            The fax client
+         */
+        public QueueWorker(QueuedFaxClient faxClient) {
+            super();
+
+            this.FAX_CLIENT = faxClient;
+        }
+
+        /**
+         * Submits the queued fax jobs.
+         */
+        public void run() {
+            QueuedFaxJob queuedFaxJob = null;
+            while (!this.FAX_CLIENT.shutdown) {
+                try {
+                    queuedFaxJob = this.FAX_CLIENT.QUEUE.take();
+                } catch (InterruptedException exception) {
+                    break;
+                }
+
+                this.FAX_CLIENT.submitQueuedFaxJob(queuedFaxJob);
+            }
+        }
+    }
+}
@@ -9,7 +9,7 @@ import org.fax4j.FaxMonitorEventListener;
  * Defines all the fax client actions and capabilities.
  *
  * @author Sagie Gur-Ari
- * @version 1.03
+ * @version 1.04
  * @since 0.33
  */
 public interface FaxClientActions extends ProviderImplementation {
@@ -29,6 +29,18 @@ public interface FaxClientActions extends ProviderImplementation {
      */
     void submitFaxJob(FaxJob faxJob);
 
+    /**
+     * This function will submit all the provided fax jobs.<br>
+     * Some SPIs submit the fax jobs in one batch (for example by reusing the same connection), others submit them one
+     * after the other.<br>
+     * In case one of the fax jobs could not be submitted, the remaining fax jobs are not submitted and the thrown
+     * exception will contain the index of the failed fax job.
+     *
+     * @param faxJobs
+     *            The fax jobs to submit
+     */
+    void submitFaxJobs(FaxJob[] faxJobs);
+
     /**
      * This function will suspend an existing fax job.
      *
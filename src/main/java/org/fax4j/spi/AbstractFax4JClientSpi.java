@@ -1,10 +1,17 @@
 package org.fax4j.spi;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
 import org.fax4j.FaxJobStatus;
 import org.fax4j.Provider;
 import org.fax4j.common.Fax4JProvider;
 import org.fax4j.common.Logger;
+import org.fax4j.util.ThreadPoolHelper;
+import org.fax4j.util.TokenBucket;
 
 /**
  * This class provides partial/common functionlity of the internal fax4j fax client service provider interface.<br>
@@ -27,13 +34,46 @@ import org.fax4j.common.Logger;
  * fax client.<br>
  * These properties enable to override the configuration of the lower 2 layers.<br>
  * <br>
- * For SPI specific configuration, see the relevant SPI class javadoc.
+ * For SPI specific configuration, see the relevant SPI class javadoc.<br>
+ * <br>
+ * When polling for fax job statuses, SPIs that support bulk status queries will fetch all statuses with a single
+ * request (see pollForFaxJobStatuesInBulk), otherwise the statuses are fetched one by one in parallel using a
+ * bounded thread pool.<br>
+ * In case rate limiting is enabled (see org.fax4j.spi.RateLimitFaxClientSpiInterceptor), the status polling requests
+ * share the rate limit of the get fax job status action.<br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.polling.pool.size</td>
+ * <td>The max amount of threads used to fetch the fax job statuses in parallel (1 for sequential polling)</td>
+ * <td>4</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
  *
  * @author Sagie Gur-Ari
- * @version 1.03
+ * @version 1.06
  * @since 0.17
  */
 public abstract class AbstractFax4JClientSpi extends AbstractFaxClientSpi {
+    /** The status polling thread pool */
+    private ExecutorService pollingExecutor;
+    /** The status polling thread pool size */
+    private int pollingPoolSize;
+    /** The status polling token buckets (null if status polling is not rate limited) */
+    private volatile TokenBucket[] statusPollingTokenBuckets;
+    /** The status polling pool size property key */
+    public static final String POLLING_POOL_SIZE_PROPERTY_KEY = "org.fax4j.spi.polling.pool.size";
+
     /**
      * This is the default constructor.
      */
@@ -69,7 +109,12 @@ public abstract class AbstractFax4JClientSpi extends AbstractFaxClientSpi {
     public final FaxJobStatus[] pollForFaxJobStatues(FaxJob[] faxJobs) {
         FaxJobStatus[] faxJobStatuses = null;
         if (faxJobs != null && faxJobs.length > 0 && this.isFaxMonitorEventsSupported()) {
+            FaxJobStatusCache faxJobStatusCache = this.getFaxJobStatusCache();
+            long requestVersion = faxJobStatusCache.getVersion();
             faxJobStatuses = this.pollForFaxJobStatuesImpl(faxJobs);
+
+            // share the poll results with the status lookups
+            faxJobStatusCache.putFaxJobStatuses(faxJobs, faxJobStatuses, requestVersion);
         }
 
         return faxJobStatuses;
@@ -136,7 +181,9 @@ public abstract class AbstractFax4JClientSpi extends AbstractFaxClientSpi {
     }
 
     /**
-     * This function polls the new statues for the provided fax jobs.
+     * This function polls the new statues for the provided fax jobs.<br>
+     * In case the SPI supports bulk status queries, all statuses are fetched in a single request, otherwise the
+     * statuses are fetched one by one (in parallel in case the polling pool size is bigger than 1).
      *
      * @param faxJobs
      *            The fax jobs to poll
@@ -146,13 +193,186 @@ public abstract class AbstractFax4JClientSpi extends AbstractFaxClientSpi {
         // get amount
         int amount = faxJobs.length;
 
-        // init array
-        FaxJobStatus[] faxJobStatuses = new FaxJobStatus[amount];
+        // try bulk query
+        FaxJobStatus[] faxJobStatuses = null;
+        try {
+            faxJobStatuses = this.pollForFaxJobStatuesInBulk(faxJobs);
+        } catch (RuntimeException exception) {
+            this.getLogger().logDebug(new Object[] { "Bulk fax job status query failed." }, exception);
+        }
+
+        if (faxJobStatuses == null || faxJobStatuses.length != amount) {
+            // init array
+            faxJobStatuses = new FaxJobStatus[amount];
+
+            // get pool
+            ExecutorService executor = null;
+            if (amount > 1) {
+                executor = this.getPollingExecutor();
+            }
+
+            if (executor == null) {
+                this.pollForFaxJobStatues(faxJobs, faxJobStatuses, 0, amount);
+            } else {
+                this.pollForFaxJobStatuesInParallel(executor, faxJobs, faxJobStatuses);
+            }
+        } else {
+            // set defaults
+            for (int index = 0; index < amount; index++) {
+                if (faxJobStatuses[index] == null) {
+                    faxJobStatuses[index] = FaxJobStatus.UNKNOWN;
+                }
+            }
+        }
+
+        return faxJobStatuses;
+    }
+
+    /**
+     * This function polls the new statues for the provided fax jobs using a single bulk query.<br>
+     * SPIs which support bulk status queries should override this function, by default this function returns null
+     * which means bulk status queries are not supported and the statuses will be fetched one by one.
+     *
+     * @param faxJobs
+     *            The fax jobs to poll
+     * @return The fax job statues (null if bulk queries are not supported)
+     */
+    protected FaxJobStatus[] pollForFaxJobStatuesInBulk(FaxJob[] faxJobs) {
+        return null;
+    }
+
+    /**
+     * This function returns the status polling thread pool.<br>
+     * In case the polling pool size is not bigger than 1, this function returns null.
+     *
+     * @return The status polling thread pool
+     */
+    protected ExecutorService getPollingExecutor() {
+        synchronized (this) {
+            if (this.pollingPoolSize == 0) {
+                // get pool size
+                String value = this.getConfigurationValue(AbstractFax4JClientSpi.POLLING_POOL_SIZE_PROPERTY_KEY);
+                this.pollingPoolSize = Math.max(ThreadPoolHelper.parseSize(value, 1), 1);
+
+                if (this.pollingPoolSize > 1) {
+                    // create pool
+                    this.pollingExecutor = ThreadPoolHelper.createThreadPool("Fax Status Poller",
+                            this.pollingPoolSize, this.pollingPoolSize);
+                }
+            }
+        }
+
+        return this.pollingExecutor;
+    }
+
+    /**
+     * This function sets the token buckets used to rate limit the status polling requests.<br>
+     * This is an internal framework method and should not be invoked by classes outside the fax4j framework.
+     *
+     * @param tokenBuckets
+     *            The token buckets (null to disable status polling rate limiting)
+     */
+    public void setStatusPollingTokenBuckets(TokenBucket[] tokenBuckets) {
+        this.statusPollingTokenBuckets = tokenBuckets;
+    }
+
+    /**
+     * This function acquires a token from each of the status polling token buckets and waits for them if needed.<br>
+     * This function should be invoked before each status polling request sent to the fax server.
+     *
+     * @throws FaxException
+     *             In case a token could not be acquired
+     */
+    protected void acquireStatusPollingPermit() {
+        TokenBucket[] tokenBuckets = this.statusPollingTokenBuckets;
+        if (tokenBuckets != null) {
+            for (int index = 0; index < tokenBuckets.length; index++) {
+                tokenBuckets[index].acquire();
+            }
+        }
+    }
+
+    /**
+     * This function splits the provided fax jobs between the polling pool threads and the current thread and fetches
+     * their statuses in parallel.
+     *
+     * @param executor
+     *            The status polling thread pool
+     * @param faxJobs
+     *            The fax jobs to poll
+     * @param faxJobStatuses
+     *            The fax job statues array to populate
+     */
+    protected void pollForFaxJobStatuesInParallel(ExecutorService executor, FaxJob[] faxJobs,
+            FaxJobStatus[] faxJobStatuses) {
+        // get partitions
+        int amount = faxJobs.length;
+        int partitions = Math.min(this.pollingPoolSize, amount);
+        int partitionSize = (amount + partitions - 1) / partitions;
+
+        // submit all partitions except the first one to the pool
+        Future<?>[] futures = new Future<?>[partitions];
+        Runnable task = null;
+        int fromIndex = 0;
+        int toIndex = 0;
+        for (int index = 1; index < partitions; index++) {
+            fromIndex = index * partitionSize;
+            toIndex = Math.min(fromIndex + partitionSize, amount);
+            if (fromIndex < toIndex) {
+                task = new FaxJobStatusPollerTask(this, faxJobs, faxJobStatuses, fromIndex, toIndex);
+                try {
+                    futures[index] = executor.submit(task);
+                } catch (RejectedExecutionException exception) {
+                    // pool is busy, poll in current thread
+                    task.run();
+                }
+            }
+        }
+
+        // poll first partition in current thread
+        this.pollForFaxJobStatues(faxJobs, faxJobStatuses, 0, Math.min(partitionSize, amount));
+
+        // wait for the other partitions
+        final Logger logger = this.getLogger();
+        for (int index = 1; index < partitions; index++) {
+            if (futures[index] != null) {
+                try {
+                    futures[index].get();
+                } catch (InterruptedException exception) {
+                    logger.logDebug(null, exception);
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException exception) {
+                    logger.logDebug(null, exception);
+                }
+            }
+        }
+
+        // set defaults for statuses not fetched
+        for (int index = 0; index < amount; index++) {
+            if (faxJobStatuses[index] == null) {
+                faxJobStatuses[index] = FaxJobStatus.UNKNOWN;
+            }
+        }
+    }
 
+    /**
+     * This function polls the new statues for the provided fax jobs one by one.
+     *
+     * @param faxJobs
+     *            The fax jobs to poll
+     * @param faxJobStatuses
+     *            The fax job statues array to populate
+     * @param fromIndex
+     *            The first fax job index (inclusive)
+     * @param toIndex
+     *            The last fax job index (exclusive)
+     */
+    protected void pollForFaxJobStatues(FaxJob[] faxJobs, FaxJobStatus[] faxJobStatuses, int fromIndex,
+            int toIndex) {
         FaxJob faxJob = null;
         FaxJobStatus faxJobStatus = null;
         final Logger logger = this.getLogger();
-        for (int index = 0; index < amount; index++) {
+        for (int index = fromIndex; index < toIndex; index++) {
             // get next fax job
             faxJob = faxJobs[index];
 
@@ -161,7 +381,8 @@ public abstract class AbstractFax4JClientSpi extends AbstractFaxClientSpi {
 
             if (faxJob != null) {
                 try {
-                    faxJobStatus = this.getFaxJobStatus(faxJob);
+                    this.acquireStatusPollingPermit();
+                    faxJobStatus = this.refreshFaxJobStatus(faxJob);
                 } catch (RuntimeException exception) {
                     logger.logDebug(null, exception);
                 }
@@ -175,7 +396,58 @@ public abstract class AbstractFax4JClientSpi extends AbstractFaxClientSpi {
             // put in output array
             faxJobStatuses[index] = faxJobStatus;
         }
+    }
 
-        return faxJobStatuses;
+    /**
+     * This class fetches the statuses of a part of the polled fax jobs.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class FaxJobStatusPollerTask implements Runnable {
+        /** The fax client SPI */
+        private final AbstractFax4JClientSpi FAX_CLIENT_SPI;
+        /** The fax jobs */
+        private final FaxJob[] FAX_JOBS;
+        /** The fax job statuses */
+        private final FaxJobStatus[] FAX_JOB_STATUSES;
+        /** The first fax job index */
+        private final int FROM_INDEX;
+        /** The last fax job index */
+        private final int TO_INDEX;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxClientSpi
+         *            The fax client SPI
+         * @param faxJobs
+         *            The fax jobs to poll
+         * @param faxJobStatuses
+         *            The fax job statues array to populate
+         * @param fromIndex
+         *            The first fax job index (inclusive)
+         * @param toIndex
+         *            The last fax job index (exclusive)
+         */
+        protected FaxJobStatusPollerTask(AbstractFax4JClientSpi faxClientSpi, FaxJob[] faxJobs,
+                FaxJobStatus[] faxJobStatuses, int fromIndex, int toIndex) {
+            super();
+
+            this.FAX_CLIENT_SPI = faxClientSpi;
+            this.FAX_JOBS = faxJobs;
+            this.FAX_JOB_STATUSES = faxJobStatuses;
+            this.FROM_INDEX = fromIndex;
+            this.TO_INDEX = toIndex;
+        }
+
+        /**
+         * Fetches the fax job statuses.
+         */
+        public void run() {
+            this.FAX_CLIENT_SPI.pollForFaxJobStatues(this.FAX_JOBS, this.FAX_JOB_STATUSES, this.FROM_INDEX,
+                    this.TO_INDEX);
+        }
     }
 }
@@ -1,9 +1,11 @@
 package org.fax4j.spi;
 
 import java.io.File;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArraySet;
 import org.fax4j.FaxClientActionEvent;
 import org.fax4j.FaxClientActionEvent.FaxClientActionEventID;
 import org.fax4j.FaxClientActionEventListener;
@@ -14,9 +16,13 @@ import org.fax4j.FaxJobStatus;
 import org.fax4j.FaxMonitorEvent;
 import org.fax4j.FaxMonitorEvent.FaxMonitorEventID;
 import org.fax4j.FaxMonitorEventListener;
+import org.fax4j.FaxUnsupportedOperationException;
+import org.fax4j.FaxValidationException;
 import org.fax4j.common.ConfigurationHolder;
 import org.fax4j.common.ConfigurationHolderImpl;
 import org.fax4j.common.Logger;
+import org.fax4j.spi.FaxEventDispatcher.OverflowPolicy;
+import org.fax4j.util.ThreadPoolHelper;
 
 /**
  * This class provides partial/common functionlity of the fax client service provider interface.<br>
@@ -37,10 +43,73 @@ import org.fax4j.common.Logger;
  * fax client.<br>
  * These properties enable to override the configuration of the lower 2 layers.<br>
  * <br>
- * For SPI specific configuration, see the relevant SPI class javadoc.
+ * For SPI specific configuration, see the relevant SPI class javadoc.<br>
+ * <br>
+ * By default, the fax client action and fax monitor event listeners are invoked by the thread which fired the event
+ * (the submitting thread or the fax job monitor thread).<br>
+ * In case event dispatch threads are configured, the events are queued to a bounded ring buffer and the listeners are
+ * invoked by the dispatch threads (see org.fax4j.spi.FaxEventDispatcher). The events of a single fax job are always
+ * delivered in the order they were fired. Dispatch threads are started on demand and released once idle.<br>
+ * The fax job statuses returned by getFaxJobStatus and by the fax monitor polling cycles are cached for a short time
+ * and concurrent status lookups of the same fax job are coalesced into a single request (see
+ * org.fax4j.spi.FaxJobStatusCache).<br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.event.dispatch.threads</td>
+ * <td>The amount of threads used to invoke the event listeners (0 to invoke the listeners by the firing thread)</td>
+ * <td>0</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.event.dispatch.queue.size</td>
+ * <td>The max amount of pending events per dispatch thread</td>
+ * <td>1000</td>
+ * <td>1000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.event.dispatch.overflow.policy</td>
+ * <td>The policy used once the pending events queue is full: BLOCK (wait for free space), DROP_NEWEST (drop the new
+ * event) or DROP_OLDEST (drop the oldest pending event)</td>
+ * <td>BLOCK</td>
+ * <td>BLOCK</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.status.cache.ttl</td>
+ * <td>The time in millies in which non terminal fax job statuses are cached (0 to disable)</td>
+ * <td>1000</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.status.cache.terminal.ttl</td>
+ * <td>The time in millies in which terminal fax job statuses (ERROR) are cached (0 to disable)</td>
+ * <td>60000</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.status.cache.max.size</td>
+ * <td>The max amount of cached fax job statuses</td>
+ * <td>10000</td>
+ * <td>10000</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
  *
  * @author Sagie Gur-Ari
- * @version 1.15
+ * @version 1.19
  * @since 0.1
  */
 public abstract class AbstractFaxClientSpi implements FaxClientSpi {
@@ -56,6 +125,23 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
     private Set<FaxClientActionEventListener> faxClientActionEventListeners;
     /** The fax monitor event listeners */
     private Set<FaxMonitorEventListener> faxMonitorEventListeners;
+    /** The fax event dispatcher (null if events are dispatched by the firing thread) */
+    private FaxEventDispatcher faxEventDispatcher;
+    /** The fax job status cache */
+    private FaxJobStatusCache faxJobStatusCache;
+    /** The event dispatch threads property key */
+    public static final String EVENT_DISPATCH_THREADS_PROPERTY_KEY = "org.fax4j.spi.event.dispatch.threads";
+    /** The event dispatch queue size property key */
+    public static final String EVENT_DISPATCH_QUEUE_SIZE_PROPERTY_KEY = "org.fax4j.spi.event.dispatch.queue.size";
+    /** The event dispatch overflow policy property key */
+    public static final String EVENT_DISPATCH_OVERFLOW_POLICY_PROPERTY_KEY =
+            "org.fax4j.spi.event.dispatch.overflow.policy";
+    /** The status cache TTL property key */
+    public static final String STATUS_CACHE_TTL_PROPERTY_KEY = "org.fax4j.spi.status.cache.ttl";
+    /** The status cache terminal statuses TTL property key */
+    public static final String STATUS_CACHE_TERMINAL_TTL_PROPERTY_KEY = "org.fax4j.spi.status.cache.terminal.ttl";
+    /** The status cache max size property key */
+    public static final String STATUS_CACHE_MAX_SIZE_PROPERTY_KEY = "org.fax4j.spi.status.cache.max.size";
 
     /**
      * This class holds the fax job extended properties.
@@ -139,14 +225,57 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         // get fax job monitor
         this.spiFaxJobMonitor = faxJobMonitor;
 
-        // init listeners data structures
-        this.faxClientActionEventListeners = new HashSet<FaxClientActionEventListener>();
-        this.faxMonitorEventListeners = new HashSet<FaxMonitorEventListener>();
+        // init listeners data structures (copy on write, events are fired without locking)
+        this.faxClientActionEventListeners = new CopyOnWriteArraySet<FaxClientActionEventListener>();
+        this.faxMonitorEventListeners = new CopyOnWriteArraySet<FaxMonitorEventListener>();
+
+        // create event dispatcher
+        int threads = ThreadPoolHelper.parseSize(
+                this.getConfigurationValue(AbstractFaxClientSpi.EVENT_DISPATCH_THREADS_PROPERTY_KEY), 0);
+        if (threads > 0) {
+            int queueSize = ThreadPoolHelper.parseSize(
+                    this.getConfigurationValue(AbstractFaxClientSpi.EVENT_DISPATCH_QUEUE_SIZE_PROPERTY_KEY), 1000);
+            String value = this.getConfigurationValue(AbstractFaxClientSpi.EVENT_DISPATCH_OVERFLOW_POLICY_PROPERTY_KEY);
+            OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+            if (value != null) {
+                try {
+                    overflowPolicy = OverflowPolicy.valueOf(value.toUpperCase());
+                } catch (IllegalArgumentException exception) {
+                    throw new FaxException("Invalid event dispatch overflow policy: " + value, exception);
+                }
+            }
+            this.faxEventDispatcher = new FaxEventDispatcher(threads, queueSize, overflowPolicy, this.spiLogger);
+        }
+
+        // create status cache
+        this.faxJobStatusCache = this.createFaxJobStatusCache();
 
         // initialize
         this.initializeImpl();
     }
 
+    /**
+     * This function creates and returns the fax job status cache.
+     *
+     * @return The fax job status cache
+     */
+    protected FaxJobStatusCache createFaxJobStatusCache() {
+        long ttl = 0;
+        String value = this.getConfigurationValue(AbstractFaxClientSpi.STATUS_CACHE_TTL_PROPERTY_KEY);
+        if (value != null) {
+            ttl = Long.parseLong(value);
+        }
+        long terminalTTL = 0;
+        value = this.getConfigurationValue(AbstractFaxClientSpi.STATUS_CACHE_TERMINAL_TTL_PROPERTY_KEY);
+        if (value != null) {
+            terminalTTL = Long.parseLong(value);
+        }
+        int maxSize = ThreadPoolHelper
+                .parseSize(this.getConfigurationValue(AbstractFaxClientSpi.STATUS_CACHE_MAX_SIZE_PROPERTY_KEY), 10000);
+
+        return new FaxJobStatusCache(ttl, terminalTTL, maxSize);
+    }
+
     /**
      * Returns the internal logger.
      *
@@ -178,6 +307,22 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         return null;
     }
 
+    /**
+     * Returns the vendor key which identifies the fax service used by this SPI.<br>
+     * The vendor key is used to share state (such as circuit breakers) between fax client SPIs of the same vendor and
+     * is based on the SPI type used to create this SPI.
+     *
+     * @return The vendor key
+     */
+    public String getVendorKey() {
+        String vendorKey = this.getConfigurationValue(FaxClientSpiFactory.SPI_TYPE_PROPERTY_KEY);
+        if (vendorKey == null) {
+            vendorKey = this.getClass().getSimpleName();
+        }
+
+        return vendorKey;
+    }
+
     /**
      * Returns the configuration.
      *
@@ -256,30 +401,87 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
      *            The fax job object containing the needed information
      */
     public void submitFaxJob(FaxJob faxJob) {
+        // validate fax job
+        this.invokeSubmitFaxJobValidation(faxJob);
+
+        // invoke action
+        this.submitFaxJobImpl(faxJob);
+
+        // fire event and start monitoring
+        this.invokeSubmitFaxJobCompletion(faxJob);
+    }
+
+    /**
+     * This function will submit all the provided fax jobs.<br>
+     * All fax jobs are validated before the first fax job is submitted, the fax jobs are then submitted one after the
+     * other (SPIs which support batch submission override this function).<br>
+     * In case one of the fax jobs could not be submitted, the remaining fax jobs are not submitted and the thrown
+     * exception will contain the index of the failed fax job (the fax jobs submitted before the failure are still
+     * completed, which fires their submit events and starts monitoring them).
+     *
+     * @param faxJobs
+     *            The fax jobs to submit
+     */
+    public void submitFaxJobs(FaxJob[] faxJobs) {
+        if (faxJobs == null || faxJobs.length == 0) {
+            throw new FaxValidationException("Fax jobs not provided.");
+        }
+
+        // validate fax jobs
+        for (int index = 0; index < faxJobs.length; index++) {
+            this.invokeSubmitFaxJobValidation(faxJobs[index]);
+        }
+
+        for (int index = 0; index < faxJobs.length; index++) {
+            // invoke action
+            try {
+                this.submitFaxJobImpl(faxJobs[index]);
+            } catch (RuntimeException exception) {
+                throw new FaxException("Unable to submit fax job: " + (index + 1) + " out of: " + faxJobs.length,
+                        exception);
+            }
+
+            // fire event and start monitoring
+            this.invokeSubmitFaxJobCompletion(faxJobs[index]);
+        }
+    }
+
+    /**
+     * This function invokes the validation of a fax job before it is submitted.
+     *
+     * @param faxJob
+     *            The fax job
+     */
+    protected void invokeSubmitFaxJobValidation(FaxJob faxJob) {
         // validate fax job
         this.invokeFaxJobNullValidation(faxJob);
 
         // validate fax job target address
         String targetAddress = faxJob.getTargetAddress();
         if (targetAddress == null || targetAddress.length() == 0) {
-            throw new FaxException("Fax job target address not provided.");
+            throw new FaxValidationException("Fax job target address not provided.");
         }
 
         // validate fax job file
         File file = faxJob.getFile();
         if (file == null) {
-            throw new FaxException("Fax job file not provided.");
+            throw new FaxValidationException("Fax job file not provided.");
         } else if (!file.exists()) {
-            throw new FaxException("Fax job file " + file.getPath() + " does not exist.");
+            throw new FaxValidationException("Fax job file " + file.getPath() + " does not exist.");
         } else if (!file.isFile()) {
-            throw new FaxException("Fax job file " + file.getPath() + " is not a file.");
+            throw new FaxValidationException("Fax job file " + file.getPath() + " is not a file.");
         } else if (file.length() == 0) {
-            throw new FaxException("Fax job file " + file.getPath() + " is empty.");
+            throw new FaxValidationException("Fax job file " + file.getPath() + " is empty.");
         }
+    }
 
-        // invoke action
-        this.submitFaxJobImpl(faxJob);
-
+    /**
+     * This function fires the submit event and starts monitoring the fax job after it was submitted.
+     *
+     * @param faxJob
+     *            The submitted fax job
+     */
+    protected void invokeSubmitFaxJobCompletion(FaxJob faxJob) {
         // fire event
         this.fireFaxEvent(FaxClientActionEventID.SUBMIT_FAX_JOB, faxJob);
 
@@ -288,7 +490,7 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
             synchronized (this.faxMonitorEventListeners) {
                 if (!this.faxMonitorEventListeners.isEmpty()) {
                     // monitor the submitted fax job
-                    this.spiFaxJobMonitor.monitorFaxJob(this, faxJob);
+                    this.monitorFaxJob(faxJob);
                 }
             }
         }
@@ -307,6 +509,9 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         // invoke action
         this.suspendFaxJobImpl(faxJob);
 
+        // the cached status is no longer valid
+        this.faxJobStatusCache.invalidate(faxJob);
+
         // fire event
         this.fireFaxEvent(FaxClientActionEventID.SUSPEND_FAX_JOB, faxJob);
     }
@@ -324,6 +529,9 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         // invoke action
         this.resumeFaxJobImpl(faxJob);
 
+        // the cached status is no longer valid
+        this.faxJobStatusCache.invalidate(faxJob);
+
         // fire event
         this.fireFaxEvent(FaxClientActionEventID.RESUME_FAX_JOB, faxJob);
     }
@@ -341,6 +549,9 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         // invoke action
         this.cancelFaxJobImpl(faxJob);
 
+        // the cached status is no longer valid
+        this.faxJobStatusCache.invalidate(faxJob);
+
         // fire event
         this.fireFaxEvent(FaxClientActionEventID.CANCEL_FAX_JOB, faxJob);
     }
@@ -359,12 +570,38 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         // validate fax job ID
         this.invokeFaxJobIDValidation(faxJob);
 
-        // invoke action
-        FaxJobStatus faxJobStatus = this.getFaxJobStatusImpl(faxJob);
+        // invoke action (cached and coalesced with concurrent lookups of the same fax job)
+        FaxJobStatus faxJobStatus = this.faxJobStatusCache.getFaxJobStatus(faxJob,
+                new FaxJobStatusLoader(this, faxJob));
 
         return faxJobStatus;
     }
 
+    /**
+     * This function fetches the fax job status from the fax service provider (ignoring the cached status) and updates
+     * the fax job status cache.<br>
+     * Concurrent lookups of the same fax job are still coalesced into a single request.
+     *
+     * @param faxJob
+     *            The fax job object
+     * @return The fax job status
+     */
+    protected FaxJobStatus refreshFaxJobStatus(FaxJob faxJob) {
+        // validate fax job ID
+        this.invokeFaxJobIDValidation(faxJob);
+
+        return this.faxJobStatusCache.refreshFaxJobStatus(faxJob, new FaxJobStatusLoader(this, faxJob));
+    }
+
+    /**
+     * This function returns the fax job status cache.
+     *
+     * @return The fax job status cache
+     */
+    protected FaxJobStatusCache getFaxJobStatusCache() {
+        return this.faxJobStatusCache;
+    }
+
     /**
      * This function adds the fax client action event listener to the internal fax event listeners data structure.
      *
@@ -454,10 +691,39 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
     private synchronized void checkAndStopMonitoringAllFaxJobs() {
         // stop fax job monitoring for this SPI
         if (this.isFaxMonitorEventsSupported() && this.faxMonitorEventListeners.size() == 0) {
-            this.spiFaxJobMonitor.stopMonitoringAllFaxJobs(this);
+            this.stopMonitoringAllFaxJobs();
         }
     }
 
+    /**
+     * This function starts monitoring the provided fax job.<br>
+     * By default the fax job is registered in the fax job monitor, however SPIs which are notified of the fax job
+     * status changes by other means (for example callbacks) may override this function.
+     *
+     * @param faxJob
+     *            The fax job to monitor
+     */
+    protected void monitorFaxJob(FaxJob faxJob) {
+        this.spiFaxJobMonitor.monitorFaxJob(this, faxJob);
+    }
+
+    /**
+     * This function stops monitoring all the fax jobs of this SPI.<br>
+     * By default the fax jobs are removed from the fax job monitor.
+     */
+    protected void stopMonitoringAllFaxJobs() {
+        this.spiFaxJobMonitor.stopMonitoringAllFaxJobs(this);
+    }
+
+    /**
+     * This function returns the fax event dispatcher.
+     *
+     * @return The fax event dispatcher (null if events are dispatched by the firing thread)
+     */
+    protected FaxEventDispatcher getFaxEventDispatcher() {
+        return this.faxEventDispatcher;
+    }
+
     /**
      * This function fires a new fax event.
      *
@@ -467,21 +733,63 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
      *            The fax job
      */
     protected void fireFaxEvent(FaxClientActionEventID id, FaxJob faxJob) {
-        // create new fax event
-        FaxClientActionEvent event = new FaxClientActionEvent(id, faxJob);
+        if (!this.faxClientActionEventListeners.isEmpty()) {
+            // create new fax event
+            FaxClientActionEvent event = new FaxClientActionEvent(id, faxJob);
 
-        // get listeners
-        FaxClientActionEventListener[] listeners = null;
-        synchronized (this.faxClientActionEventListeners) {
-            listeners = this.faxClientActionEventListeners
-                    .toArray(new FaxClientActionEventListener[this.faxClientActionEventListeners.size()]);
+            // get listeners (the iterator holds a snapshot of the copy on write set)
+            Iterator<FaxClientActionEventListener> listeners = this.faxClientActionEventListeners.iterator();
+
+            if (this.faxEventDispatcher == null) {
+                AbstractFaxClientSpi.invokeFaxClientActionEventListeners(id, event, listeners);
+            } else {
+                this.faxEventDispatcher.dispatch(faxJob, new FaxClientActionEventTask(id, event, listeners));
+            }
+        }
+    }
+
+    /**
+     * This function fires a new fax event.
+     *
+     * @param id
+     *            The fax event ID
+     * @param faxJob
+     *            The fax job
+     * @param faxJobStatus
+     *            The fax job status
+     */
+    protected void fireFaxEvent(FaxMonitorEventID id, FaxJob faxJob, FaxJobStatus faxJobStatus) {
+        if (!this.faxMonitorEventListeners.isEmpty()) {
+            // create new fax event
+            FaxMonitorEvent event = new FaxMonitorEvent(id, faxJob, faxJobStatus);
+
+            // get listeners (the iterator holds a snapshot of the copy on write set)
+            Iterator<FaxMonitorEventListener> listeners = this.faxMonitorEventListeners.iterator();
+
+            if (this.faxEventDispatcher == null) {
+                AbstractFaxClientSpi.invokeFaxMonitorEventListeners(id, event, listeners);
+            } else {
+                this.faxEventDispatcher.dispatch(faxJob, new FaxMonitorEventTask(id, event, listeners));
+            }
         }
+    }
 
-        int amount = listeners.length;
+    /**
+     * This function invokes the fax client action event listeners.
+     *
+     * @param id
+     *            The fax event ID
+     * @param event
+     *            The fax event
+     * @param listeners
+     *            The listeners
+     */
+    protected static void invokeFaxClientActionEventListeners(FaxClientActionEventID id, FaxClientActionEvent event,
+            Iterator<FaxClientActionEventListener> listeners) {
         FaxClientActionEventListener listener = null;
-        for (int index = 0; index < amount; index++) {
+        while (listeners.hasNext()) {
             // get next element
-            listener = listeners[index];
+            listener = listeners.next();
 
             // fire event
             if (listener != null) {
@@ -509,31 +817,21 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
     }
 
     /**
-     * This function fires a new fax event.
+     * This function invokes the fax monitor event listeners.
      *
      * @param id
      *            The fax event ID
-     * @param faxJob
-     *            The fax job
-     * @param faxJobStatus
-     *            The fax job status
+     * @param event
+     *            The fax event
+     * @param listeners
+     *            The listeners
      */
-    protected void fireFaxEvent(FaxMonitorEventID id, FaxJob faxJob, FaxJobStatus faxJobStatus) {
-        // create new fax event
-        FaxMonitorEvent event = new FaxMonitorEvent(id, faxJob, faxJobStatus);
-
-        // get listeners
-        FaxMonitorEventListener[] listeners = null;
-        synchronized (this.faxClientActionEventListeners) {
-            listeners = this.faxMonitorEventListeners
-                    .toArray(new FaxMonitorEventListener[this.faxMonitorEventListeners.size()]);
-        }
-
-        int amount = listeners.length;
+    protected static void invokeFaxMonitorEventListeners(FaxMonitorEventID id, FaxMonitorEvent event,
+            Iterator<FaxMonitorEventListener> listeners) {
         FaxMonitorEventListener listener = null;
-        for (int index = 0; index < amount; index++) {
+        while (listeners.hasNext()) {
             // get next element
-            listener = listeners[index];
+            listener = listeners.next();
 
             // fire event
             if (listener != null) {
@@ -556,7 +854,7 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
      */
     protected void invokeFaxJobNullValidation(FaxJob faxJob) {
         if (faxJob == null) {
-            throw new FaxException("Fax job not provided.");
+            throw new FaxValidationException("Fax job not provided.");
         }
     }
 
@@ -573,7 +871,7 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
         // validate fax job ID
         String faxJobID = faxJob.getID();
         if (faxJobID == null || faxJobID.length() == 0) {
-            throw new FaxException("Fax job ID not provided.");
+            throw new FaxValidationException("Fax job ID not provided.");
         }
     }
 
@@ -581,7 +879,7 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
      * This function throws unsupported operation exception.
      */
     protected void throwUnsupportedException() {
-        throw new FaxException("Operation not supported.");
+        throw new FaxUnsupportedOperationException("Operation not supported.");
     }
 
     /**
@@ -648,4 +946,126 @@ public abstract class AbstractFaxClientSpi implements FaxClientSpi {
      * @return The fax job status
      */
     protected abstract FaxJobStatus getFaxJobStatusImpl(FaxJob faxJob);
+
+    /**
+     * This task invokes the fax client action event listeners on behalf of the fax event dispatcher.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class FaxClientActionEventTask implements Runnable {
+        /** The fax event ID */
+        private final FaxClientActionEventID ID;
+        /** The fax event */
+        private final FaxClientActionEvent EVENT;
+        /** The listeners */
+        private final Iterator<FaxClientActionEventListener> LISTENERS;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param id
+         *            The fax event ID
+         * @param event
+         *            The fax event
+         * @param listeners
+         *            The listeners
+         */
+        public FaxClientActionEventTask(FaxClientActionEventID id, FaxClientActionEvent event,
+                Iterator<FaxClientActionEventListener> listeners) {
+            super();
+
+            this.ID = id;
+            this.EVENT = event;
+            this.LISTENERS = listeners;
+        }
+
+        /**
+         * Invokes the listeners.
+         */
+        public void run() {
+            AbstractFaxClientSpi.invokeFaxClientActionEventListeners(this.ID, this.EVENT, this.LISTENERS);
+        }
+    }
+
+    /**
+     * This task invokes the fax monitor event listeners on behalf of the fax event dispatcher.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class FaxMonitorEventTask implements Runnable {
+        /** The fax event ID */
+        private final FaxMonitorEventID ID;
+        /** The fax event */
+        private final FaxMonitorEvent EVENT;
+        /** The listeners */
+        private final Iterator<FaxMonitorEventListener> LISTENERS;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param id
+         *            The fax event ID
+         * @param event
+         *            The fax event
+         * @param listeners
+         *            The listeners
+         */
+        public FaxMonitorEventTask(FaxMonitorEventID id, FaxMonitorEvent event,
+                Iterator<FaxMonitorEventListener> listeners) {
+            super();
+
+            this.ID = id;
+            this.EVENT = event;
+            this.LISTENERS = listeners;
+        }
+
+        /**
+         * Invokes the listeners.
+         */
+        public void run() {
+            AbstractFaxClientSpi.invokeFaxMonitorEventListeners(this.ID, this.EVENT, this.LISTENERS);
+        }
+    }
+
+    /**
+     * This class fetches the fax job status for the fax job status cache.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class FaxJobStatusLoader implements Callable<FaxJobStatus> {
+        /** The fax client SPI */
+        private final AbstractFaxClientSpi FAX_CLIENT_SPI;
+        /** The fax job */
+        private final FaxJob FAX_JOB;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxClientSpi
+         *            The fax client SPI
+         * @param faxJob
+         *            The fax job
+         */
+        protected FaxJobStatusLoader(AbstractFaxClientSpi faxClientSpi, FaxJob faxJob) {
+            super();
+
+            this.FAX_CLIENT_SPI = faxClientSpi;
+            this.FAX_JOB = faxJob;
+        }
+
+        /**
+         * Fetches the fax job status.
+         *
+         * @return The fax job status
+         */
+        public FaxJobStatus call() {
+            return this.FAX_CLIENT_SPI.getFaxJobStatusImpl(this.FAX_JOB);
+        }
+    }
 }
@@ -1,6 +1,11 @@
 package org.fax4j.spi;
 
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.fax4j.FaxException;
+import org.fax4j.common.FaxActionType;
 import org.fax4j.common.Logger;
 
 /**
@@ -48,15 +53,28 @@ import org.fax4j.common.Logger;
  * <br>
  * 
  * @author Sagie Gur-Ari
- * @version 1.02
+ * @version 1.03
  * @since 0.17
  */
 public abstract class AbstractFaxClientSpiInterceptor implements FaxClientSpiInterceptor {
+    /** The fax client SPI method name to fax action type mapping */
+    private static final Map<String, FaxActionType> METHOD_ACTION_TYPES;
     /** The initialized flag */
     private boolean initialized;
     /** The fax client SPI */
     private FaxClientSpi faxClientSpiInstance;
 
+    static {
+        Map<String, FaxActionType> methodActionTypes = new HashMap<String, FaxActionType>();
+        methodActionTypes.put("submitFaxJob", FaxActionType.SUBMIT_FAX_JOB);
+        methodActionTypes.put("submitFaxJobs", FaxActionType.SUBMIT_FAX_JOB);
+        methodActionTypes.put("suspendFaxJob", FaxActionType.SUSPEND_FAX_JOB);
+        methodActionTypes.put("resumeFaxJob", FaxActionType.RESUME_FAX_JOB);
+        methodActionTypes.put("cancelFaxJob", FaxActionType.CANCEL_FAX_JOB);
+        methodActionTypes.put("getFaxJobStatus", FaxActionType.GET_FAX_JOB_STATUS);
+        METHOD_ACTION_TYPES = Collections.unmodifiableMap(methodActionTypes);
+    }
+
     /**
      * This is the default constructor.
      */
@@ -98,6 +116,23 @@ public abstract class AbstractFaxClientSpiInterceptor implements FaxClientSpiInt
         return this.faxClientSpiInstance;
     }
 
+    /**
+     * This function returns the vendor key of the fax client SPI (used as the default name of shared interceptor
+     * state).
+     * 
+     * @return The vendor key
+     */
+    protected String getVendorKey() {
+        String vendorKey = null;
+        if (this.faxClientSpiInstance instanceof AbstractFaxClientSpi) {
+            vendorKey = ((AbstractFaxClientSpi) this.faxClientSpiInstance).getVendorKey();
+        } else {
+            vendorKey = this.faxClientSpiInstance.getClass().getSimpleName();
+        }
+
+        return vendorKey;
+    }
+
     /**
      * Returns the value from the SPI configuration based on the provided configuration key.
      * 
@@ -122,4 +157,15 @@ public abstract class AbstractFaxClientSpiInterceptor implements FaxClientSpiInt
      * This function initializes the fax client SPI interceptor.
      */
     protected abstract void initializeImpl();
-}
\ No newline at end of file
+
+    /**
+     * This function returns the fax action type invoked by the provided fax client SPI method.
+     *
+     * @param method
+     *            The fax client SPI method
+     * @return The fax action type (null if the method is not a fax action)
+     */
+    protected static FaxActionType getFaxActionType(Method method) {
+        return AbstractFaxClientSpiInterceptor.METHOD_ACTION_TYPES.get(method.getName());
+    }
+}
@@ -42,7 +42,7 @@ import org.fax4j.common.Logger;
  * <tr>
  * <td>org.fax4j.proxy.class.name</td>
  * <td>Defines the fax client SPI proxy class name.</td>
- * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
+ * <td>org.fax4j.spi.InterceptorChainFaxClientSpiProxyImpl</td>
  * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
  * <td>false</td>
  * </tr>
@@ -65,7 +65,7 @@ import org.fax4j.common.Logger;
  * <br>
  * 
  * @author Sagie Gur-Ari
- * @version 1.02
+ * @version 1.03
  * @since 0.17
  */
 public abstract class AbstractFaxClientSpiProxy implements FaxClientSpiProxy {
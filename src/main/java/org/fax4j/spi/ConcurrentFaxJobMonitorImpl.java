@@ -0,0 +1,660 @@
+package org.fax4j.spi;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.FaxMonitorEvent.FaxMonitorEventID;
+import org.fax4j.common.Logger;
+import org.fax4j.util.ThreadPoolHelper;
+import org.fax4j.util.ThreadPoolHelper.DaemonThreadFactory;
+
+/**
+ * This class provides a concurrent implementation of the fax job monitor.<br>
+ * Unlike the default fax job monitor, each fax client SPI is polled by its own scheduled task which runs in a shared
+ * worker pool, so a slow SPI does not delay the polling of the other SPIs.<br>
+ * The monitored fax jobs are held in concurrent maps and the SPIs are polled without holding any lock, which means
+ * new fax jobs can be registered while a polling cycle is running.<br>
+ * To use this monitor, set the org.fax4j.monitor.class.name property to org.fax4j.spi.ConcurrentFaxJobMonitorImpl.
+ * <br>
+ * In adaptive polling mode, each fax job has its own next polling time which is kept in a delay queue per SPI.<br>
+ * New fax jobs are polled after the initial interval and every time the fax job status is not changed, the fax job
+ * polling interval is multiplied by the backoff factor (up to the max interval).<br>
+ * Once the fax job status is changed, the fax job interval is reset to the initial interval.<br>
+ * In this mode, the SPI polling task runs every initial interval and only polls the fax jobs which are due.<br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.interval</td>
+ * <td>The polling interval of each fax client SPI in millies</td>
+ * <td>15000</td>
+ * <td>5000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.interval.fixed</td>
+ * <td>If true, the interval is counted from the end of the previous polling cycle, otherwise from its start</td>
+ * <td>true</td>
+ * <td>false</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.thread.priority</td>
+ * <td>The polling threads priority (Min 1, Max 10)</td>
+ * <td>2</td>
+ * <td>2</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.pool.size</td>
+ * <td>The amount of polling threads shared by all fax client SPIs</td>
+ * <td>4</td>
+ * <td>4</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.adaptive</td>
+ * <td>True to enable the adaptive polling mode</td>
+ * <td>false</td>
+ * <td>false</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.adaptive.initial.interval</td>
+ * <td>The polling interval of new or changed fax jobs in millies (adaptive mode only)</td>
+ * <td>1000</td>
+ * <td>1000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.adaptive.max.interval</td>
+ * <td>The max polling interval of a single fax job in millies (adaptive mode only)</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.monitor.polling.adaptive.backoff.factor</td>
+ * <td>The fax job polling interval multiplier used while the fax job status is not changed (adaptive mode only)</td>
+ * <td>2</td>
+ * <td>2</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.01
+ * @since 0.46.0
+ */
+public class ConcurrentFaxJobMonitorImpl extends AbstractFaxJobMonitor {
+    /** The poller task interval between invocations */
+    protected long pollingInterval;
+    /** The fixed polling interval settings */
+    protected boolean fixedPollingInterval;
+    /** The poller threads priority */
+    protected int pollingThreadPriority;
+    /** The amount of poller threads */
+    protected int pollingPoolSize;
+    /** True if adaptive polling mode is enabled */
+    protected boolean adaptivePolling;
+    /** The initial fax job polling interval (adaptive mode) */
+    protected long initialPollingInterval;
+    /** The max fax job polling interval (adaptive mode) */
+    protected long maxPollingInterval;
+    /** The fax job polling interval multiplier (adaptive mode) */
+    protected double backoffFactor;
+    /** The poller threads pool */
+    private ScheduledThreadPoolExecutor executor;
+    /** The monitored fax jobs per fax client SPI */
+    private ConcurrentMap<FaxClientSpi, SpiMonitorData> data;
+    /** The fax job polling pool size property key */
+    public static final String POLLING_POOL_SIZE_PROPERTY_KEY = "org.fax4j.monitor.polling.pool.size";
+    /** The adaptive polling mode property key */
+    public static final String ADAPTIVE_POLLING_PROPERTY_KEY = "org.fax4j.monitor.polling.adaptive";
+    /** The adaptive polling initial interval property key */
+    public static final String ADAPTIVE_INITIAL_INTERVAL_PROPERTY_KEY =
+            "org.fax4j.monitor.polling.adaptive.initial.interval";
+    /** The adaptive polling max interval property key */
+    public static final String ADAPTIVE_MAX_INTERVAL_PROPERTY_KEY = "org.fax4j.monitor.polling.adaptive.max.interval";
+    /** The adaptive polling backoff factor property key */
+    public static final String ADAPTIVE_BACKOFF_FACTOR_PROPERTY_KEY =
+            "org.fax4j.monitor.polling.adaptive.backoff.factor";
+
+    /**
+     * This is the class constructor.
+     */
+    public ConcurrentFaxJobMonitorImpl() {
+        super();
+    }
+
+    /**
+     * This function initializes the fax job monitor.
+     */
+    @Override
+    protected void initializeImpl() {
+        // init data structures
+        this.data = new ConcurrentHashMap<FaxClientSpi, SpiMonitorData>(20);
+
+        // get polling interval
+        String value = this.getConfigurationValue(FaxJobMonitorImpl.POLLING_INTERVAL_IN_MILLIES_PROPERTY_KEY);
+        this.pollingInterval = 5000;
+        if (value != null) {
+            this.pollingInterval = Long.parseLong(value);
+            if (this.pollingInterval <= 0) {
+                throw new FaxException("Polling interval set to an invalid value: " + this.pollingInterval);
+            }
+        }
+
+        // get fixed polling interval flag
+        value = this.getConfigurationValue(FaxJobMonitorImpl.FIXED_POLLING_INTERVAL_PROPERTY_KEY);
+        this.fixedPollingInterval = Boolean.parseBoolean(value);
+
+        // get poller thread priority
+        value = this.getConfigurationValue(FaxJobMonitorImpl.POLLING_THREAD_PRIORITY_PROPERTY_KEY);
+        this.pollingThreadPriority = 2;
+        if (value != null) {
+            this.pollingThreadPriority = Integer.parseInt(value);
+            if (this.pollingThreadPriority < Thread.MIN_PRIORITY || this.pollingThreadPriority > Thread.MAX_PRIORITY) {
+                throw new FaxException(
+                        "Polling thread priority set to an invalid value: " + this.pollingThreadPriority);
+            }
+        }
+
+        // get poller pool size
+        value = this.getConfigurationValue(ConcurrentFaxJobMonitorImpl.POLLING_POOL_SIZE_PROPERTY_KEY);
+        this.pollingPoolSize = ThreadPoolHelper.parseSize(value, 4);
+        if (this.pollingPoolSize <= 0) {
+            throw new FaxException("Polling pool size set to an invalid value: " + this.pollingPoolSize);
+        }
+
+        // get adaptive polling settings
+        value = this.getConfigurationValue(ConcurrentFaxJobMonitorImpl.ADAPTIVE_POLLING_PROPERTY_KEY);
+        this.adaptivePolling = Boolean.parseBoolean(value);
+        value = this.getConfigurationValue(ConcurrentFaxJobMonitorImpl.ADAPTIVE_INITIAL_INTERVAL_PROPERTY_KEY);
+        this.initialPollingInterval = 1000;
+        if (value != null) {
+            this.initialPollingInterval = Long.parseLong(value);
+        }
+        value = this.getConfigurationValue(ConcurrentFaxJobMonitorImpl.ADAPTIVE_MAX_INTERVAL_PROPERTY_KEY);
+        this.maxPollingInterval = 60000;
+        if (value != null) {
+            this.maxPollingInterval = Long.parseLong(value);
+        }
+        value = this.getConfigurationValue(ConcurrentFaxJobMonitorImpl.ADAPTIVE_BACKOFF_FACTOR_PROPERTY_KEY);
+        this.backoffFactor = 2;
+        if (value != null) {
+            this.backoffFactor = Double.parseDouble(value);
+        }
+        if (this.adaptivePolling) {
+            if (this.initialPollingInterval <= 0 || this.maxPollingInterval < this.initialPollingInterval) {
+                throw new FaxException("Adaptive polling intervals set to invalid values, initial: "
+                        + this.initialPollingInterval + " max: " + this.maxPollingInterval);
+            }
+            if (this.backoffFactor < 1) {
+                throw new FaxException(
+                        "Adaptive polling backoff factor set to an invalid value: " + this.backoffFactor);
+            }
+        }
+
+        // create poller threads pool
+        this.executor = new ScheduledThreadPoolExecutor(this.pollingPoolSize,
+                new DaemonThreadFactory("Fax Monitor", this.pollingThreadPriority));
+    }
+
+    /**
+     * This function starts monitoring the requested fax job.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     * @param faxJob
+     *            The fax job to monitor
+     */
+    @Override
+    public void monitorFaxJobImpl(FaxClientSpi faxClientSpi, FaxJob faxJob) {
+        // get fax job status
+        FaxJobStatus faxJobStatus = faxClientSpi.getFaxJobStatus(faxJob);
+        if (faxJobStatus == null) {
+            throw new FaxException("Unable to extract fax job status for fax job: " + faxJob.getID());
+        }
+
+        boolean added = false;
+        do {
+            // get SPI data
+            SpiMonitorData spiData = this.data.get(faxClientSpi);
+            if (spiData == null) {
+                SpiMonitorData newSpiData = new SpiMonitorData();
+                spiData = this.data.putIfAbsent(faxClientSpi, newSpiData);
+                if (spiData == null) {
+                    spiData = newSpiData;
+                }
+            }
+
+            synchronized (spiData) {
+                // SPI data may have been released by a concurrent polling cycle, in which case try again
+                if (!spiData.released) {
+                    // add new fax job
+                    FaxJobStatus previousFaxJobStatus = spiData.faxJobs.put(faxJob, faxJobStatus);
+
+                    // schedule fax job polling
+                    if (this.adaptivePolling && previousFaxJobStatus == null) {
+                        spiData.pollSchedules.offer(new FaxJobPollSchedule(faxJob, this.initialPollingInterval));
+                    }
+
+                    // schedule SPI polling
+                    if (spiData.future == null) {
+                        spiData.future = this.schedulePollerTask(faxClientSpi);
+                    }
+
+                    added = true;
+                }
+            }
+        } while (!added);
+    }
+
+    /**
+     * This function will stop the monitoring of all fax jobs registered by the provided fax client SPI.<br>
+     * Other fax jobs registered by other SPIs will keep on being monitored.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     */
+    @Override
+    public void stopMonitoringAllFaxJobsImpl(FaxClientSpi faxClientSpi) {
+        // remove from monitored data
+        SpiMonitorData spiData = this.data.remove(faxClientSpi);
+
+        if (spiData != null) {
+            this.releaseSpiData(spiData);
+        }
+    }
+
+    /**
+     * This function returns true if the provided fax client SPI is currently polled.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     * @return True if the provided fax client SPI is currently polled
+     */
+    public boolean isMonitoring(FaxClientSpi faxClientSpi) {
+        return this.data.containsKey(faxClientSpi);
+    }
+
+    /**
+     * This function schedules the poller task of the provided fax client SPI.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     * @return The scheduled poller task
+     */
+    protected ScheduledFuture<?> schedulePollerTask(FaxClientSpi faxClientSpi) {
+        // create task
+        Runnable task = new SpiPollerTask(this, faxClientSpi);
+
+        ScheduledFuture<?> future = null;
+        if (this.adaptivePolling) {
+            // the task only polls due fax jobs, so it runs in the resolution of the initial interval
+            future = this.executor.scheduleWithFixedDelay(task, this.initialPollingInterval,
+                    this.initialPollingInterval, TimeUnit.MILLISECONDS);
+        } else if (this.fixedPollingInterval) {
+            future = this.executor.scheduleWithFixedDelay(task, this.pollingInterval, this.pollingInterval,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            future = this.executor.scheduleAtFixedRate(task, this.pollingInterval, this.pollingInterval,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs the polling cycle of the provided fax client SPI to fetch and create monitor events.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     */
+    protected void runPollingCycle(FaxClientSpi faxClientSpi) {
+        SpiMonitorData spiData = this.data.get(faxClientSpi);
+        if (spiData != null) {
+            // get fax jobs to poll
+            List<FaxJobPollSchedule> pollSchedules = null;
+            List<FaxJob> faxJobList = new ArrayList<FaxJob>(spiData.faxJobs.size());
+            List<FaxJobStatus> faxJobStatusList = new ArrayList<FaxJobStatus>(spiData.faxJobs.size());
+            if (this.adaptivePolling) {
+                // take only the fax jobs which are due
+                pollSchedules = new ArrayList<FaxJobPollSchedule>();
+                spiData.pollSchedules.drainTo(pollSchedules);
+
+                Iterator<FaxJobPollSchedule> iterator = pollSchedules.iterator();
+                FaxJobPollSchedule pollSchedule = null;
+                FaxJobStatus faxJobStatus = null;
+                while (iterator.hasNext()) {
+                    pollSchedule = iterator.next();
+                    faxJobStatus = spiData.faxJobs.get(pollSchedule.FAX_JOB);
+                    if (faxJobStatus == null) {
+                        // fax job is no longer monitored
+                        iterator.remove();
+                    } else {
+                        faxJobList.add(pollSchedule.FAX_JOB);
+                        faxJobStatusList.add(faxJobStatus);
+                    }
+                }
+            } else {
+                // take a snapshot of the monitored fax jobs
+                Iterator<Entry<FaxJob, FaxJobStatus>> iterator = spiData.faxJobs.entrySet().iterator();
+                Entry<FaxJob, FaxJobStatus> entry = null;
+                while (iterator.hasNext()) {
+                    entry = iterator.next();
+                    faxJobList.add(entry.getKey());
+                    faxJobStatusList.add(entry.getValue());
+                }
+            }
+
+            int amount = faxJobList.size();
+            if (amount > 0) {
+                FaxJob[] faxJobs = faxJobList.toArray(new FaxJob[amount]);
+                FaxJobStatus[] previousFaxJobStatuses = faxJobStatusList.toArray(new FaxJobStatus[amount]);
+
+                // poll for changes (no lock is held while the SPI is polled)
+                FaxJobStatus[] currentFaxJobStatuses = null;
+                try {
+                    currentFaxJobStatuses = faxClientSpi.pollForFaxJobStatues(faxJobs);
+                } finally {
+                    if (pollSchedules != null) {
+                        this.reschedule(spiData, pollSchedules, previousFaxJobStatuses, currentFaxJobStatuses);
+                    }
+                }
+
+                if (currentFaxJobStatuses != null && currentFaxJobStatuses.length == amount) {
+                    this.updateFaxJobStatuses(faxClientSpi, spiData, faxJobs, previousFaxJobStatuses,
+                            currentFaxJobStatuses);
+                }
+            }
+
+            // release SPI data if there are no more fax jobs to monitor
+            if (spiData.faxJobs.isEmpty()) {
+                synchronized (spiData) {
+                    if (spiData.faxJobs.isEmpty() && this.data.remove(faxClientSpi, spiData)) {
+                        this.releaseSpiData(spiData);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This function calculates the next polling time of the polled fax jobs (adaptive mode).<br>
+     * Fax jobs which their status was changed are polled again after the initial interval, while the interval of
+     * the other fax jobs is multiplied by the backoff factor.
+     *
+     * @param spiData
+     *            The SPI monitor data
+     * @param pollSchedules
+     *            The polled fax jobs schedules
+     * @param previousFaxJobStatuses
+     *            The fax job statuses before the polling
+     * @param currentFaxJobStatuses
+     *            The polled fax job statuses (null if polling failed)
+     */
+    protected void reschedule(SpiMonitorData spiData, List<FaxJobPollSchedule> pollSchedules,
+            FaxJobStatus[] previousFaxJobStatuses, FaxJobStatus[] currentFaxJobStatuses) {
+        boolean validStatuses = currentFaxJobStatuses != null
+                && currentFaxJobStatuses.length == previousFaxJobStatuses.length;
+
+        long interval = 0;
+        FaxJobPollSchedule pollSchedule = null;
+        FaxJobStatus currentFaxJobStatus = null;
+        int amount = pollSchedules.size();
+        for (int index = 0; index < amount; index++) {
+            pollSchedule = pollSchedules.get(index);
+
+            // get next interval
+            currentFaxJobStatus = null;
+            if (validStatuses) {
+                currentFaxJobStatus = currentFaxJobStatuses[index];
+            }
+            if (currentFaxJobStatus != null && !currentFaxJobStatus.equals(previousFaxJobStatuses[index])) {
+                interval = this.initialPollingInterval;
+            } else {
+                interval = Math.min((long) (pollSchedule.interval * this.backoffFactor), this.maxPollingInterval);
+            }
+
+            // schedule next polling
+            pollSchedule.schedule(interval);
+            spiData.pollSchedules.offer(pollSchedule);
+        }
+    }
+
+    /**
+     * This function updates the monitored fax job statuses and fires the monitor events for the changed fax jobs.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     * @param spiData
+     *            The SPI monitor data
+     * @param faxJobs
+     *            The polled fax jobs
+     * @param previousFaxJobStatuses
+     *            The fax job statuses before the polling
+     * @param currentFaxJobStatuses
+     *            The polled fax job statuses
+     */
+    protected void updateFaxJobStatuses(FaxClientSpi faxClientSpi, SpiMonitorData spiData, FaxJob[] faxJobs,
+            FaxJobStatus[] previousFaxJobStatuses, FaxJobStatus[] currentFaxJobStatuses) {
+        FaxJob faxJob = null;
+        FaxJobStatus previousFaxJobStatus = null;
+        FaxJobStatus currentFaxJobStatus = null;
+        for (int index = 0; index < faxJobs.length; index++) {
+            // get current fax job status
+            currentFaxJobStatus = currentFaxJobStatuses[index];
+
+            if (currentFaxJobStatus != null) {
+                // get values
+                faxJob = faxJobs[index];
+                previousFaxJobStatus = previousFaxJobStatuses[index];
+
+                // if status was changed (and fax job was not removed meanwhile)
+                if (!previousFaxJobStatus.equals(currentFaxJobStatus)
+                        && spiData.faxJobs.replace(faxJob, previousFaxJobStatus, currentFaxJobStatus)) {
+                    // fire event
+                    faxClientSpi.fireFaxMonitorEvent(FaxMonitorEventID.FAX_JOB_STATUS_CHANGE, faxJob,
+                            currentFaxJobStatus);
+                }
+
+                // if status is unknown or error, stop monitoring fax job
+                switch (currentFaxJobStatus) {
+                case UNKNOWN:
+                case ERROR:
+                    spiData.faxJobs.remove(faxJob);
+                    break;
+                case IN_PROGRESS:
+                case PENDING:
+                default:
+                    // do nothing
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * This function cancels the poller task of the provided SPI data.
+     *
+     * @param spiData
+     *            The SPI monitor data
+     */
+    private void releaseSpiData(SpiMonitorData spiData) {
+        synchronized (spiData) {
+            spiData.released = true;
+
+            if (spiData.future != null) {
+                spiData.future.cancel(false);
+                spiData.future = null;
+            }
+        }
+
+        // remove cancelled task from the pool queue
+        this.executor.purge();
+    }
+
+    /**
+     * This class holds the monitor data of a single fax client SPI.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.01
+     * @since 0.46.0
+     */
+    protected static class SpiMonitorData {
+        /** The monitored fax jobs */
+        protected final ConcurrentMap<FaxJob, FaxJobStatus> faxJobs;
+        /** The fax jobs polling schedules (adaptive mode) */
+        protected final DelayQueue<FaxJobPollSchedule> pollSchedules;
+        /** The scheduled poller task */
+        protected ScheduledFuture<?> future;
+        /** True once the SPI is no longer monitored */
+        protected boolean released;
+
+        /**
+         * This is the class constructor.
+         */
+        protected SpiMonitorData() {
+            super();
+
+            this.faxJobs = new ConcurrentHashMap<FaxJob, FaxJobStatus>(500);
+            this.pollSchedules = new DelayQueue<FaxJobPollSchedule>();
+            this.released = false;
+        }
+    }
+
+    /**
+     * This class holds the next polling time of a single fax job (adaptive mode).
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class FaxJobPollSchedule implements Delayed {
+        /** The fax job */
+        protected final FaxJob FAX_JOB;
+        /** The current polling interval */
+        protected long interval;
+        /** The next polling time */
+        protected long nextPollingTime;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxJob
+         *            The fax job
+         * @param interval
+         *            The initial polling interval
+         */
+        protected FaxJobPollSchedule(FaxJob faxJob, long interval) {
+            super();
+
+            this.FAX_JOB = faxJob;
+            this.schedule(interval);
+        }
+
+        /**
+         * This function sets the next polling time to be after the provided interval.
+         *
+         * @param pollingInterval
+         *            The polling interval
+         */
+        protected final void schedule(long pollingInterval) {
+            this.interval = pollingInterval;
+            this.nextPollingTime = System.currentTimeMillis() + pollingInterval;
+        }
+
+        /**
+         * Returns the remaining delay until the next polling time.
+         *
+         * @param unit
+         *            The time unit
+         * @return The remaining delay
+         */
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.nextPollingTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Compares this schedule with the provided object based on the remaining delay.
+         *
+         * @param object
+         *            The other object
+         * @return The compare result
+         */
+        public int compareTo(Delayed object) {
+            long delta = this.getDelay(TimeUnit.MILLISECONDS) - object.getDelay(TimeUnit.MILLISECONDS);
+
+            int output = 0;
+            if (delta < 0) {
+                output = -1;
+            } else if (delta > 0) {
+                output = 1;
+            }
+
+            return output;
+        }
+    }
+
+    /**
+     * This class runs the polling cycle of a single fax client SPI.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class SpiPollerTask implements Runnable {
+        /** The fax job monitor */
+        private final ConcurrentFaxJobMonitorImpl FAX_JOB_MONITOR;
+        /** The fax client SPI */
+        private final FaxClientSpi FAX_CLIENT_SPI;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxJobMonitor
+         *            The fax job monitor
+         * @param faxClientSpi
+         *            The fax client SPI
+         */
+        protected SpiPollerTask(ConcurrentFaxJobMonitorImpl faxJobMonitor, FaxClientSpi faxClientSpi) {
+            super();
+
+            this.FAX_JOB_MONITOR = faxJobMonitor;
+            this.FAX_CLIENT_SPI = faxClientSpi;
+        }
+
+        /**
+         * Invoked by the pool to start the polling cycle.
+         */
+        public final void run() {
+            try {
+                this.FAX_JOB_MONITOR.runPollingCycle(this.FAX_CLIENT_SPI);
+            } catch (RuntimeException exception) {
+                // exceptions must not cancel the periodic task
+                Logger logger = this.FAX_JOB_MONITOR.getLogger();
+                logger.logError(new Object[] { "Error while polling fax job statuses." }, exception);
+            }
+        }
+    }
+}
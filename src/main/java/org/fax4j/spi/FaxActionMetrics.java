@@ -0,0 +1,371 @@
+package org.fax4j.spi;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.util.LatencyHistogram;
+
+/**
+ * This class holds the latency histogram and throughput/error counters of a single fax action type of a single fax
+ * client SPI.<br>
+ * Latencies are recorded in microseconds and exposed in milliseconds.<br>
+ * This class is lock free and thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FaxActionMetrics implements FaxActionMetricsMBean {
+    /** The amount of microseconds in a millisecond */
+    private static final double MICROS_IN_MILLI = 1000d;
+    /** The metrics name */
+    private final String NAME;
+    /** The fax action type */
+    private final FaxActionType ACTION_TYPE;
+    /** The creation time */
+    private final long START_TIME;
+    /** The latency histogram (in microseconds) */
+    private final LatencyHistogram LATENCY_HISTOGRAM;
+    /** The error counter */
+    private final AtomicLong ERROR_COUNT;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param name
+     *            The metrics name (usually the fax client SPI name)
+     * @param actionType
+     *            The fax action type
+     */
+    public FaxActionMetrics(String name, FaxActionType actionType) {
+        super();
+
+        this.NAME = name;
+        this.ACTION_TYPE = actionType;
+        this.START_TIME = System.currentTimeMillis();
+        this.LATENCY_HISTOGRAM = new LatencyHistogram();
+        this.ERROR_COUNT = new AtomicLong();
+    }
+
+    /**
+     * This function records a single invocation.
+     *
+     * @param latency
+     *            The invocation latency in nanoseconds
+     * @param error
+     *            True if the invocation failed
+     */
+    public void recordInvocation(long latency, boolean error) {
+        this.LATENCY_HISTOGRAM.record(latency / 1000);
+        if (error) {
+            this.ERROR_COUNT.incrementAndGet();
+        }
+    }
+
+    /**
+     * This function returns the fax action type.
+     *
+     * @return The fax action type
+     */
+    public FaxActionType getFaxActionType() {
+        return this.ACTION_TYPE;
+    }
+
+    /**
+     * This function returns an immutable snapshot of the current metrics values.
+     *
+     * @return The snapshot
+     */
+    public Snapshot createSnapshot() {
+        long[] percentiles = this.LATENCY_HISTOGRAM.getPercentiles(new double[] { 50, 90, 99 });
+
+        return new Snapshot(this.NAME, this.ACTION_TYPE, this.getInvocationCount(), this.getErrorCount(),
+                this.getThroughput(), this.getMeanLatency(), percentiles[0] / FaxActionMetrics.MICROS_IN_MILLI,
+                percentiles[1] / FaxActionMetrics.MICROS_IN_MILLI, percentiles[2] / FaxActionMetrics.MICROS_IN_MILLI,
+                this.getMaxLatency());
+    }
+
+    /**
+     * This function returns the metrics name (usually the fax client SPI name).
+     *
+     * @return The metrics name
+     */
+    public String getName() {
+        return this.NAME;
+    }
+
+    /**
+     * This function returns the fax action type name.
+     *
+     * @return The fax action type name
+     */
+    public String getActionType() {
+        return this.ACTION_TYPE.name();
+    }
+
+    /**
+     * This function returns the amount of invocations.
+     *
+     * @return The amount of invocations
+     */
+    public long getInvocationCount() {
+        return this.LATENCY_HISTOGRAM.getCount();
+    }
+
+    /**
+     * This function returns the amount of failed invocations.
+     *
+     * @return The amount of failed invocations
+     */
+    public long getErrorCount() {
+        return this.ERROR_COUNT.get();
+    }
+
+    /**
+     * This function returns the average amount of invocations per second since the metrics were created.
+     *
+     * @return The throughput
+     */
+    public double getThroughput() {
+        long time = Math.max(1, System.currentTimeMillis() - this.START_TIME);
+        return (this.getInvocationCount() * 1000d) / time;
+    }
+
+    /**
+     * This function returns the mean latency.
+     *
+     * @return The mean latency
+     */
+    public double getMeanLatency() {
+        return this.LATENCY_HISTOGRAM.getMean() / FaxActionMetrics.MICROS_IN_MILLI;
+    }
+
+    /**
+     * This function returns the median latency.
+     *
+     * @return The median latency
+     */
+    public double get50thPercentileLatency() {
+        return this.LATENCY_HISTOGRAM.getPercentile(50) / FaxActionMetrics.MICROS_IN_MILLI;
+    }
+
+    /**
+     * This function returns the 90th percentile latency.
+     *
+     * @return The 90th percentile latency
+     */
+    public double get90thPercentileLatency() {
+        return this.LATENCY_HISTOGRAM.getPercentile(90) / FaxActionMetrics.MICROS_IN_MILLI;
+    }
+
+    /**
+     * This function returns the 99th percentile latency.
+     *
+     * @return The 99th percentile latency
+     */
+    public double get99thPercentileLatency() {
+        return this.LATENCY_HISTOGRAM.getPercentile(99) / FaxActionMetrics.MICROS_IN_MILLI;
+    }
+
+    /**
+     * This function returns the max latency.
+     *
+     * @return The max latency
+     */
+    public double getMaxLatency() {
+        return this.LATENCY_HISTOGRAM.getMax() / FaxActionMetrics.MICROS_IN_MILLI;
+    }
+
+    /**
+     * This class holds an immutable snapshot of the fax action metrics values.<br>
+     * All latency values are in milliseconds.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public static final class Snapshot {
+        /** The metrics name */
+        private final String NAME;
+        /** The fax action type */
+        private final FaxActionType ACTION_TYPE;
+        /** The amount of invocations */
+        private final long INVOCATION_COUNT;
+        /** The amount of failed invocations */
+        private final long ERROR_COUNT;
+        /** The throughput */
+        private final double THROUGHPUT;
+        /** The mean latency */
+        private final double MEAN_LATENCY;
+        /** The median latency */
+        private final double P50_LATENCY;
+        /** The 90th percentile latency */
+        private final double P90_LATENCY;
+        /** The 99th percentile latency */
+        private final double P99_LATENCY;
+        /** The max latency */
+        private final double MAX_LATENCY;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param name
+         *            The metrics name
+         * @param actionType
+         *            The fax action type
+         * @param invocationCount
+         *            The amount of invocations
+         * @param errorCount
+         *            The amount of failed invocations
+         * @param throughput
+         *            The throughput
+         * @param meanLatency
+         *            The mean latency
+         * @param p50Latency
+         *            The median latency
+         * @param p90Latency
+         *            The 90th percentile latency
+         * @param p99Latency
+         *            The 99th percentile latency
+         * @param maxLatency
+         *            The max latency
+         */
+        protected Snapshot(String name, FaxActionType actionType, long invocationCount, long errorCount,
+                double throughput, double meanLatency, double p50Latency, double p90Latency, double p99Latency,
+                double maxLatency) {
+            super();
+
+            this.NAME = name;
+            this.ACTION_TYPE = actionType;
+            this.INVOCATION_COUNT = invocationCount;
+            this.ERROR_COUNT = errorCount;
+            this.THROUGHPUT = throughput;
+            this.MEAN_LATENCY = meanLatency;
+            this.P50_LATENCY = p50Latency;
+            this.P90_LATENCY = p90Latency;
+            this.P99_LATENCY = p99Latency;
+            this.MAX_LATENCY = maxLatency;
+        }
+
+        /**
+         * This function returns the metrics name.
+         *
+         * @return The metrics name
+         */
+        public String getName() {
+            return this.NAME;
+        }
+
+        /**
+         * This function returns the fax action type.
+         *
+         * @return The fax action type
+         */
+        public FaxActionType getFaxActionType() {
+            return this.ACTION_TYPE;
+        }
+
+        /**
+         * This function returns the amount of invocations.
+         *
+         * @return The amount of invocations
+         */
+        public long getInvocationCount() {
+            return this.INVOCATION_COUNT;
+        }
+
+        /**
+         * This function returns the amount of failed invocations.
+         *
+         * @return The amount of failed invocations
+         */
+        public long getErrorCount() {
+            return this.ERROR_COUNT;
+        }
+
+        /**
+         * This function returns the average amount of invocations per second.
+         *
+         * @return The throughput
+         */
+        public double getThroughput() {
+            return this.THROUGHPUT;
+        }
+
+        /**
+         * This function returns the mean latency.
+         *
+         * @return The mean latency
+         */
+        public double getMeanLatency() {
+            return this.MEAN_LATENCY;
+        }
+
+        /**
+         * This function returns the median latency.
+         *
+         * @return The median latency
+         */
+        public double get50thPercentileLatency() {
+            return this.P50_LATENCY;
+        }
+
+        /**
+         * This function returns the 90th percentile latency.
+         *
+         * @return The 90th percentile latency
+         */
+        public double get90thPercentileLatency() {
+            return this.P90_LATENCY;
+        }
+
+        /**
+         * This function returns the 99th percentile latency.
+         *
+         * @return The 99th percentile latency
+         */
+        public double get99thPercentileLatency() {
+            return this.P99_LATENCY;
+        }
+
+        /**
+         * This function returns the max latency.
+         *
+         * @return The max latency
+         */
+        public double getMaxLatency() {
+            return this.MAX_LATENCY;
+        }
+
+        /**
+         * This function returns the snapshot text.
+         *
+         * @return The snapshot text
+         */
+        @Override
+        public String toString() {
+            StringBuilder buffer = new StringBuilder(200);
+            buffer.append(this.NAME);
+            buffer.append(" ");
+            buffer.append(this.ACTION_TYPE);
+            buffer.append(" count=");
+            buffer.append(this.INVOCATION_COUNT);
+            buffer.append(" errors=");
+            buffer.append(this.ERROR_COUNT);
+            buffer.append(" throughput=");
+            buffer.append(this.THROUGHPUT);
+            buffer.append("/s mean=");
+            buffer.append(this.MEAN_LATENCY);
+            buffer.append("ms p50=");
+            buffer.append(this.P50_LATENCY);
+            buffer.append("ms p90=");
+            buffer.append(this.P90_LATENCY);
+            buffer.append("ms p99=");
+            buffer.append(this.P99_LATENCY);
+            buffer.append("ms max=");
+            buffer.append(this.MAX_LATENCY);
+            buffer.append("ms");
+
+            return buffer.toString();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.fax4j.spi;
+
+/**
+ * This interface defines the JMX management interface of the fax action metrics.<br>
+ * All latency values are in milliseconds.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public interface FaxActionMetricsMBean {
+    /**
+     * This function returns the metrics name (usually the fax client SPI name).
+     *
+     * @return The metrics name
+     */
+    String getName();
+
+    /**
+     * This function returns the fax action type name.
+     *
+     * @return The fax action type name
+     */
+    String getActionType();
+
+    /**
+     * This function returns the amount of invocations.
+     *
+     * @return The amount of invocations
+     */
+    long getInvocationCount();
+
+    /**
+     * This function returns the amount of failed invocations.
+     *
+     * @return The amount of failed invocations
+     */
+    long getErrorCount();
+
+    /**
+     * This function returns the average amount of invocations per second since the metrics were created.
+     *
+     * @return The throughput
+     */
+    double getThroughput();
+
+    /**
+     * This function returns the mean latency.
+     *
+     * @return The mean latency
+     */
+    double getMeanLatency();
+
+    /**
+     * This function returns the median latency.
+     *
+     * @return The median latency
+     */
+    double get50thPercentileLatency();
+
+    /**
+     * This function returns the 90th percentile latency.
+     *
+     * @return The 90th percentile latency
+     */
+    double get90thPercentileLatency();
+
+    /**
+     * This function returns the 99th percentile latency.
+     *
+     * @return The 99th percentile latency
+     */
+    double get99thPercentileLatency();
+
+    /**
+     * This function returns the max latency.
+     *
+     * @return The max latency
+     */
+    double getMaxLatency();
+}
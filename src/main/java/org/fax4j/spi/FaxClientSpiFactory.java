@@ -119,7 +119,7 @@ import org.fax4j.util.SpiUtil;
  * <tr>
  * <td>org.fax4j.proxy.class.name</td>
  * <td>Defines the fax client SPI proxy class name.</td>
- * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
+ * <td>org.fax4j.spi.InterceptorChainFaxClientSpiProxyImpl</td>
  * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
  * <td>false</td>
  * </tr>
@@ -142,7 +142,7 @@ import org.fax4j.util.SpiUtil;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.19
+ * @version 1.20
  * @since 0.1
  */
 public final class FaxClientSpiFactory {
@@ -154,6 +154,8 @@ public final class FaxClientSpiFactory {
     public static final String FAX_JOB_MONITOR_CLASS_NAME_PROPERTY_KEY = "org.fax4j.monitor.class.name";
     /** The default SPI type property key */
     public static final String DEFAULT_SPI_TYPE_PROPERTY_KEY = "org.fax4j.spi.default.type";
+    /** The SPI type property key (set by the factory with the type used to create the SPI) */
+    public static final String SPI_TYPE_PROPERTY_KEY = "org.fax4j.spi.type";
     /** The SPI class name to type mapping property key prefix */
     public static final String SPI_CLASS_NAME_TYPE_MAP_PROPERTY_KEY_PREFIX = "org.fax4j.spi.type.map.";
     /** The SPI proxy enabled property key */
@@ -241,6 +243,9 @@ public final class FaxClientSpiFactory {
             throw new FaxException("Class name for type: " + updatedType + " not configured in fax4j.properties");
         }
 
+        // expose the SPI type to the SPI and its interceptors
+        layeredConfiguration.put(FaxClientSpiFactory.SPI_TYPE_PROPERTY_KEY, updatedType);
+
         // get logger
         Logger spiLogger = FaxClientSpiFactory.getLogger();
 
@@ -40,7 +40,7 @@ import java.lang.reflect.InvocationHandler;
  * <tr>
  * <td>org.fax4j.proxy.class.name</td>
  * <td>Defines the fax client SPI proxy class name.</td>
- * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
+ * <td>org.fax4j.spi.InterceptorChainFaxClientSpiProxyImpl</td>
  * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
  * <td>false</td>
  * </tr>
@@ -63,7 +63,7 @@ import java.lang.reflect.InvocationHandler;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.0
+ * @version 1.01
  * @since 0.17
  */
 public interface FaxClientSpiProxy extends InvocationHandler {
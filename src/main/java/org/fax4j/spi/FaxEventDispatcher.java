@@ -0,0 +1,501 @@
+package org.fax4j.spi;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.common.Logger;
+import org.fax4j.util.AbstractCloseable;
+import org.fax4j.util.ThreadPoolHelper;
+import org.fax4j.util.ThreadPoolHelper.DaemonThreadFactory;
+
+/**
+ * This class dispatches fax events to the event listeners in background consumer threads.<br>
+ * Each consumer thread owns a bounded ring buffer of pending events and each fax job is always assigned to the same
+ * consumer thread (based on the fax job ID, or the fax job object identity in case the ID is not set yet), therefore
+ * the events of a single fax job are delivered in the order they were fired while events of different fax jobs are
+ * delivered in parallel.<br>
+ * Once the ring buffer of a consumer is full, the overflow policy defines whether the firing thread waits for free
+ * space, the new event is dropped or the oldest pending event is dropped.<br>
+ * Consumer threads never wait for free space (events fired by event listeners are added even if the ring buffer is
+ * full), otherwise a listener firing events into its own full ring buffer would wait forever.<br>
+ * Exceptions thrown by the event listeners are logged and do not stop the consumer threads.<br>
+ * Consumer threads are started once events are dispatched and are released once idle, so dispatchers which are no
+ * longer used do not hold any thread (and can be garbage collected). Closing the dispatcher releases the consumer
+ * threads once all pending events were delivered.<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FaxEventDispatcher extends AbstractCloseable {
+    /** True for the current thread in case it is a consumer thread */
+    private static final ThreadLocal<Boolean> CONSUMER_THREAD = new ThreadLocal<Boolean>();
+    /** The event rings (one per consumer thread) */
+    private final EventRing[] RINGS;
+    /** The consumer thread factory */
+    private final ThreadFactory THREAD_FACTORY;
+    /** The time in millies after which idle consumer threads are released */
+    private final long IDLE_TIMEOUT;
+    /** The overflow policy */
+    private final OverflowPolicy OVERFLOW_POLICY;
+    /** The logger */
+    private final Logger LOGGER;
+    /** The amount of dropped events */
+    private long droppedEventsCount;
+
+    /**
+     * This enum defines what happens when a fax event is dispatched and the ring buffer is full.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public enum OverflowPolicy {
+        /** The firing thread waits until there is free space */
+        BLOCK,
+        /** The new event is dropped */
+        DROP_NEWEST,
+        /** The oldest pending event is dropped to make room for the new event */
+        DROP_OLDEST
+    }
+
+    /**
+     * This is the class constructor.<br>
+     * Idle consumer threads are released after the default idle thread timeout.
+     *
+     * @param threads
+     *            The amount of consumer threads
+     * @param queueSize
+     *            The ring buffer size of each consumer thread
+     * @param overflowPolicy
+     *            The overflow policy
+     * @param logger
+     *            The logger used to log listener errors
+     */
+    public FaxEventDispatcher(int threads, int queueSize, OverflowPolicy overflowPolicy, Logger logger) {
+        this(threads, queueSize, overflowPolicy, logger, ThreadPoolHelper.IDLE_THREAD_TIMEOUT);
+    }
+
+    /**
+     * This is the class constructor.
+     *
+     * @param threads
+     *            The amount of consumer threads
+     * @param queueSize
+     *            The ring buffer size of each consumer thread
+     * @param overflowPolicy
+     *            The overflow policy
+     * @param logger
+     *            The logger used to log listener errors
+     * @param idleTimeout
+     *            The time in millies after which idle consumer threads are released
+     */
+    public FaxEventDispatcher(int threads, int queueSize, OverflowPolicy overflowPolicy, Logger logger,
+            long idleTimeout) {
+        super();
+
+        if (threads <= 0) {
+            throw new FaxException("Invalid fax event dispatcher threads amount: " + threads);
+        }
+        if (queueSize <= 0) {
+            throw new FaxException("Invalid fax event dispatcher queue size: " + queueSize);
+        }
+
+        this.OVERFLOW_POLICY = overflowPolicy;
+        this.LOGGER = logger;
+        this.IDLE_TIMEOUT = idleTimeout;
+
+        // create rings (consumers are started once events are dispatched)
+        this.THREAD_FACTORY = new DaemonThreadFactory("Fax Event Dispatcher", Thread.NORM_PRIORITY);
+        this.RINGS = new EventRing[threads];
+        for (int index = 0; index < threads; index++) {
+            this.RINGS[index] = new EventRing(queueSize);
+        }
+    }
+
+    /**
+     * This function dispatches the provided event task.<br>
+     * Tasks dispatched with the same key object (or fax jobs with the same fax job ID) are invoked one after the other
+     * in the dispatch order.
+     *
+     * @param key
+     *            The ordering key (the fax job)
+     * @param task
+     *            The task which invokes the event listeners
+     */
+    public void dispatch(Object key, Runnable task) {
+        // get ring
+        int hash = FaxEventDispatcher.getRoutingHash(key) & Integer.MAX_VALUE;
+        EventRing ring = this.RINGS[hash % this.RINGS.length];
+
+        // consumer threads must not wait for their own ring
+        boolean block = FaxEventDispatcher.CONSUMER_THREAD.get() == null;
+
+        int result = 0;
+        try {
+            result = ring.put(task, this.OVERFLOW_POLICY, block);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new FaxException("Interrupted while waiting to dispatch fax event.", exception);
+        }
+
+        // start consumer in case the ring has no running consumer
+        if ((result & EventRing.START_CONSUMER) != 0) {
+            this.THREAD_FACTORY.newThread(new EventConsumer(this, ring, this.IDLE_TIMEOUT)).start();
+        }
+        boolean dropped = (result & EventRing.DROPPED) != 0;
+
+        if (dropped) {
+            synchronized (this) {
+                this.droppedEventsCount++;
+            }
+            this.LOGGER.logDebug(new Object[] { "Fax event dropped, overflow policy: ", this.OVERFLOW_POLICY }, null);
+        }
+    }
+
+    /**
+     * This function returns the routing hash of the provided ordering key.<br>
+     * Fax jobs are routed by their fax job ID (if set), so different fax job instances of the same fax job (for example
+     * the instance created by the fax job monitor) are routed to the same consumer thread.
+     *
+     * @param key
+     *            The ordering key
+     * @return The routing hash
+     */
+    protected static int getRoutingHash(Object key) {
+        String faxJobID = null;
+        if (key instanceof FaxJob) {
+            faxJobID = ((FaxJob) key).getID();
+        }
+
+        int hash = 0;
+        if (faxJobID == null) {
+            hash = System.identityHashCode(key);
+        } else {
+            hash = faxJobID.hashCode();
+        }
+
+        return hash;
+    }
+
+    /**
+     * This function returns the amount of events dropped due to the overflow policy.
+     *
+     * @return The amount of dropped events
+     */
+    public synchronized long getDroppedEventsCount() {
+        return this.droppedEventsCount;
+    }
+
+    /**
+     * This function returns the amount of events waiting to be dispatched.
+     *
+     * @return The amount of pending events
+     */
+    public int getPendingEventsCount() {
+        int count = 0;
+        for (int index = 0; index < this.RINGS.length; index++) {
+            count = count + this.RINGS[index].size();
+        }
+
+        return count;
+    }
+
+    /**
+     * This function closes the dispatcher.<br>
+     * New events are rejected, pending events are still delivered after which the consumer threads are released.
+     */
+    @Override
+    protected void closeImpl() {
+        for (int index = 0; index < this.RINGS.length; index++) {
+            this.RINGS[index].close();
+        }
+    }
+
+    /**
+     * This function invokes the provided event task.
+     *
+     * @param task
+     *            The task
+     */
+    protected void invokeTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException exception) {
+            this.LOGGER.logError(new Object[] { "Error while invoking fax event listener." }, exception);
+        }
+    }
+
+    /**
+     * This class holds a bounded ring buffer of pending event tasks.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class EventRing {
+        /** The put result flag set in case a task was dropped */
+        protected static final int DROPPED = 1;
+        /** The put result flag set in case a consumer thread should be started for the ring */
+        protected static final int START_CONSUMER = 2;
+        /** The ring size */
+        private final int SIZE;
+        /** The lock */
+        private final ReentrantLock LOCK;
+        /** Signaled when the ring is no longer empty */
+        private final Condition NOT_EMPTY;
+        /** Signaled when the ring is no longer full */
+        private final Condition NOT_FULL;
+        /** The index of the oldest task */
+        private int head;
+        /** The amount of tasks */
+        private int count;
+        /** The ring buffer (may grow beyond the ring size for tasks added by consumer threads) */
+        private Runnable[] buffer;
+        /** True while a consumer thread is running for the ring */
+        private boolean consumerRunning;
+        /** True once the ring was closed */
+        private boolean closed;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param size
+         *            The ring size
+         */
+        protected EventRing(int size) {
+            super();
+
+            this.SIZE = size;
+            this.buffer = new Runnable[size];
+            this.LOCK = new ReentrantLock();
+            this.NOT_EMPTY = this.LOCK.newCondition();
+            this.NOT_FULL = this.LOCK.newCondition();
+        }
+
+        /**
+         * This function adds the task to the ring.
+         *
+         * @param task
+         *            The task
+         * @param overflowPolicy
+         *            The overflow policy
+         * @param block
+         *            False to add the task even if the ring is full, instead of waiting for free space (used for tasks
+         *            added by consumer threads in case of the block overflow policy)
+         * @return The result flags (DROPPED in case a task was dropped, START_CONSUMER in case the caller should
+         *         start a consumer thread for the ring)
+         * @throws InterruptedException
+         *             In case interrupted while waiting for free space
+         */
+        protected int put(Runnable task, OverflowPolicy overflowPolicy, boolean block) throws InterruptedException {
+            int result = 0;
+            boolean add = true;
+            this.LOCK.lockInterruptibly();
+            try {
+                if (this.closed) {
+                    throw new FaxException("Fax event dispatcher is closed.");
+                }
+
+                if (this.count >= this.SIZE) {
+                    switch (overflowPolicy) {
+                    case DROP_NEWEST:
+                        result = EventRing.DROPPED;
+                        add = false;
+                        break;
+                    case DROP_OLDEST:
+                        this.buffer[this.head] = null;
+                        this.head = (this.head + 1) % this.buffer.length;
+                        this.count--;
+                        result = EventRing.DROPPED;
+                        break;
+                    case BLOCK:
+                    default:
+                        while (block && (this.count >= this.SIZE) && (!this.closed)) {
+                            this.NOT_FULL.await();
+                        }
+                        if (this.closed) {
+                            throw new FaxException("Fax event dispatcher is closed.");
+                        }
+                        break;
+                    }
+                }
+
+                if (add) {
+                    if (this.count == this.buffer.length) {
+                        this.grow();
+                    }
+
+                    this.buffer[(this.head + this.count) % this.buffer.length] = task;
+                    this.count++;
+                    this.NOT_EMPTY.signal();
+
+                    if (!this.consumerRunning) {
+                        this.consumerRunning = true;
+                        result = result | EventRing.START_CONSUMER;
+                    }
+                }
+            } finally {
+                this.LOCK.unlock();
+            }
+
+            return result;
+        }
+
+        /**
+         * This function doubles the ring buffer capacity (keeping the task order).<br>
+         * This function must be invoked while holding the lock.
+         */
+        private void grow() {
+            Runnable[] newBuffer = new Runnable[this.buffer.length * 2];
+            for (int index = 0; index < this.count; index++) {
+                newBuffer[index] = this.buffer[(this.head + index) % this.buffer.length];
+            }
+            this.buffer = newBuffer;
+            this.head = 0;
+        }
+
+        /**
+         * This function removes the oldest task from the ring and waits for one if the ring is empty.<br>
+         * In case no task was added within the idle timeout (or the ring was closed and is empty), the consumer thread
+         * is marked as stopped and null is returned.
+         *
+         * @param idleTimeout
+         *            The time in millies to wait for a task
+         * @return The task (null in case the consumer thread should stop)
+         * @throws InterruptedException
+         *             In case interrupted while waiting
+         */
+        protected Runnable take(long idleTimeout) throws InterruptedException {
+            Runnable task = null;
+            this.LOCK.lockInterruptibly();
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+                while ((this.count == 0) && (!this.closed) && (remaining > 0)) {
+                    remaining = this.NOT_EMPTY.awaitNanos(remaining);
+                }
+
+                if (this.count == 0) {
+                    // release consumer thread (a new consumer is started by the next put)
+                    this.consumerRunning = false;
+                    return null;
+                }
+
+                task = this.buffer[this.head];
+                this.buffer[this.head] = null;
+                this.head = (this.head + 1) % this.buffer.length;
+                this.count--;
+                if (this.count < this.SIZE) {
+                    this.NOT_FULL.signal();
+                }
+            } finally {
+                this.LOCK.unlock();
+            }
+
+            return task;
+        }
+
+        /**
+         * This function marks the consumer thread of the ring as stopped.<br>
+         * It is invoked in case the consumer thread stopped without taking all tasks (for example once interrupted).
+         */
+        protected void releaseConsumer() {
+            this.LOCK.lock();
+            try {
+                this.consumerRunning = false;
+            } finally {
+                this.LOCK.unlock();
+            }
+        }
+
+        /**
+         * This function closes the ring, new tasks are rejected and the consumer thread is released once all pending
+         * tasks were taken.
+         */
+        protected void close() {
+            this.LOCK.lock();
+            try {
+                this.closed = true;
+                this.NOT_EMPTY.signalAll();
+                this.NOT_FULL.signalAll();
+            } finally {
+                this.LOCK.unlock();
+            }
+        }
+
+        /**
+         * This function returns the amount of tasks in the ring.
+         *
+         * @return The amount of tasks
+         */
+        protected int size() {
+            this.LOCK.lock();
+            try {
+                return this.count;
+            } finally {
+                this.LOCK.unlock();
+            }
+        }
+    }
+
+    /**
+     * This class invokes the tasks of a single event ring.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class EventConsumer implements Runnable {
+        /** The dispatcher */
+        private final FaxEventDispatcher DISPATCHER;
+        /** The event ring */
+        private final EventRing RING;
+        /** The time in millies after which the idle consumer thread is released */
+        private final long IDLE_TIMEOUT;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param dispatcher
+         *            The dispatcher
+         * @param ring
+         *            The event ring
+         * @param idleTimeout
+         *            The time in millies after which the idle consumer thread is released
+         */
+        protected EventConsumer(FaxEventDispatcher dispatcher, EventRing ring, long idleTimeout) {
+            super();
+
+            this.DISPATCHER = dispatcher;
+            this.RING = ring;
+            this.IDLE_TIMEOUT = idleTimeout;
+        }
+
+        /**
+         * Invokes the tasks of the event ring until the consumer is idle.
+         */
+        public void run() {
+            FaxEventDispatcher.CONSUMER_THREAD.set(Boolean.TRUE);
+
+            Runnable task = null;
+            while (true) {
+                try {
+                    task = this.RING.take(this.IDLE_TIMEOUT);
+                } catch (InterruptedException exception) {
+                    this.RING.releaseConsumer();
+                    break;
+                }
+
+                if (task == null) {
+                    break;
+                }
+
+                this.DISPATCHER.invokeTask(task);
+            }
+        }
+    }
+}
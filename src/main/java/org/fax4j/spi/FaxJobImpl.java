@@ -8,7 +8,7 @@ import org.fax4j.common.Logger;
  * This class provides basic implementation of the fax job.
  * 
  * @author Sagie Gur-Ari
- * @version 1.05
+ * @version 1.06
  * @since 0.11
  */
 public class FaxJobImpl extends AbstractFaxJob {
@@ -239,4 +239,16 @@ public class FaxJobImpl extends AbstractFaxJob {
         // get property value
         return this.PROPERTIES.getProperty(key, defaultValue);
     }
+
+    /**
+     * This function returns a copy of all the fax job properties.
+     * 
+     * @return The fax job properties
+     */
+    public Properties getProperties() {
+        Properties properties = new Properties();
+        properties.putAll(this.PROPERTIES);
+
+        return properties;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,380 @@
+package org.fax4j.spi;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+
+/**
+ * This class caches the fax job statuses (based on the fax job ID) for a short time and coalesces concurrent status
+ * lookups of the same fax job into a single in flight request.<br>
+ * Terminal statuses (ERROR) are not expected to change and therefore are cached for a longer time.<br>
+ * In case the cache is full, expired entries are removed and if needed, also other entries until there is free
+ * space.<br>
+ * Each invalidation increments the cache version, statuses fetched by requests which started before the last
+ * invalidation of the fax job are returned to the caller but are not cached (so a status request which started before a
+ * cancel/suspend/resume action does not cache the previous status again).<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FaxJobStatusCache {
+    /** The time in millies in which non terminal statuses are cached */
+    private final long TTL;
+    /** The time in millies in which terminal statuses are cached */
+    private final long TERMINAL_TTL;
+    /** The max amount of cached statuses */
+    private final int MAX_SIZE;
+    /** The cached statuses (fax job ID to cached status) */
+    private final ConcurrentMap<String, CachedFaxJobStatus> CACHED_STATUSES;
+    /** The in flight status requests (fax job ID to request) */
+    private final ConcurrentMap<String, FutureTask<FaxJobStatus>> IN_FLIGHT_REQUESTS;
+    /** The cache version of the last invalidation of each fax job (fax job ID to version, oldest first) */
+    private final Map<String, Long> INVALIDATIONS;
+    /** The cache version (incremented on each invalidation) */
+    private long version;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param ttl
+     *            The time in millies in which non terminal statuses are cached (0 to disable)
+     * @param terminalTTL
+     *            The time in millies in which terminal statuses are cached (0 to disable)
+     * @param maxSize
+     *            The max amount of cached statuses
+     */
+    public FaxJobStatusCache(long ttl, long terminalTTL, int maxSize) {
+        super();
+
+        if (ttl < 0) {
+            throw new FaxException("Invalid status cache TTL: " + ttl);
+        }
+        if (terminalTTL < 0) {
+            throw new FaxException("Invalid status cache terminal TTL: " + terminalTTL);
+        }
+        if (maxSize <= 0) {
+            throw new FaxException("Invalid status cache max size: " + maxSize);
+        }
+
+        this.TTL = ttl;
+        this.TERMINAL_TTL = terminalTTL;
+        this.MAX_SIZE = maxSize;
+        this.CACHED_STATUSES = new ConcurrentHashMap<String, CachedFaxJobStatus>();
+        this.IN_FLIGHT_REQUESTS = new ConcurrentHashMap<String, FutureTask<FaxJobStatus>>();
+        this.INVALIDATIONS = new LinkedHashMap<String, Long>();
+    }
+
+    /**
+     * This function returns the fax job status.<br>
+     * In case the status is cached, the cached status is returned, otherwise the status is fetched using the provided
+     * loader. In case there is already an in flight request for the same fax job, this function waits for its result
+     * instead of invoking the loader.
+     *
+     * @param faxJob
+     *            The fax job
+     * @param loader
+     *            The loader which fetches the fax job status
+     * @return The fax job status
+     */
+    public FaxJobStatus getFaxJobStatus(FaxJob faxJob, Callable<FaxJobStatus> loader) {
+        // look in cache
+        FaxJobStatus faxJobStatus = this.getCachedFaxJobStatus(faxJob.getID());
+
+        if (faxJobStatus == null) {
+            faxJobStatus = this.refreshFaxJobStatus(faxJob, loader);
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This function fetches the fax job status using the provided loader (ignoring the currently cached status) and
+     * caches the result.<br>
+     * In case there is already an in flight request for the same fax job, this function waits for its result instead
+     * of invoking the loader.
+     *
+     * @param faxJob
+     *            The fax job
+     * @param loader
+     *            The loader which fetches the fax job status
+     * @return The fax job status
+     */
+    public FaxJobStatus refreshFaxJobStatus(FaxJob faxJob, Callable<FaxJobStatus> loader) {
+        String id = faxJob.getID();
+        long requestVersion = this.getVersion();
+
+        // join or start the in flight request
+        FaxJobStatus faxJobStatus = null;
+        FutureTask<FaxJobStatus> request = new FutureTask<FaxJobStatus>(loader);
+        FutureTask<FaxJobStatus> inFlightRequest = this.IN_FLIGHT_REQUESTS.putIfAbsent(id, request);
+        if (inFlightRequest == null) {
+            try {
+                request.run();
+                faxJobStatus = FaxJobStatusCache.getResult(request);
+
+                // cache before removing the request, so later lookups will not miss both
+                this.putFaxJobStatus(id, faxJobStatus, requestVersion);
+            } finally {
+                this.IN_FLIGHT_REQUESTS.remove(id, request);
+            }
+        } else {
+            faxJobStatus = FaxJobStatusCache.getResult(inFlightRequest);
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This function caches the provided fax job statuses (for example the results of a polling cycle).
+     *
+     * @param faxJobs
+     *            The fax jobs
+     * @param faxJobStatuses
+     *            The fax job statuses
+     */
+    public void putFaxJobStatuses(FaxJob[] faxJobs, FaxJobStatus[] faxJobStatuses) {
+        this.putFaxJobStatuses(faxJobs, faxJobStatuses, this.getVersion());
+    }
+
+    /**
+     * This function caches the provided fax job statuses (for example the results of a polling cycle).<br>
+     * Statuses of fax jobs which were invalidated after the provided cache version are not cached.
+     *
+     * @param faxJobs
+     *            The fax jobs
+     * @param faxJobStatuses
+     *            The fax job statuses
+     * @param requestVersion
+     *            The cache version when the statuses were requested (see getVersion)
+     */
+    public void putFaxJobStatuses(FaxJob[] faxJobs, FaxJobStatus[] faxJobStatuses, long requestVersion) {
+        if (faxJobs != null && faxJobStatuses != null && faxJobs.length == faxJobStatuses.length) {
+            for (int index = 0; index < faxJobs.length; index++) {
+                if (faxJobs[index] != null) {
+                    this.putFaxJobStatus(faxJobs[index].getID(), faxJobStatuses[index], requestVersion);
+                }
+            }
+        }
+    }
+
+    /**
+     * This function removes the cached status of the provided fax job.<br>
+     * It should be invoked whenever the fax job status is changed by a fax action (for example cancel).
+     *
+     * @param faxJob
+     *            The fax job
+     */
+    public void invalidate(FaxJob faxJob) {
+        String id = faxJob.getID();
+        if (id != null) {
+            synchronized (this.INVALIDATIONS) {
+                // record invalidation (removing the oldest records in case there are too many)
+                this.version++;
+                this.INVALIDATIONS.remove(id);
+                this.INVALIDATIONS.put(id, Long.valueOf(this.version));
+                Iterator<String> iterator = this.INVALIDATIONS.keySet().iterator();
+                while (this.INVALIDATIONS.size() > this.MAX_SIZE && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+
+                this.CACHED_STATUSES.remove(id);
+            }
+
+            // later lookups should not join a request which started before the invalidation
+            this.IN_FLIGHT_REQUESTS.remove(id);
+        }
+    }
+
+    /**
+     * This function returns the current cache version.<br>
+     * The version should be fetched before requesting fax job statuses from the vendor and provided when caching the
+     * results, so statuses of fax jobs invalidated while the request was in progress are not cached.
+     *
+     * @return The cache version
+     */
+    public long getVersion() {
+        synchronized (this.INVALIDATIONS) {
+            return this.version;
+        }
+    }
+
+    /**
+     * This function returns the amount of cached statuses (including expired statuses not yet removed).
+     *
+     * @return The amount of cached statuses
+     */
+    public int size() {
+        return this.CACHED_STATUSES.size();
+    }
+
+    /**
+     * This function returns the cached fax job status.
+     *
+     * @param id
+     *            The fax job ID
+     * @return The cached fax job status (null if not cached or expired)
+     */
+    protected FaxJobStatus getCachedFaxJobStatus(String id) {
+        FaxJobStatus faxJobStatus = null;
+        CachedFaxJobStatus cachedFaxJobStatus = this.CACHED_STATUSES.get(id);
+        if (cachedFaxJobStatus != null) {
+            if (cachedFaxJobStatus.isExpired(System.currentTimeMillis())) {
+                this.CACHED_STATUSES.remove(id, cachedFaxJobStatus);
+            } else {
+                faxJobStatus = cachedFaxJobStatus.FAX_JOB_STATUS;
+            }
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This function caches the fax job status.
+     *
+     * @param id
+     *            The fax job ID
+     * @param faxJobStatus
+     *            The fax job status
+     * @param requestVersion
+     *            The cache version when the status was requested
+     */
+    protected void putFaxJobStatus(String id, FaxJobStatus faxJobStatus, long requestVersion) {
+        if (id != null && faxJobStatus != null) {
+            long ttl = this.TTL;
+            if (this.isTerminalFaxJobStatus(faxJobStatus)) {
+                ttl = this.TERMINAL_TTL;
+            }
+
+            if (ttl > 0) {
+                long now = System.currentTimeMillis();
+                boolean cached = false;
+                synchronized (this.INVALIDATIONS) {
+                    // ignore statuses requested before the last invalidation
+                    Long invalidationVersion = this.INVALIDATIONS.get(id);
+                    if (invalidationVersion == null || invalidationVersion.longValue() <= requestVersion) {
+                        this.CACHED_STATUSES.put(id, new CachedFaxJobStatus(faxJobStatus, now + ttl));
+                        cached = true;
+                    }
+                }
+
+                if (cached && this.CACHED_STATUSES.size() > this.MAX_SIZE) {
+                    this.evict(now);
+                }
+            }
+        }
+    }
+
+    /**
+     * This function returns true if the provided status is not expected to change anymore.
+     *
+     * @param faxJobStatus
+     *            The fax job status
+     * @return True if the status is terminal
+     */
+    protected boolean isTerminalFaxJobStatus(FaxJobStatus faxJobStatus) {
+        return faxJobStatus == FaxJobStatus.ERROR;
+    }
+
+    /**
+     * This function removes the expired statuses and in case the cache is still full, also removes statuses until
+     * there is free space.
+     *
+     * @param now
+     *            The current time
+     */
+    protected void evict(long now) {
+        // remove expired
+        Iterator<CachedFaxJobStatus> iterator = this.CACHED_STATUSES.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+
+        // remove until there is free space
+        iterator = this.CACHED_STATUSES.values().iterator();
+        while (this.CACHED_STATUSES.size() > this.MAX_SIZE && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * This function returns the result of the status request.
+     *
+     * @param request
+     *            The status request
+     * @return The fax job status
+     */
+    protected static FaxJobStatus getResult(FutureTask<FaxJobStatus> request) {
+        FaxJobStatus faxJobStatus = null;
+        try {
+            faxJobStatus = request.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new FaxException("Interrupted while waiting for fax job status.", exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FaxException("Unable to get fax job status.", cause);
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This class holds a cached fax job status.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class CachedFaxJobStatus {
+        /** The fax job status */
+        protected final FaxJobStatus FAX_JOB_STATUS;
+        /** The expiry time */
+        protected final long EXPIRY_TIME;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxJobStatus
+         *            The fax job status
+         * @param expiryTime
+         *            The expiry time
+         */
+        protected CachedFaxJobStatus(FaxJobStatus faxJobStatus, long expiryTime) {
+            super();
+
+            this.FAX_JOB_STATUS = faxJobStatus;
+            this.EXPIRY_TIME = expiryTime;
+        }
+
+        /**
+         * This function returns true if the status is expired.
+         *
+         * @param now
+         *            The current time
+         * @return True if expired
+         */
+        protected boolean isExpired(long now) {
+            return now >= this.EXPIRY_TIME;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class provides a fax client SPI proxy implementation which precomputes the interceptor chain of each fax client
+ * SPI method when initialized.<br>
+ * Each chain holds only the interceptors which should be invoked for the specific method and event type, so
+ * interceptors implementing the SelectiveFaxClientSpiInterceptor interface which are not interested in a method/event
+ * are skipped without any invocation cost.<br>
+ * In case a method has no interceptors at all, the method is invoked directly on the fax client SPI without any
+ * additional overhead.<br>
+ * In case an interceptor fails the method invocation before it was invoked (for example a rate limit rejection), the
+ * error event is delivered to all the interceptors which were already invoked for the pre event, so resources acquired
+ * by them (for example bulkhead permits) are always released.<br>
+ * The configuration of the fax4j framework is made up of 3 layers.<br>
+ * The configuration is based on simple properties.<br>
+ * Each layer overrides the lower layers by adding/changing the property values.<br>
+ * The first layer is the internal fax4j.properties file located in the fax4j jar.<br>
+ * This layer contains the preconfigured values for the fax4j framework and can be changed by updating these properties
+ * in the higher layers.<br>
+ * The second layer is the external fax4j.properties file that is located on the classpath.<br>
+ * This file is optional and provides the ability to override the internal configuration for the entire fax4j
+ * framework.<br>
+ * The top most layer is the optional java.util.Properties object provided by the external classes when creating a new
+ * fax client.<br>
+ * These properties enable to override the configuration of the lower 2 layers.<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.enabled</td>
+ * <td>True to enable the fax client SPI proxy.</td>
+ * <td>true</td>
+ * <td>true</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.class.name</td>
+ * <td>Defines the fax client SPI proxy class name.</td>
+ * <td>org.fax4j.spi.InterceptorChainFaxClientSpiProxyImpl</td>
+ * <td>org.fax4j.spi.FaxClientSpiProxyImpl</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.list</td>
+ * <td>A list of interceptor types, separated by a ';' character.<br>
+ * Each type must have a matching org.fax4j.proxy.interceptor.type.xxx property.</td>
+ * <td>log</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.type.xxx</td>
+ * <td>The interceptor type to class name mapping.</td>
+ * <td>org.fax4j.proxy.interceptor.type.log=org.fax4j.spi.LogFaxClientSpiInterceptor</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ * <br>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class InterceptorChainFaxClientSpiProxyImpl extends AbstractFaxClientSpiProxy {
+    /** The method to interceptor chain mapping */
+    private final ConcurrentMap<Method, InterceptorChain> INTERCEPTOR_CHAINS;
+
+    /**
+     * This is the default constructor.
+     */
+    public InterceptorChainFaxClientSpiProxyImpl() {
+        super();
+
+        this.INTERCEPTOR_CHAINS = new ConcurrentHashMap<Method, InterceptorChain>();
+    }
+
+    /**
+     * This function initializes the fax client SPI proxy.
+     */
+    @Override
+    protected void initializeImpl() {
+        // build chains for all fax client SPI methods
+        Method[] methods = FaxClientSpi.class.getMethods();
+        for (int index = 0; index < methods.length; index++) {
+            this.getInterceptorChain(methods[index]);
+        }
+    }
+
+    /**
+     * This function is invoked for each fax client SPI method invocation.<br>
+     * This method invokes only the interceptors which are part of the method interceptor chain.<br>
+     * In case a pre event interceptor throws an error, the error event is delivered to the interceptors which were
+     * already invoked for the pre event and the error is thrown without invoking the fax client SPI.
+     *
+     * @param proxy
+     *            The proxy
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @return The method output
+     * @throws Throwable
+     *             Any throwable
+     */
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+        // get chain
+        InterceptorChain interceptorChain = this.getInterceptorChain(method);
+
+        // invoke interceptors
+        FaxClientSpiInterceptor[] preInterceptors = interceptorChain.PRE_INTERCEPTORS;
+        int index = 0;
+        try {
+            for (; index < preInterceptors.length; index++) {
+                preInterceptors[index].preMethodInvocation(method, arguments);
+            }
+        } catch (Throwable throwable) {
+            // release interceptors which were already invoked
+            InterceptorChainFaxClientSpiProxyImpl.invokeErrorInterceptors(interceptorChain, index, method, arguments,
+                    throwable);
+
+            throw throwable;
+        }
+
+        Object output = null;
+        Throwable generalError = null;
+        try {
+            // invoke fax client SPI
+            output = interceptorChain.METHOD.invoke(this.getFaxClientSpi(), arguments);
+
+            // invoke interceptors
+            InterceptorChainFaxClientSpiProxyImpl.invokeInterceptors(interceptorChain.POST_INTERCEPTORS,
+                    FaxClientSpiProxyEventType.POST_EVENT_TYPE, method, arguments, output, null);
+        } catch (Throwable throwable) {
+            // get error
+            generalError = throwable.getCause();
+            if (generalError == null) {
+                generalError = throwable;
+            }
+
+            // invoke interceptors
+            InterceptorChainFaxClientSpiProxyImpl.invokeInterceptors(interceptorChain.ERROR_INTERCEPTORS,
+                    FaxClientSpiProxyEventType.ERROR_EVENT_TYPE, method, arguments, null, generalError);
+        }
+
+        if (generalError != null) {
+            throw generalError;
+        }
+
+        return output;
+    }
+
+    /**
+     * This function invokes the interceptor for the given event.
+     *
+     * @param eventType
+     *            The event type
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param output
+     *            The method output
+     * @param throwable
+     *            The throwable while invoking the method
+     */
+    @Override
+    protected void invokeInterceptors(FaxClientSpiProxyEventType eventType, Method method, Object[] arguments,
+            Object output, Throwable throwable) {
+        // get chain
+        InterceptorChain interceptorChain = this.getInterceptorChain(method);
+
+        // get interceptors
+        FaxClientSpiInterceptor[] interceptors = null;
+        switch (eventType) {
+        case PRE_EVENT_TYPE:
+            interceptors = interceptorChain.PRE_INTERCEPTORS;
+            break;
+        case POST_EVENT_TYPE:
+            interceptors = interceptorChain.POST_INTERCEPTORS;
+            break;
+        default:
+            interceptors = interceptorChain.ERROR_INTERCEPTORS;
+            break;
+        }
+
+        InterceptorChainFaxClientSpiProxyImpl.invokeInterceptors(interceptors, eventType, method, arguments, output,
+                throwable);
+    }
+
+    /**
+     * This function returns the interceptor chain of the provided method.<br>
+     * Chains of the fax client SPI methods are built when the proxy is initialized, chains of any other method (for
+     * example the java.lang.Object methods) are built and cached on first invocation.
+     *
+     * @param method
+     *            The method
+     * @return The interceptor chain
+     */
+    protected InterceptorChain getInterceptorChain(Method method) {
+        InterceptorChain interceptorChain = this.INTERCEPTOR_CHAINS.get(method);
+        if (interceptorChain == null) {
+            interceptorChain = this.createInterceptorChain(method);
+            InterceptorChain existingInterceptorChain = this.INTERCEPTOR_CHAINS.putIfAbsent(method, interceptorChain);
+            if (existingInterceptorChain != null) {
+                interceptorChain = existingInterceptorChain;
+            }
+        }
+
+        return interceptorChain;
+    }
+
+    /**
+     * This function creates the interceptor chain of the provided method.
+     *
+     * @param method
+     *            The method
+     * @return The interceptor chain
+     */
+    protected InterceptorChain createInterceptorChain(Method method) {
+        // get interceptors
+        FaxClientSpiInterceptor[] interceptors = this.getFaxClientSpiInterceptors();
+
+        // skip access checks on each invocation
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException exception) {
+            // ignore (access will be checked on each invocation)
+        }
+
+        return new InterceptorChain(method,
+                InterceptorChainFaxClientSpiProxyImpl.filterInterceptors(interceptors, method,
+                        FaxClientSpiProxyEventType.PRE_EVENT_TYPE),
+                InterceptorChainFaxClientSpiProxyImpl.filterInterceptors(interceptors, method,
+                        FaxClientSpiProxyEventType.POST_EVENT_TYPE),
+                InterceptorChainFaxClientSpiProxyImpl.filterInterceptors(interceptors, method,
+                        FaxClientSpiProxyEventType.ERROR_EVENT_TYPE));
+    }
+
+    /**
+     * This function returns the interceptors which should be invoked for the provided method and event type.
+     *
+     * @param interceptors
+     *            All the interceptors
+     * @param method
+     *            The method
+     * @param eventType
+     *            The event type
+     * @return The interceptors to invoke
+     */
+    private static FaxClientSpiInterceptor[] filterInterceptors(FaxClientSpiInterceptor[] interceptors, Method method,
+            FaxClientSpiProxyEventType eventType) {
+        List<FaxClientSpiInterceptor> filteredInterceptors = new ArrayList<FaxClientSpiInterceptor>(
+                interceptors.length);
+        FaxClientSpiInterceptor interceptor = null;
+        boolean interested = false;
+        for (int index = 0; index < interceptors.length; index++) {
+            // get next interceptor
+            interceptor = interceptors[index];
+
+            interested = true;
+            if (interceptor instanceof SelectiveFaxClientSpiInterceptor) {
+                interested = ((SelectiveFaxClientSpiInterceptor) interceptor).isInterested(method, eventType);
+            }
+
+            if (interested) {
+                filteredInterceptors.add(interceptor);
+            }
+        }
+
+        return filteredInterceptors.toArray(new FaxClientSpiInterceptor[filteredInterceptors.size()]);
+    }
+
+    /**
+     * This function invokes the interceptors for the given event.
+     *
+     * @param interceptors
+     *            The interceptors to invoke
+     * @param eventType
+     *            The event type
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param output
+     *            The method output
+     * @param throwable
+     *            The throwable while invoking the method
+     */
+    private static void invokeInterceptors(FaxClientSpiInterceptor[] interceptors,
+            FaxClientSpiProxyEventType eventType, Method method, Object[] arguments, Object output,
+            Throwable throwable) {
+        // get interceptors amount
+        int amount = interceptors.length;
+
+        for (int index = 0; index < amount; index++) {
+            // invoke interceptor
+            switch (eventType) {
+            case PRE_EVENT_TYPE:
+                interceptors[index].preMethodInvocation(method, arguments);
+                break;
+            case POST_EVENT_TYPE:
+                interceptors[index].postMethodInvocation(method, arguments, output);
+                break;
+            default:
+                interceptors[index].onMethodInvocationError(method, arguments, throwable);
+                break;
+            }
+        }
+    }
+
+    /**
+     * This function invokes the error event interceptors which were already invoked for the pre event.<br>
+     * It is invoked in case a pre event interceptor failed the method invocation.
+     *
+     * @param interceptorChain
+     *            The interceptor chain
+     * @param preAmount
+     *            The amount of pre event interceptors which were invoked successfully
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param throwable
+     *            The throwable thrown by the pre event interceptor
+     */
+    private static void invokeErrorInterceptors(InterceptorChain interceptorChain, int preAmount, Method method,
+            Object[] arguments, Throwable throwable) {
+        FaxClientSpiInterceptor[] errorInterceptors = interceptorChain.ERROR_INTERCEPTORS;
+        FaxClientSpiInterceptor interceptor = null;
+        for (int index = 0; index < errorInterceptors.length; index++) {
+            // get next interceptor
+            interceptor = errorInterceptors[index];
+
+            for (int preIndex = 0; preIndex < preAmount; preIndex++) {
+                if (interceptorChain.PRE_INTERCEPTORS[preIndex] == interceptor) {
+                    interceptor.onMethodInvocationError(method, arguments, throwable);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * This class holds the precomputed interceptor chain of a single method.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class InterceptorChain {
+        /** The method to invoke */
+        protected final Method METHOD;
+        /** The interceptors invoked before the method */
+        protected final FaxClientSpiInterceptor[] PRE_INTERCEPTORS;
+        /** The interceptors invoked after the method */
+        protected final FaxClientSpiInterceptor[] POST_INTERCEPTORS;
+        /** The interceptors invoked in case of method errors */
+        protected final FaxClientSpiInterceptor[] ERROR_INTERCEPTORS;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param method
+         *            The method to invoke
+         * @param preInterceptors
+         *            The interceptors invoked before the method
+         * @param postInterceptors
+         *            The interceptors invoked after the method
+         * @param errorInterceptors
+         *            The interceptors invoked in case of method errors
+         */
+        protected InterceptorChain(Method method, FaxClientSpiInterceptor[] preInterceptors,
+                FaxClientSpiInterceptor[] postInterceptors, FaxClientSpiInterceptor[] errorInterceptors) {
+            super();
+
+            this.METHOD = method;
+            this.PRE_INTERCEPTORS = preInterceptors;
+            this.POST_INTERCEPTORS = postInterceptors;
+            this.ERROR_INTERCEPTORS = errorInterceptors;
+        }
+    }
+}
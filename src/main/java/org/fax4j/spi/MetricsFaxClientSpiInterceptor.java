@@ -0,0 +1,298 @@
+package org.fax4j.spi;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.spi.FaxClientSpiProxy.FaxClientSpiProxyEventType;
+
+/**
+ * This class provides the metrics implementation of the fax client SPI interceptor which records the latency histogram
+ * and throughput/error counters of each fax action (submit, suspend, resume, cancel and get status) per fax client
+ * SPI.<br>
+ * The metrics are shared by all fax client SPIs with the same metrics name and can be read using the
+ * getFaxActionMetrics/getFaxActionMetricsSnapshots functions or via JMX (object name
+ * org.fax4j:type=FaxActionMetrics,name=[metrics name],action=[fax action type]).<br>
+ * To enable this interceptor, add the metrics type to the org.fax4j.proxy.interceptor.list property (for example:
+ * org.fax4j.proxy.interceptor.list=log;metrics).<br>
+ * The configuration of the fax4j framework is made up of 3 layers.<br>
+ * The configuration is based on simple properties.<br>
+ * Each layer overrides the lower layers by adding/changing the property values.<br>
+ * The first layer is the internal fax4j.properties file located in the fax4j jar.<br>
+ * This layer contains the preconfigured values for the fax4j framework and can be changed by updating these properties
+ * in the higher layers.<br>
+ * The second layer is the external fax4j.properties file that is located on the classpath.<br>
+ * This file is optional and provides the ability to override the internal configuration for the entire fax4j
+ * framework.<br>
+ * The top most layer is the optional java.util.Properties object provided by the external classes when creating a new
+ * fax client.<br>
+ * These properties enable to override the configuration of the lower 2 layers.<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.metrics.name</td>
+ * <td>The metrics name used to group the fax client SPI metrics (for example the vendor name).</td>
+ * <td>none</td>
+ * <td>The fax client SPI class simple name</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.metrics.jmx.enabled</td>
+ * <td>True to register the metrics as JMX MBeans in the platform MBean server.</td>
+ * <td>true</td>
+ * <td>true</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class MetricsFaxClientSpiInterceptor extends AbstractFaxClientSpiInterceptor implements
+        SelectiveFaxClientSpiInterceptor {
+    /** The metrics name property key */
+    public static final String METRICS_NAME_PROPERTY_KEY = "org.fax4j.proxy.interceptor.metrics.name";
+    /** The JMX enabled property key */
+    public static final String JMX_ENABLED_PROPERTY_KEY = "org.fax4j.proxy.interceptor.metrics.jmx.enabled";
+    /** The JMX domain */
+    public static final String JMX_DOMAIN = "org.fax4j";
+    /** The metrics (key is the metrics name and fax action type) */
+    private static final ConcurrentMap<String, FaxActionMetrics> METRICS =
+            new ConcurrentHashMap<String, FaxActionMetrics>();
+    /** The invocation start times of the current thread (indexed by fax action type ordinal) */
+    private final ThreadLocal<long[]> START_TIMES;
+    /** The metrics of this fax client SPI (indexed by fax action type ordinal) */
+    private FaxActionMetrics[] faxActionMetrics;
+
+    /**
+     * This is the default constructor.
+     */
+    public MetricsFaxClientSpiInterceptor() {
+        super();
+
+        this.START_TIMES = new ThreadLocal<long[]>();
+    }
+
+    /**
+     * This function returns the metrics of the provided metrics name and fax action type.
+     *
+     * @param name
+     *            The metrics name
+     * @param faxActionType
+     *            The fax action type
+     * @return The metrics (null if no metrics were created for the provided name)
+     */
+    public static FaxActionMetrics getFaxActionMetrics(String name, FaxActionType faxActionType) {
+        return MetricsFaxClientSpiInterceptor.METRICS.get(MetricsFaxClientSpiInterceptor.getMetricsKey(name,
+                faxActionType));
+    }
+
+    /**
+     * This function returns a snapshot of all the fax action metrics.
+     *
+     * @return The metrics snapshots
+     */
+    public static List<FaxActionMetrics.Snapshot> getFaxActionMetricsSnapshots() {
+        List<FaxActionMetrics.Snapshot> snapshots = new ArrayList<FaxActionMetrics.Snapshot>(
+                MetricsFaxClientSpiInterceptor.METRICS.size());
+        Iterator<FaxActionMetrics> iterator = MetricsFaxClientSpiInterceptor.METRICS.values().iterator();
+        while (iterator.hasNext()) {
+            snapshots.add(iterator.next().createSnapshot());
+        }
+
+        return snapshots;
+    }
+
+    /**
+     * This function returns the metrics key.
+     *
+     * @param name
+     *            The metrics name
+     * @param faxActionType
+     *            The fax action type
+     * @return The metrics key
+     */
+    private static String getMetricsKey(String name, FaxActionType faxActionType) {
+        return name + "." + faxActionType.name();
+    }
+
+    /**
+     * This function initializes the fax client SPI interceptor.
+     */
+    @Override
+    protected void initializeImpl() {
+        // get metrics name
+        String name = this.getConfigurationValue(MetricsFaxClientSpiInterceptor.METRICS_NAME_PROPERTY_KEY);
+        if (name == null || name.trim().length() == 0) {
+            name = this.getFaxClientSpi().getClass().getSimpleName();
+        }
+        name = name.trim();
+
+        // get JMX flag
+        String value = this.getConfigurationValue(MetricsFaxClientSpiInterceptor.JMX_ENABLED_PROPERTY_KEY);
+        boolean jmxEnabled = true;
+        if (value != null) {
+            jmxEnabled = Boolean.parseBoolean(value.trim());
+        }
+
+        // get/create metrics
+        FaxActionType[] faxActionTypes = FaxActionType.values();
+        this.faxActionMetrics = new FaxActionMetrics[faxActionTypes.length];
+        for (int index = 0; index < faxActionTypes.length; index++) {
+            this.faxActionMetrics[index] = this.getOrCreateFaxActionMetrics(name, faxActionTypes[index], jmxEnabled);
+        }
+    }
+
+    /**
+     * This function returns the metrics of the provided metrics name and fax action type and creates them if needed.
+     *
+     * @param name
+     *            The metrics name
+     * @param faxActionType
+     *            The fax action type
+     * @param jmxEnabled
+     *            True to register new metrics in the platform MBean server
+     * @return The metrics
+     */
+    protected FaxActionMetrics getOrCreateFaxActionMetrics(String name, FaxActionType faxActionType,
+            boolean jmxEnabled) {
+        String key = MetricsFaxClientSpiInterceptor.getMetricsKey(name, faxActionType);
+        FaxActionMetrics metrics = MetricsFaxClientSpiInterceptor.METRICS.get(key);
+        if (metrics == null) {
+            metrics = new FaxActionMetrics(name, faxActionType);
+            FaxActionMetrics existingMetrics = MetricsFaxClientSpiInterceptor.METRICS.putIfAbsent(key, metrics);
+            if (existingMetrics == null) {
+                if (jmxEnabled) {
+                    this.registerMBean(metrics);
+                }
+            } else {
+                metrics = existingMetrics;
+            }
+        }
+
+        return metrics;
+    }
+
+    /**
+     * This function registers the metrics in the platform MBean server.<br>
+     * Registration errors are logged and ignored.
+     *
+     * @param metrics
+     *            The metrics
+     */
+    protected void registerMBean(FaxActionMetrics metrics) {
+        // escape object name values
+        String name = metrics.getName().replaceAll("[,=:\"*?\\s]", "_");
+
+        try {
+            ObjectName objectName = new ObjectName(MetricsFaxClientSpiInterceptor.JMX_DOMAIN
+                    + ":type=FaxActionMetrics,name=" + name + ",action=" + metrics.getActionType());
+            MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (!mbeanServer.isRegistered(objectName)) {
+                mbeanServer.registerMBean(metrics, objectName);
+            }
+        } catch (Exception exception) {
+            this.getLogger().logError(
+                    new Object[] { "Unable to register metrics MBean for: ", metrics.getName(), " ",
+                            metrics.getActionType() }, exception);
+        }
+    }
+
+    /**
+     * This function returns true if the interceptor should be invoked for the provided method and event type.
+     *
+     * @param method
+     *            The fax client SPI method
+     * @param eventType
+     *            The event type
+     * @return True if the interceptor should be invoked
+     */
+    public boolean isInterested(Method method, FaxClientSpiProxyEventType eventType) {
+        return AbstractFaxClientSpiInterceptor.getFaxActionType(method) != null;
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy before invoking the method in the fax client SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     */
+    public void preMethodInvocation(Method method, Object[] arguments) {
+        FaxActionType faxActionType = AbstractFaxClientSpiInterceptor.getFaxActionType(method);
+        if (faxActionType != null) {
+            long[] startTimes = this.START_TIMES.get();
+            if (startTimes == null) {
+                startTimes = new long[this.faxActionMetrics.length];
+                this.START_TIMES.set(startTimes);
+            }
+            startTimes[faxActionType.ordinal()] = System.nanoTime();
+        }
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy after invoking the method in the fax client SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param output
+     *            The method output
+     */
+    public void postMethodInvocation(Method method, Object[] arguments, Object output) {
+        this.recordInvocation(method, false);
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy in of an error while invoking the method in the fax client
+     * SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param throwable
+     *            The throwable while invoking the method
+     */
+    public void onMethodInvocationError(Method method, Object[] arguments, Throwable throwable) {
+        this.recordInvocation(method, true);
+    }
+
+    /**
+     * This function records the invocation latency of the provided method.
+     *
+     * @param method
+     *            The method invoked
+     * @param error
+     *            True if the invocation failed
+     */
+    protected void recordInvocation(Method method, boolean error) {
+        FaxActionType faxActionType = AbstractFaxClientSpiInterceptor.getFaxActionType(method);
+        if (faxActionType != null) {
+            long[] startTimes = this.START_TIMES.get();
+            if (startTimes != null) {
+                int index = faxActionType.ordinal();
+                long latency = System.nanoTime() - startTimes[index];
+                this.faxActionMetrics[index].recordInvocation(latency, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.fax4j.FaxJob;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.spi.FaxClientSpiProxy.FaxClientSpiProxyEventType;
+import org.fax4j.util.TokenBucket;
+
+/**
+ * This class provides the rate limit implementation of the fax client SPI interceptor which limits the rate of the fax
+ * actions (submit, suspend, resume, cancel and get status) sent to the vendor.<br>
+ * The rate limit is based on token buckets which enable short bursts above the configured rate.<br>
+ * A rate may be configured for all the fax actions of the SPI and/or for each fax action separately, in which case the
+ * fax action needs a token from both buckets.<br>
+ * Callers which exceed the rate wait in a fair queue for the next token, or are rejected immediately with a
+ * FaxException in case the queue is full or the expected wait is longer than the configured max wait.<br>
+ * The token buckets are shared by all fax client SPIs with the same rate limit name.<br>
+ * The fax job monitor status polling requests share the token buckets of the get fax job status action (including
+ * status polling requests sent by the internal SPIs of adapter SPIs), so the total amount of requests sent to the
+ * vendor does not exceed the configured rate.<br>
+ * To enable this interceptor, add the rate limit type to the org.fax4j.proxy.interceptor.list property (for example:
+ * org.fax4j.proxy.interceptor.list=log;ratelimit).<br>
+ * The configuration of the fax4j framework is made up of 3 layers.<br>
+ * The configuration is based on simple properties.<br>
+ * Each layer overrides the lower layers by adding/changing the property values.<br>
+ * The first layer is the internal fax4j.properties file located in the fax4j jar.<br>
+ * This layer contains the preconfigured values for the fax4j framework and can be changed by updating these properties
+ * in the higher layers.<br>
+ * The second layer is the external fax4j.properties file that is located on the classpath.<br>
+ * This file is optional and provides the ability to override the internal configuration for the entire fax4j
+ * framework.<br>
+ * The top most layer is the optional java.util.Properties object provided by the external classes when creating a new
+ * fax client.<br>
+ * These properties enable to override the configuration of the lower 2 layers.<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.name</td>
+ * <td>The name used to share the token buckets between fax client SPIs (for example the vendor name).</td>
+ * <td>none</td>
+ * <td>The fax client SPI vendor key (the SPI type)</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.rate</td>
+ * <td>The max amount of fax actions per second (0 for unlimited).</td>
+ * <td>0</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.burst</td>
+ * <td>The max amount of fax actions which can be sent in a burst.</td>
+ * <td>none</td>
+ * <td>The rate (at least 1)</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.xxx.rate</td>
+ * <td>The max amount of fax actions per second for the xxx fax action (0 for unlimited), where xxx is the lower case
+ * fax action type (for example: org.fax4j.proxy.interceptor.rate.limit.get_fax_job_status.rate=5).</td>
+ * <td>none</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.xxx.burst</td>
+ * <td>The max amount of xxx fax actions which can be sent in a burst.</td>
+ * <td>none</td>
+ * <td>The xxx fax action rate (at least 1)</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.queue.size</td>
+ * <td>The max amount of callers waiting for a token (per token bucket).</td>
+ * <td>100</td>
+ * <td>100</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.rate.limit.max.wait</td>
+ * <td>The max time in millies a caller may wait for a token.</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class RateLimitFaxClientSpiInterceptor extends AbstractFaxClientSpiInterceptor implements
+        SelectiveFaxClientSpiInterceptor {
+    /** The rate limit property key prefix */
+    public static final String RATE_LIMIT_PROPERTY_KEY_PREFIX = "org.fax4j.proxy.interceptor.rate.limit.";
+    /** The rate limit name property key */
+    public static final String RATE_LIMIT_NAME_PROPERTY_KEY = RATE_LIMIT_PROPERTY_KEY_PREFIX + "name";
+    /** The rate property key suffix */
+    public static final String RATE_PROPERTY_KEY_SUFFIX = "rate";
+    /** The burst property key suffix */
+    public static final String BURST_PROPERTY_KEY_SUFFIX = "burst";
+    /** The queue size property key */
+    public static final String QUEUE_SIZE_PROPERTY_KEY = RATE_LIMIT_PROPERTY_KEY_PREFIX + "queue.size";
+    /** The max wait property key */
+    public static final String MAX_WAIT_PROPERTY_KEY = RATE_LIMIT_PROPERTY_KEY_PREFIX + "max.wait";
+    /** The shared token buckets (key is the rate limit name and optional fax action type) */
+    private static final ConcurrentMap<String, TokenBucket> TOKEN_BUCKETS =
+            new ConcurrentHashMap<String, TokenBucket>();
+    /** The token buckets of each fax action (indexed by fax action type ordinal, null if not limited) */
+    private TokenBucket[][] faxActionTokenBuckets;
+
+    /**
+     * This is the default constructor.
+     */
+    public RateLimitFaxClientSpiInterceptor() {
+        super();
+    }
+
+    /**
+     * This function returns the token bucket of the provided rate limit name and fax action type.
+     *
+     * @param name
+     *            The rate limit name
+     * @param faxActionType
+     *            The fax action type (null for the token bucket shared by all fax actions)
+     * @return The token bucket (null if not created)
+     */
+    public static TokenBucket getTokenBucket(String name, FaxActionType faxActionType) {
+        return RateLimitFaxClientSpiInterceptor.TOKEN_BUCKETS.get(RateLimitFaxClientSpiInterceptor.getTokenBucketKey(
+                name, faxActionType));
+    }
+
+    /**
+     * This function returns the token bucket key.
+     *
+     * @param name
+     *            The rate limit name
+     * @param faxActionType
+     *            The fax action type (null for the token bucket shared by all fax actions)
+     * @return The token bucket key
+     */
+    private static String getTokenBucketKey(String name, FaxActionType faxActionType) {
+        String key = name;
+        if (faxActionType != null) {
+            key = name + "." + faxActionType.name();
+        }
+
+        return key;
+    }
+
+    /**
+     * This function initializes the fax client SPI interceptor.
+     */
+    @Override
+    protected void initializeImpl() {
+        // get name
+        String name = this.getConfigurationValue(RateLimitFaxClientSpiInterceptor.RATE_LIMIT_NAME_PROPERTY_KEY);
+        if (name == null || name.trim().length() == 0) {
+            name = this.getVendorKey();
+        }
+        name = name.trim();
+
+        // get queue configuration
+        String value = this.getConfigurationValue(RateLimitFaxClientSpiInterceptor.QUEUE_SIZE_PROPERTY_KEY);
+        int queueSize = 100;
+        if (value != null) {
+            queueSize = Integer.parseInt(value);
+        }
+        value = this.getConfigurationValue(RateLimitFaxClientSpiInterceptor.MAX_WAIT_PROPERTY_KEY);
+        long maxWait = 60000;
+        if (value != null) {
+            maxWait = Long.parseLong(value);
+        }
+
+        // get/create token buckets
+        TokenBucket spiTokenBucket = this.getOrCreateTokenBucket(name, null, queueSize, maxWait);
+        FaxActionType[] faxActionTypes = FaxActionType.values();
+        this.faxActionTokenBuckets = new TokenBucket[faxActionTypes.length][];
+        List<TokenBucket> tokenBuckets = new ArrayList<TokenBucket>(2);
+        TokenBucket tokenBucket = null;
+        for (int index = 0; index < faxActionTypes.length; index++) {
+            tokenBuckets.clear();
+            tokenBucket = this.getOrCreateTokenBucket(name, faxActionTypes[index], queueSize, maxWait);
+            if (tokenBucket != null) {
+                tokenBuckets.add(tokenBucket);
+            }
+            if (spiTokenBucket != null) {
+                tokenBuckets.add(spiTokenBucket);
+            }
+
+            if (!tokenBuckets.isEmpty()) {
+                this.faxActionTokenBuckets[index] = tokenBuckets.toArray(new TokenBucket[tokenBuckets.size()]);
+            }
+        }
+
+        // share the get status rate limit with the fax job monitor polling
+        FaxClientSpi faxClientSpi = this.getFaxClientSpi();
+        if (faxClientSpi instanceof AbstractFax4JClientSpi) {
+            ((AbstractFax4JClientSpi) faxClientSpi)
+                    .setStatusPollingTokenBuckets(this.faxActionTokenBuckets[FaxActionType.GET_FAX_JOB_STATUS
+                            .ordinal()]);
+        }
+    }
+
+    /**
+     * This function returns the token bucket of the provided rate limit name and fax action type and creates it if
+     * needed.
+     *
+     * @param name
+     *            The rate limit name
+     * @param faxActionType
+     *            The fax action type (null for the token bucket shared by all fax actions)
+     * @param queueSize
+     *            The max amount of waiting callers
+     * @param maxWait
+     *            The max time in millies a caller may wait for a token
+     * @return The token bucket (null if not rate limited)
+     */
+    protected TokenBucket getOrCreateTokenBucket(String name, FaxActionType faxActionType, int queueSize,
+            long maxWait) {
+        // get configuration
+        String prefix = RateLimitFaxClientSpiInterceptor.RATE_LIMIT_PROPERTY_KEY_PREFIX;
+        if (faxActionType != null) {
+            prefix = prefix + faxActionType.name().toLowerCase(Locale.ENGLISH) + ".";
+        }
+        String value = this.getConfigurationValue(prefix + RateLimitFaxClientSpiInterceptor.RATE_PROPERTY_KEY_SUFFIX);
+        double rate = 0;
+        if (value != null) {
+            rate = Double.parseDouble(value);
+        }
+
+        TokenBucket tokenBucket = null;
+        if (rate > 0) {
+            String key = RateLimitFaxClientSpiInterceptor.getTokenBucketKey(name, faxActionType);
+            tokenBucket = RateLimitFaxClientSpiInterceptor.TOKEN_BUCKETS.get(key);
+            if (tokenBucket == null) {
+                value = this.getConfigurationValue(prefix + RateLimitFaxClientSpiInterceptor.BURST_PROPERTY_KEY_SUFFIX);
+                int burst = Math.max(1, (int) Math.ceil(rate));
+                if (value != null) {
+                    burst = Integer.parseInt(value);
+                }
+
+                tokenBucket = new TokenBucket(rate, burst, queueSize, maxWait);
+                TokenBucket existingTokenBucket = RateLimitFaxClientSpiInterceptor.TOKEN_BUCKETS.putIfAbsent(key,
+                        tokenBucket);
+                if (existingTokenBucket != null) {
+                    tokenBucket = existingTokenBucket;
+                }
+            }
+        }
+
+        return tokenBucket;
+    }
+
+    /**
+     * This function returns true if the interceptor should be invoked for the provided method and event type.
+     *
+     * @param method
+     *            The fax client SPI method
+     * @param eventType
+     *            The event type
+     * @return True if the interceptor should be invoked
+     */
+    public boolean isInterested(Method method, FaxClientSpiProxyEventType eventType) {
+        boolean interested = false;
+        if (eventType == FaxClientSpiProxyEventType.PRE_EVENT_TYPE) {
+            FaxActionType faxActionType = AbstractFaxClientSpiInterceptor.getFaxActionType(method);
+            interested = faxActionType != null && this.faxActionTokenBuckets[faxActionType.ordinal()] != null;
+        }
+
+        return interested;
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy before invoking the method in the fax client SPI itself.<br>
+     * This function waits for the rate limit tokens and throws a FaxRejectedException in case the call is
+     * rejected.<br>
+     * Batch submissions take a token for each submitted fax job.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     */
+    public void preMethodInvocation(Method method, Object[] arguments) {
+        FaxActionType faxActionType = AbstractFaxClientSpiInterceptor.getFaxActionType(method);
+        if (faxActionType != null) {
+            TokenBucket[] tokenBuckets = this.faxActionTokenBuckets[faxActionType.ordinal()];
+            if (tokenBuckets != null) {
+                // get amount of tokens
+                int tokens = 1;
+                if ((arguments != null) && (arguments.length == 1) && (arguments[0] instanceof FaxJob[])) {
+                    tokens = Math.max(1, ((FaxJob[]) arguments[0]).length);
+                }
+
+                for (int token = 0; token < tokens; token++) {
+                    for (int index = 0; index < tokenBuckets.length; index++) {
+                        tokenBuckets[index].acquire();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy after invoking the method in the fax client SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param output
+     *            The method output
+     */
+    public void postMethodInvocation(Method method, Object[] arguments, Object output) {
+        // empty
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy in of an error while invoking the method in the fax client
+     * SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param throwable
+     *            The throwable while invoking the method
+     */
+    public void onMethodInvocationError(Method method, Object[] arguments, Throwable throwable) {
+        // empty
+    }
+}
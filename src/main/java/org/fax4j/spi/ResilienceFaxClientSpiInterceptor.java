@@ -0,0 +1,436 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxRejectedException;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.spi.FaxClientSpiProxy.FaxClientSpiProxyEventType;
+import org.fax4j.util.CircuitBreaker;
+import org.fax4j.util.SpiUtil;
+
+/**
+ * This class provides the resilience implementation of the fax client SPI interceptor which protects the callers from
+ * degraded fax client SPIs (vendors).<br>
+ * Each fax action invocation (submit, suspend, resume, cancel and get status) first needs a permit from the bulkhead,
+ * which caps the amount of concurrent in flight calls, and from the circuit breaker, which fails fast once the error
+ * rate or slow call rate of the recent calls reaches the configured thresholds.<br>
+ * Rejected calls fail immediately with a FaxRejectedException without invoking the fax client SPI.<br>
+ * Errors caused by the caller (invalid input or unsupported operations) are not recorded as vendor failures.<br>
+ * The circuit breaker and bulkhead are shared by all fax client SPIs with the same resilience name, so one slow vendor
+ * does not consume the threads of the callers of other vendors.<br>
+ * To enable this interceptor, add the resilience type to the org.fax4j.proxy.interceptor.list property (for example:
+ * org.fax4j.proxy.interceptor.list=log;resilience).<br>
+ * The interceptor chain proxy (org.fax4j.spi.InterceptorChainFaxClientSpiProxyImpl) delivers the error event to this
+ * interceptor in case a later interceptor rejects the invocation, so the acquired permits are always released. When
+ * used with other proxy implementations, this interceptor should be the last in the interceptors list.<br>
+ * The configuration of the fax4j framework is made up of 3 layers.<br>
+ * The configuration is based on simple properties.<br>
+ * Each layer overrides the lower layers by adding/changing the property values.<br>
+ * The first layer is the internal fax4j.properties file located in the fax4j jar.<br>
+ * This layer contains the preconfigured values for the fax4j framework and can be changed by updating these properties
+ * in the higher layers.<br>
+ * The second layer is the external fax4j.properties file that is located on the classpath.<br>
+ * This file is optional and provides the ability to override the internal configuration for the entire fax4j
+ * framework.<br>
+ * The top most layer is the optional java.util.Properties object provided by the external classes when creating a new
+ * fax client.<br>
+ * These properties enable to override the configuration of the lower 2 layers.<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.name</td>
+ * <td>The name used to share the circuit breaker and bulkhead between fax client SPIs (for example the vendor
+ * name).</td>
+ * <td>none</td>
+ * <td>The fax client SPI vendor key (the SPI type, HTTP SPIs add the target host name)</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.window.size</td>
+ * <td>The amount of recent calls used to calculate the failure and slow call rates.</td>
+ * <td>20</td>
+ * <td>20</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.minimum.calls</td>
+ * <td>The minimum amount of recorded calls before the rates are checked.</td>
+ * <td>10</td>
+ * <td>10</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.failure.rate.threshold</td>
+ * <td>The failure rate percentage which opens the circuit breaker.</td>
+ * <td>50</td>
+ * <td>50</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.slow.call.duration</td>
+ * <td>The call duration in millies from which a call is considered slow (0 to disable).</td>
+ * <td>30000</td>
+ * <td>30000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.slow.call.rate.threshold</td>
+ * <td>The slow call rate percentage which opens the circuit breaker.</td>
+ * <td>80</td>
+ * <td>80</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.open.duration</td>
+ * <td>The time in millies the circuit breaker stays open before permitting probe calls.</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.circuit.breaker.half.open.calls</td>
+ * <td>The amount of probe calls permitted while half open.</td>
+ * <td>3</td>
+ * <td>3</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.bulkhead.max.concurrent.calls</td>
+ * <td>The max amount of concurrent in flight calls (0 for unlimited).</td>
+ * <td>20</td>
+ * <td>20</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.proxy.interceptor.resilience.bulkhead.max.wait</td>
+ * <td>The max time in millies to wait for a bulkhead permit (0 to fail immediately).</td>
+ * <td>0</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class ResilienceFaxClientSpiInterceptor extends AbstractFaxClientSpiInterceptor implements
+        SelectiveFaxClientSpiInterceptor {
+    /** The resilience name property key */
+    public static final String RESILIENCE_NAME_PROPERTY_KEY = "org.fax4j.proxy.interceptor.resilience.name";
+    /** The circuit breaker window size property key */
+    public static final String WINDOW_SIZE_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.window.size";
+    /** The circuit breaker minimum calls property key */
+    public static final String MINIMUM_CALLS_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.minimum.calls";
+    /** The circuit breaker failure rate threshold property key */
+    public static final String FAILURE_RATE_THRESHOLD_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.failure.rate.threshold";
+    /** The circuit breaker slow call duration property key */
+    public static final String SLOW_CALL_DURATION_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.slow.call.duration";
+    /** The circuit breaker slow call rate threshold property key */
+    public static final String SLOW_CALL_RATE_THRESHOLD_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.slow.call.rate.threshold";
+    /** The circuit breaker open duration property key */
+    public static final String OPEN_DURATION_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.open.duration";
+    /** The circuit breaker half open calls property key */
+    public static final String HALF_OPEN_CALLS_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.circuit.breaker.half.open.calls";
+    /** The bulkhead max concurrent calls property key */
+    public static final String MAX_CONCURRENT_CALLS_PROPERTY_KEY =
+            "org.fax4j.proxy.interceptor.resilience.bulkhead.max.concurrent.calls";
+    /** The bulkhead max wait property key */
+    public static final String MAX_WAIT_PROPERTY_KEY = "org.fax4j.proxy.interceptor.resilience.bulkhead.max.wait";
+    /** The shared resilience states (key is the resilience name) */
+    private static final ConcurrentMap<String, ResilienceState> RESILIENCE_STATES =
+            new ConcurrentHashMap<String, ResilienceState>();
+    /** The invocation start times of the current thread (indexed by fax action type ordinal) */
+    private final ThreadLocal<long[]> START_TIMES;
+    /** The resilience state */
+    private ResilienceState resilienceState;
+    /** The bulkhead max wait in millies */
+    private long maxWait;
+
+    /**
+     * This is the default constructor.
+     */
+    public ResilienceFaxClientSpiInterceptor() {
+        super();
+
+        this.START_TIMES = new ThreadLocal<long[]>();
+    }
+
+    /**
+     * This function returns the circuit breaker of the provided resilience name.
+     *
+     * @param name
+     *            The resilience name
+     * @return The circuit breaker (null if not created)
+     */
+    public static CircuitBreaker getCircuitBreaker(String name) {
+        CircuitBreaker circuitBreaker = null;
+        ResilienceState state = ResilienceFaxClientSpiInterceptor.RESILIENCE_STATES.get(name);
+        if (state != null) {
+            circuitBreaker = state.CIRCUIT_BREAKER;
+        }
+
+        return circuitBreaker;
+    }
+
+    /**
+     * This function initializes the fax client SPI interceptor.
+     */
+    @Override
+    protected void initializeImpl() {
+        // get name
+        String name = this.getConfigurationValue(ResilienceFaxClientSpiInterceptor.RESILIENCE_NAME_PROPERTY_KEY);
+        if (name == null || name.trim().length() == 0) {
+            name = this.getVendorKey();
+        }
+        name = name.trim();
+
+        this.maxWait = this.getLongValue(ResilienceFaxClientSpiInterceptor.MAX_WAIT_PROPERTY_KEY, 0);
+
+        // get/create shared state (first SPI configuration wins)
+        ResilienceState state = ResilienceFaxClientSpiInterceptor.RESILIENCE_STATES.get(name);
+        if (state == null) {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(
+                    this.getIntValue(ResilienceFaxClientSpiInterceptor.WINDOW_SIZE_PROPERTY_KEY, 20),
+                    this.getIntValue(ResilienceFaxClientSpiInterceptor.MINIMUM_CALLS_PROPERTY_KEY, 10),
+                    this.getIntValue(ResilienceFaxClientSpiInterceptor.FAILURE_RATE_THRESHOLD_PROPERTY_KEY, 50),
+                    this.getLongValue(ResilienceFaxClientSpiInterceptor.SLOW_CALL_DURATION_PROPERTY_KEY, 30000),
+                    this.getIntValue(ResilienceFaxClientSpiInterceptor.SLOW_CALL_RATE_THRESHOLD_PROPERTY_KEY, 80),
+                    this.getLongValue(ResilienceFaxClientSpiInterceptor.OPEN_DURATION_PROPERTY_KEY, 60000),
+                    this.getIntValue(ResilienceFaxClientSpiInterceptor.HALF_OPEN_CALLS_PROPERTY_KEY, 3));
+
+            Semaphore bulkhead = null;
+            int maxConcurrentCalls = this.getIntValue(
+                    ResilienceFaxClientSpiInterceptor.MAX_CONCURRENT_CALLS_PROPERTY_KEY, 20);
+            if (maxConcurrentCalls > 0) {
+                bulkhead = new Semaphore(maxConcurrentCalls, true);
+            }
+
+            state = new ResilienceState(name, circuitBreaker, bulkhead);
+            ResilienceState existingState = ResilienceFaxClientSpiInterceptor.RESILIENCE_STATES
+                    .putIfAbsent(name, state);
+            if (existingState != null) {
+                state = existingState;
+            }
+        }
+        this.resilienceState = state;
+    }
+
+    /**
+     * This function returns the configured int value.
+     *
+     * @param key
+     *            The configuration key
+     * @param defaultValue
+     *            The default value
+     * @return The value
+     */
+    private int getIntValue(String key, int defaultValue) {
+        String value = this.getConfigurationValue(key);
+        int output = defaultValue;
+        if (value != null) {
+            output = Integer.parseInt(value);
+        }
+
+        return output;
+    }
+
+    /**
+     * This function returns the configured long value.
+     *
+     * @param key
+     *            The configuration key
+     * @param defaultValue
+     *            The default value
+     * @return The value
+     */
+    private long getLongValue(String key, long defaultValue) {
+        String value = this.getConfigurationValue(key);
+        long output = defaultValue;
+        if (value != null) {
+            output = Long.parseLong(value);
+        }
+
+        return output;
+    }
+
+    /**
+     * This function returns true if the interceptor should be invoked for the provided method and event type.
+     *
+     * @param method
+     *            The fax client SPI method
+     * @param eventType
+     *            The event type
+     * @return True if the interceptor should be invoked
+     */
+    public boolean isInterested(Method method, FaxClientSpiProxyEventType eventType) {
+        return AbstractFaxClientSpiInterceptor.getFaxActionType(method) != null;
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy before invoking the method in the fax client SPI itself.<br>
+     * This function acquires the bulkhead and circuit breaker permits and throws a FaxRejectedException if the call is
+     * rejected.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     */
+    public void preMethodInvocation(Method method, Object[] arguments) {
+        FaxActionType faxActionType = AbstractFaxClientSpiInterceptor.getFaxActionType(method);
+        if (faxActionType != null) {
+            ResilienceState state = this.resilienceState;
+
+            // acquire bulkhead permit
+            if (state.BULKHEAD != null) {
+                boolean acquired = false;
+                if (this.maxWait > 0) {
+                    try {
+                        acquired = state.BULKHEAD.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    acquired = state.BULKHEAD.tryAcquire();
+                }
+
+                if (!acquired) {
+                    throw new FaxRejectedException("Max concurrent calls reached for: " + state.NAME + ", rejecting: "
+                            + faxActionType);
+                }
+            }
+
+            // acquire circuit breaker permit
+            if (!state.CIRCUIT_BREAKER.tryAcquirePermission()) {
+                if (state.BULKHEAD != null) {
+                    state.BULKHEAD.release();
+                }
+
+                throw new FaxRejectedException("Circuit breaker open for: " + state.NAME + ", rejecting: "
+                        + faxActionType);
+            }
+
+            // store start time
+            long[] startTimes = this.START_TIMES.get();
+            if (startTimes == null) {
+                startTimes = new long[FaxActionType.values().length];
+                this.START_TIMES.set(startTimes);
+            }
+            startTimes[faxActionType.ordinal()] = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy after invoking the method in the fax client SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param output
+     *            The method output
+     */
+    public void postMethodInvocation(Method method, Object[] arguments, Object output) {
+        this.completeInvocation(method, false, false);
+    }
+
+    /**
+     * This function is invoked by the fax client SPI proxy in of an error while invoking the method in the fax client
+     * SPI itself.
+     *
+     * @param method
+     *            The method invoked
+     * @param arguments
+     *            The method arguments
+     * @param throwable
+     *            The throwable while invoking the method
+     */
+    public void onMethodInvocationError(Method method, Object[] arguments, Throwable throwable) {
+        this.completeInvocation(method, true, SpiUtil.isCallerError(throwable));
+    }
+
+    /**
+     * This function records the call outcome and releases the bulkhead permit.
+     *
+     * @param method
+     *            The method invoked
+     * @param failed
+     *            True if the call failed
+     * @param callerError
+     *            True if the call failed due to the caller (not recorded as a vendor failure)
+     */
+    protected void completeInvocation(Method method, boolean failed, boolean callerError) {
+        FaxActionType faxActionType = AbstractFaxClientSpiInterceptor.getFaxActionType(method);
+        if (faxActionType != null) {
+            long[] startTimes = this.START_TIMES.get();
+            if (startTimes != null) {
+                ResilienceState state = this.resilienceState;
+
+                if (callerError) {
+                    state.CIRCUIT_BREAKER.releasePermission();
+                } else {
+                    long duration = System.currentTimeMillis() - startTimes[faxActionType.ordinal()];
+                    state.CIRCUIT_BREAKER.recordCall(duration, failed);
+                }
+
+                if (state.BULKHEAD != null) {
+                    state.BULKHEAD.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * This class holds the circuit breaker and bulkhead shared by all fax client SPIs with the same resilience name.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class ResilienceState {
+        /** The resilience name */
+        protected final String NAME;
+        /** The circuit breaker */
+        protected final CircuitBreaker CIRCUIT_BREAKER;
+        /** The bulkhead (null for unlimited) */
+        protected final Semaphore BULKHEAD;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param name
+         *            The resilience name
+         * @param circuitBreaker
+         *            The circuit breaker
+         * @param bulkhead
+         *            The bulkhead (null for unlimited)
+         */
+        protected ResilienceState(String name, CircuitBreaker circuitBreaker, Semaphore bulkhead) {
+            super();
+
+            this.NAME = name;
+            this.CIRCUIT_BREAKER = circuitBreaker;
+            this.BULKHEAD = bulkhead;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import org.fax4j.spi.FaxClientSpiProxy.FaxClientSpiProxyEventType;
+
+/**
+ * This interface extends the fax client SPI interceptor by enabling the interceptor to declare which methods and
+ * events it is interested in.<br>
+ * Proxies which support this interface (such as the InterceptorChainFaxClientSpiProxyImpl) query the interceptor once
+ * per method when the interceptor chains are built and will not invoke the interceptor for methods/events it is not
+ * interested in.<br>
+ * Therefore the result of this function must not change after the interceptor was initialized.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public interface SelectiveFaxClientSpiInterceptor extends FaxClientSpiInterceptor {
+    /**
+     * This function returns true if the interceptor should be invoked for the provided method and event type.
+     *
+     * @param method
+     *            The fax client SPI method
+     * @param eventType
+     *            The event type
+     * @return True if the interceptor should be invoked
+     */
+    boolean isInterested(Method method, FaxClientSpiProxyEventType eventType);
+}
@@ -6,13 +6,14 @@ import org.fax4j.FaxJobStatus;
 import org.fax4j.common.Logger;
 import org.fax4j.spi.AbstractFax4JClientSpi;
 import org.fax4j.spi.FaxClientSpi;
+import org.fax4j.util.TokenBucket;
 
 /**
  * This class provides partial implementation of an adapter fax client service provider interface.<br>
  * This implementation will proxy the requests to another internal SPI.
  * 
  * @author Sagie Gur-Ari
- * @version 1.01
+ * @version 1.02
  * @since 0.41.5
  */
 public abstract class AbstractAdapterFaxClientSpi extends AbstractFax4JClientSpi {
@@ -53,6 +54,34 @@ public abstract class AbstractAdapterFaxClientSpi extends AbstractFax4JClientSpi
         return this.faxClientSpi;
     }
 
+    /**
+     * This function returns all internal fax client SPIs which may receive fax actions from this SPI.
+     * 
+     * @return The internal fax client SPIs
+     */
+    protected FaxClientSpi[] getInternalFaxClientSpis() {
+        return new FaxClientSpi[] { this.faxClientSpi };
+    }
+
+    /**
+     * This function sets the token buckets used to rate limit the status polling requests.<br>
+     * Since the status polling requests are sent by the internal SPIs, the token buckets are passed to them as well.
+     * 
+     * @param tokenBuckets
+     *            The token buckets (null to disable status polling rate limiting)
+     */
+    @Override
+    public void setStatusPollingTokenBuckets(TokenBucket[] tokenBuckets) {
+        super.setStatusPollingTokenBuckets(tokenBuckets);
+
+        FaxClientSpi[] faxClientSpis = this.getInternalFaxClientSpis();
+        for (int index = 0; index < faxClientSpis.length; index++) {
+            if (faxClientSpis[index] instanceof AbstractFax4JClientSpi) {
+                ((AbstractFax4JClientSpi) faxClientSpis[index]).setStatusPollingTokenBuckets(tokenBuckets);
+            }
+        }
+    }
+
     /**
      * This function returns true if the fax monitor events are supported by this SPI.
      * 
@@ -7,6 +7,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import org.fax4j.FaxException;
 import org.fax4j.common.Logger;
+import org.fax4j.spi.FaxClientSpi;
 import org.fax4j.spi.FaxClientSpiFactory;
 import org.fax4j.util.ReflectionHelper;
 
@@ -115,7 +116,7 @@ import org.fax4j.util.ReflectionHelper;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.16
+ * @version 1.17
  * @since 0.1
  */
 public class AdapterFaxClientSpi extends AbstractAdapterFaxClientSpi {
@@ -220,6 +221,36 @@ public class AdapterFaxClientSpi extends AbstractAdapterFaxClientSpi {
      */
     @Override
     protected void initializeChildFaxClientSpi() {
+        // get types
+        String[] typeValues = this.getFaxClientSpiTypes();
+
+        // get amount
+        int amount = typeValues.length;
+
+        String typeValue = null;
+        for (int index = 0; index < amount; index++) {
+            // get next element
+            typeValue = typeValues[index];
+
+            if (this.validateFaxClientSpiType(typeValue)) {
+                // create SPI
+                this.createFaxClientSpi(typeValue);
+
+                break;
+            }
+        }
+
+        if (this.faxClientSpi == null) {
+            throw new FaxException("No internal SPI available.");
+        }
+    }
+
+    /**
+     * This function returns the configured SPI types (in the configured order).
+     *
+     * @return The SPI types
+     */
+    protected String[] getFaxClientSpiTypes() {
         // get logger
         Logger logger = this.getLogger();
 
@@ -228,109 +259,101 @@ public class AdapterFaxClientSpi extends AbstractAdapterFaxClientSpi {
         logger.logDebug(new Object[] { FaxClientSpiConfigurationConstants.SPI_TYPES_PROPERTY_KEY, " value is ", types },
                 null);
 
+        String[] typeValues = new String[0];
         if (types != null) {
             // split type values
-            String[] typeValues = types
-                    .split(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR.toString());
-
-            // get amount
-            int amount = typeValues.length;
-
-            String typeValue = null;
-            String conditionString = null;
-            String[] conditionBlocks = null;
-            String conditionBlock = null;
-            String[] conditionBlockValues = null;
-            String conditionKey = null;
-            String conditionValue = null;
-            int subAmount = -1;
-            boolean conditionValid = true;
-            StringBuilder conditionStringBuffer = new StringBuilder();
-            for (int index = 0; index < amount; index++) {
-                // get next element
-                typeValue = typeValues[index];
-                logger.logDebug(new Object[] { "Checking conditions for type: ", typeValue }, null);
-
-                // get condition string
-                conditionString = this.getConfigurationValue(
-                        FaxClientSpiConfigurationConstants.SPI_CONDITION_PROPERTY_KEY_PREFIX + typeValue);
-                logger.logDebug(
-                        new Object[] { "Configured condition for type: ", typeValue, " is set to: ", conditionString },
-                        null);
-
-                // append mandatory conditions
-                conditionStringBuffer.delete(0, conditionStringBuffer.length());
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_CONDITION);
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
-                conditionStringBuffer.append(FaxClientSpiFactory.SPI_CLASS_NAME_TYPE_MAP_PROPERTY_KEY_PREFIX);
-                conditionStringBuffer.append(typeValue);
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR);
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.JAVA_CLASS_CONDITION);
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
-                conditionStringBuffer.append(this.getConfigurationValue(
-                        FaxClientSpiFactory.SPI_CLASS_NAME_TYPE_MAP_PROPERTY_KEY_PREFIX + typeValue));
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR);
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.STABLE_CONDITION);
-                conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
-                conditionStringBuffer.append(typeValue);
-                if (conditionString != null) {
-                    conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR);
-                    conditionStringBuffer.append(conditionString);
-                }
-                conditionString = conditionStringBuffer.toString();
-                logger.logDebug(
-                        new Object[] { "Updated condition for type: ", typeValue, " is set to: ", conditionString },
-                        null);
-
-                // split condition to blocks
-                conditionBlocks = conditionString
-                        .split(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR.toString());
-
-                // get amount
-                subAmount = conditionBlocks.length;
+            typeValues = types.split(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR.toString());
+        }
 
-                conditionValid = true;
-                for (int blockIndex = 0; blockIndex < subAmount; blockIndex++) {
-                    // get next element
-                    conditionBlock = conditionBlocks[blockIndex];
+        return typeValues;
+    }
 
-                    // split condition block
-                    conditionBlockValues = conditionBlock
-                            .split(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR.toString());
+    /**
+     * This function returns true if all the conditions of the provided SPI type are met.
+     *
+     * @param typeValue
+     *            The SPI type
+     * @return True if all the conditions of the provided SPI type are met
+     */
+    protected boolean validateFaxClientSpiType(String typeValue) {
+        // get logger
+        Logger logger = this.getLogger();
 
-                    // check condition block contains only 2 parts (key and value)
-                    if (conditionBlockValues.length != 2) {
-                        throw new FaxException("Condition block must contain 2 parts separated by "
-                                + FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
-                    }
+        logger.logDebug(new Object[] { "Checking conditions for type: ", typeValue }, null);
 
-                    // get condition key and value
-                    conditionKey = conditionBlockValues[0];
-                    conditionValue = conditionBlockValues[1];
+        // get condition string
+        String conditionString = this.getConfigurationValue(
+                FaxClientSpiConfigurationConstants.SPI_CONDITION_PROPERTY_KEY_PREFIX + typeValue);
+        logger.logDebug(new Object[] { "Configured condition for type: ", typeValue, " is set to: ", conditionString },
+                null);
 
-                    // validate condition
-                    logger.logDebug(new Object[] { "Validating condition for type: ", typeValue, " key: ", conditionKey,
-                            " value: ", conditionValue }, null);
-                    if (!this.validateCondition(conditionKey, conditionValue)) {
-                        conditionValid = false;
-                        break;
-                    }
-                }
+        // append mandatory conditions
+        StringBuilder conditionStringBuffer = new StringBuilder();
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_CONDITION);
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
+        conditionStringBuffer.append(FaxClientSpiFactory.SPI_CLASS_NAME_TYPE_MAP_PROPERTY_KEY_PREFIX);
+        conditionStringBuffer.append(typeValue);
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR);
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.JAVA_CLASS_CONDITION);
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
+        conditionStringBuffer.append(this.getConfigurationValue(
+                FaxClientSpiFactory.SPI_CLASS_NAME_TYPE_MAP_PROPERTY_KEY_PREFIX + typeValue));
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR);
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.STABLE_CONDITION);
+        conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
+        conditionStringBuffer.append(typeValue);
+        if (conditionString != null) {
+            conditionStringBuffer.append(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR);
+            conditionStringBuffer.append(conditionString);
+        }
+        conditionString = conditionStringBuffer.toString();
+        logger.logDebug(new Object[] { "Updated condition for type: ", typeValue, " is set to: ", conditionString },
+                null);
 
-                if (conditionValid) {
-                    logger.logDebug(new Object[] { "Conditions validated for type: ", typeValue }, null);
+        // split condition to blocks
+        String[] conditionBlocks = conditionString
+                .split(FaxClientSpiConfigurationConstants.PROPERTY_VALUE_LIST_SEPARATOR.toString());
+
+        // get amount
+        int amount = conditionBlocks.length;
+
+        String conditionBlock = null;
+        String[] conditionBlockValues = null;
+        String conditionKey = null;
+        String conditionValue = null;
+        boolean conditionValid = true;
+        for (int blockIndex = 0; blockIndex < amount; blockIndex++) {
+            // get next element
+            conditionBlock = conditionBlocks[blockIndex];
+
+            // split condition block
+            conditionBlockValues = conditionBlock
+                    .split(FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR.toString());
+
+            // check condition block contains only 2 parts (key and value)
+            if (conditionBlockValues.length != 2) {
+                throw new FaxException("Condition block must contain 2 parts separated by "
+                        + FaxClientSpiConfigurationConstants.PROPERTY_BLOCK_VALUE_SEPARATOR);
+            }
 
-                    // create SPI
-                    this.createFaxClientSpi(typeValue);
+            // get condition key and value
+            conditionKey = conditionBlockValues[0];
+            conditionValue = conditionBlockValues[1];
 
-                    break;
-                }
+            // validate condition
+            logger.logDebug(new Object[] { "Validating condition for type: ", typeValue, " key: ", conditionKey,
+                    " value: ", conditionValue }, null);
+            if (!this.validateCondition(conditionKey, conditionValue)) {
+                conditionValid = false;
+                break;
             }
         }
 
-        if (this.faxClientSpi == null) {
-            throw new FaxException("No internal SPI available.");
+        if (conditionValid) {
+            logger.logDebug(new Object[] { "Conditions validated for type: ", typeValue }, null);
         }
+
+        return conditionValid;
     }
 
     /**
@@ -447,11 +470,23 @@ public class AdapterFaxClientSpi extends AbstractAdapterFaxClientSpi {
      *            The fax client type
      */
     protected void createFaxClientSpi(String type) {
+        // create fax client SPI
+        this.faxClientSpi = this.createChildFaxClientSpi(type);
+    }
+
+    /**
+     * This function creates and returns a new child fax client SPI based on the provided configuration.
+     *
+     * @param type
+     *            The fax client type
+     * @return The child fax client SPI
+     */
+    protected FaxClientSpi createChildFaxClientSpi(String type) {
         // setup fax client SPI configuration
         Properties configuration = this.createFaxClientSpiConfiguration();
 
         // create fax client SPI
-        this.faxClientSpi = FaxClientSpiFactory.createChildFaxClientSpi(type, configuration);
+        return FaxClientSpiFactory.createChildFaxClientSpi(type, configuration);
     }
 
     /**
@@ -0,0 +1,1019 @@
+package org.fax4j.spi.adapter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJob.FaxJobPriority;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.common.Logger;
+import org.fax4j.spi.FaxClientSpi;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.util.SpiUtil;
+
+/**
+ * This class implements the fax client service provider interface.<br>
+ * This implementation extends the adapter SPI but instead of binding to the first SPI type for which all conditions are
+ * met, it creates all the qualifying internal SPIs and keeps them live.<br>
+ * Each new fax job is routed to one of the internal SPIs based on the configured load balancing strategy:<br>
+ * <ul>
+ * <li>round-robin - weighted round robin (based on the configured weight of each SPI type)
+ * <li>least-in-flight - the SPI with the least amount of in flight calls relative to its weight
+ * <li>ewma - the SPI with the lowest exponentially weighted moving average latency (multiplied by its in flight calls)
+ * </ul>
+ * In case the selected SPI fails to submit the fax job, it is marked as unhealthy for the configured cool down period.
+ * <br>
+ * The fax job is submitted to the next SPI (unless failover is disabled) only if the error is known to happen before
+ * the fax job reached the vendor (for example the vendor host can not be connected), so a fax job is never sent
+ * twice.<br>
+ * Errors caused by the caller (such as invalid fax jobs) are not retried and do not mark the SPI as unhealthy.<br>
+ * New fax jobs are created by this SPI and when submitted, the values are copied to a fax job created by the selected
+ * internal SPI (so internal SPIs which require their own fax job implementation, such as hylafax, are supported).<br>
+ * All other fax job actions (suspend, resume, cancel and get status) are pinned to the SPI which submitted the fax job,
+ * based on the fax job created by this SPI and a fax job ID cache.<br>
+ * To use this SPI, map it to a new SPI type in the fax4j.properties (for example:
+ * org.fax4j.spi.type.map.balancer=org.fax4j.spi.adapter.LoadBalancingAdapterFaxClientSpi) and create the fax client
+ * using that type.<br>
+ * <br>
+ * The configuration of the fax4j framework is made up of 3 layers.<br>
+ * The configuration is based on simple properties.<br>
+ * Each layer overrides the lower layers by adding/changing the property values.<br>
+ * The first layer is the internal fax4j.properties file located in the fax4j jar.<br>
+ * This layer contains the preconfigured values for the fax4j framework and can be changed by updating these properties
+ * in the higher layers.<br>
+ * The second layer is the external fax4j.properties file that is located on the classpath.<br>
+ * This file is optional and provides the ability to override the internal configuration for the entire fax4j
+ * framework.<br>
+ * The top most layer is the optional java.util.Properties object provided by the external classes when creating a new
+ * fax client.<br>
+ * These properties enable to override the configuration of the lower 2 layers.<br>
+ * <br>
+ * <b>SPI Status (Draft, Beta, Stable): </b>Beta<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class (in addition to the adapter SPI
+ * configuration).<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.adapter.load.balancing.strategy</td>
+ * <td>The load balancing strategy (round-robin, least-in-flight or ewma)</td>
+ * <td>round-robin</td>
+ * <td>round-robin</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.adapter.load.balancing.weight.xxx</td>
+ * <td>The weight of the xxx SPI type (positive integer)</td>
+ * <td>none</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.adapter.load.balancing.failover</td>
+ * <td>True to submit the fax job to the next SPI in case the selected SPI failed before the fax job reached the
+ * vendor</td>
+ * <td>true</td>
+ * <td>true</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.adapter.load.balancing.failure.cooldown</td>
+ * <td>The time in millies a failed SPI is skipped by the load balancer (as long as other SPIs are healthy)</td>
+ * <td>30000</td>
+ * <td>30000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.adapter.load.balancing.ewma.alpha</td>
+ * <td>The weight of the latest latency in the moving average (between 0 and 1)</td>
+ * <td>0.3</td>
+ * <td>0.3</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.adapter.load.balancing.pinning.cache.size</td>
+ * <td>The max amount of fax job IDs kept in memory to find the SPI which submitted the fax job</td>
+ * <td>10000</td>
+ * <td>10000</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ * <br>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class LoadBalancingAdapterFaxClientSpi extends AdapterFaxClientSpi {
+    /** The child fax client SPIs */
+    private ChildFaxClientSpi[] childFaxClientSpis;
+    /** The weighted round robin schedule (child indexes) */
+    private int[] schedule;
+    /** The load balancing counter */
+    private final AtomicInteger COUNTER;
+    /** The fax job ID to submitted fax job cache */
+    private Map<String, PinnedFaxJob> pinningCache;
+    /** The load balancing strategy */
+    private LoadBalancingStrategy strategy;
+    /** True to failover to the next child SPI on error */
+    private boolean failover;
+    /** The failure cool down in millies */
+    private long failureCooldown;
+    /** The EWMA alpha */
+    private double ewmaAlpha;
+
+    /**
+     * This class holds the load balancing configuration constants.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public enum LoadBalancingConfigurationConstants {
+        /** The load balancing strategy property key */
+        STRATEGY_PROPERTY_KEY("org.fax4j.spi.adapter.load.balancing.strategy"),
+        /** The SPI weight property key prefix */
+        WEIGHT_PROPERTY_KEY_PREFIX("org.fax4j.spi.adapter.load.balancing.weight."),
+        /** The failover property key */
+        FAILOVER_PROPERTY_KEY("org.fax4j.spi.adapter.load.balancing.failover"),
+        /** The failure cool down property key */
+        FAILURE_COOLDOWN_PROPERTY_KEY("org.fax4j.spi.adapter.load.balancing.failure.cooldown"),
+        /** The EWMA alpha property key */
+        EWMA_ALPHA_PROPERTY_KEY("org.fax4j.spi.adapter.load.balancing.ewma.alpha"),
+        /** The pinning cache size property key */
+        PINNING_CACHE_SIZE_PROPERTY_KEY("org.fax4j.spi.adapter.load.balancing.pinning.cache.size"),
+        /** The fax job property which holds the type of the SPI that submitted the fax job (for external fax jobs) */
+        OWNER_FAX_JOB_PROPERTY_KEY("org.fax4j.spi.adapter.load.balancing.owner");
+
+        /** The string value */
+        private String value;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param value
+         *            The string value
+         */
+        LoadBalancingConfigurationConstants(String value) {
+            this.value = value;
+        }
+
+        /**
+         * This function returns the string value.
+         *
+         * @return The string value
+         */
+        @Override
+        public final String toString() {
+            return this.value;
+        }
+    }
+
+    /**
+     * This class holds the supported load balancing strategies.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public enum LoadBalancingStrategy {
+        /** Weighted round robin */
+        ROUND_ROBIN("round-robin"),
+        /** Least in flight calls relative to the weight */
+        LEAST_IN_FLIGHT("least-in-flight"),
+        /** Lowest exponentially weighted moving average latency */
+        EWMA("ewma");
+
+        /** The string value */
+        private String value;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param value
+         *            The string value
+         */
+        LoadBalancingStrategy(String value) {
+            this.value = value;
+        }
+
+        /**
+         * This function returns the string value.
+         *
+         * @return The string value
+         */
+        @Override
+        public final String toString() {
+            return this.value;
+        }
+
+        /**
+         * This function returns the enum for the provided value.
+         *
+         * @param value
+         *            The value to search for
+         * @return The enum
+         */
+        public static LoadBalancingStrategy getEnum(String value) {
+            if (value == null) {
+                throw new FaxException("Null value provided.");
+            }
+
+            LoadBalancingStrategy[] values = LoadBalancingStrategy.values();
+            int amount = values.length;
+            LoadBalancingStrategy constant = null;
+            for (int index = 0; index < amount; index++) {
+                // get next constant
+                constant = values[index];
+
+                if (value.equalsIgnoreCase(constant.toString())) {
+                    return constant;
+                }
+            }
+
+            throw new FaxException("Illegal value provided: " + value);
+        }
+    }
+
+    /**
+     * This is the default constructor.
+     */
+    public LoadBalancingAdapterFaxClientSpi() {
+        super();
+
+        this.COUNTER = new AtomicInteger();
+    }
+
+    /**
+     * This function initializes the fax client SPI.
+     */
+    @Override
+    protected void initializeChildFaxClientSpi() {
+        // get configuration
+        String value = this.getConfigurationValue(LoadBalancingConfigurationConstants.STRATEGY_PROPERTY_KEY);
+        this.strategy = LoadBalancingStrategy.ROUND_ROBIN;
+        if (value != null) {
+            this.strategy = LoadBalancingStrategy.getEnum(value);
+        }
+        value = this.getConfigurationValue(LoadBalancingConfigurationConstants.FAILOVER_PROPERTY_KEY);
+        this.failover = true;
+        if (value != null) {
+            this.failover = Boolean.parseBoolean(value);
+        }
+        value = this.getConfigurationValue(LoadBalancingConfigurationConstants.FAILURE_COOLDOWN_PROPERTY_KEY);
+        this.failureCooldown = 30000;
+        if (value != null) {
+            this.failureCooldown = Long.parseLong(value);
+        }
+        value = this.getConfigurationValue(LoadBalancingConfigurationConstants.EWMA_ALPHA_PROPERTY_KEY);
+        this.ewmaAlpha = 0.3;
+        if (value != null) {
+            this.ewmaAlpha = Double.parseDouble(value);
+        }
+        if (this.ewmaAlpha <= 0 || this.ewmaAlpha > 1) {
+            throw new FaxException("Invalid EWMA alpha: " + this.ewmaAlpha);
+        }
+        value = this.getConfigurationValue(LoadBalancingConfigurationConstants.PINNING_CACHE_SIZE_PROPERTY_KEY);
+        int pinningCacheSize = 10000;
+        if (value != null) {
+            pinningCacheSize = Integer.parseInt(value);
+        }
+        this.pinningCache = new PinningCache(pinningCacheSize);
+
+        // create all qualifying child SPIs
+        String[] typeValues = this.getFaxClientSpiTypes();
+        List<ChildFaxClientSpi> children = new ArrayList<ChildFaxClientSpi>(typeValues.length);
+        int totalWeight = 0;
+        String typeValue = null;
+        int weight = 0;
+        for (int index = 0; index < typeValues.length; index++) {
+            // get next element
+            typeValue = typeValues[index];
+
+            if (this.validateFaxClientSpiType(typeValue)) {
+                value = this.getConfigurationValue(LoadBalancingConfigurationConstants.WEIGHT_PROPERTY_KEY_PREFIX
+                        + typeValue);
+                weight = 1;
+                if (value != null) {
+                    weight = Integer.parseInt(value);
+                }
+
+                if (weight > 0) {
+                    FaxClientSpi childFaxClientSpi = this.createChildFaxClientSpi(typeValue);
+                    totalWeight = totalWeight + weight;
+                    children.add(new ChildFaxClientSpi(typeValue, childFaxClientSpi, weight));
+                }
+            }
+        }
+
+        if (children.isEmpty()) {
+            throw new FaxException("No internal SPI available.");
+        }
+
+        this.childFaxClientSpis = children.toArray(new ChildFaxClientSpi[children.size()]);
+        this.schedule = this.createSchedule(totalWeight);
+
+        // the first child is used for non fax job specific calls
+        this.faxClientSpi = this.childFaxClientSpis[0].FAX_CLIENT_SPI;
+
+        Logger logger = this.getLogger();
+        logger.logDebug(new Object[] { "Load balancing strategy: ", this.strategy, " child SPIs: ",
+                Integer.valueOf(this.childFaxClientSpis.length) }, null);
+    }
+
+    /**
+     * This function creates the weighted round robin schedule.<br>
+     * The schedule interleaves the child SPIs so that heavy SPIs do not receive their entire share in one burst.
+     *
+     * @param totalWeight
+     *            The sum of the child SPIs weights
+     * @return The schedule
+     */
+    private int[] createSchedule(int totalWeight) {
+        int amount = this.childFaxClientSpis.length;
+        int[] remaining = new int[amount];
+        for (int index = 0; index < amount; index++) {
+            remaining[index] = this.childFaxClientSpis[index].WEIGHT;
+        }
+
+        int[] output = new int[totalWeight];
+        int position = 0;
+        while (position < output.length) {
+            for (int index = 0; index < amount; index++) {
+                if (remaining[index] > 0) {
+                    output[position] = index;
+                    position++;
+                    remaining[index]--;
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * This function returns the child fax client SPIs.
+     *
+     * @return The child fax client SPIs
+     */
+    protected ChildFaxClientSpi[] getChildFaxClientSpis() {
+        return this.childFaxClientSpis;
+    }
+
+    /**
+     * This function returns true if the fax monitor events are supported by any of the child SPIs.
+     *
+     * @return True if the fax monitor events are supported by this SPI
+     */
+    @Override
+    public boolean isFaxMonitorEventsSupported() {
+        boolean supported = false;
+        for (int index = 0; index < this.childFaxClientSpis.length; index++) {
+            if (this.childFaxClientSpis[index].FAX_CLIENT_SPI.isFaxMonitorEventsSupported()) {
+                supported = true;
+                break;
+            }
+        }
+
+        return supported;
+    }
+
+    /**
+     * This function returns all internal fax client SPIs which may receive fax actions from this SPI.
+     *
+     * @return The internal fax client SPIs
+     */
+    @Override
+    protected FaxClientSpi[] getInternalFaxClientSpis() {
+        FaxClientSpi[] faxClientSpis = new FaxClientSpi[this.childFaxClientSpis.length];
+        for (int index = 0; index < faxClientSpis.length; index++) {
+            faxClientSpis[index] = this.childFaxClientSpis[index].FAX_CLIENT_SPI;
+        }
+
+        return faxClientSpis;
+    }
+
+    /**
+     * This function creates a new fax job instance to be used by the caller to submit a new fax job and so on.<br>
+     * Since the fax job is not bound to any child SPI before it is submitted, the values are copied to a fax job
+     * created by the selected child SPI on submit.
+     *
+     * @return The fax job instance
+     */
+    @Override
+    protected FaxJob createFaxJobImpl() {
+        // create new fax job
+        FaxJob faxJob = new LoadBalancingFaxJob();
+
+        // set defaults
+        faxJob.setPriority(FaxJobPriority.MEDIUM_PRIORITY);
+
+        return faxJob;
+    }
+
+    /**
+     * This function will submit a new fax job.<br>
+     * The fax job ID may be populated by this method in the provided fax job object.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    @Override
+    protected void submitFaxJobImpl(FaxJob faxJob) {
+        ChildFaxClientSpi[] candidates = this.getCandidates();
+
+        RuntimeException lastError = null;
+        ChildFaxClientSpi child = null;
+        for (int index = 0; index < candidates.length; index++) {
+            child = candidates[index];
+
+            child.IN_FLIGHT.incrementAndGet();
+            long startTime = System.currentTimeMillis();
+            try {
+                FaxJob childFaxJob = this.createChildFaxJob(child, faxJob);
+                child.FAX_CLIENT_SPI.submitFaxJob(childFaxJob);
+                child.recordSuccess(System.currentTimeMillis() - startTime, this.ewmaAlpha);
+
+                // pin fax job to child
+                this.pinFaxJob(faxJob, child, childFaxJob);
+
+                return;
+            } catch (RuntimeException exception) {
+                if (SpiUtil.isCallerError(exception)) {
+                    // the fax job would fail in all child SPIs
+                    throw exception;
+                }
+
+                child.recordFailure(System.currentTimeMillis() - startTime, this.ewmaAlpha, this.failureCooldown);
+                lastError = exception;
+
+                this.getLogger().logError(
+                        new Object[] { "Unable to submit fax job using child SPI: ", child.TYPE }, exception);
+
+                if ((!this.failover) || (!this.isSubmitRetrySafe(exception))) {
+                    throw exception;
+                }
+            } finally {
+                child.IN_FLIGHT.decrementAndGet();
+            }
+        }
+
+        throw new FaxException("Unable to submit fax job using any of the child SPIs.", lastError);
+    }
+
+    /**
+     * This function returns true if the provided submit error is known to happen before the fax job reached the
+     * vendor, so the fax job can be submitted to another child SPI without being sent twice.<br>
+     * By default, the SpiUtil.isSubmitRetrySafe rules are used (rejected fax actions and connection errors).
+     *
+     * @param throwable
+     *            The submit error
+     * @return True if the fax job can be submitted to another child SPI
+     */
+    protected boolean isSubmitRetrySafe(Throwable throwable) {
+        return SpiUtil.isSubmitRetrySafe(throwable);
+    }
+
+    /**
+     * This function creates a new fax job using the provided child SPI and copies the values of the provided fax job
+     * into it.
+     *
+     * @param child
+     *            The child SPI
+     * @param faxJob
+     *            The fax job provided by the caller
+     * @return The child SPI fax job
+     */
+    protected FaxJob createChildFaxJob(ChildFaxClientSpi child, FaxJob faxJob) {
+        FaxJob source = faxJob;
+        if (faxJob instanceof LoadBalancingFaxJob) {
+            source = ((LoadBalancingFaxJob) faxJob).getFaxJob();
+        }
+
+        // create fax job
+        FaxJob childFaxJob = child.FAX_CLIENT_SPI.createFaxJob();
+
+        // copy values
+        childFaxJob.setFile(source.getFile());
+        childFaxJob.setTargetAddress(source.getTargetAddress());
+        if (source.getPriority() != null) {
+            childFaxJob.setPriority(source.getPriority());
+        }
+        if (source.getTargetName() != null) {
+            childFaxJob.setTargetName(source.getTargetName());
+        }
+        if (source.getSenderName() != null) {
+            childFaxJob.setSenderName(source.getSenderName());
+        }
+        if (source.getSenderFaxNumber() != null) {
+            childFaxJob.setSenderFaxNumber(source.getSenderFaxNumber());
+        }
+        if (source.getSenderEmail() != null) {
+            childFaxJob.setSenderEmail(source.getSenderEmail());
+        }
+        if (source instanceof FaxJobImpl) {
+            Iterator<Entry<Object, Object>> iterator = ((FaxJobImpl) source).getProperties().entrySet().iterator();
+            Entry<Object, Object> entry = null;
+            while (iterator.hasNext()) {
+                entry = iterator.next();
+                childFaxJob.setProperty(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+            }
+        }
+
+        return childFaxJob;
+    }
+
+    /**
+     * This function pins the submitted fax job to the child SPI which submitted it.
+     *
+     * @param faxJob
+     *            The fax job provided by the caller
+     * @param child
+     *            The child SPI
+     * @param childFaxJob
+     *            The child SPI fax job
+     */
+    protected void pinFaxJob(FaxJob faxJob, ChildFaxClientSpi child, FaxJob childFaxJob) {
+        if (faxJob instanceof LoadBalancingFaxJob) {
+            ((LoadBalancingFaxJob) faxJob).bind(childFaxJob, child.TYPE);
+        } else {
+            // external fax job (not created by this SPI)
+            faxJob.setID(childFaxJob.getID());
+            faxJob.setProperty(LoadBalancingConfigurationConstants.OWNER_FAX_JOB_PROPERTY_KEY.toString(), child.TYPE);
+        }
+
+        String faxJobID = childFaxJob.getID();
+        if (faxJobID != null) {
+            synchronized (this.pinningCache) {
+                this.pinningCache.put(faxJobID, new PinnedFaxJob(child, childFaxJob));
+            }
+        }
+    }
+
+    /**
+     * This function will suspend an existing fax job.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    @Override
+    protected void suspendFaxJobImpl(FaxJob faxJob) {
+        this.getOwner(faxJob, true).FAX_CLIENT_SPI.suspendFaxJob(this.getChildFaxJob(faxJob));
+    }
+
+    /**
+     * This function will resume an existing fax job.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    @Override
+    protected void resumeFaxJobImpl(FaxJob faxJob) {
+        this.getOwner(faxJob, true).FAX_CLIENT_SPI.resumeFaxJob(this.getChildFaxJob(faxJob));
+    }
+
+    /**
+     * This function will cancel an existing fax job.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    @Override
+    protected void cancelFaxJobImpl(FaxJob faxJob) {
+        this.getOwner(faxJob, true).FAX_CLIENT_SPI.cancelFaxJob(this.getChildFaxJob(faxJob));
+    }
+
+    /**
+     * This function returns the fax job status.<br>
+     * In case the SPI which submitted the fax job is unknown, the UNKNOWN status is returned.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The fax job status
+     */
+    @Override
+    protected FaxJobStatus getFaxJobStatusImpl(FaxJob faxJob) {
+        ChildFaxClientSpi child = this.getOwner(faxJob, false);
+
+        FaxJobStatus faxJobStatus = FaxJobStatus.UNKNOWN;
+        if (child != null) {
+            faxJobStatus = child.FAX_CLIENT_SPI.getFaxJobStatus(this.getChildFaxJob(faxJob));
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This function polls the new statues for the provided fax jobs.<br>
+     * The fax jobs are grouped by the child SPI which submitted them and each child SPI is polled once.
+     *
+     * @param faxJobs
+     *            The fax jobs to poll
+     * @return The fax job statues
+     */
+    @Override
+    protected FaxJobStatus[] pollForFaxJobStatuesImpl(FaxJob[] faxJobs) {
+        int amount = faxJobs.length;
+        FaxJobStatus[] faxJobStatuses = new FaxJobStatus[amount];
+
+        // group fax jobs by child SPI
+        Map<ChildFaxClientSpi, List<Integer>> groups = new LinkedHashMap<ChildFaxClientSpi, List<Integer>>();
+        ChildFaxClientSpi child = null;
+        List<Integer> indexes = null;
+        for (int index = 0; index < amount; index++) {
+            faxJobStatuses[index] = FaxJobStatus.UNKNOWN;
+
+            child = this.getOwner(faxJobs[index], false);
+            if (child != null && child.FAX_CLIENT_SPI.isFaxMonitorEventsSupported()) {
+                indexes = groups.get(child);
+                if (indexes == null) {
+                    indexes = new ArrayList<Integer>();
+                    groups.put(child, indexes);
+                }
+                indexes.add(Integer.valueOf(index));
+            }
+        }
+
+        // poll each child SPI
+        Iterator<Entry<ChildFaxClientSpi, List<Integer>>> iterator = groups.entrySet().iterator();
+        Entry<ChildFaxClientSpi, List<Integer>> entry = null;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            child = entry.getKey();
+            indexes = entry.getValue();
+
+            int groupSize = indexes.size();
+            FaxJob[] groupFaxJobs = new FaxJob[groupSize];
+            for (int index = 0; index < groupSize; index++) {
+                groupFaxJobs[index] = this.getChildFaxJob(faxJobs[indexes.get(index).intValue()]);
+            }
+
+            try {
+                FaxJobStatus[] groupFaxJobStatuses = child.FAX_CLIENT_SPI.pollForFaxJobStatues(groupFaxJobs);
+                if (groupFaxJobStatuses != null) {
+                    for (int index = 0; index < groupSize && index < groupFaxJobStatuses.length; index++) {
+                        if (groupFaxJobStatuses[index] != null) {
+                            faxJobStatuses[indexes.get(index).intValue()] = groupFaxJobStatuses[index];
+                        }
+                    }
+                }
+            } catch (RuntimeException exception) {
+                this.getLogger().logError(
+                        new Object[] { "Unable to poll fax job statuses using child SPI: ", child.TYPE }, exception);
+            }
+        }
+
+        return faxJobStatuses;
+    }
+
+    /**
+     * This function returns the child SPIs in the order they should be tried for a new fax job.<br>
+     * The first candidate is selected by the load balancing strategy (healthy child SPIs are preferred), the rest are
+     * used for failover.
+     *
+     * @return The candidates
+     */
+    protected ChildFaxClientSpi[] getCandidates() {
+        int amount = this.childFaxClientSpis.length;
+        long currentTime = System.currentTimeMillis();
+        int counter = this.COUNTER.getAndIncrement() & Integer.MAX_VALUE;
+
+        // select primary child
+        int primaryIndex = -1;
+        switch (this.strategy) {
+        case LEAST_IN_FLIGHT:
+        case EWMA:
+            double bestScore = Double.MAX_VALUE;
+            double score = 0;
+            int childIndex = 0;
+            for (int index = 0; index < amount; index++) {
+                // start from a rotating offset to spread ties
+                childIndex = (counter + index) % amount;
+                ChildFaxClientSpi child = this.childFaxClientSpis[childIndex];
+                if (child.isHealthy(currentTime)) {
+                    score = this.getScore(child);
+                    if (score < bestScore) {
+                        bestScore = score;
+                        primaryIndex = childIndex;
+                    }
+                }
+            }
+            break;
+        default:
+            int scheduleIndex = 0;
+            for (int index = 0; index < this.schedule.length; index++) {
+                scheduleIndex = this.schedule[(counter + index) % this.schedule.length];
+                if (this.childFaxClientSpis[scheduleIndex].isHealthy(currentTime)) {
+                    primaryIndex = scheduleIndex;
+                    break;
+                }
+            }
+            break;
+        }
+
+        // order candidates (primary, healthy, unhealthy)
+        ChildFaxClientSpi[] candidates = new ChildFaxClientSpi[amount];
+        int position = 0;
+        if (primaryIndex != -1) {
+            candidates[position] = this.childFaxClientSpis[primaryIndex];
+            position++;
+        }
+        for (int pass = 0; pass < 2; pass++) {
+            for (int index = 0; index < amount; index++) {
+                ChildFaxClientSpi child = this.childFaxClientSpis[index];
+                if (index != primaryIndex && child.isHealthy(currentTime) == (pass == 0)) {
+                    candidates[position] = child;
+                    position++;
+                }
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * This function returns the load score of the provided child SPI (lower is better).
+     *
+     * @param child
+     *            The child SPI
+     * @return The score
+     */
+    private double getScore(ChildFaxClientSpi child) {
+        double score = 0;
+        int inFlight = child.IN_FLIGHT.get();
+        if (this.strategy == LoadBalancingStrategy.EWMA) {
+            score = child.ewmaLatency * (inFlight + 1);
+        } else {
+            score = ((double) inFlight) / child.WEIGHT;
+        }
+
+        return score;
+    }
+
+    /**
+     * This function returns the child SPI which submitted the provided fax job.
+     *
+     * @param faxJob
+     *            The fax job
+     * @param mandatory
+     *            True to throw an exception if not found
+     * @return The child SPI (null if not found and not mandatory)
+     */
+    protected ChildFaxClientSpi getOwner(FaxJob faxJob, boolean mandatory) {
+        ChildFaxClientSpi owner = null;
+
+        // find by fax job owner (fax jobs created by this SPI) or property (external fax jobs)
+        String type = null;
+        if (faxJob instanceof LoadBalancingFaxJob) {
+            type = ((LoadBalancingFaxJob) faxJob).getOwnerType();
+        } else {
+            type = faxJob.getProperty(LoadBalancingConfigurationConstants.OWNER_FAX_JOB_PROPERTY_KEY.toString(), null);
+        }
+        if (type != null) {
+            for (int index = 0; index < this.childFaxClientSpis.length; index++) {
+                if (this.childFaxClientSpis[index].TYPE.equals(type)) {
+                    owner = this.childFaxClientSpis[index];
+                    break;
+                }
+            }
+        }
+
+        // find by fax job ID
+        if (owner == null) {
+            PinnedFaxJob pinnedFaxJob = this.getPinnedFaxJob(faxJob);
+            if (pinnedFaxJob != null) {
+                owner = pinnedFaxJob.CHILD;
+            }
+        }
+
+        // single child
+        if (owner == null && this.childFaxClientSpis.length == 1) {
+            owner = this.childFaxClientSpis[0];
+        }
+
+        if (owner == null && mandatory) {
+            throw new FaxException("Unable to find the child SPI which submitted fax job: " + faxJob.getID());
+        }
+
+        return owner;
+    }
+
+    /**
+     * This function returns the pinned fax job with the same fax job ID as the provided fax job.
+     *
+     * @param faxJob
+     *            The fax job
+     * @return The pinned fax job (null if not found)
+     */
+    private PinnedFaxJob getPinnedFaxJob(FaxJob faxJob) {
+        PinnedFaxJob pinnedFaxJob = null;
+        String faxJobID = faxJob.getID();
+        if (faxJobID != null) {
+            synchronized (this.pinningCache) {
+                pinnedFaxJob = this.pinningCache.get(faxJobID);
+            }
+        }
+
+        return pinnedFaxJob;
+    }
+
+    /**
+     * This function returns the fax job which should be provided to the child SPI which submitted the provided fax
+     * job.<br>
+     * Fax jobs created by this SPI are bound to the child SPI fax job on submit, other fax jobs (for example a new fax
+     * job instance with the same fax job ID) are replaced by the pinned child SPI fax job if known.
+     *
+     * @param faxJob
+     *            The fax job provided by the caller
+     * @return The child SPI fax job
+     */
+    protected FaxJob getChildFaxJob(FaxJob faxJob) {
+        FaxJob childFaxJob = faxJob;
+        if (faxJob instanceof LoadBalancingFaxJob) {
+            childFaxJob = ((LoadBalancingFaxJob) faxJob).getFaxJob();
+        } else {
+            PinnedFaxJob pinnedFaxJob = this.getPinnedFaxJob(faxJob);
+            if (pinnedFaxJob != null) {
+                childFaxJob = pinnedFaxJob.FAX_JOB;
+            }
+        }
+
+        return childFaxJob;
+    }
+
+    /**
+     * This class holds a child fax client SPI and its load balancing state.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class ChildFaxClientSpi {
+        /** The SPI type */
+        protected final String TYPE;
+        /** The fax client SPI */
+        protected final FaxClientSpi FAX_CLIENT_SPI;
+        /** The weight */
+        protected final int WEIGHT;
+        /** The amount of in flight calls */
+        protected final AtomicInteger IN_FLIGHT;
+        /** The exponentially weighted moving average latency in millies */
+        protected volatile double ewmaLatency;
+        /** The time until which this child is considered unhealthy */
+        protected volatile long unhealthyUntil;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param type
+         *            The SPI type
+         * @param faxClientSpi
+         *            The fax client SPI
+         * @param weight
+         *            The weight
+         */
+        protected ChildFaxClientSpi(String type, FaxClientSpi faxClientSpi, int weight) {
+            super();
+
+            this.TYPE = type;
+            this.FAX_CLIENT_SPI = faxClientSpi;
+            this.WEIGHT = weight;
+            this.IN_FLIGHT = new AtomicInteger();
+        }
+
+        /**
+         * This function returns true if this child is healthy.
+         *
+         * @param currentTime
+         *            The current time
+         * @return True if healthy
+         */
+        protected boolean isHealthy(long currentTime) {
+            return currentTime >= this.unhealthyUntil;
+        }
+
+        /**
+         * This function records a successful call.
+         *
+         * @param latency
+         *            The call latency in millies
+         * @param alpha
+         *            The EWMA alpha
+         */
+        protected synchronized void recordSuccess(long latency, double alpha) {
+            this.updateLatency(latency, alpha);
+            this.unhealthyUntil = 0;
+        }
+
+        /**
+         * This function records a failed call.
+         *
+         * @param latency
+         *            The call latency in millies
+         * @param alpha
+         *            The EWMA alpha
+         * @param cooldown
+         *            The time in millies this child is considered unhealthy
+         */
+        protected synchronized void recordFailure(long latency, double alpha, long cooldown) {
+            this.updateLatency(latency, alpha);
+            this.unhealthyUntil = System.currentTimeMillis() + cooldown;
+        }
+
+        /**
+         * This function updates the moving average latency.
+         *
+         * @param latency
+         *            The call latency in millies
+         * @param alpha
+         *            The EWMA alpha
+         */
+        private void updateLatency(long latency, double alpha) {
+            if (this.ewmaLatency == 0) {
+                this.ewmaLatency = Math.max(latency, 1);
+            } else {
+                this.ewmaLatency = (alpha * latency) + ((1 - alpha) * this.ewmaLatency);
+            }
+        }
+    }
+
+    /**
+     * This class holds a submitted fax job and the child SPI which submitted it.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class PinnedFaxJob {
+        /** The child SPI */
+        protected final ChildFaxClientSpi CHILD;
+        /** The child SPI fax job */
+        protected final FaxJob FAX_JOB;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param child
+         *            The child SPI
+         * @param faxJob
+         *            The child SPI fax job
+         */
+        protected PinnedFaxJob(ChildFaxClientSpi child, FaxJob faxJob) {
+            super();
+
+            this.CHILD = child;
+            this.FAX_JOB = faxJob;
+        }
+    }
+
+    /**
+     * This class holds the fax job ID to submitted fax job mapping (least recently used entries are removed).<br>
+     * This class is not thread safe and access to it must be synchronized.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class PinningCache extends LinkedHashMap<String, PinnedFaxJob> {
+        /** Serial version UID */
+        private static final long serialVersionUID = 1L;
+        /** The max size */
+        private final int MAX_SIZE;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param maxSize
+         *            The max size
+         */
+        protected PinningCache(int maxSize) {
+            super(16, 0.75f, true);
+
+            this.MAX_SIZE = maxSize;
+        }
+
+        /**
+         * This function returns true if the eldest entry should be removed.
+         *
+         * @param eldest
+         *            The eldest entry
+         * @return True to remove the eldest entry
+         */
+        @Override
+        protected boolean removeEldestEntry(Entry<String, PinnedFaxJob> eldest) {
+            return this.size() > this.MAX_SIZE;
+        }
+    }
+}
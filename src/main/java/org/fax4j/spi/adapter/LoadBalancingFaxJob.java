@@ -0,0 +1,261 @@
+package org.fax4j.spi.adapter;
+
+import java.io.File;
+import org.fax4j.FaxJob;
+import org.fax4j.common.Logger;
+import org.fax4j.spi.AbstractFaxJob;
+import org.fax4j.spi.FaxJobImpl;
+
+/**
+ * This class implements the fax job created by the load balancing adapter SPI.<br>
+ * Until the fax job is submitted, the fax job values are held by a basic fax job.<br>
+ * Once submitted, the values are copied to a fax job created by the selected internal SPI (so internal SPIs which
+ * require their own fax job implementation, such as hylafax, are supported) and all calls are delegated to that fax
+ * job.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class LoadBalancingFaxJob extends AbstractFaxJob {
+    /** The fax job holding the values (the internal SPI fax job once submitted) */
+    private FaxJob faxJob;
+    /** The type of the internal SPI which submitted the fax job */
+    private String ownerType;
+
+    /**
+     * This is the class constructor.
+     */
+    public LoadBalancingFaxJob() {
+        super();
+
+        this.faxJob = new FaxJobImpl();
+    }
+
+    /**
+     * This function returns the string value of the fax job.
+     *
+     * @return The string value
+     */
+    @Override
+    public String toString() {
+        // setup toString
+        StringBuilder buffer = this.addToStringAttributes("Load Balancing Fax Job");
+        buffer.append(Logger.SYSTEM_EOL);
+        buffer.append("Owner: ");
+        buffer.append(this.ownerType);
+
+        // get text
+        String text = buffer.toString();
+
+        return text;
+    }
+
+    /**
+     * This function binds this fax job to the fax job of the internal SPI which submitted it.
+     *
+     * @param childFaxJob
+     *            The internal SPI fax job
+     * @param type
+     *            The internal SPI type
+     */
+    protected void bind(FaxJob childFaxJob, String type) {
+        this.faxJob = childFaxJob;
+        this.ownerType = type;
+    }
+
+    /**
+     * This function returns the fax job holding the values (the internal SPI fax job once submitted).
+     *
+     * @return The fax job
+     */
+    public FaxJob getFaxJob() {
+        return this.faxJob;
+    }
+
+    /**
+     * This function returns the type of the internal SPI which submitted the fax job.
+     *
+     * @return The internal SPI type (null if not submitted)
+     */
+    public String getOwnerType() {
+        return this.ownerType;
+    }
+
+    /**
+     * This function returns the fax job ID.
+     *
+     * @return The fax job ID
+     */
+    public String getID() {
+        return this.faxJob.getID();
+    }
+
+    /**
+     * This function sets the fax job ID.
+     *
+     * @param id
+     *            The fax job ID
+     */
+    public void setID(String id) {
+        this.faxJob.setID(id);
+    }
+
+    /**
+     * This function returns the file to fax.
+     *
+     * @return The file to fax
+     */
+    public File getFile() {
+        return this.faxJob.getFile();
+    }
+
+    /**
+     * This function sets the file to fax.
+     *
+     * @param file
+     *            The file to fax
+     */
+    public void setFile(File file) {
+        this.faxJob.setFile(file);
+    }
+
+    /**
+     * This function returns the priority.
+     *
+     * @return The priority
+     */
+    public FaxJobPriority getPriority() {
+        return this.faxJob.getPriority();
+    }
+
+    /**
+     * This function sets the priority.
+     *
+     * @param priority
+     *            The priority
+     */
+    public void setPriority(FaxJobPriority priority) {
+        this.faxJob.setPriority(priority);
+    }
+
+    /**
+     * This function returns the fax job target address.
+     *
+     * @return The fax job target address
+     */
+    public String getTargetAddress() {
+        return this.faxJob.getTargetAddress();
+    }
+
+    /**
+     * This function sets the fax job target address.
+     *
+     * @param targetAddress
+     *            The fax job target address
+     */
+    public void setTargetAddress(String targetAddress) {
+        this.faxJob.setTargetAddress(targetAddress);
+    }
+
+    /**
+     * This function returns the fax job target name.
+     *
+     * @return The fax job target name
+     */
+    public String getTargetName() {
+        return this.faxJob.getTargetName();
+    }
+
+    /**
+     * This function sets the fax job target name.
+     *
+     * @param targetName
+     *            The fax job target name
+     */
+    public void setTargetName(String targetName) {
+        this.faxJob.setTargetName(targetName);
+    }
+
+    /**
+     * This function returns the fax job sender name.
+     *
+     * @return The fax job sender name
+     */
+    public String getSenderName() {
+        return this.faxJob.getSenderName();
+    }
+
+    /**
+     * This function sets the fax job sender name.
+     *
+     * @param senderName
+     *            The fax job sender name
+     */
+    public void setSenderName(String senderName) {
+        this.faxJob.setSenderName(senderName);
+    }
+
+    /**
+     * This function returns the fax job sender fax number.
+     *
+     * @return The fax job sender fax number
+     */
+    public String getSenderFaxNumber() {
+        return this.faxJob.getSenderFaxNumber();
+    }
+
+    /**
+     * This function sets the fax job sender fax number.
+     *
+     * @param senderFaxNumber
+     *            The fax job sender fax number
+     */
+    public void setSenderFaxNumber(String senderFaxNumber) {
+        this.faxJob.setSenderFaxNumber(senderFaxNumber);
+    }
+
+    /**
+     * This function returns the fax job sender email address.
+     *
+     * @return The fax job sender email address
+     */
+    public String getSenderEmail() {
+        return this.faxJob.getSenderEmail();
+    }
+
+    /**
+     * This function sets the fax job sender email address.
+     *
+     * @param senderEmail
+     *            The fax job sender email address
+     */
+    public void setSenderEmail(String senderEmail) {
+        this.faxJob.setSenderEmail(senderEmail);
+    }
+
+    /**
+     * This function sets the fax job property.
+     *
+     * @param key
+     *            The property key
+     * @param value
+     *            The property value
+     */
+    public void setProperty(String key, String value) {
+        this.faxJob.setProperty(key, value);
+    }
+
+    /**
+     * This function returns the fax job property for the given key.
+     *
+     * @param key
+     *            The property key
+     * @param defaultValue
+     *            The default value
+     * @return The property value
+     */
+    public String getProperty(String key, String defaultValue) {
+        return this.faxJob.getProperty(key, defaultValue);
+    }
+}
@@ -2,12 +2,14 @@ package org.fax4j.spi.email;
 
 import java.io.IOException;
 import javax.mail.Message;
+import javax.mail.MessagingException;
 import javax.mail.Transport;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
 import org.fax4j.common.Logger;
 import org.fax4j.spi.AbstractFax4JClientSpi;
 import org.fax4j.util.Connection;
+import org.fax4j.util.PooledConnectionFactory;
 import org.fax4j.util.ReflectionHelper;
 
 /**
@@ -18,6 +20,9 @@ import org.fax4j.util.ReflectionHelper;
  * or to create a new connection for each fax operation invocation.<br>
  * By default the SPI will create a new connection for each operation invocation however the
  * <b>org.fax4j.spi.mail.persistent.connection</b> set to true will enable to reuse the connection.<br>
+ * In addition, setting the <b>org.fax4j.spi.mail.connection.factory.class.name</b> to
+ * org.fax4j.spi.email.PooledMailConnectionFactory will enable to send mails in parallel using a pool of connected mail
+ * transports (the persistent connection flag is ignored in this mode).<br>
  * To set the user/password values of the mail connection the following 2 properties must be defined:
  * <b>org.fax4j.spi.mail.user.name</b> and <b>org.fax4j.spi.mail.password</b><br>
  * All properties defined in the fax4j configuration will be passed to the mail connection therefore it is possible to
@@ -80,6 +85,42 @@ import org.fax4j.util.ReflectionHelper;
  * <td>false</td>
  * </tr>
  * <tr>
+ * <td>org.fax4j.spi.mail.pool.min.idle</td>
+ * <td>The min amount of idle transports kept open (only used by the pooled connection factory)</td>
+ * <td>1</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.max.size</td>
+ * <td>The max amount of connected transports (only used by the pooled connection factory)</td>
+ * <td>5</td>
+ * <td>5</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.borrow.timeout</td>
+ * <td>The max time in millies to wait for a free transport (only used by the pooled connection factory)</td>
+ * <td>30000</td>
+ * <td>30000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.idle.timeout</td>
+ * <td>The time in millies after which idle transports are closed (only used by the pooled connection factory)</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.max.messages.per.connection</td>
+ * <td>The max amount of messages sent by a transport before it is replaced, 0 for unlimited (only used by the pooled
+ * connection factory)</td>
+ * <td>100</td>
+ * <td>100</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
  * <td>javax mail properties</td>
  * <td>Any of the javax mail properties can be defined in the fax4j properties.<br>
  * These properties will be passed to the java mail framework.</td>
@@ -104,7 +145,7 @@ import org.fax4j.util.ReflectionHelper;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.12
+ * @version 1.14
  * @since 0.1
  */
 public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
@@ -117,12 +158,14 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
     private MailConnectionFactory connectionFactory;
     /** The mail connection */
     private Connection<MailResourcesHolder> connection;
+    /** True if the connection factory hands out pooled connections */
+    private boolean usePooledConnections;
 
     /**
      * This class holds the SPI configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.03
+     * @version 1.04
      * @since 0.1
      */
     public enum FaxClientSpiConfigurationConstants {
@@ -136,7 +179,17 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
         /** The user name used to connect to the mail server */
         USER_NAME_PROPERTY_KEY("org.fax4j.spi.mail.user.name"),
         /** The password used to connect to the mail server */
-        PASSWORD_PROPERTY_KEY("org.fax4j.spi.mail.password");
+        PASSWORD_PROPERTY_KEY("org.fax4j.spi.mail.password"),
+        /** The pool min idle transports property key */
+        POOL_MIN_IDLE_PROPERTY_KEY("org.fax4j.spi.mail.pool.min.idle"),
+        /** The pool max size property key */
+        POOL_MAX_SIZE_PROPERTY_KEY("org.fax4j.spi.mail.pool.max.size"),
+        /** The pool borrow timeout property key */
+        POOL_BORROW_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.mail.pool.borrow.timeout"),
+        /** The pool idle timeout property key */
+        POOL_IDLE_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.mail.pool.idle.timeout"),
+        /** The pool max messages per connection property key */
+        POOL_MAX_MESSAGES_PER_CONNECTION_PROPERTY_KEY("org.fax4j.spi.mail.pool.max.messages.per.connection");
 
         /** The string value */
         private String value;
@@ -190,6 +243,9 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
         if (this.connectionFactory == null) {
             throw new FaxException("Mail connection factory is not available.");
         }
+        this.usePooledConnections = this.connectionFactory instanceof PooledConnectionFactory<?>;
+        logger.logDebug(new Object[] { "Using pooled connections: ", String.valueOf(this.usePooledConnections) },
+                null);
     }
 
     /**
@@ -273,7 +329,10 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
      */
     protected Connection<MailResourcesHolder> getMailConnection() {
         Connection<MailResourcesHolder> mailConnection = null;
-        if (this.usePersistentConnection) {
+        if (this.usePooledConnections) {
+            // borrow connection from pool
+            mailConnection = this.connectionFactory.createConnection();
+        } else if (this.usePersistentConnection) {
             synchronized (this) {
                 if (this.connection == null) {
                     // create new connection
@@ -303,39 +362,124 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
      */
     protected void sendMail(FaxJob faxJob, Connection<MailResourcesHolder> mailConnection, Message message) {
         if (message == null) {
+            this.releaseMailConnection(mailConnection, false);
             this.throwUnsupportedException();
         } else {
-            // get holder
-            MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
-
-            // get transport
-            Transport transport = mailResourcesHolder.getTransport();
+            this.sendMails(mailConnection, new Message[] { message });
+        }
+    }
 
-            try {
-                // send message
+    /**
+     * This function will send all the mail messages one after the other using the same mail connection (single mail
+     * session).<br>
+     * Failed messages are not sent again, as the mail server may have already accepted the message before the failure
+     * (stale pooled transports are replaced by the pool before being handed out, so nothing is sent over them). In case
+     * of pooled connections, the failed mail transport is discarded instead of being returned to the pool.<br>
+     * In case a message could not be sent, the remaining messages are not sent and the thrown exception will contain
+     * the index of the failed message.
+     *
+     * @param mailConnection
+     *            The mail connection (will be released if not persistent)
+     * @param messages
+     *            The messages to send
+     */
+    protected void sendMails(Connection<MailResourcesHolder> mailConnection, Message[] messages) {
+        int index = 0;
+        boolean failed = true;
+        try {
+            Message message = null;
+            for (; index < messages.length; index++) {
+                // prepare message
+                message = messages[index];
                 message.saveChanges();
-                if (transport == null) {
-                    Transport.send(message, message.getAllRecipients());
-                } else {
-                    transport.sendMessage(message, message.getAllRecipients());
-                }
-            } catch (Throwable throwable) {
-                throw new FaxException("Unable to send message.", throwable);
-            } finally {
-                if (!this.usePersistentConnection) {
-                    try {
-                        // close connection
-                        this.closeMailConnection(mailConnection);
-                    } catch (Exception exception) {
-                        // log error
-                        Logger logger = this.getLogger();
-                        logger.logInfo(new Object[] { "Error while releasing mail connection." }, exception);
-                    }
+
+                this.sendMessage(mailConnection, message);
+            }
+
+            failed = false;
+        } catch (Throwable throwable) {
+            String errorMessage = "Unable to send message.";
+            if (messages.length > 1) {
+                errorMessage = "Unable to send message: " + (index + 1) + " out of: " + messages.length;
+            }
+            throw new FaxException(errorMessage, throwable);
+        } finally {
+            this.releaseMailConnection(mailConnection, failed);
+        }
+    }
+
+    /**
+     * This function sends the message using the provided mail connection.
+     *
+     * @param mailConnection
+     *            The mail connection
+     * @param message
+     *            The message to send
+     * @throws MessagingException
+     *             Any messaging exception
+     */
+    protected void sendMessage(Connection<MailResourcesHolder> mailConnection, Message message)
+            throws MessagingException {
+        // get holder
+        MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
+
+        // get transport
+        Transport transport = mailResourcesHolder.getTransport();
+
+        // send message
+        if (transport == null) {
+            Transport.send(message, message.getAllRecipients());
+        } else {
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+        mailResourcesHolder.incrementMessageCount();
+    }
+
+    /**
+     * This function releases the mail connection used by a fax action.<br>
+     * Pooled connections are returned to the pool (or discarded if the fax action failed) and non persistent
+     * connections are closed, while the persistent connection is kept open.
+     *
+     * @param mailConnection
+     *            The mail connection
+     * @param failed
+     *            True if sending the mail failed
+     */
+    protected void releaseMailConnection(Connection<MailResourcesHolder> mailConnection, boolean failed) {
+        if (mailConnection != null) {
+            if (this.usePooledConnections && failed) {
+                this.discardMailConnection(mailConnection);
+            } else if (this.usePooledConnections || !this.usePersistentConnection) {
+                try {
+                    // close connection
+                    this.closeMailConnection(mailConnection);
+                } catch (Exception exception) {
+                    // log error
+                    Logger logger = this.getLogger();
+                    logger.logInfo(new Object[] { "Error while releasing mail connection." }, exception);
                 }
             }
         }
     }
 
+    /**
+     * This function releases the provided pooled mail connection without returning it to the pool.
+     *
+     * @param mailConnection
+     *            The mail connection
+     */
+    @SuppressWarnings("unchecked")
+    protected void discardMailConnection(Connection<MailResourcesHolder> mailConnection) {
+        if (mailConnection != null && this.usePooledConnections) {
+            // get logger
+            Logger logger = this.getLogger();
+
+            // discard connection
+            logger.logInfo(new Object[] { "Discarding mail connection." }, null);
+            ((PooledConnectionFactory<MailResourcesHolder>) this.connectionFactory).discardConnection(mailConnection);
+        }
+    }
+
     /**
      * This function will submit a new fax job.<br>
      * The fax job ID may be populated by this method in the provided fax job object.
@@ -348,13 +492,22 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
         // get connection
         Connection<MailResourcesHolder> mailConnection = this.getMailConnection();
 
-        // get holder
-        MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
+        // create message (the connection is released in case the message could not be created)
+        Message message = null;
+        boolean created = false;
+        try {
+            // get holder
+            MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
 
-        // create message
-        Message message = this.createSubmitFaxJobMessage(faxJob, mailResourcesHolder);
+            message = this.createSubmitFaxJobMessage(faxJob, mailResourcesHolder);
+            created = true;
+        } finally {
+            if (!created) {
+                this.releaseMailConnection(mailConnection, false);
+            }
+        }
 
-        // send message
+        // send message (releases the connection)
         this.sendMail(faxJob, mailConnection, message);
     }
 
@@ -369,13 +522,22 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
         // get connection
         Connection<MailResourcesHolder> mailConnection = this.getMailConnection();
 
-        // get holder
-        MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
+        // create message (the connection is released in case the message could not be created)
+        Message message = null;
+        boolean created = false;
+        try {
+            // get holder
+            MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
 
-        // create message
-        Message message = this.createSuspendFaxJobMessage(faxJob, mailResourcesHolder);
+            message = this.createSuspendFaxJobMessage(faxJob, mailResourcesHolder);
+            created = true;
+        } finally {
+            if (!created) {
+                this.releaseMailConnection(mailConnection, false);
+            }
+        }
 
-        // send message
+        // send message (releases the connection)
         this.sendMail(faxJob, mailConnection, message);
     }
 
@@ -390,13 +552,22 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
         // get connection
         Connection<MailResourcesHolder> mailConnection = this.getMailConnection();
 
-        // get holder
-        MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
+        // create message (the connection is released in case the message could not be created)
+        Message message = null;
+        boolean created = false;
+        try {
+            // get holder
+            MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
 
-        // create message
-        Message message = this.createResumeFaxJobMessage(faxJob, mailResourcesHolder);
+            message = this.createResumeFaxJobMessage(faxJob, mailResourcesHolder);
+            created = true;
+        } finally {
+            if (!created) {
+                this.releaseMailConnection(mailConnection, false);
+            }
+        }
 
-        // send message
+        // send message (releases the connection)
         this.sendMail(faxJob, mailConnection, message);
     }
 
@@ -411,13 +582,22 @@ public abstract class AbstractMailFaxClientSpi extends AbstractFax4JClientSpi {
         // get connection
         Connection<MailResourcesHolder> mailConnection = this.getMailConnection();
 
-        // get holder
-        MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
+        // create message (the connection is released in case the message could not be created)
+        Message message = null;
+        boolean created = false;
+        try {
+            // get holder
+            MailResourcesHolder mailResourcesHolder = mailConnection.getResource();
 
-        // create message
-        Message message = this.createCancelFaxJobMessage(faxJob, mailResourcesHolder);
+            message = this.createCancelFaxJobMessage(faxJob, mailResourcesHolder);
+            created = true;
+        } finally {
+            if (!created) {
+                this.releaseMailConnection(mailConnection, false);
+            }
+        }
 
-        // send message
+        // send message (releases the connection)
         this.sendMail(faxJob, mailConnection, message);
     }
 
@@ -1,13 +1,19 @@
 package org.fax4j.spi.email;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.Map;
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
 import javax.activation.FileDataSource;
 import javax.mail.BodyPart;
 import javax.mail.Message;
 import javax.mail.Message.RecipientType;
+import javax.mail.MessagingException;
 import javax.mail.Multipart;
 import javax.mail.Session;
 import javax.mail.internet.InternetAddress;
@@ -16,7 +22,9 @@ import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
+import org.fax4j.FaxValidationException;
 import org.fax4j.common.Logger;
+import org.fax4j.util.Connection;
 
 /**
  * This class implements the fax client service provider interface.<br>
@@ -36,6 +44,9 @@ import org.fax4j.common.Logger;
  * For example: org.fax4j.spi.mail.address.template={0}@myprovider.com<br>
  * For example: org.fax4j.spi.mail.subject.template=fax:{0}<br>
  * The {0} will be replaced with the destination number.<br>
+ * In order to send the same document to many destinations (broadcast), the submitFaxJobs function (also available
+ * via the fax client) can be used to submit all fax jobs in one batch. In this case, each document is encoded only
+ * once for all mails and all mails are sent using the same mail connection.<br>
  * <br>
  * The configuration of the fax4j framework is made up of 3 layers.<br>
  * The configuration is based on simple properties.<br>
@@ -134,7 +145,7 @@ import org.fax4j.common.Logger;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.08
+ * @version 1.09
  * @since 0.1
  */
 public class MailFaxClientSpi extends AbstractMailFaxClientSpi {
@@ -247,6 +258,159 @@ public class MailFaxClientSpi extends AbstractMailFaxClientSpi {
         return this.mailSubjectTemplate;
     }
 
+    /**
+     * This function will submit all the provided fax jobs in one batch.<br>
+     * Each document is encoded only once and the encoded attachment is reused by all mails sending the same
+     * document.<br>
+     * All mails are sent one after the other using the same mail connection.<br>
+     * In case one of the mails could not be sent, the remaining mails are not sent and the thrown exception will
+     * contain the index of the failed fax job (the fax jobs sent before the failure are still completed, which fires
+     * their submit events and starts monitoring them).
+     *
+     * @param faxJobs
+     *            The fax jobs to submit
+     */
+    @Override
+    public void submitFaxJobs(FaxJob[] faxJobs) {
+        if (faxJobs == null || faxJobs.length == 0) {
+            throw new FaxValidationException("Fax jobs not provided.");
+        }
+
+        // validate fax jobs
+        for (int index = 0; index < faxJobs.length; index++) {
+            this.invokeSubmitFaxJobValidation(faxJobs[index]);
+        }
+
+        // get connection
+        Connection<MailResourcesHolder> mailConnection = this.getMailConnection();
+
+        // create messages (the connection is released in case the messages could not be created)
+        Message[] messages = null;
+        try {
+            messages = this.createSubmitFaxJobMessages(faxJobs, mailConnection.getResource());
+        } finally {
+            if (messages == null) {
+                this.releaseMailConnection(mailConnection, false);
+            }
+        }
+
+        // send messages
+        int sentCount = 0;
+        FaxException error = null;
+        try {
+            Message message = null;
+            for (; sentCount < messages.length; sentCount++) {
+                message = messages[sentCount];
+                message.saveChanges();
+
+                this.sendMessage(mailConnection, message);
+            }
+        } catch (Throwable throwable) {
+            error = new FaxException("Unable to send message: " + (sentCount + 1) + " out of: " + messages.length,
+                    throwable);
+        } finally {
+            this.releaseMailConnection(mailConnection, error != null);
+        }
+
+        // fire events for the sent fax jobs (also in case a later fax job failed)
+        for (int index = 0; index < sentCount; index++) {
+            this.invokeSubmitFaxJobCompletion(faxJobs[index]);
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * This function creates the submit messages of all the provided fax jobs.<br>
+     * Each document is encoded only once and the encoded attachment is reused by all messages sending the same
+     * document.
+     *
+     * @param faxJobs
+     *            The fax jobs to submit
+     * @param mailResourcesHolder
+     *            The mail resources holder
+     * @return The messages
+     */
+    protected Message[] createSubmitFaxJobMessages(FaxJob[] faxJobs, MailResourcesHolder mailResourcesHolder) {
+        Map<File, BodyPart> attachments = new HashMap<File, BodyPart>();
+        Message[] messages = new Message[faxJobs.length];
+        FaxJob faxJob = null;
+        File file = null;
+        BodyPart attachment = null;
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJob = faxJobs[index];
+
+            // get attachment
+            file = faxJob.getFile();
+            attachment = attachments.get(file);
+            if (attachment == null) {
+                attachment = this.createEncodedFileAttachmentBodyPart(file);
+                attachments.put(file, attachment);
+            }
+
+            messages[index] = this.createSubmitFaxJobMessage(faxJob, mailResourcesHolder, attachment);
+        }
+
+        return messages;
+    }
+
+    /**
+     * This function creates the attachment body part for the provided file.
+     *
+     * @param file
+     *            The file to fax
+     * @return The attachment body part
+     */
+    protected BodyPart createFileAttachmentBodyPart(File file) {
+        // init body part
+        BodyPart messageFileAttachmentBodyPart = new MimeBodyPart();
+
+        // init data source
+        DataSource source = new FileDataSource(file);
+
+        try {
+            // set data
+            messageFileAttachmentBodyPart.setDataHandler(new DataHandler(source));
+            messageFileAttachmentBodyPart.setFileName(file.getName());
+        } catch (Exception exception) {
+            throw new FaxException("Error while setting attachment.", exception);
+        }
+
+        return messageFileAttachmentBodyPart;
+    }
+
+    /**
+     * This function creates the attachment body part for the provided file.<br>
+     * The file content is read and encoded once and the encoded body part is reused every time the body part is
+     * written, so it can be attached to many messages.
+     *
+     * @param file
+     *            The file to fax
+     * @return The encoded attachment body part
+     */
+    protected BodyPart createEncodedFileAttachmentBodyPart(File file) {
+        // init body part
+        EncodedMimeBodyPart messageFileAttachmentBodyPart = new EncodedMimeBodyPart();
+
+        // init data source
+        DataSource source = new FileDataSource(file);
+
+        try {
+            // set data
+            messageFileAttachmentBodyPart.setDataHandler(new DataHandler(source));
+            messageFileAttachmentBodyPart.setFileName(file.getName());
+
+            // encode
+            messageFileAttachmentBodyPart.encode();
+        } catch (Exception exception) {
+            throw new FaxException("Error while encoding attachment.", exception);
+        }
+
+        return messageFileAttachmentBodyPart;
+    }
+
     /**
      * This function will create the message used to invoke the fax job action.<br>
      * If this method returns null, the SPI will throw an UnsupportedOperationException.
@@ -259,6 +423,25 @@ public class MailFaxClientSpi extends AbstractMailFaxClientSpi {
      */
     @Override
     protected Message createSubmitFaxJobMessage(FaxJob faxJob, MailResourcesHolder mailResourcesHolder) {
+        // create attachment
+        BodyPart attachment = this.createFileAttachmentBodyPart(faxJob.getFile());
+
+        return this.createSubmitFaxJobMessage(faxJob, mailResourcesHolder, attachment);
+    }
+
+    /**
+     * This function will create the submit fax job message with the provided attachment.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @param mailResourcesHolder
+     *            The mail resources holder
+     * @param attachment
+     *            The file attachment body part
+     * @return The message to send
+     */
+    protected Message createSubmitFaxJobMessage(FaxJob faxJob, MailResourcesHolder mailResourcesHolder,
+            BodyPart attachment) {
         // get logger
         Logger logger = this.getLogger();
 
@@ -306,20 +489,9 @@ public class MailFaxClientSpi extends AbstractMailFaxClientSpi {
         // create multi part
         Multipart multipart = new MimeMultipart();
 
-        // init body part
-        BodyPart messageFileAttachmentBodyPart = new MimeBodyPart();
-
-        // init data source
-        File file = faxJob.getFile();
-        DataSource source = new FileDataSource(file);
-
         try {
-            // set data
-            messageFileAttachmentBodyPart.setDataHandler(new DataHandler(source));
-            messageFileAttachmentBodyPart.setFileName(file.getName());
-
             // add to body
-            multipart.addBodyPart(messageFileAttachmentBodyPart);
+            multipart.addBodyPart(attachment);
 
             // set content
             message.setContent(multipart);
@@ -374,4 +546,86 @@ public class MailFaxClientSpi extends AbstractMailFaxClientSpi {
     protected Message createCancelFaxJobMessage(FaxJob faxJob, MailResourcesHolder mailResourcesHolder) {
         return null;
     }
+
+    /**
+     * This class holds a mime body part which is encoded only once.<br>
+     * Once encoded, the body part headers and content are written as is, which enables to attach the same body part to
+     * many messages without reading and encoding the file for each message.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class EncodedMimeBodyPart extends MimeBodyPart {
+        /** The encoded body part (headers and content) */
+        private volatile byte[] encodedPart;
+
+        /**
+         * This is the class constructor.
+         */
+        public EncodedMimeBodyPart() {
+            super();
+        }
+
+        /**
+         * This function encodes the body part.<br>
+         * Once encoded, changes to the body part will not be written.
+         *
+         * @throws MessagingException
+         *             Any messaging exception
+         * @throws IOException
+         *             Any IO exception
+         */
+        public synchronized void encode() throws MessagingException, IOException {
+            if (this.encodedPart == null) {
+                // update headers (content type, transfer encoding...)
+                this.updateHeaders();
+
+                // encode
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                super.writeTo(outputStream);
+                this.encodedPart = outputStream.toByteArray();
+            }
+        }
+
+        /**
+         * This function returns true if the body part was encoded.
+         *
+         * @return True if encoded
+         */
+        public boolean isEncoded() {
+            return this.encodedPart != null;
+        }
+
+        /**
+         * Updates the body part headers (only if not encoded yet).
+         *
+         * @throws MessagingException
+         *             Any messaging exception
+         */
+        @Override
+        protected void updateHeaders() throws MessagingException {
+            if (this.encodedPart == null) {
+                super.updateHeaders();
+            }
+        }
+
+        /**
+         * Writes the encoded body part to the provided output stream.
+         *
+         * @param outputStream
+         *            The output stream
+         * @throws IOException
+         *             Any IO exception
+         * @throws MessagingException
+         *             Any messaging exception
+         */
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException, MessagingException {
+            // encode if needed
+            this.encode();
+
+            outputStream.write(this.encodedPart);
+        }
+    }
 }
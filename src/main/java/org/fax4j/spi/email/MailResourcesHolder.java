@@ -1,5 +1,6 @@
 package org.fax4j.spi.email;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.mail.Session;
 import javax.mail.Transport;
 
@@ -7,7 +8,7 @@ import javax.mail.Transport;
  * This class holds the java mail objects.
  * 
  * @author Sagie Gur-Ari
- * @version 1.0
+ * @version 1.01
  * @since 0.39a
  */
 public class MailResourcesHolder {
@@ -15,6 +16,8 @@ public class MailResourcesHolder {
     private final Session SESSION;
     /** This is the mail transport */
     private final Transport TRANSPORT;
+    /** The amount of messages sent using the mail transport */
+    private final AtomicInteger MESSAGE_COUNTER;
 
     /**
      * This is the default constructor.
@@ -30,6 +33,7 @@ public class MailResourcesHolder {
         // get values
         this.SESSION = session;
         this.TRANSPORT = transport;
+        this.MESSAGE_COUNTER = new AtomicInteger(0);
     }
 
     /**
@@ -49,4 +53,22 @@ public class MailResourcesHolder {
     public final Transport getTransport() {
         return this.TRANSPORT;
     }
-}
\ No newline at end of file
+
+    /**
+     * This function returns the amount of messages sent using the mail transport.
+     * 
+     * @return The amount of messages sent
+     */
+    public final int getMessageCount() {
+        return this.MESSAGE_COUNTER.get();
+    }
+
+    /**
+     * This function increments the amount of messages sent using the mail transport.
+     * 
+     * @return The updated amount of messages sent
+     */
+    public final int incrementMessageCount() {
+        return this.MESSAGE_COUNTER.incrementAndGet();
+    }
+}
@@ -0,0 +1,245 @@
+package org.fax4j.spi.email;
+
+import javax.mail.Transport;
+import org.fax4j.spi.email.AbstractMailFaxClientSpi.FaxClientSpiConfigurationConstants;
+import org.fax4j.util.CloseableResourceManager;
+import org.fax4j.util.Connection;
+import org.fax4j.util.ConnectionPool;
+import org.fax4j.util.ConnectionPool.ResourceHandler;
+import org.fax4j.util.PooledConnectionFactory;
+import org.fax4j.util.ThreadPoolHelper;
+
+/**
+ * Provides a pooled implementation of the mail connection factory.<br>
+ * The factory keeps up to the max pool size connected mail transports, each fax action borrows a transport from the
+ * pool and returns it once the mail is sent, which enables the mail SPIs to send mails in parallel without connecting
+ * to the mail server for each mail.<br>
+ * Idle transports are checked before being reused (disconnected transports are replaced by newly connected ones) and
+ * transports are closed and replaced once they sent the max amount of messages per connection.<br>
+ * To use this factory, set the org.fax4j.spi.mail.connection.factory.class.name property to
+ * org.fax4j.spi.email.PooledMailConnectionFactory.<br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.min.idle</td>
+ * <td>The min amount of idle transports kept open</td>
+ * <td>1</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.max.size</td>
+ * <td>The max amount of connected transports</td>
+ * <td>5</td>
+ * <td>5</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.borrow.timeout</td>
+ * <td>The max time in millies to wait for a free transport</td>
+ * <td>30000</td>
+ * <td>30000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.idle.timeout</td>
+ * <td>The time in millies after which idle transports are closed (0 to disable)</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.mail.pool.max.messages.per.connection</td>
+ * <td>The max amount of messages sent by a transport before it is replaced (0 for unlimited)</td>
+ * <td>100</td>
+ * <td>100</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class PooledMailConnectionFactory extends MailConnectionFactoryImpl
+        implements PooledConnectionFactory<MailResourcesHolder> {
+    /** The transports pool */
+    private ConnectionPool<MailResourcesHolder> pool;
+    /** The max amount of messages sent by a transport before it is replaced (0 for unlimited) */
+    private int maxMessagesPerConnection;
+
+    /**
+     * This is the class constructor.
+     */
+    public PooledMailConnectionFactory() {
+        super();
+    }
+
+    /**
+     * This function initializes the connection factory.
+     */
+    @Override
+    protected void initializeImpl() {
+        super.initializeImpl();
+
+        // get pool configuration
+        int minIdle = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_MIN_IDLE_PROPERTY_KEY), 1);
+        int maxSize = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_MAX_SIZE_PROPERTY_KEY), 5);
+        long borrowTimeout = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_BORROW_TIMEOUT_PROPERTY_KEY), 30000);
+        long idleTimeout = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_IDLE_TIMEOUT_PROPERTY_KEY), 60000);
+        this.maxMessagesPerConnection = ThreadPoolHelper.parseSize(
+                this.factoryConfigurationHolder.getConfigurationValue(
+                        FaxClientSpiConfigurationConstants.POOL_MAX_MESSAGES_PER_CONNECTION_PROPERTY_KEY),
+                100);
+
+        // create pool
+        this.pool = new ConnectionPool<MailResourcesHolder>(new MailResourceHandler(this), minIdle, maxSize,
+                borrowTimeout, idleTimeout);
+
+        // close idle transports on shutdown
+        CloseableResourceManager.registerCloseable(this.pool);
+    }
+
+    /**
+     * Returns the transports pool.
+     *
+     * @return The transports pool
+     */
+    protected final ConnectionPool<MailResourcesHolder> getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Borrows a transport from the pool and returns a connection holding it.<br>
+     * The connection must be released once the mail is sent.
+     *
+     * @return The connection
+     */
+    @Override
+    public Connection<MailResourcesHolder> createConnection() {
+        // borrow transport
+        MailResourcesHolder resource = this.pool.borrowResource();
+
+        // create connection
+        Connection<MailResourcesHolder> connection = this.createConnectionForResource(resource);
+
+        return connection;
+    }
+
+    /**
+     * Returns the transport held by the connection to the pool.<br>
+     * Transports which reached the max amount of messages per connection are closed.
+     *
+     * @param connection
+     *            The connection
+     */
+    @Override
+    public void releaseConnection(Connection<MailResourcesHolder> connection) {
+        if (connection != null) {
+            MailResourcesHolder resource = connection.getResource();
+            boolean valid = this.maxMessagesPerConnection <= 0
+                    || resource.getMessageCount() < this.maxMessagesPerConnection;
+            this.pool.returnResource(resource, valid);
+        }
+    }
+
+    /**
+     * Closes the transport held by the connection without returning it to the pool.
+     *
+     * @param connection
+     *            The connection
+     */
+    public void discardConnection(Connection<MailResourcesHolder> connection) {
+        if (connection != null) {
+            this.pool.returnResource(connection.getResource(), false);
+        }
+    }
+
+    /**
+     * This function returns true if the idle transport can be reused.
+     *
+     * @param resource
+     *            The mail resources holder
+     * @return True if the transport is still connected
+     */
+    protected boolean validateResource(MailResourcesHolder resource) {
+        Transport transport = resource.getTransport();
+
+        boolean valid = false;
+        if (transport != null) {
+            try {
+                valid = transport.isConnected();
+            } catch (RuntimeException exception) {
+                this.LOGGER.logDebug(new Object[] { "Pooled mail transport is no longer valid." }, exception);
+            }
+        }
+
+        return valid;
+    }
+
+    /**
+     * This class connects the transports pool to the connection factory.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class MailResourceHandler implements ResourceHandler<MailResourcesHolder> {
+        /** The connection factory */
+        private final PooledMailConnectionFactory FACTORY;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param factory
+         *            The connection factory
+         */
+        protected MailResourceHandler(PooledMailConnectionFactory factory) {
+            super();
+
+            this.FACTORY = factory;
+        }
+
+        /**
+         * Creates and returns a new connected transport.
+         *
+         * @return The mail resources holder
+         */
+        public MailResourcesHolder createResource() {
+            return this.FACTORY.createResourceImpl();
+        }
+
+        /**
+         * This function returns true if the idle transport can be reused.
+         *
+         * @param resource
+         *            The mail resources holder
+         * @return True if the transport is valid
+         */
+        public boolean validateResource(MailResourcesHolder resource) {
+            return this.FACTORY.validateResource(resource);
+        }
+
+        /**
+         * Closes the transport.
+         *
+         * @param resource
+         *            The mail resources holder
+         */
+        public void releaseResource(MailResourcesHolder resource) {
+            this.FACTORY.releaseResource(resource);
+        }
+    }
+}
@@ -11,7 +11,7 @@ import org.fax4j.spi.http.CommonHTTPClientConfiguration.HTTPClientConfigurationC
  * This abstract HTTP client provides partial implementation for common functionality.
  * 
  * @author Sagie Gur-Ari
- * @version 1.03
+ * @version 1.04
  * @since 0.34
  */
 public abstract class AbstractHTTPClient implements HTTPClient {
@@ -62,6 +62,28 @@ public abstract class AbstractHTTPClient implements HTTPClient {
         configuration.setPort(port);
         configuration.setSSL(ssl);
 
+        // set connection pool values
+        value = configurationHolder
+                .getConfigurationValue(HTTPClientConfigurationConstants.CONNECTION_POOL_MAX_TOTAL_PROPERTY_KEY);
+        if (value != null) {
+            configuration.setConnectionPoolMaxTotal(Integer.parseInt(value));
+        }
+        value = configurationHolder
+                .getConfigurationValue(HTTPClientConfigurationConstants.CONNECTION_POOL_MAX_PER_HOST_PROPERTY_KEY);
+        if (value != null) {
+            configuration.setConnectionPoolMaxPerHost(Integer.parseInt(value));
+        }
+        value = configurationHolder
+                .getConfigurationValue(HTTPClientConfigurationConstants.CONNECTION_POOL_IDLE_TIMEOUT_PROPERTY_KEY);
+        if (value != null) {
+            configuration.setConnectionPoolIdleTimeout(Long.parseLong(value));
+        }
+        value = configurationHolder
+                .getConfigurationValue(HTTPClientConfigurationConstants.CONNECTION_POOL_STALE_CHECK_PROPERTY_KEY);
+        if (value != null) {
+            configuration.setConnectionPoolStaleCheckEnabled(Boolean.parseBoolean(value));
+        }
+
         // set methods
         Enum<?>[] methodProperties = new Enum<?>[] { HTTPClientConfigurationConstants.SUBMIT_HTTP_METHOD_PROPERTY_KEY,
                 HTTPClientConfigurationConstants.SUSPEND_HTTP_METHOD_PROPERTY_KEY,
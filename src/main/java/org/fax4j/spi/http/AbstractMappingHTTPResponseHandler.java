@@ -7,20 +7,27 @@ import org.fax4j.FaxJob;
 import org.fax4j.FaxJobStatus;
 import org.fax4j.common.Fax4JProvider;
 import org.fax4j.common.FaxActionType;
+import org.fax4j.util.SpiUtil;
 
 /**
  * This class provides an abstract mapping based implementation of the HTTP response handler interface.<br>
  * This class expects to get a data object and will update the fax job as needed.<br>
  * This class only supports extracting the fax job ID and fax job status from the response object, or in case of errors,
- * extract the error message.
+ * extract the error message.<br>
+ * In case a bulk status path is configured, this class also supports extracting the statuses of multiple fax jobs from
+ * a single bulk status response. The bulk status path may contain the ${fax.job.id} parameter which will be replaced
+ * with the ID of each fax job (for example: statuses;${fax.job.id};status).<br>
+ * This class also supports extracting the fax job ID and status from status callbacks sent by the fax service provider.
+ * In case the callback paths are not configured, the submit output path and the get status output path are used.
  *
  * @param <T>
  *            The specific data object
  * @author Sagie Gur-Ari
- * @version 1.01
+ * @version 1.05
  * @since 0.42.8
  */
-public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTPResponseHandler {
+public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTPResponseHandler
+        implements BulkStatusHTTPResponseHandler, CallbackHTTPResponseHandler {
     /** The fax action type to object specific response data path mapping */
     private Map<FaxActionType, String> faxActionType2ReponseDataPathMap;
     /** The status string value to fax status mapping */
@@ -31,8 +38,17 @@ public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTP
     private String errorDetectionValue;
     /** The error message path */
     private String errorMessagePath;
+    /** The bulk status path */
+    private String bulkStatusPath;
+    /** The callback fax job ID path */
+    private String callbackFaxJobIDPath;
+    /** The callback fax job status path */
+    private String callbackStatusPath;
     /** The values seperator ';' */
     public static final String VALUES_SEPERATOR = ";";
+    /** The fax job ID parameter used in the bulk status path */
+    public static final String FAX_JOB_ID_PATH_PARAMETER = SpiUtil.TEMPLATE_PARAMETER_PREFIX
+            + SpiUtil.FAX_JOB_ID_TEMPLATE_PARAMETER + SpiUtil.TEMPLATE_PARAMETER_SUFFIX;
 
     /**
      * This is the default constructor.
@@ -63,6 +79,28 @@ public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTP
         this.errorDetectionValue = this.getConfigurationValue(configurationKey);
         configurationKey = this.getErrorMessagePathPropertyKey();
         this.errorMessagePath = this.getConfigurationValue(configurationKey);
+
+        // set bulk status path
+        configurationKey = this.getBulkStatusPathPropertyKey();
+        if (configurationKey != null) {
+            this.bulkStatusPath = this.getConfigurationValue(configurationKey);
+        }
+
+        // set callback paths
+        configurationKey = this.getCallbackFaxJobIDPathPropertyKey();
+        if (configurationKey != null) {
+            this.callbackFaxJobIDPath = this.getConfigurationValue(configurationKey);
+        }
+        if (this.callbackFaxJobIDPath == null) {
+            this.callbackFaxJobIDPath = this.getPathToResponseData(FaxActionType.SUBMIT_FAX_JOB);
+        }
+        configurationKey = this.getCallbackStatusPathPropertyKey();
+        if (configurationKey != null) {
+            this.callbackStatusPath = this.getConfigurationValue(configurationKey);
+        }
+        if (this.callbackStatusPath == null) {
+            this.callbackStatusPath = this.getPathToResponseData(FaxActionType.GET_FAX_JOB_STATUS);
+        }
     }
 
     /**
@@ -192,6 +230,115 @@ public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTP
         return faxJobStatus;
     }
 
+    /**
+     * This function extracts the fax job statuses of the provided fax jobs from the bulk status HTTP response data.
+     *
+     * @param httpResponse
+     *            The HTTP response
+     * @param faxJobs
+     *            The fax jobs
+     * @return The fax job statuses (null if bulk status path is not configured)
+     */
+    public FaxJobStatus[] getFaxJobStatuses(HTTPResponse httpResponse, FaxJob[] faxJobs) {
+        FaxJobStatus[] faxJobStatuses = null;
+        if (this.bulkStatusPath != null && httpResponse != null) {
+            // parse output once for all fax jobs
+            T object = this.convertToObject(httpResponse);
+
+            if (object != null) {
+                // look for an error
+                String errorMessage = this.findError(object);
+                if (errorMessage != null) {
+                    throw new FaxException("Error found in response: " + errorMessage);
+                }
+
+                faxJobStatuses = new FaxJobStatus[faxJobs.length];
+                String path = null;
+                String faxJobStatusStr = null;
+                FaxJobStatus faxJobStatus = null;
+                for (int index = 0; index < faxJobs.length; index++) {
+                    // get fax job path
+                    path = this.bulkStatusPath.replace(AbstractMappingHTTPResponseHandler.FAX_JOB_ID_PATH_PARAMETER,
+                            faxJobs[index].getID());
+
+                    // get fax job status
+                    faxJobStatus = null;
+                    faxJobStatusStr = this.findValue(object, path);
+                    if (faxJobStatusStr != null) {
+                        faxJobStatus = this.getFaxJobStatusFromStatusString(faxJobStatusStr);
+                    }
+                    if (faxJobStatus == null) {
+                        faxJobStatus = FaxJobStatus.UNKNOWN;
+                    }
+
+                    faxJobStatuses[index] = faxJobStatus;
+                }
+            }
+        }
+
+        return faxJobStatuses;
+    }
+
+    /**
+     * This function extracts the fax job ID from the callback data.
+     *
+     * @param httpResponse
+     *            The HTTP response holding the callback data
+     * @return The fax job ID (null if not found)
+     */
+    public String getCallbackFaxJobID(HTTPResponse httpResponse) {
+        return this.findValue(httpResponse, this.callbackFaxJobIDPath);
+    }
+
+    /**
+     * This function extracts the fax job status from the callback data.
+     *
+     * @param httpResponse
+     *            The HTTP response holding the callback data
+     * @return The fax job status (null if not found or not mapped)
+     */
+    public FaxJobStatus getCallbackFaxJobStatus(HTTPResponse httpResponse) {
+        // get fax job status string
+        String faxJobStatusStr = this.findValue(httpResponse, this.callbackStatusPath);
+
+        FaxJobStatus faxJobStatus = null;
+        if (faxJobStatusStr != null) {
+            faxJobStatus = this.getFaxJobStatusFromStatusString(faxJobStatusStr);
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * Returns the callback fax job ID path configuration key.<br>
+     * By default this function returns null which means the submit output path is used.
+     *
+     * @return The callback fax job ID path configuration key
+     */
+    protected Enum<?> getCallbackFaxJobIDPathPropertyKey() {
+        return null;
+    }
+
+    /**
+     * Returns the callback fax job status path configuration key.<br>
+     * By default this function returns null which means the get status output path is used.
+     *
+     * @return The callback fax job status path configuration key
+     */
+    protected Enum<?> getCallbackStatusPathPropertyKey() {
+        return null;
+    }
+
+    /**
+     * Returns the bulk status path configuration key.<br>
+     * By default this function returns null which means bulk status responses are not supported.
+     *
+     * @return The bulk status path configuration key
+     */
+    protected Enum<?> getBulkStatusPathPropertyKey() {
+        return null;
+    }
+
     /**
      * This function returns the requested value from the HTTP response content.<br>
      * The path is a set of key names seperated by ';'.
@@ -262,22 +409,12 @@ public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTP
         String errorMessage = null;
         if (this.errorDetectionPath != null) {
             String value = this.findValue(object, this.errorDetectionPath);
-            if (value != null) {
-                boolean errorFound = false;
-                if (this.errorDetectionValue == null) {
-                    errorFound = true;
-                } else if (this.errorDetectionValue.indexOf(value) != -1) // look for value in configured value
-                {
-                    errorFound = true;
-                }
-
-                if (errorFound) {
-                    errorMessage = value;
-                    if (this.errorMessagePath != null) {
-                        value = this.findValue(object, this.errorMessagePath);
-                        if (value != null) {
-                            errorMessage = value;
-                        }
+            if (this.isErrorValue(value)) {
+                errorMessage = value;
+                if (this.errorMessagePath != null) {
+                    value = this.findValue(object, this.errorMessagePath);
+                    if (value != null) {
+                        errorMessage = value;
                     }
                 }
             }
@@ -286,6 +423,55 @@ public abstract class AbstractMappingHTTPResponseHandler<T> extends AbstractHTTP
         return errorMessage;
     }
 
+    /**
+     * This function returns true if the value found in the error detection path means that the response holds an
+     * error.
+     *
+     * @param value
+     *            The value found in the error detection path (may be null)
+     * @return True if the value is an error
+     */
+    protected boolean isErrorValue(String value) {
+        boolean errorFound = false;
+        if (value != null) {
+            if (this.errorDetectionValue == null) {
+                errorFound = true;
+            } else if (this.errorDetectionValue.indexOf(value) != -1) // look for value in configured value
+            {
+                errorFound = true;
+            }
+        }
+
+        return errorFound;
+    }
+
+    /**
+     * This function returns the error detection path.
+     *
+     * @return The error detection path (null if not configured)
+     */
+    protected String getErrorDetectionPath() {
+        return this.errorDetectionPath;
+    }
+
+    /**
+     * This function returns the bulk status path.
+     *
+     * @return The bulk status path (null if not configured)
+     */
+    protected String getBulkStatusPath() {
+        return this.bulkStatusPath;
+    }
+
+    /**
+     * This function returns the error message path.
+     *
+     * @return The error message path (null if not configured)
+     */
+    protected String getErrorMessagePath() {
+        return this.errorMessagePath;
+    }
+
     /**
      * This function populates the fax action type to response data path mappings based on the configuration of the
      * handler.
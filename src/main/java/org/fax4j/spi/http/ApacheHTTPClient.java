@@ -2,13 +2,17 @@ package org.fax4j.spi.http;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Properties;
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnectionManager;
 import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.EntityEnclosingMethod;
@@ -21,21 +25,32 @@ import org.apache.commons.httpclient.methods.multipart.FilePart;
 import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
 import org.apache.commons.httpclient.methods.multipart.Part;
 import org.apache.commons.httpclient.methods.multipart.StringPart;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.fax4j.FaxException;
 import org.fax4j.common.Logger;
 import org.fax4j.common.LoggerManager;
 import org.fax4j.spi.http.HTTPRequest.ContentPart;
 import org.fax4j.spi.http.HTTPRequest.ContentPartType;
 import org.fax4j.spi.http.HTTPRequest.ContentType;
+import org.fax4j.spi.http.HTTPRequest.StreamContent;
 
 /**
- * This HTTP client is based on the Apache HTTP client and is used to submit HTTP requests.
+ * This HTTP client is based on the Apache HTTP client and is used to submit HTTP requests.<br>
+ * The underlying HTTP client and its pooled keep-alive connections are created once and shared by all requests
+ * submitted by this HTTP client instance (each HTTP fax client SPI holds its own instance).
  *
  * @author Sagie Gur-Ari
- * @version 1.12
+ * @version 1.14
  * @since 0.1
  */
 public class ApacheHTTPClient extends AbstractHTTPClient {
+    /** The shared HTTP client */
+    private HttpClient httpClient;
+    /** The last time idle connections were evicted */
+    private long lastIdleConnectionsEvictionTime;
+    /** The string content encoding (the HTTP default) */
+    private static final String STRING_CONTENT_ENCODING = "ISO-8859-1";
+
     /**
      * This is the default constructor.
      */
@@ -49,10 +64,85 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
      * @return The new HTTP client
      */
     protected HttpClient createHttpClient() {
+        // create connection manager
+        HttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+
         // create HTTP client
-        HttpClient httpClient = new HttpClient();
+        HttpClient client = new HttpClient(connectionManager);
 
-        return httpClient;
+        return client;
+    }
+
+    /**
+     * This function sets up the connection pool of the provided HTTP client based on the provided configuration.
+     *
+     * @param client
+     *            The HTTP client
+     * @param configuration
+     *            The HTTP configuration
+     */
+    protected void setupConnectionPool(HttpClient client, HTTPClientConfiguration configuration) {
+        HttpConnectionManager connectionManager = client.getHttpConnectionManager();
+        if (connectionManager != null) {
+            HttpConnectionManagerParams params = connectionManager.getParams();
+            if (params != null) {
+                params.setMaxTotalConnections(configuration.getConnectionPoolMaxTotal());
+                params.setDefaultMaxConnectionsPerHost(configuration.getConnectionPoolMaxPerHost());
+                params.setStaleCheckingEnabled(configuration.isConnectionPoolStaleCheckEnabled());
+            }
+        }
+    }
+
+    /**
+     * This function returns the shared HTTP client.<br>
+     * The HTTP client is created and its connection pool is configured on the first invocation.
+     *
+     * @param configuration
+     *            The HTTP configuration
+     * @return The HTTP client
+     */
+    protected HttpClient getHttpClient(HTTPClientConfiguration configuration) {
+        synchronized (this) {
+            if (this.httpClient == null) {
+                // create HTTP client
+                HttpClient client = this.createHttpClient();
+
+                // setup connection pool
+                this.setupConnectionPool(client, configuration);
+
+                this.httpClient = client;
+                this.lastIdleConnectionsEvictionTime = System.currentTimeMillis();
+            }
+
+            return this.httpClient;
+        }
+    }
+
+    /**
+     * This function closes the pooled connections which were idle for longer than the configured idle timeout.<br>
+     * The check is done at most once per idle timeout period.
+     *
+     * @param client
+     *            The HTTP client
+     * @param configuration
+     *            The HTTP configuration
+     */
+    protected void evictIdleConnections(HttpClient client, HTTPClientConfiguration configuration) {
+        long idleTimeout = configuration.getConnectionPoolIdleTimeout();
+        if (idleTimeout > 0) {
+            HttpConnectionManager connectionManager = null;
+            long currentTime = System.currentTimeMillis();
+            synchronized (this) {
+                if (currentTime - this.lastIdleConnectionsEvictionTime >= idleTimeout) {
+                    this.lastIdleConnectionsEvictionTime = currentTime;
+                    connectionManager = client.getHttpConnectionManager();
+                }
+            }
+
+            if (connectionManager != null) {
+                connectionManager.closeIdleConnections(idleTimeout);
+            }
+        }
     }
 
     /**
@@ -243,6 +333,8 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
 
     /**
      * This function creates a string type request entity and populates it with the data from the provided HTTP request.
+     * <br>
+     * The content is ISO-8859-1 encoded (the HTTP default), same as the streamed content.
      *
      * @param httpRequest
      *            The HTTP request
@@ -253,7 +345,8 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
         String contentString = httpRequest.getContentAsString();
         if (contentString != null) {
             try {
-                requestEntity = new StringRequestEntity(contentString, "text/plain", null);
+                requestEntity = new StringRequestEntity(contentString, "text/plain",
+                        ApacheHTTPClient.STRING_CONTENT_ENCODING);
             } catch (UnsupportedEncodingException exception) {
                 throw new FaxException("Unable to set string request entity.", exception);
             }
@@ -279,6 +372,24 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
         return requestEntity;
     }
 
+    /**
+     * This function creates a streamed request entity which writes the content of the provided HTTP request directly
+     * to the connection (the content is not loaded into memory).
+     *
+     * @param httpRequest
+     *            The HTTP request
+     * @return The request entity
+     */
+    protected RequestEntity createStreamRequestContent(HTTPRequest httpRequest) {
+        RequestEntity requestEntity = null;
+        StreamContent streamContent = httpRequest.getContentAsStream();
+        if (streamContent != null) {
+            requestEntity = new StreamContentRequestEntity(streamContent);
+        }
+
+        return requestEntity;
+    }
+
     /**
      * This function creates a multi part type request entity and populates it with the data from the provided HTTP
      * request.
@@ -364,6 +475,9 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
             case MULTI_PART:
                 requestEntity = this.createMultiPartRequestContent(httpRequest, httpMethodClient);
                 break;
+            case STREAM:
+                requestEntity = this.createStreamRequestContent(httpRequest);
+                break;
             default:
                 throw new FaxException("Unsupported content type: " + contentType);
             }
@@ -371,7 +485,9 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
             // set request data
             if (requestEntity != null) {
                 pushMethod.setRequestEntity(requestEntity);
-                pushMethod.setContentChunked(false);
+
+                // use chunked encoding only when the content length is not known in advance
+                pushMethod.setContentChunked(requestEntity.getContentLength() < 0);
             }
         }
     }
@@ -389,8 +505,11 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
      */
     public HTTPResponse submitHTTPRequest(HTTPRequest httpRequest, HTTPClientConfiguration httpClientConfiguration,
             HTTPMethod httpMethod) {
-        // create HTTP client
-        HttpClient httpClient = this.createHttpClient();
+        // get HTTP client
+        HttpClient client = this.getHttpClient(httpClientConfiguration);
+
+        // close connections which were idle for too long
+        this.evictIdleConnections(client, httpClientConfiguration);
 
         // create URL
         String url = this.createURL(httpRequest, httpClientConfiguration);
@@ -418,7 +537,7 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
         int statusCode = -1;
         try {
             // submit HTTP request
-            statusCode = httpClient.executeMethod(httpMethodClient);
+            statusCode = client.executeMethod(httpMethodClient);
 
             if (statusCode >= 400) {
                 throw new FaxException("Error while invoking HTTP request, return status code: " + statusCode);
@@ -431,7 +550,7 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
         } catch (Exception exception) {
             throw new FaxException("Error while executing HTTP request.", exception);
         } finally {
-            // release connection
+            // release connection back to the pool
             httpMethodClient.releaseConnection();
         }
 
@@ -440,4 +559,67 @@ public class ApacheHTTPClient extends AbstractHTTPClient {
 
         return httpResponse;
     }
+
+    /**
+     * This request entity writes the HTTP request stream content directly to the connection.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class StreamContentRequestEntity implements RequestEntity {
+        /** The stream content */
+        private final StreamContent STREAM_CONTENT;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param streamContent
+         *            The stream content
+         */
+        public StreamContentRequestEntity(StreamContent streamContent) {
+            super();
+
+            this.STREAM_CONTENT = streamContent;
+        }
+
+        /**
+         * This function returns true since the stream content can be written more than once.
+         *
+         * @return True
+         */
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        /**
+         * This function writes the content to the provided stream.
+         *
+         * @param outputStream
+         *            The output stream
+         * @throws IOException
+         *             Any IO exception
+         */
+        public void writeRequest(OutputStream outputStream) throws IOException {
+            this.STREAM_CONTENT.writeTo(outputStream);
+        }
+
+        /**
+         * This function returns the content length.
+         *
+         * @return The content length (-1 if not known)
+         */
+        public long getContentLength() {
+            return this.STREAM_CONTENT.getContentLength();
+        }
+
+        /**
+         * This function returns the content MIME type.
+         *
+         * @return The content MIME type
+         */
+        public String getContentType() {
+            return this.STREAM_CONTENT.getContentType();
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package org.fax4j.spi.http;
+
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+
+/**
+ * This interface defines an HTTP response handler which is also able to extract the statuses of multiple fax jobs
+ * from a single bulk status HTTP response.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public interface BulkStatusHTTPResponseHandler extends HTTPResponseHandler {
+    /**
+     * This function extracts the fax job statuses of the provided fax jobs from the bulk status HTTP response data.
+     *
+     * @param httpResponse
+     *            The HTTP response
+     * @param faxJobs
+     *            The fax jobs
+     * @return The fax job statuses (null if bulk status extraction is not supported)
+     */
+    FaxJobStatus[] getFaxJobStatuses(HTTPResponse httpResponse, FaxJob[] faxJobs);
+}
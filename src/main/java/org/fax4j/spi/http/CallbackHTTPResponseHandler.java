@@ -0,0 +1,32 @@
+package org.fax4j.spi.http;
+
+import org.fax4j.FaxJobStatus;
+
+/**
+ * This interface defines an HTTP response handler which is also able to extract the fax job ID and fax job status from
+ * the status callbacks (HTTP requests) sent by the fax service provider.<br>
+ * The callback request body is provided to the handler as the content of an HTTP response object.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public interface CallbackHTTPResponseHandler extends HTTPResponseHandler {
+    /**
+     * This function extracts the fax job ID from the callback data.
+     *
+     * @param httpResponse
+     *            The HTTP response holding the callback data
+     * @return The fax job ID (null if not found)
+     */
+    String getCallbackFaxJobID(HTTPResponse httpResponse);
+
+    /**
+     * This function extracts the fax job status from the callback data.
+     *
+     * @param httpResponse
+     *            The HTTP response holding the callback data
+     * @return The fax job status (null if not found or not mapped)
+     */
+    FaxJobStatus getCallbackFaxJobStatus(HTTPResponse httpResponse);
+}
@@ -9,7 +9,7 @@ import org.fax4j.spi.http.HTTPClient.HTTPMethod;
  * This is the common HTTP client configuration.
  *
  * @author Sagie Gur-Ari
- * @version 1.04
+ * @version 1.05
  * @since 0.20c
  */
 public class CommonHTTPClientConfiguration implements HTTPClientConfiguration {
@@ -21,12 +21,20 @@ public class CommonHTTPClientConfiguration implements HTTPClientConfiguration {
     private boolean ssl;
     /** The fax action to HTTP method map */
     private Map<FaxActionType, HTTPMethod> methodMap;
+    /** The maximum amount of pooled connections */
+    private int connectionPoolMaxTotal;
+    /** The maximum amount of pooled connections per host */
+    private int connectionPoolMaxPerHost;
+    /** The idle pooled connections timeout in millies */
+    private long connectionPoolIdleTimeout;
+    /** True to validate pooled connections before reuse */
+    private boolean connectionPoolStaleCheckEnabled;
 
     /**
      * This class holds the configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.02
+     * @version 1.03
      * @since 0.20c
      */
     public enum HTTPClientConfigurationConstants {
@@ -45,7 +53,15 @@ public class CommonHTTPClientConfiguration implements HTTPClientConfiguration {
         /** HTTP method property key */
         CANCEL_HTTP_METHOD_PROPERTY_KEY("org.fax4j.spi.{0}.cancel.method"),
         /** HTTP method property key */
-        GET_STATUS_HTTP_METHOD_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.method");
+        GET_STATUS_HTTP_METHOD_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.method"),
+        /** The connection pool max total connections property key */
+        CONNECTION_POOL_MAX_TOTAL_PROPERTY_KEY("org.fax4j.spi.{0}.connection.pool.max.total"),
+        /** The connection pool max connections per host property key */
+        CONNECTION_POOL_MAX_PER_HOST_PROPERTY_KEY("org.fax4j.spi.{0}.connection.pool.max.per.host"),
+        /** The connection pool idle timeout property key */
+        CONNECTION_POOL_IDLE_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.connection.pool.idle.timeout"),
+        /** The connection pool stale check property key */
+        CONNECTION_POOL_STALE_CHECK_PROPERTY_KEY("org.fax4j.spi.{0}.connection.pool.stale.check");
 
         /** The string value */
         private String value;
@@ -83,6 +99,10 @@ public class CommonHTTPClientConfiguration implements HTTPClientConfiguration {
         // set defaults
         this.setPort(80);
         this.setSSL(false);
+        this.setConnectionPoolMaxTotal(20);
+        this.setConnectionPoolMaxPerHost(20);
+        this.setConnectionPoolIdleTimeout(60000);
+        this.setConnectionPoolStaleCheckEnabled(true);
         FaxActionType[] faxActionTypes = FaxActionType.values();
         FaxActionType faxActionType = null;
         int amount = faxActionTypes.length;
@@ -174,4 +194,81 @@ public class CommonHTTPClientConfiguration implements HTTPClientConfiguration {
     public final void setMethod(FaxActionType faxActionType, HTTPMethod httpMethod) {
         this.methodMap.put(faxActionType, httpMethod);
     }
+
+    /**
+     * This function returns the maximum amount of pooled connections.
+     *
+     * @return The maximum amount of pooled connections
+     */
+    public final int getConnectionPoolMaxTotal() {
+        return this.connectionPoolMaxTotal;
+    }
+
+    /**
+     * This function sets the maximum amount of pooled connections.
+     *
+     * @param connectionPoolMaxTotal
+     *            The maximum amount of pooled connections
+     */
+    public final void setConnectionPoolMaxTotal(int connectionPoolMaxTotal) {
+        this.connectionPoolMaxTotal = connectionPoolMaxTotal;
+    }
+
+    /**
+     * This function returns the maximum amount of pooled connections per host.
+     *
+     * @return The maximum amount of pooled connections per host
+     */
+    public final int getConnectionPoolMaxPerHost() {
+        return this.connectionPoolMaxPerHost;
+    }
+
+    /**
+     * This function sets the maximum amount of pooled connections per host.
+     *
+     * @param connectionPoolMaxPerHost
+     *            The maximum amount of pooled connections per host
+     */
+    public final void setConnectionPoolMaxPerHost(int connectionPoolMaxPerHost) {
+        this.connectionPoolMaxPerHost = connectionPoolMaxPerHost;
+    }
+
+    /**
+     * This function returns the time in millies after which idle pooled connections are closed.<br>
+     * Zero or negative values disable the idle connections eviction.
+     *
+     * @return The idle connections timeout in millies
+     */
+    public final long getConnectionPoolIdleTimeout() {
+        return this.connectionPoolIdleTimeout;
+    }
+
+    /**
+     * This function sets the time in millies after which idle pooled connections are closed.
+     *
+     * @param connectionPoolIdleTimeout
+     *            The idle connections timeout in millies
+     */
+    public final void setConnectionPoolIdleTimeout(long connectionPoolIdleTimeout) {
+        this.connectionPoolIdleTimeout = connectionPoolIdleTimeout;
+    }
+
+    /**
+     * This function returns true if pooled connections should be validated before they are reused.
+     *
+     * @return True if pooled connections should be validated before they are reused
+     */
+    public final boolean isConnectionPoolStaleCheckEnabled() {
+        return this.connectionPoolStaleCheckEnabled;
+    }
+
+    /**
+     * This function sets the pooled connections validation flag.
+     *
+     * @param connectionPoolStaleCheckEnabled
+     *            True to validate pooled connections before they are reused
+     */
+    public final void setConnectionPoolStaleCheckEnabled(boolean connectionPoolStaleCheckEnabled) {
+        this.connectionPoolStaleCheckEnabled = connectionPoolStaleCheckEnabled;
+    }
 }
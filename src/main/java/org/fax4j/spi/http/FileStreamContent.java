@@ -0,0 +1,135 @@
+package org.fax4j.spi.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.fax4j.FaxException;
+import org.fax4j.spi.http.HTTPRequest.StreamContent;
+import org.fax4j.util.IOHelper;
+
+/**
+ * This class streams the file content (optionally surrounded by text parts) directly from the disk to the HTTP request
+ * stream.<br>
+ * The file is read in small chunks on each write, so memory usage does not depend on the file size.<br>
+ * The file content is written between each 2 text parts, for example the text parts {"a", "b", "c"} will be written
+ * as: a[file]b[file]c
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FileStreamContent implements StreamContent {
+    /** The file */
+    private final File FILE;
+    /** The encoded text parts */
+    private final byte[][] TEXT_PARTS;
+    /** The content MIME type */
+    private final String CONTENT_TYPE;
+    /** The content length */
+    private final long CONTENT_LENGTH;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param file
+     *            The file
+     * @param contentType
+     *            The content MIME type
+     */
+    public FileStreamContent(File file, String contentType) {
+        this(file, null, null, contentType);
+    }
+
+    /**
+     * This is the class constructor.
+     *
+     * @param file
+     *            The file
+     * @param textParts
+     *            The text parts written around the file content (null to write only the file content)
+     * @param encoding
+     *            The text parts encoding
+     * @param contentType
+     *            The content MIME type
+     */
+    public FileStreamContent(File file, String[] textParts, String encoding, String contentType) {
+        super();
+
+        if (file == null) {
+            throw new FaxException("File not provided.");
+        }
+        if (!file.isFile()) {
+            throw new FaxException("File: " + file.getAbsolutePath() + " not found.");
+        }
+
+        // encode text parts
+        byte[][] encodedTextParts = null;
+        if (textParts == null) {
+            encodedTextParts = new byte[][] { new byte[0], new byte[0] };
+        } else {
+            encodedTextParts = new byte[textParts.length][];
+            for (int index = 0; index < textParts.length; index++) {
+                encodedTextParts[index] = IOHelper.convertStringToBinary(textParts[index], encoding);
+                if (encodedTextParts[index] == null) {
+                    encodedTextParts[index] = new byte[0];
+                }
+            }
+        }
+
+        // calculate length
+        long contentLength = encodedTextParts[0].length;
+        long fileLength = file.length();
+        for (int index = 1; index < encodedTextParts.length; index++) {
+            contentLength = contentLength + fileLength + encodedTextParts[index].length;
+        }
+
+        this.FILE = file;
+        this.TEXT_PARTS = encodedTextParts;
+        this.CONTENT_TYPE = contentType;
+        this.CONTENT_LENGTH = contentLength;
+    }
+
+    /**
+     * This function returns the file.
+     *
+     * @return The file
+     */
+    public File getFile() {
+        return this.FILE;
+    }
+
+    /**
+     * This function returns the content MIME type.
+     *
+     * @return The content MIME type
+     */
+    public String getContentType() {
+        return this.CONTENT_TYPE;
+    }
+
+    /**
+     * This function returns the content length in bytes.
+     *
+     * @return The content length
+     */
+    public long getContentLength() {
+        return this.CONTENT_LENGTH;
+    }
+
+    /**
+     * This function writes the content to the provided stream.<br>
+     * The stream is not closed by this function.
+     *
+     * @param outputStream
+     *            The output stream
+     * @throws IOException
+     *             Any IO exception
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(this.TEXT_PARTS[0]);
+        for (int index = 1; index < this.TEXT_PARTS.length; index++) {
+            IOHelper.writeFileToStream(this.FILE, outputStream);
+            outputStream.write(this.TEXT_PARTS[index]);
+        }
+    }
+}
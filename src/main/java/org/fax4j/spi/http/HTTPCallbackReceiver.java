@@ -0,0 +1,724 @@
+package org.fax4j.spi.http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.FaxMonitorEvent.FaxMonitorEventID;
+import org.fax4j.util.AbstractCloseable;
+import org.fax4j.util.SpiUtil;
+import org.fax4j.util.ThreadPoolHelper.DaemonThreadFactory;
+
+/**
+ * This class implements an embedded lightweight HTTP server which receives the fax job status callbacks sent by the
+ * fax service provider.<br>
+ * The fax job ID and status are extracted from the callback request body using the HTTP response handler path
+ * configuration and the fax monitor events are fired directly by the receiver, without polling the fax service
+ * provider.<br>
+ * Fax jobs which did not receive any callback within the silent timeout are polled (in bulk if supported by the SPI),
+ * so lost callbacks only delay the status change events instead of losing them.<br>
+ * Similar to the fax job monitor, fax jobs are no longer monitored once their status is UNKNOWN or ERROR.<br>
+ * Receivers with the same host, port and path share a single embedded HTTP server (the server is stopped once the last
+ * receiver is closed), so several fax clients with the same configuration can receive callbacks, each callback is
+ * processed by all receivers sharing the path.<br>
+ * In case a secret is configured, callback requests must provide the hex encoded HMAC-SHA256 signature of the request
+ * body (using the secret as the key) in the signature header, otherwise they are rejected.<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class HTTPCallbackReceiver extends AbstractCloseable {
+    /** The fax client SPI */
+    private final HTTPFaxClientSpi FAX_CLIENT_SPI;
+    /** The callback response handler */
+    private final CallbackHTTPResponseHandler RESPONSE_HANDLER;
+    /** The silent timeout in millies */
+    private final long SILENT_TIMEOUT;
+    /** The monitored fax jobs (fax job ID to fax job data) */
+    private final ConcurrentMap<String, MonitoredFaxJob> MONITORED_FAX_JOBS;
+    /** The shared callback server */
+    private final CallbackServer SERVER;
+    /** The callback HTTP path */
+    private final String PATH;
+    /** The callback signature secret (null if callbacks are not signed) */
+    private final byte[] SECRET;
+    /** The callback signature header name */
+    private final String SIGNATURE_HEADER;
+    /** The silent fax jobs polling executor */
+    private final ScheduledExecutorService POLLING_EXECUTOR;
+    /** The max callback request body size in bytes */
+    public static final int MAX_CALLBACK_SIZE = 65536;
+    /** The default callback signature header name */
+    public static final String DEFAULT_SIGNATURE_HEADER = "X-Fax4j-Signature";
+    /** The callback signature algorithm */
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    /** The shared callback servers (key is the bound address) */
+    private static final Map<String, CallbackServer> SERVERS = new HashMap<String, CallbackServer>();
+
+    /**
+     * This is the class constructor.
+     *
+     * @param faxClientSpi
+     *            The fax client SPI
+     * @param responseHandler
+     *            The callback response handler
+     * @param host
+     *            The host name to bind to (null for the loopback interface, 0.0.0.0 for all interfaces)
+     * @param port
+     *            The port to listen on (0 for any free port)
+     * @param path
+     *            The callback HTTP path
+     * @param threads
+     *            The amount of callback request threads (used only by the first receiver of a shared server)
+     * @param silentTimeout
+     *            The time in millies after which fax jobs that did not receive any callback are polled
+     * @param secret
+     *            The callback signature secret (null if callbacks are not signed)
+     * @param signatureHeader
+     *            The callback signature header name (null for the default header)
+     */
+    public HTTPCallbackReceiver(HTTPFaxClientSpi faxClientSpi, CallbackHTTPResponseHandler responseHandler,
+            String host, int port, String path, int threads, long silentTimeout, String secret,
+            String signatureHeader) {
+        super();
+
+        if (faxClientSpi == null) {
+            throw new FaxException("Fax client SPI not provided.");
+        }
+        if (responseHandler == null) {
+            throw new FaxException("Callback response handler not provided.");
+        }
+        if (threads <= 0) {
+            throw new FaxException("Invalid callback threads amount: " + threads);
+        }
+        if (silentTimeout <= 0) {
+            throw new FaxException("Invalid callback silent timeout: " + silentTimeout);
+        }
+
+        this.FAX_CLIENT_SPI = faxClientSpi;
+        this.RESPONSE_HANDLER = responseHandler;
+        this.SILENT_TIMEOUT = silentTimeout;
+        this.MONITORED_FAX_JOBS = new ConcurrentHashMap<String, MonitoredFaxJob>(500);
+
+        this.PATH = path;
+        this.SECRET = (secret == null) ? null : secret.getBytes(Charset.forName(SpiUtil.UTF_8_ENCODING_NAME));
+        this.SIGNATURE_HEADER = (signatureHeader == null) ? HTTPCallbackReceiver.DEFAULT_SIGNATURE_HEADER
+                : signatureHeader;
+
+        // create address
+        InetSocketAddress address = null;
+        try {
+            address = new InetSocketAddress(InetAddress.getByName(host), port);
+        } catch (UnknownHostException exception) {
+            throw new FaxException("Unable to resolve callback receiver host: " + host, exception);
+        }
+
+        // get or create the shared HTTP server
+        synchronized (HTTPCallbackReceiver.SERVERS) {
+            CallbackServer server = null;
+            if (port != 0) {
+                server = HTTPCallbackReceiver.SERVERS.get(CallbackServer.getKey(address));
+            }
+            if (server == null) {
+                server = new CallbackServer(address, threads);
+                HTTPCallbackReceiver.SERVERS.put(server.KEY, server);
+            }
+            server.addReceiver(path, this);
+            this.SERVER = server;
+        }
+
+        // start silent fax jobs polling
+        this.POLLING_EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("Fax Callback Silent Poller", Thread.MIN_PRIORITY));
+        this.POLLING_EXECUTOR.scheduleWithFixedDelay(new SilentFaxJobsPollerTask(this), silentTimeout, silentTimeout,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * This function returns the port the receiver listens on.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return this.SERVER.HTTP_SERVER.getAddress().getPort();
+    }
+
+    /**
+     * This function returns the address the receiver listens on.
+     *
+     * @return The address
+     */
+    public InetSocketAddress getAddress() {
+        return this.SERVER.HTTP_SERVER.getAddress();
+    }
+
+    /**
+     * This function starts monitoring the provided fax job.
+     *
+     * @param faxJob
+     *            The fax job to monitor
+     */
+    public void monitorFaxJob(FaxJob faxJob) {
+        String id = faxJob.getID();
+        if (id == null || id.length() == 0) {
+            throw new FaxException("Missing fax job ID in provided fax job.");
+        }
+
+        this.MONITORED_FAX_JOBS.put(id, new MonitoredFaxJob(faxJob));
+    }
+
+    /**
+     * This function stops monitoring all fax jobs.
+     */
+    public void stopMonitoringAllFaxJobs() {
+        this.MONITORED_FAX_JOBS.clear();
+    }
+
+    /**
+     * This function returns the amount of monitored fax jobs.
+     *
+     * @return The amount of monitored fax jobs
+     */
+    public int getMonitoredFaxJobsCount() {
+        return this.MONITORED_FAX_JOBS.size();
+    }
+
+    /**
+     * This function validates the callback signature, processes the callback request body and returns the HTTP status
+     * code of the callback response.
+     *
+     * @param content
+     *            The callback request body
+     * @param signature
+     *            The callback signature header value (null if not provided)
+     * @return The HTTP status code
+     */
+    protected int processCallback(byte[] content, String signature) {
+        int statusCode = 401;
+        if (this.isValidSignature(content, signature)) {
+            statusCode = this.processCallback(new String(content, Charset.forName(SpiUtil.UTF_8_ENCODING_NAME)));
+        } else {
+            this.FAX_CLIENT_SPI.getLogger().logDebug(new Object[] { "Invalid fax job status callback signature." },
+                    null);
+        }
+
+        return statusCode;
+    }
+
+    /**
+     * This function returns true if the provided signature is the hex encoded HMAC-SHA256 signature of the callback
+     * request body (or if no secret is configured).
+     *
+     * @param content
+     *            The callback request body
+     * @param signature
+     *            The callback signature header value (null if not provided)
+     * @return True if the signature is valid
+     */
+    protected boolean isValidSignature(byte[] content, String signature) {
+        boolean valid = (this.SECRET == null);
+        if ((!valid) && (signature != null)) {
+            byte[] expected = null;
+            try {
+                Mac mac = Mac.getInstance(HTTPCallbackReceiver.SIGNATURE_ALGORITHM);
+                mac.init(new SecretKeySpec(this.SECRET, HTTPCallbackReceiver.SIGNATURE_ALGORITHM));
+                expected = mac.doFinal(content);
+            } catch (GeneralSecurityException exception) {
+                throw new FaxException("Unable to create callback signature.", exception);
+            }
+
+            // encode as hex
+            StringBuilder buffer = new StringBuilder(expected.length * 2);
+            int value = 0;
+            for (int index = 0; index < expected.length; index++) {
+                value = expected[index] & 0xFF;
+                if (value < 16) {
+                    buffer.append('0');
+                }
+                buffer.append(Integer.toHexString(value));
+            }
+
+            // constant time compare
+            Charset charset = Charset.forName(SpiUtil.UTF_8_ENCODING_NAME);
+            valid = MessageDigest.isEqual(buffer.toString().getBytes(charset),
+                    signature.trim().toLowerCase(Locale.ENGLISH).getBytes(charset));
+        }
+
+        return valid;
+    }
+
+    /**
+     * This function processes the callback request body and returns the HTTP status code of the callback response.
+     * <br>
+     * Callbacks of fax jobs which are not monitored are acknowledged and ignored, so the fax service provider will not
+     * resend them.
+     *
+     * @param content
+     *            The callback request body
+     * @return The HTTP status code
+     */
+    protected int processCallback(String content) {
+        int statusCode = 400;
+        if (content != null) {
+            HTTPResponse httpResponse = new HTTPResponse();
+            httpResponse.setStatusCode(200);
+            httpResponse.setContent(content);
+
+            try {
+                // get fax job ID
+                String id = this.RESPONSE_HANDLER.getCallbackFaxJobID(httpResponse);
+
+                if (id != null) {
+                    statusCode = 200;
+
+                    MonitoredFaxJob monitoredFaxJob = this.MONITORED_FAX_JOBS.get(id);
+                    if (monitoredFaxJob != null) {
+                        // get fax job status
+                        FaxJobStatus faxJobStatus = this.RESPONSE_HANDLER.getCallbackFaxJobStatus(httpResponse);
+
+                        this.updateFaxJobStatus(monitoredFaxJob, faxJobStatus);
+                    }
+                }
+            } catch (FaxException exception) {
+                this.FAX_CLIENT_SPI.getLogger().logDebug(new Object[] { "Invalid fax job status callback." },
+                        exception);
+            }
+        }
+
+        return statusCode;
+    }
+
+    /**
+     * This function polls the statuses of all fax jobs which did not receive any callback within the silent timeout.
+     */
+    protected void pollSilentFaxJobs() {
+        // get silent fax jobs
+        long minUpdateTime = System.currentTimeMillis() - this.SILENT_TIMEOUT;
+        List<MonitoredFaxJob> silentFaxJobs = new ArrayList<MonitoredFaxJob>();
+        Iterator<MonitoredFaxJob> iterator = this.MONITORED_FAX_JOBS.values().iterator();
+        MonitoredFaxJob monitoredFaxJob = null;
+        while (iterator.hasNext()) {
+            monitoredFaxJob = iterator.next();
+            if (monitoredFaxJob.getLastUpdateTime() <= minUpdateTime) {
+                silentFaxJobs.add(monitoredFaxJob);
+            }
+        }
+
+        int amount = silentFaxJobs.size();
+        if (amount > 0) {
+            FaxJob[] faxJobs = new FaxJob[amount];
+            for (int index = 0; index < amount; index++) {
+                faxJobs[index] = silentFaxJobs.get(index).FAX_JOB;
+            }
+
+            // poll for changes
+            FaxJobStatus[] faxJobStatuses = this.FAX_CLIENT_SPI.pollForFaxJobStatues(faxJobs);
+
+            if (faxJobStatuses != null && faxJobStatuses.length == amount) {
+                for (int index = 0; index < amount; index++) {
+                    this.updateFaxJobStatus(silentFaxJobs.get(index), faxJobStatuses[index]);
+                }
+            }
+        }
+    }
+
+    /**
+     * This function updates the fax job status and fires the fax monitor event in case the status was changed.
+     *
+     * @param monitoredFaxJob
+     *            The monitored fax job
+     * @param faxJobStatus
+     *            The new fax job status (null if not known)
+     */
+    protected void updateFaxJobStatus(MonitoredFaxJob monitoredFaxJob, FaxJobStatus faxJobStatus) {
+        synchronized (monitoredFaxJob) {
+            monitoredFaxJob.setLastUpdateTime(System.currentTimeMillis());
+
+            if (faxJobStatus != null) {
+                // if status was changed
+                if (!faxJobStatus.equals(monitoredFaxJob.getFaxJobStatus())) {
+                    monitoredFaxJob.setFaxJobStatus(faxJobStatus);
+
+                    // fire event
+                    this.FAX_CLIENT_SPI.fireFaxMonitorEvent(FaxMonitorEventID.FAX_JOB_STATUS_CHANGE,
+                            monitoredFaxJob.FAX_JOB, faxJobStatus);
+                }
+
+                // if status is unknown or error, stop monitoring fax job
+                switch (faxJobStatus) {
+                case UNKNOWN:
+                case ERROR:
+                    this.MONITORED_FAX_JOBS.remove(monitoredFaxJob.FAX_JOB.getID(), monitoredFaxJob);
+                    break;
+                case IN_PROGRESS:
+                case PENDING:
+                default:
+                    // do nothing
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the HTTP server and the silent fax jobs polling.
+     */
+    @Override
+    protected void closeImpl() {
+        this.POLLING_EXECUTOR.shutdownNow();
+        synchronized (HTTPCallbackReceiver.SERVERS) {
+            if (this.SERVER.removeReceiver(this.PATH, this)) {
+                HTTPCallbackReceiver.SERVERS.remove(this.SERVER.KEY);
+                this.SERVER.stop();
+            }
+        }
+        this.MONITORED_FAX_JOBS.clear();
+    }
+
+    /**
+     * This class holds an embedded HTTP server shared by all receivers bound to the same address.<br>
+     * All access to this class is synchronized on the shared servers map, except for the callback handlers which use
+     * copy on write receiver lists.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class CallbackServer {
+        /** The server key (the bound address) */
+        protected final String KEY;
+        /** The HTTP server */
+        protected final HttpServer HTTP_SERVER;
+        /** The callback requests executor */
+        private final ExecutorService REQUEST_EXECUTOR;
+        /** The receivers of each callback HTTP path */
+        private final Map<String, List<HTTPCallbackReceiver>> RECEIVERS;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param address
+         *            The address to bind to
+         * @param threads
+         *            The amount of callback request threads
+         */
+        protected CallbackServer(InetSocketAddress address, int threads) {
+            super();
+
+            // create and start HTTP server
+            try {
+                this.HTTP_SERVER = HttpServer.create(address, 0);
+            } catch (IOException exception) {
+                throw new FaxException("Unable to start callback receiver on: " + address, exception);
+            }
+            this.REQUEST_EXECUTOR = Executors.newFixedThreadPool(threads,
+                    new DaemonThreadFactory("Fax Callback Receiver", Thread.NORM_PRIORITY));
+            this.HTTP_SERVER.setExecutor(this.REQUEST_EXECUTOR);
+            this.HTTP_SERVER.start();
+
+            this.KEY = CallbackServer.getKey(this.HTTP_SERVER.getAddress());
+            this.RECEIVERS = new HashMap<String, List<HTTPCallbackReceiver>>();
+        }
+
+        /**
+         * This function returns the server key of the provided address.
+         *
+         * @param address
+         *            The address
+         * @return The server key
+         */
+        protected static String getKey(InetSocketAddress address) {
+            return address.getAddress().getHostAddress() + ":" + address.getPort();
+        }
+
+        /**
+         * This function adds the receiver to the provided callback HTTP path.
+         *
+         * @param path
+         *            The callback HTTP path
+         * @param receiver
+         *            The receiver
+         */
+        protected void addReceiver(String path, HTTPCallbackReceiver receiver) {
+            List<HTTPCallbackReceiver> receivers = this.RECEIVERS.get(path);
+            if (receivers == null) {
+                receivers = new CopyOnWriteArrayList<HTTPCallbackReceiver>();
+                this.RECEIVERS.put(path, receivers);
+                this.HTTP_SERVER.createContext(path, new CallbackHandler(receivers));
+            }
+            receivers.add(receiver);
+        }
+
+        /**
+         * This function removes the receiver from the provided callback HTTP path.
+         *
+         * @param path
+         *            The callback HTTP path
+         * @param receiver
+         *            The receiver
+         * @return True if no receivers are left (the server should be stopped)
+         */
+        protected boolean removeReceiver(String path, HTTPCallbackReceiver receiver) {
+            List<HTTPCallbackReceiver> receivers = this.RECEIVERS.get(path);
+            if (receivers != null) {
+                receivers.remove(receiver);
+                if (receivers.isEmpty()) {
+                    this.RECEIVERS.remove(path);
+                    this.HTTP_SERVER.removeContext(path);
+                }
+            }
+
+            return this.RECEIVERS.isEmpty();
+        }
+
+        /**
+         * This function stops the HTTP server.
+         */
+        protected void stop() {
+            this.HTTP_SERVER.stop(0);
+            this.REQUEST_EXECUTOR.shutdownNow();
+        }
+    }
+
+    /**
+     * This class holds the monitored fax job data.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class MonitoredFaxJob {
+        /** The fax job */
+        protected final FaxJob FAX_JOB;
+        /** The last known fax job status */
+        private FaxJobStatus faxJobStatus;
+        /** The last callback or poll time */
+        private volatile long lastUpdateTime;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxJob
+         *            The fax job
+         */
+        protected MonitoredFaxJob(FaxJob faxJob) {
+            super();
+
+            this.FAX_JOB = faxJob;
+            this.lastUpdateTime = System.currentTimeMillis();
+        }
+
+        /**
+         * This function returns the last known fax job status.
+         *
+         * @return The last known fax job status (null if not known)
+         */
+        protected FaxJobStatus getFaxJobStatus() {
+            return this.faxJobStatus;
+        }
+
+        /**
+         * This function sets the last known fax job status.
+         *
+         * @param faxJobStatus
+         *            The last known fax job status
+         */
+        protected void setFaxJobStatus(FaxJobStatus faxJobStatus) {
+            this.faxJobStatus = faxJobStatus;
+        }
+
+        /**
+         * This function returns the last callback or poll time.
+         *
+         * @return The last callback or poll time
+         */
+        protected long getLastUpdateTime() {
+            return this.lastUpdateTime;
+        }
+
+        /**
+         * This function sets the last callback or poll time.
+         *
+         * @param lastUpdateTime
+         *            The last callback or poll time
+         */
+        protected void setLastUpdateTime(long lastUpdateTime) {
+            this.lastUpdateTime = lastUpdateTime;
+        }
+    }
+
+    /**
+     * This class handles the callback HTTP requests.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class CallbackHandler implements HttpHandler {
+        /** The callback receivers of the handled path */
+        private final List<HTTPCallbackReceiver> RECEIVERS;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param receivers
+         *            The callback receivers of the handled path
+         */
+        protected CallbackHandler(List<HTTPCallbackReceiver> receivers) {
+            super();
+
+            this.RECEIVERS = receivers;
+        }
+
+        /**
+         * Handles the callback HTTP request.
+         *
+         * @param exchange
+         *            The HTTP exchange
+         * @throws IOException
+         *             Any IO exception
+         */
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                int statusCode = 405;
+                String method = exchange.getRequestMethod();
+                if ("POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method)) {
+                    // read request body
+                    byte[] content = this.readContent(exchange.getRequestBody());
+
+                    if (content == null) {
+                        statusCode = 413;
+                    } else {
+                        statusCode = this.processCallback(content, exchange.getRequestHeaders());
+                    }
+                }
+
+                exchange.sendResponseHeaders(statusCode, -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * This function processes the callback with all the receivers of the handled path.<br>
+         * The callback is accepted in case any of the receivers accepted it.
+         *
+         * @param content
+         *            The callback request body
+         * @param headers
+         *            The callback request headers
+         * @return The HTTP status code
+         */
+        protected int processCallback(byte[] content, Headers headers) {
+            int statusCode = 404;
+            Iterator<HTTPCallbackReceiver> iterator = this.RECEIVERS.iterator();
+            HTTPCallbackReceiver receiver = null;
+            int receiverStatusCode = 0;
+            while (iterator.hasNext() && statusCode != 200) {
+                receiver = iterator.next();
+                receiverStatusCode = receiver.processCallback(content, headers.getFirst(receiver.SIGNATURE_HEADER));
+
+                // prefer the most specific status code (accepted, invalid body, not authorized)
+                if (receiverStatusCode == 200 || statusCode == 404 || receiverStatusCode == 400) {
+                    statusCode = receiverStatusCode;
+                }
+            }
+
+            return statusCode;
+        }
+
+        /**
+         * This function reads the callback request body.
+         *
+         * @param inputStream
+         *            The request body stream
+         * @return The request body (null if bigger than the max callback size)
+         * @throws IOException
+         *             Any IO exception
+         */
+        protected byte[] readContent(InputStream inputStream) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1024);
+            byte[] buffer = new byte[4096];
+            int read = 0;
+            do {
+                read = inputStream.read(buffer);
+                if (read > 0) {
+                    outputStream.write(buffer, 0, read);
+                }
+            } while (read != -1 && outputStream.size() <= HTTPCallbackReceiver.MAX_CALLBACK_SIZE);
+
+            byte[] content = null;
+            if (outputStream.size() <= HTTPCallbackReceiver.MAX_CALLBACK_SIZE) {
+                content = outputStream.toByteArray();
+            }
+
+            return content;
+        }
+    }
+
+    /**
+     * This class periodically polls the statuses of the silent fax jobs.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class SilentFaxJobsPollerTask implements Runnable {
+        /** The callback receiver */
+        private final HTTPCallbackReceiver RECEIVER;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param receiver
+         *            The callback receiver
+         */
+        protected SilentFaxJobsPollerTask(HTTPCallbackReceiver receiver) {
+            super();
+
+            this.RECEIVER = receiver;
+        }
+
+        /**
+         * Polls the statuses of the silent fax jobs.
+         */
+        public void run() {
+            try {
+                this.RECEIVER.pollSilentFaxJobs();
+            } catch (RuntimeException exception) {
+                // errors must not cancel the next polling cycles
+                this.RECEIVER.FAX_CLIENT_SPI.getLogger()
+                        .logError(new Object[] { "Error while polling silent fax jobs." }, exception);
+            }
+        }
+    }
+}
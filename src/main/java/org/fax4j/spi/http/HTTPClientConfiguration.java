@@ -9,7 +9,7 @@ import org.fax4j.spi.http.HTTPClient.HTTPMethod;
  * interface.
  *
  * @author Sagie Gur-Ari
- * @version 1.03
+ * @version 1.04
  * @since 0.20c
  */
 public interface HTTPClientConfiguration {
@@ -42,4 +42,33 @@ public interface HTTPClientConfiguration {
      * @return The HTTP method
      */
     HTTPMethod getMethod(FaxActionType faxActionType);
+
+    /**
+     * This function returns the maximum amount of pooled connections.
+     *
+     * @return The maximum amount of pooled connections
+     */
+    int getConnectionPoolMaxTotal();
+
+    /**
+     * This function returns the maximum amount of pooled connections per host.
+     *
+     * @return The maximum amount of pooled connections per host
+     */
+    int getConnectionPoolMaxPerHost();
+
+    /**
+     * This function returns the time in millies after which idle pooled connections are closed.<br>
+     * Zero or negative values disable the idle connections eviction.
+     *
+     * @return The idle connections timeout in millies
+     */
+    long getConnectionPoolIdleTimeout();
+
+    /**
+     * This function returns true if pooled connections should be validated before they are reused.
+     *
+     * @return True if pooled connections should be validated before they are reused
+     */
+    boolean isConnectionPoolStaleCheckEnabled();
 }
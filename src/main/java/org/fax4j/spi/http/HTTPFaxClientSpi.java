@@ -1,5 +1,7 @@
 package org.fax4j.spi.http;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -11,6 +13,7 @@ import org.fax4j.common.ServiceFactory;
 import org.fax4j.spi.AbstractFax4JClientSpi;
 import org.fax4j.spi.http.HTTPClient.HTTPMethod;
 import org.fax4j.util.ReflectionHelper;
+import org.fax4j.util.SpiUtil;
 
 /**
  * This class implements the fax client service provider interface.<br>
@@ -121,6 +124,84 @@ import org.fax4j.util.ReflectionHelper;
  * <td>false</td>
  * </tr>
  * <tr>
+ * <td>org.fax4j.spi.http.bulk.status.resource</td>
+ * <td>The HTTP resource of the bulk fax job status request (if not defined, fax job statuses are polled one by one).
+ * The response handler must support bulk status responses (for example by defining the
+ * org.fax4j.spi.http.bulk.status.json.output.path property).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.bulk.status.ids.parameter</td>
+ * <td>The URL parameter name which holds the comma separated fax job IDs in the bulk status request</td>
+ * <td>ids</td>
+ * <td>ids</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.bulk.status.max.jobs</td>
+ * <td>The max amount of fax jobs queried in a single bulk status request</td>
+ * <td>100</td>
+ * <td>100</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.port</td>
+ * <td>The port of the embedded callback receiver which receives the fax job status callbacks sent by the fax service
+ * provider (if not defined, callbacks are not supported and fax monitor events are not supported). The callback body
+ * is parsed by the response handler using the callback output paths (for example:
+ * org.fax4j.spi.http.callback.status.json.output.path). Fax clients with the same callback host, port and path share a
+ * single receiver server.</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.host</td>
+ * <td>The host name the callback receiver binds to (if not defined, only the loopback interface is used, set to
+ * 0.0.0.0 to bind all interfaces)</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.path</td>
+ * <td>The HTTP path of the callback receiver</td>
+ * <td>/fax4j/callback</td>
+ * <td>/fax4j/callback</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.threads</td>
+ * <td>The amount of threads handling the callback requests</td>
+ * <td>2</td>
+ * <td>2</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.silent.timeout</td>
+ * <td>The time in millies after which monitored fax jobs that did not receive any callback are polled</td>
+ * <td>300000</td>
+ * <td>300000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.secret</td>
+ * <td>The shared secret used to validate the callback requests (if defined, callback requests must provide the hex
+ * encoded HMAC-SHA256 signature of the request body in the signature header)</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.signature.header</td>
+ * <td>The HTTP header holding the callback request signature</td>
+ * <td>X-Fax4j-Signature</td>
+ * <td>X-Fax4j-Signature</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
  * <td>org.fax4j.spi.http.url.parameters</td>
  * <td>The default HTTP URL parameters of the request</td>
  * <td>none</td>
@@ -162,6 +243,34 @@ import org.fax4j.util.ReflectionHelper;
  * <td>POST</td>
  * <td>false</td>
  * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.connection.pool.max.total</td>
+ * <td>The maximum amount of pooled (keep-alive) connections</td>
+ * <td>20</td>
+ * <td>20</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.connection.pool.max.per.host</td>
+ * <td>The maximum amount of pooled (keep-alive) connections per host</td>
+ * <td>20</td>
+ * <td>20</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.connection.pool.idle.timeout</td>
+ * <td>The time in millies after which idle pooled connections are closed (0 to disable)</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.connection.pool.stale.check</td>
+ * <td>True to validate pooled connections before they are reused</td>
+ * <td>true</td>
+ * <td>true</td>
+ * <td>false</td>
+ * </tr>
  * </table>
  * <br>
  * <b>Dependencies:</b><br>
@@ -171,7 +280,7 @@ import org.fax4j.util.ReflectionHelper;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.14
+ * @version 1.18
  * @since 0.1
  */
 public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
@@ -187,6 +296,14 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
     private Map<FaxActionType, String> faxActionType2ResourceMap;
     /** The default HTTP URL parameters */
     private String urlParameters;
+    /** The bulk status HTTP resource */
+    private String bulkStatusResource;
+    /** The bulk status fax job IDs URL parameter name */
+    private String bulkStatusIDsParameter;
+    /** The max amount of fax jobs in a single bulk status request */
+    private int bulkStatusMaxJobs;
+    /** The callback receiver (null if callbacks are not supported) */
+    private HTTPCallbackReceiver httpCallbackReceiver;
     /** The HTTP property part */
     public static final String HTTP_PROPERTY_PART = "http";
 
@@ -194,7 +311,7 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
      * This class holds the SPI configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.03
+     * @version 1.05
      * @since 0.1
      */
     public enum FaxClientSpiConfigurationConstants {
@@ -214,6 +331,26 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
         CANCEL_HTTP_RESOURCE_PROPERTY_KEY("org.fax4j.spi.{0}.cancel.resource"),
         /** The HTTP resource property key */
         GET_STATUS_HTTP_RESOURCE_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.resource"),
+        /** The bulk status HTTP resource property key */
+        BULK_STATUS_HTTP_RESOURCE_PROPERTY_KEY("org.fax4j.spi.{0}.bulk.status.resource"),
+        /** The bulk status fax job IDs URL parameter name property key */
+        BULK_STATUS_IDS_PARAMETER_PROPERTY_KEY("org.fax4j.spi.{0}.bulk.status.ids.parameter"),
+        /** The bulk status max fax jobs property key */
+        BULK_STATUS_MAX_JOBS_PROPERTY_KEY("org.fax4j.spi.{0}.bulk.status.max.jobs"),
+        /** The callback receiver port property key */
+        CALLBACK_PORT_PROPERTY_KEY("org.fax4j.spi.{0}.callback.port"),
+        /** The callback receiver host property key */
+        CALLBACK_HOST_PROPERTY_KEY("org.fax4j.spi.{0}.callback.host"),
+        /** The callback receiver path property key */
+        CALLBACK_PATH_PROPERTY_KEY("org.fax4j.spi.{0}.callback.path"),
+        /** The callback receiver threads property key */
+        CALLBACK_THREADS_PROPERTY_KEY("org.fax4j.spi.{0}.callback.threads"),
+        /** The callback silent timeout property key */
+        CALLBACK_SILENT_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.callback.silent.timeout"),
+        /** The callback secret property key */
+        CALLBACK_SECRET_PROPERTY_KEY("org.fax4j.spi.{0}.callback.secret"),
+        /** The callback signature header property key */
+        CALLBACK_SIGNATURE_HEADER_PROPERTY_KEY("org.fax4j.spi.{0}.callback.signature.header"),
         /** The HTTP URL parameters property key */
         HTTP_URL_PARAMETERS_PROPERTY_KEY("org.fax4j.spi.{0}.url.parameters");
 
@@ -277,6 +414,70 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
 
         // get URL parameters
         this.urlParameters = this.initializeURLParameters();
+
+        // get bulk status settings
+        this.bulkStatusResource = this
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.BULK_STATUS_HTTP_RESOURCE_PROPERTY_KEY);
+        this.bulkStatusIDsParameter = this
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.BULK_STATUS_IDS_PARAMETER_PROPERTY_KEY);
+        if (this.bulkStatusIDsParameter == null) {
+            this.bulkStatusIDsParameter = "ids";
+        }
+        value = this.getConfigurationValue(FaxClientSpiConfigurationConstants.BULK_STATUS_MAX_JOBS_PROPERTY_KEY);
+        this.bulkStatusMaxJobs = 100;
+        if (value != null) {
+            this.bulkStatusMaxJobs = Integer.parseInt(value);
+            if (this.bulkStatusMaxJobs <= 0) {
+                throw new FaxException("Bulk status max jobs set to an invalid value: " + this.bulkStatusMaxJobs);
+            }
+        }
+
+        // create callback receiver
+        value = this.getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_PORT_PROPERTY_KEY);
+        if (value != null) {
+            this.httpCallbackReceiver = this.createHTTPCallbackReceiver(Integer.parseInt(value));
+        }
+    }
+
+    /**
+     * This function creates and returns a new callback receiver listening on the provided port.
+     *
+     * @param port
+     *            The callback receiver port
+     * @return A new callback receiver
+     */
+    protected HTTPCallbackReceiver createHTTPCallbackReceiver(int port) {
+        if (!(this.httpResponseHandler instanceof CallbackHTTPResponseHandler)) {
+            throw new FaxException("HTTP response handler: " + this.httpResponseHandler.getClass().getName()
+                    + " does not support callbacks.");
+        }
+
+        // get configuration
+        String host = this.getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_HOST_PROPERTY_KEY);
+        String path = this.getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_PATH_PROPERTY_KEY);
+        if (path == null) {
+            path = "/fax4j/callback";
+        }
+        String value = this.getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_THREADS_PROPERTY_KEY);
+        int threads = 2;
+        if (value != null) {
+            threads = Integer.parseInt(value);
+        }
+        value = this.getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_SILENT_TIMEOUT_PROPERTY_KEY);
+        long silentTimeout = 300000;
+        if (value != null) {
+            silentTimeout = Long.parseLong(value);
+        }
+        String secret = this.getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_SECRET_PROPERTY_KEY);
+        String signatureHeader = this
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.CALLBACK_SIGNATURE_HEADER_PROPERTY_KEY);
+
+        // create receiver
+        HTTPCallbackReceiver receiver = new HTTPCallbackReceiver(this,
+                (CallbackHTTPResponseHandler) this.httpResponseHandler, host, port, path, threads, silentTimeout,
+                secret, signatureHeader);
+
+        return receiver;
     }
 
     /**
@@ -293,6 +494,25 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
         return HTTPFaxClientSpi.HTTP_PROPERTY_PART;
     }
 
+    /**
+     * Returns the vendor key which identifies the fax service used by this SPI.<br>
+     * Different HTTP vendors may use the same SPI type, therefore the target host name is part of the vendor key.
+     *
+     * @return The vendor key
+     */
+    @Override
+    public String getVendorKey() {
+        String vendorKey = super.getVendorKey();
+        if (this.httpClientConfiguration != null) {
+            String hostName = this.httpClientConfiguration.getHostName();
+            if (hostName != null) {
+                vendorKey = vendorKey + "@" + hostName;
+            }
+        }
+
+        return vendorKey;
+    }
+
     /**
      * This function creates and returns the HTTP configuration object.
      *
@@ -412,6 +632,46 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
         return this.httpResponseHandler;
     }
 
+    /**
+     * Returns the callback receiver.
+     *
+     * @return The callback receiver (null if callbacks are not supported)
+     */
+    public final HTTPCallbackReceiver getHTTPCallbackReceiver() {
+        return this.httpCallbackReceiver;
+    }
+
+    /**
+     * This function returns true if the fax monitor events are supported by this SPI.<br>
+     * Fax monitor events are supported only in case the callback receiver is enabled.
+     *
+     * @return True if the fax monitor events are supported by this SPI
+     */
+    @Override
+    public boolean isFaxMonitorEventsSupported() {
+        return this.httpCallbackReceiver != null;
+    }
+
+    /**
+     * This function starts monitoring the provided fax job.<br>
+     * The fax job status changes are received by the callback receiver instead of the fax job monitor.
+     *
+     * @param faxJob
+     *            The fax job to monitor
+     */
+    @Override
+    protected void monitorFaxJob(FaxJob faxJob) {
+        this.httpCallbackReceiver.monitorFaxJob(faxJob);
+    }
+
+    /**
+     * This function stops monitoring all the fax jobs of this SPI.
+     */
+    @Override
+    protected void stopMonitoringAllFaxJobs() {
+        this.httpCallbackReceiver.stopMonitoringAllFaxJobs();
+    }
+
     /**
      * This function returns the HTTP resource.
      *
@@ -527,6 +787,101 @@ public class HTTPFaxClientSpi extends AbstractFax4JClientSpi {
         return faxJobStatus;
     }
 
+    /**
+     * This function polls the new statues for the provided fax jobs using bulk status HTTP requests.<br>
+     * In case the bulk status resource is not defined or the HTTP response handler does not support bulk status
+     * responses, this function returns null and the fax job statuses will be polled one by one.
+     *
+     * @param faxJobs
+     *            The fax jobs to poll
+     * @return The fax job statues (null if bulk queries are not supported)
+     */
+    @Override
+    protected FaxJobStatus[] pollForFaxJobStatuesInBulk(FaxJob[] faxJobs) {
+        FaxJobStatus[] faxJobStatuses = null;
+        if (this.bulkStatusResource != null && this.httpResponseHandler instanceof BulkStatusHTTPResponseHandler) {
+            BulkStatusHTTPResponseHandler handler = (BulkStatusHTTPResponseHandler) this.httpResponseHandler;
+
+            // get HTTP method
+            HTTPMethod httpMethod = this.httpClientConfiguration.getMethod(FaxActionType.GET_FAX_JOB_STATUS);
+
+            int amount = faxJobs.length;
+            faxJobStatuses = new FaxJobStatus[amount];
+            FaxJob[] bulkFaxJobs = null;
+            FaxJobStatus[] bulkFaxJobStatuses = null;
+            HTTPRequest httpRequest = null;
+            HTTPResponse httpResponse = null;
+            int bulkSize = 0;
+            for (int fromIndex = 0; fromIndex < amount; fromIndex = fromIndex + bulkSize) {
+                // get next bulk
+                bulkSize = Math.min(this.bulkStatusMaxJobs, amount - fromIndex);
+                bulkFaxJobs = new FaxJob[bulkSize];
+                System.arraycopy(faxJobs, fromIndex, bulkFaxJobs, 0, bulkSize);
+
+                // create HTTP request
+                httpRequest = this.createBulkFaxJobStatusHTTPRequest(bulkFaxJobs);
+
+                // submit HTTP request
+                this.acquireStatusPollingPermit();
+                httpResponse = this.submitHTTPRequestImpl(httpRequest, httpMethod);
+
+                // validate response status code
+                int statusCode = httpResponse.getStatusCode();
+                if (statusCode >= 400) {
+                    throw new FaxException(
+                            "Error while invoking bulk status HTTP request, return status code: " + statusCode);
+                }
+
+                // get statuses
+                bulkFaxJobStatuses = handler.getFaxJobStatuses(httpResponse, bulkFaxJobs);
+                if (bulkFaxJobStatuses == null || bulkFaxJobStatuses.length != bulkSize) {
+                    faxJobStatuses = null;
+                    break;
+                }
+                System.arraycopy(bulkFaxJobStatuses, 0, faxJobStatuses, fromIndex, bulkSize);
+            }
+        }
+
+        return faxJobStatuses;
+    }
+
+    /**
+     * Creates the bulk status HTTP request for the provided fax jobs.<br>
+     * The fax job IDs are added as a comma separated URL parameter to the default URL parameters.
+     *
+     * @param faxJobs
+     *            The fax jobs
+     * @return The HTTP request to send
+     */
+    protected HTTPRequest createBulkFaxJobStatusHTTPRequest(FaxJob[] faxJobs) {
+        // create parameters text
+        StringBuilder buffer = new StringBuilder(faxJobs.length * 10 + 100);
+        if (this.urlParameters != null) {
+            buffer.append(this.urlParameters);
+            buffer.append("&");
+        }
+        buffer.append(this.bulkStatusIDsParameter);
+        buffer.append("=");
+        try {
+            for (int index = 0; index < faxJobs.length; index++) {
+                if (index > 0) {
+                    buffer.append(",");
+                }
+                buffer.append(URLEncoder.encode(faxJobs[index].getID(), SpiUtil.UTF_8_ENCODING_NAME));
+            }
+        } catch (UnsupportedEncodingException exception) {
+            throw new FaxException("Unable to encode fax job IDs.", exception);
+        }
+
+        // create HTTP request
+        HTTPRequest httpRequest = new HTTPRequest();
+        httpRequest.setResource(this.bulkStatusResource);
+        httpRequest.setParametersText(buffer.toString());
+        httpRequest.setHeaderProperties(new Properties());
+
+        return httpRequest;
+    }
+
     /**
      * Submits the HTTP request and returns the HTTP response.
      *
@@ -1,6 +1,8 @@
 package org.fax4j.spi.http;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Properties;
 import org.fax4j.FaxException;
 
@@ -9,7 +11,7 @@ import org.fax4j.FaxException;
  * This class is not thread safe.
  *
  * @author Sagie Gur-Ari
- * @version 1.02
+ * @version 1.03
  * @since 0.1
  */
 public class HTTPRequest {
@@ -27,6 +29,8 @@ public class HTTPRequest {
     private byte[] contentBinary;
     /** The content parts */
     private ContentPart<?>[] contentParts;
+    /** The streamed content */
+    private StreamContent contentStream;
 
     /**
      * This is the default constructor.
@@ -135,6 +139,7 @@ public class HTTPRequest {
         // clear non relevant flags
         this.contentString = null;
         this.contentParts = null;
+        this.contentStream = null;
         this.contentType = ContentType.BINARY;
 
         if (content == null) {
@@ -167,6 +172,7 @@ public class HTTPRequest {
         // clear non relevant flags
         this.contentBinary = null;
         this.contentParts = null;
+        this.contentStream = null;
         this.contentType = ContentType.STRING;
 
         this.contentString = content;
@@ -199,6 +205,7 @@ public class HTTPRequest {
         // clear non relevant flags
         this.contentString = null;
         this.contentBinary = null;
+        this.contentStream = null;
         this.contentType = ContentType.MULTI_PART;
 
         if (content == null) {
@@ -208,11 +215,41 @@ public class HTTPRequest {
         }
     }
 
+    /**
+     * This function returns the content.
+     *
+     * @return The content
+     */
+    public final StreamContent getContentAsStream() {
+        if (!this.contentType.equals(ContentType.STREAM)) {
+            throw new FaxException("Current content type is: " + this.contentType);
+        }
+
+        return this.contentStream;
+    }
+
+    /**
+     * This function sets the content.<br>
+     * The content is not held in memory, it is written directly to the request stream by the HTTP client.
+     *
+     * @param content
+     *            The new value for the content
+     */
+    public final void setContent(StreamContent content) {
+        // clear non relevant flags
+        this.contentString = null;
+        this.contentBinary = null;
+        this.contentParts = null;
+        this.contentType = ContentType.STREAM;
+
+        this.contentStream = content;
+    }
+
     /**
      * This enum defines the content types which are supported.
      *
      * @author Sagie Gur-Ari
-     * @version 1.0
+     * @version 1.01
      * @since 0.42.7
      */
     public enum ContentType {
@@ -227,7 +264,47 @@ public class HTTPRequest {
         /**
          * Content type
          */
-        MULTI_PART
+        MULTI_PART,
+        /**
+         * Streamed content type
+         */
+        STREAM
+    }
+
+    /**
+     * This interface defines content which is written directly to the request stream instead of being held in
+     * memory.<br>
+     * Implementations must be able to write the content more than once (for example when the request is retried).
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public interface StreamContent {
+        /**
+         * This function returns the content MIME type.
+         *
+         * @return The content MIME type
+         */
+        String getContentType();
+
+        /**
+         * This function returns the content length in bytes.
+         *
+         * @return The content length (-1 if not known)
+         */
+        long getContentLength();
+
+        /**
+         * This function writes the content to the provided stream.<br>
+         * The stream is not closed by this function.
+         *
+         * @param outputStream
+         *            The output stream
+         * @throws IOException
+         *             Any IO exception
+         */
+        void writeTo(OutputStream outputStream) throws IOException;
     }
 
     /**
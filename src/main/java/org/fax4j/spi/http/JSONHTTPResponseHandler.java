@@ -1,8 +1,13 @@
 package org.fax4j.spi.http;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
 import org.fax4j.FaxJobStatus;
 import org.fax4j.common.FaxActionType;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -11,6 +16,8 @@ import org.json.JSONObject;
  * This class expects to get JSON response data and will update the fax job as needed.<br>
  * This class only supports extracting the fax job ID and fax job status from the JSON response object, or in case of
  * errors, extract the error message. <br>
+ * Numeric path elements are used as array indexes (zero based) in case the current JSON value is an array, for example:
+ * statuses;0;status<br>
  * Below table describes the configuration values relevant for this class.<br>
  * <b>Configuration:</b>
  * <table summary="" border="1">
@@ -64,6 +71,30 @@ import org.json.JSONObject;
  * <td>false</td>
  * </tr>
  * <tr>
+ * <td>org.fax4j.spi.http.bulk.status.json.output.path</td>
+ * <td>The bulk status JSON output path used to locate each fax job status string value from the bulk status response
+ * (the ${fax.job.id} parameter is replaced with the fax job ID).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.fax.job.id.json.output.path</td>
+ * <td>The callback JSON path used to locate the fax job ID from the status callbacks sent by the fax service provider
+ * (if not defined, the submit output path is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.status.json.output.path</td>
+ * <td>The callback JSON path used to locate the fax job status string value from the status callbacks sent by the fax
+ * service provider (if not defined, the get status output path is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
  * <td>org.fax4j.spi.http.json.pending.status.mappings</td>
  * <td>The mapping between the output fax status string value to the fax4j FaxJobStatus.PENDING enum value (format is:
  * value1;value2;value3).</td>
@@ -110,18 +141,36 @@ import org.json.JSONObject;
  * <td>none</td>
  * <td>false</td>
  * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.json.streaming.parser</td>
+ * <td>True to extract the fax job ID/status and error values with a single streaming pass over the response instead of
+ * building a JSONObject tree. The scan stops once all needed values were found.</td>
+ * <td>false</td>
+ * <td>false</td>
+ * <td>false</td>
+ * </tr>
  * </table>
+ * <br>
+ * The configured paths are split to path elements once when the handler is initialized, in case the streaming parser
+ * is enabled, the configured paths (together with the error paths) are compiled into a path extractor once.
  *
  * @author Sagie Gur-Ari
- * @version 1.04
+ * @version 1.07
  * @since 0.42.5
  */
 public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<JSONObject> {
+    /** The configured paths to path elements mapping */
+    private Map<String, String[]> configuredPathParts;
+    /** The configured paths to path extractor mapping (used by the streaming parser) */
+    private Map<String, JSONPathExtractor> pathExtractors;
+    /** True to use the streaming parser */
+    private boolean useStreamingParser;
+
     /**
      * This class holds the configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.0
+     * @version 1.03
      * @since 0.42.6
      */
     public enum JSONHTTPResponseHandlerConfigurationConstants {
@@ -135,6 +184,12 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
         CANCEL_JSON_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.cancel.json.output.path"),
         /** The get fax job status JSON output path property key */
         GET_STATUS_JSON_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.json.output.path"),
+        /** The bulk fax job status JSON output path property key */
+        BULK_STATUS_JSON_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.bulk.status.json.output.path"),
+        /** The callback fax job ID output property key */
+        CALLBACK_FAX_JOB_ID_JSON_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.callback.fax.job.id.json.output.path"),
+        /** The callback fax job status output property key */
+        CALLBACK_STATUS_JSON_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.callback.status.json.output.path"),
         /** The FaxJobStatus.PENDING status mapping property key */
         PENDING_STATUS_MAPPING_PROPERTY_KEY("org.fax4j.spi.{0}.json.pending.status.mappings"),
         /** The FaxJobStatus.IN_PROGRESS status mapping property key */
@@ -146,7 +201,9 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
         /** The error detection value property key */
         ERROR_DETECTION_VALUE_PROPERTY_KEY("org.fax4j.spi.{0}.json.error.detection.value"),
         /** The error message path property key */
-        ERROR_MESSAGE_PATH_PROPERTY_KEY("org.fax4j.spi.{0}.json.error.message.path");
+        ERROR_MESSAGE_PATH_PROPERTY_KEY("org.fax4j.spi.{0}.json.error.message.path"),
+        /** The streaming parser flag property key */
+        STREAMING_PARSER_PROPERTY_KEY("org.fax4j.spi.{0}.json.streaming.parser");
 
         /** The string value */
         private String value;
@@ -179,6 +236,45 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
         super();
     }
 
+    /**
+     * This function initializes the component.
+     */
+    @Override
+    protected void initializeImpl() {
+        super.initializeImpl();
+
+        // get streaming parser flag
+        String value = this.getConfigurationValue(
+                JSONHTTPResponseHandlerConfigurationConstants.STREAMING_PARSER_PROPERTY_KEY);
+        this.useStreamingParser = Boolean.parseBoolean(value);
+
+        // split and compile all configured paths once
+        Enum<?>[] configurationKeys = new Enum<?>[] {
+                JSONHTTPResponseHandlerConfigurationConstants.SUBMIT_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.SUSPEND_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.RESUME_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.CANCEL_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.GET_STATUS_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.CALLBACK_FAX_JOB_ID_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.CALLBACK_STATUS_JSON_OUTPUT_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.ERROR_DETECTION_PATH_PROPERTY_KEY,
+                JSONHTTPResponseHandlerConfigurationConstants.ERROR_MESSAGE_PATH_PROPERTY_KEY };
+        Map<String, String[]> pathParts = new HashMap<String, String[]>();
+        Map<String, JSONPathExtractor> extractors = new HashMap<String, JSONPathExtractor>();
+        String path = null;
+        for (int index = 0; index < configurationKeys.length; index++) {
+            path = this.getConfigurationValue(configurationKeys[index]);
+            if (path != null) {
+                pathParts.put(path, JSONPathExtractor.getPathParts(path));
+                if (this.useStreamingParser) {
+                    extractors.put(path, this.createPathExtractor(new String[] { path }));
+                }
+            }
+        }
+        this.configuredPathParts = Collections.unmodifiableMap(pathParts);
+        this.pathExtractors = Collections.unmodifiableMap(extractors);
+    }
+
     /**
      * This function populates the fax action type to response data path mappings based on the configuration of the
      * handler.
@@ -213,6 +309,36 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
         this.populateStatusString2FaxStatusMappings(faxJobStatuses, configurationKeys);
     }
 
+    /**
+     * Returns the bulk status path configuration key.
+     *
+     * @return The bulk status path configuration key
+     */
+    @Override
+    protected Enum<?> getBulkStatusPathPropertyKey() {
+        return JSONHTTPResponseHandlerConfigurationConstants.BULK_STATUS_JSON_OUTPUT_PROPERTY_KEY;
+    }
+
+    /**
+     * Returns the callback fax job ID path configuration key.
+     *
+     * @return The callback fax job ID path configuration key
+     */
+    @Override
+    protected Enum<?> getCallbackFaxJobIDPathPropertyKey() {
+        return JSONHTTPResponseHandlerConfigurationConstants.CALLBACK_FAX_JOB_ID_JSON_OUTPUT_PROPERTY_KEY;
+    }
+
+    /**
+     * Returns the callback fax job status path configuration key.
+     *
+     * @return The callback fax job status path configuration key
+     */
+    @Override
+    protected Enum<?> getCallbackStatusPathPropertyKey() {
+        return JSONHTTPResponseHandlerConfigurationConstants.CALLBACK_STATUS_JSON_OUTPUT_PROPERTY_KEY;
+    }
+
     /**
      * Returns the error detection path configuration key.
      *
@@ -243,9 +369,130 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
         return JSONHTTPResponseHandlerConfigurationConstants.ERROR_MESSAGE_PATH_PROPERTY_KEY;
     }
 
+    /**
+     * This function returns the requested value from the HTTP response content.<br>
+     * The path is a set of key names seperated by ';'.<br>
+     * In case the streaming parser is enabled, the value and the error values are extracted in a single streaming pass
+     * without building a JSONObject tree.
+     *
+     * @param httpResponse
+     *            The HTTP response
+     * @param path
+     *            The path to the value (elements seperated by ;)
+     * @return The value (null if not found)
+     */
+    @Override
+    protected String findValue(HTTPResponse httpResponse, String path) {
+        String value = null;
+        if (path != null && httpResponse != null && this.useStreamingParser) {
+            String content = httpResponse.getContent();
+            if (content != null) {
+                // get path extractor (dynamic paths are compiled per invocation)
+                JSONPathExtractor pathExtractor = this.pathExtractors.get(path);
+                if (pathExtractor == null) {
+                    pathExtractor = this.createPathExtractor(new String[] { path });
+                }
+
+                // extract all needed values in a single pass
+                String[] values = pathExtractor.extract(content);
+                this.validateNoErrorValue(values);
+
+                value = values[2];
+            }
+        } else {
+            value = super.findValue(httpResponse, path);
+        }
+
+        return value;
+    }
+
+    /**
+     * This function extracts the fax job statuses of the provided fax jobs from the bulk status HTTP response data.<br>
+     * In case the streaming parser is enabled, the statuses of all fax jobs are extracted in a single streaming pass.
+     *
+     * @param httpResponse
+     *            The HTTP response
+     * @param faxJobs
+     *            The fax jobs
+     * @return The fax job statuses (null if bulk status path is not configured)
+     */
+    @Override
+    public FaxJobStatus[] getFaxJobStatuses(HTTPResponse httpResponse, FaxJob[] faxJobs) {
+        FaxJobStatus[] faxJobStatuses = null;
+        String bulkStatusPath = this.getBulkStatusPath();
+        if (this.useStreamingParser && bulkStatusPath != null && httpResponse != null) {
+            String content = httpResponse.getContent();
+            if (content != null) {
+                // compile fax job paths
+                String[] paths = new String[faxJobs.length];
+                for (int index = 0; index < faxJobs.length; index++) {
+                    paths[index] = bulkStatusPath.replace(AbstractMappingHTTPResponseHandler.FAX_JOB_ID_PATH_PARAMETER,
+                            faxJobs[index].getID());
+                }
+                JSONPathExtractor pathExtractor = this.createPathExtractor(paths);
+
+                // extract all statuses in a single pass
+                String[] values = pathExtractor.extract(content);
+                this.validateNoErrorValue(values);
+
+                faxJobStatuses = new FaxJobStatus[faxJobs.length];
+                FaxJobStatus faxJobStatus = null;
+                for (int index = 0; index < faxJobs.length; index++) {
+                    faxJobStatus = null;
+                    if (values[index + 2] != null) {
+                        faxJobStatus = this.getFaxJobStatusFromStatusString(values[index + 2]);
+                    }
+                    if (faxJobStatus == null) {
+                        faxJobStatus = FaxJobStatus.UNKNOWN;
+                    }
+
+                    faxJobStatuses[index] = faxJobStatus;
+                }
+            }
+        } else {
+            faxJobStatuses = super.getFaxJobStatuses(httpResponse, faxJobs);
+        }
+
+        return faxJobStatuses;
+    }
+
+    /**
+     * This function creates a new path extractor for the error detection path, error message path and the provided
+     * paths (in that order).
+     *
+     * @param paths
+     *            The paths (elements seperated by ;)
+     * @return The path extractor
+     */
+    protected JSONPathExtractor createPathExtractor(String[] paths) {
+        String[] allPaths = new String[paths.length + 2];
+        allPaths[0] = this.getErrorDetectionPath();
+        allPaths[1] = this.getErrorMessagePath();
+        System.arraycopy(paths, 0, allPaths, 2, paths.length);
+
+        return new JSONPathExtractor(allPaths);
+    }
+
+    /**
+     * This function throws an exception in case the values extracted by the path extractor hold an error.
+     *
+     * @param values
+     *            The extracted values (error detection value first and error message value second)
+     */
+    protected void validateNoErrorValue(String[] values) {
+        if (this.isErrorValue(values[0])) {
+            String errorMessage = values[0];
+            if (values[1] != null) {
+                errorMessage = values[1];
+            }
+            throw new FaxException("Error found in response: " + errorMessage);
+        }
+    }
+
     /**
      * This function returns the requested value from the object data.<br>
-     * The path is a set of key names seperated by ';'.
+     * The path is a set of key names seperated by ';'.<br>
+     * Numeric key names are used as array indexes in case the current JSON value is an array.
      *
      * @param object
      *            The object holding all the data
@@ -255,36 +502,54 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
      */
     @Override
     protected String findValueImpl(JSONObject object, String path) {
-        // split path to parts
-        String[] pathParts = path.split(AbstractMappingHTTPResponseHandler.VALUES_SEPERATOR);
+        // get path parts (configured paths are split once)
+        String[] pathParts = this.configuredPathParts.get(path);
+        if (pathParts == null) {
+            pathParts = JSONPathExtractor.getPathParts(path);
+        }
+
         int pathPartsAmount = pathParts.length;
         String pathPart = null;
-        JSONObject currentJSONObject = object;
+        Object currentJSONValue = object;
+        JSONObject currentJSONObject = null;
+        JSONArray currentJSONArray = null;
+        int arrayIndex = 0;
+        boolean lastPart = false;
         String value = null;
-        for (int index = 0; index < pathPartsAmount; index++) {
-            // get next path part
-            pathPart = pathParts[index];
+        try {
+            for (int index = 0; index < pathPartsAmount; index++) {
+                // get next path part
+                pathPart = pathParts[index];
+                lastPart = index + 1 == pathPartsAmount;
 
-            if (pathPart.length() > 0) {
-                if (currentJSONObject.isNull(pathPart)) {
-                    break;
-                }
+                if (currentJSONValue instanceof JSONArray && JSONHTTPResponseHandler.isArrayIndex(pathPart)) {
+                    currentJSONArray = (JSONArray) currentJSONValue;
+                    arrayIndex = Integer.parseInt(pathPart);
+                    currentJSONValue = currentJSONArray.opt(arrayIndex);
+                    if (currentJSONValue == null || JSONObject.NULL.equals(currentJSONValue)) {
+                        break;
+                    }
+
+                    if (lastPart) {
+                        value = currentJSONArray.getString(arrayIndex);
+                    }
+                } else if (currentJSONValue instanceof JSONObject) {
+                    currentJSONObject = (JSONObject) currentJSONValue;
+                    if (currentJSONObject.isNull(pathPart)) {
+                        break;
+                    }
 
-                try {
-                    // if last element
-                    if (index + 1 == pathPartsAmount) {
+                    if (lastPart) {
                         value = currentJSONObject.getString(pathPart);
                     } else {
-                        // get sub object
-                        currentJSONObject = currentJSONObject.getJSONObject(pathPart);
-                        if (currentJSONObject == null) {
-                            break;
-                        }
+                        currentJSONValue = currentJSONObject.get(pathPart);
                     }
-                } catch (JSONException exception) {
-                    throw new FaxException("Unable to extract JSON data for path: " + path, exception);
+                } else {
+                    throw new FaxException("Unable to extract JSON data for path: " + path);
                 }
             }
+        } catch (JSONException exception) {
+            throw new FaxException("Unable to extract JSON data for path: " + path, exception);
         }
 
         return value;
@@ -313,4 +578,21 @@ public class JSONHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<
 
         return jsonObject;
     }
+
+    /**
+     * This function returns true if the path part is a valid array index.
+     *
+     * @param pathPart
+     *            The path part
+     * @return True if array index
+     */
+    private static boolean isArrayIndex(String pathPart) {
+        int length = pathPart.length();
+        boolean arrayIndex = length > 0 && length < 10;
+        for (int index = 0; index < length && arrayIndex; index++) {
+            arrayIndex = Character.isDigit(pathPart.charAt(index));
+        }
+
+        return arrayIndex;
+    }
 }
@@ -0,0 +1,521 @@
+package org.fax4j.spi.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.fax4j.FaxException;
+
+/**
+ * This class extracts values of multiple paths from JSON text in a single streaming pass.<br>
+ * The paths are compiled once into a tree of path elements (shared prefixes are only matched once), the JSON text is
+ * scanned once and only the values of the compiled paths are extracted, all other values are skipped without being
+ * decoded. The scan stops as soon as the values of all paths were found.<br>
+ * Path elements are seperated by ';' and numeric path elements are matched against array indexes (zero based) as well
+ * as object keys, for example: statuses;0;status<br>
+ * String values are decoded, numbers and booleans are returned as is, null values are returned as null and object or
+ * array values are returned as their JSON text.<br>
+ * In case a path appears more than once (duplicate keys), only the first value is used.<br>
+ * Instances of this class are immutable and can be used by multiple threads.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class JSONPathExtractor {
+    /** The root path node */
+    private final PathNode ROOT;
+    /** The amount of paths */
+    private final int PATHS_AMOUNT;
+    /** The amount of paths which were provided (not null) */
+    private final int VALID_PATHS_AMOUNT;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param paths
+     *            The paths (elements seperated by ;), null paths are ignored
+     */
+    public JSONPathExtractor(String[] paths) {
+        super();
+
+        this.ROOT = new PathNode();
+        this.PATHS_AMOUNT = paths.length;
+
+        // compile paths
+        int validPathsAmount = 0;
+        String[] pathParts = null;
+        PathNode node = null;
+        PathNode childNode = null;
+        for (int index = 0; index < this.PATHS_AMOUNT; index++) {
+            if (paths[index] != null) {
+                pathParts = JSONPathExtractor.getPathParts(paths[index]);
+                if (pathParts.length > 0) {
+                    node = this.ROOT;
+                    for (int partIndex = 0; partIndex < pathParts.length; partIndex++) {
+                        childNode = node.CHILDREN.get(pathParts[partIndex]);
+                        if (childNode == null) {
+                            childNode = new PathNode();
+                            node.CHILDREN.put(pathParts[partIndex], childNode);
+                        }
+                        node = childNode;
+                    }
+                    node.PATH_INDEXES.add(Integer.valueOf(index));
+                    validPathsAmount++;
+                }
+            }
+        }
+        this.VALID_PATHS_AMOUNT = validPathsAmount;
+    }
+
+    /**
+     * This function extracts the values of the compiled paths from the provided JSON text.
+     *
+     * @param content
+     *            The JSON text
+     * @return The trimmed values (null for paths which were not found or are empty), same order as the paths
+     */
+    public String[] extract(String content) {
+        String[] values = new String[this.PATHS_AMOUNT];
+        if (this.VALID_PATHS_AMOUNT > 0 && content != null) {
+            JSONScanner scanner = new JSONScanner(content, values, this.VALID_PATHS_AMOUNT);
+            scanner.scanValue(this.ROOT);
+        }
+
+        return values;
+    }
+
+    /**
+     * This function returns the path elements (empty elements are ignored).
+     *
+     * @param path
+     *            The path (elements seperated by ;)
+     * @return The path elements
+     */
+    public static String[] getPathParts(String path) {
+        String[] pathParts = path.split(AbstractMappingHTTPResponseHandler.VALUES_SEPERATOR);
+        List<String> parts = new ArrayList<String>(pathParts.length);
+        for (int index = 0; index < pathParts.length; index++) {
+            if (pathParts[index].length() > 0) {
+                parts.add(pathParts[index]);
+            }
+        }
+
+        return parts.toArray(new String[parts.size()]);
+    }
+
+    /**
+     * This class holds a single compiled path element.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class PathNode {
+        /** The child path elements (key is the object key or array index) */
+        protected final Map<String, PathNode> CHILDREN;
+        /** The indexes of the paths ending at this element */
+        protected final List<Integer> PATH_INDEXES;
+
+        /**
+         * This is the class constructor.
+         */
+        protected PathNode() {
+            super();
+
+            this.CHILDREN = new HashMap<String, PathNode>(4);
+            this.PATH_INDEXES = new ArrayList<Integer>(1);
+        }
+    }
+
+    /**
+     * This class scans a single JSON text.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class JSONScanner {
+        /** The JSON text */
+        private final String CONTENT;
+        /** The JSON text length */
+        private final int LENGTH;
+        /** The extracted values */
+        private final String[] VALUES;
+        /** True for each path which was found */
+        private final boolean[] FOUND;
+        /** The current position */
+        private int position;
+        /** The amount of paths which were not found yet */
+        private int remaining;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param content
+         *            The JSON text
+         * @param values
+         *            The extracted values
+         * @param remaining
+         *            The amount of paths to find
+         */
+        protected JSONScanner(String content, String[] values, int remaining) {
+            super();
+
+            this.CONTENT = content;
+            this.LENGTH = content.length();
+            this.VALUES = values;
+            this.FOUND = new boolean[values.length];
+            this.remaining = remaining;
+        }
+
+        /**
+         * This function scans the next value.
+         *
+         * @param node
+         *            The path element matching the value (null to skip the value)
+         */
+        protected void scanValue(PathNode node) {
+            this.skipWhitespace();
+            if (this.position >= this.LENGTH) {
+                throw this.createException();
+            }
+
+            boolean capture = (node != null) && (!node.PATH_INDEXES.isEmpty());
+            int startPosition = this.position;
+            String value = null;
+            char character = this.CONTENT.charAt(this.position);
+            switch (character) {
+            case '{':
+                this.scanObject(node);
+                if (capture) {
+                    value = this.CONTENT.substring(startPosition, this.position);
+                }
+                break;
+            case '[':
+                this.scanArray(node);
+                if (capture) {
+                    value = this.CONTENT.substring(startPosition, this.position);
+                }
+                break;
+            case '"':
+                value = this.scanString(capture);
+                break;
+            default:
+                value = this.scanLiteral();
+                if ("null".equals(value)) {
+                    value = null;
+                }
+                break;
+            }
+
+            if (capture) {
+                this.setValue(node, value);
+            }
+        }
+
+        /**
+         * This function sets the value of all paths ending at the provided path element.
+         *
+         * @param node
+         *            The path element
+         * @param value
+         *            The value
+         */
+        private void setValue(PathNode node, String value) {
+            String trimmedValue = value;
+            if (trimmedValue != null) {
+                trimmedValue = trimmedValue.trim();
+                if (trimmedValue.length() == 0) {
+                    trimmedValue = null;
+                }
+            }
+
+            // first match wins, so each path is counted once
+            int pathIndex = 0;
+            int amount = node.PATH_INDEXES.size();
+            for (int index = 0; index < amount; index++) {
+                pathIndex = node.PATH_INDEXES.get(index).intValue();
+                if (!this.FOUND[pathIndex]) {
+                    this.FOUND[pathIndex] = true;
+                    this.VALUES[pathIndex] = trimmedValue;
+                    this.remaining--;
+                }
+            }
+        }
+
+        /**
+         * This function scans an object.
+         *
+         * @param node
+         *            The path element matching the object (null to skip the object)
+         */
+        private void scanObject(PathNode node) {
+            // skip '{'
+            this.position++;
+
+            this.skipWhitespace();
+            if (this.peek() == '}') {
+                this.position++;
+            } else {
+                boolean matchKeys = (node != null) && (!node.CHILDREN.isEmpty());
+                String key = null;
+                PathNode childNode = null;
+                boolean done = false;
+                while (!done) {
+                    // get key
+                    this.skipWhitespace();
+                    if (this.peek() != '"') {
+                        throw this.createException();
+                    }
+                    key = this.scanString(matchKeys);
+                    this.skipWhitespace();
+                    if (this.peek() != ':') {
+                        throw this.createException();
+                    }
+                    this.position++;
+
+                    // scan member value
+                    childNode = null;
+                    if (matchKeys) {
+                        childNode = node.CHILDREN.get(key);
+                    }
+                    this.scanValue(childNode);
+                    if (this.remaining <= 0) {
+                        break;
+                    }
+
+                    this.skipWhitespace();
+                    switch (this.peek()) {
+                    case ',':
+                        this.position++;
+                        break;
+                    case '}':
+                        this.position++;
+                        done = true;
+                        break;
+                    default:
+                        throw this.createException();
+                    }
+                }
+            }
+        }
+
+        /**
+         * This function scans an array.
+         *
+         * @param node
+         *            The path element matching the array (null to skip the array)
+         */
+        private void scanArray(PathNode node) {
+            // skip '['
+            this.position++;
+
+            this.skipWhitespace();
+            if (this.peek() == ']') {
+                this.position++;
+            } else {
+                int index = 0;
+                PathNode childNode = null;
+                boolean done = false;
+                while (!done) {
+                    // scan element value
+                    childNode = null;
+                    if (node != null && !node.CHILDREN.isEmpty()) {
+                        childNode = node.CHILDREN.get(String.valueOf(index));
+                    }
+                    this.scanValue(childNode);
+                    if (this.remaining <= 0) {
+                        break;
+                    }
+                    index++;
+
+                    this.skipWhitespace();
+                    switch (this.peek()) {
+                    case ',':
+                        this.position++;
+                        break;
+                    case ']':
+                        this.position++;
+                        done = true;
+                        break;
+                    default:
+                        throw this.createException();
+                    }
+                }
+            }
+        }
+
+        /**
+         * This function scans a string.
+         *
+         * @param decode
+         *            True to decode and return the string, false to skip it
+         * @return The decoded string (null if not decoded)
+         */
+        private String scanString(boolean decode) {
+            // skip '"'
+            this.position++;
+
+            StringBuilder buffer = null;
+            if (decode) {
+                buffer = new StringBuilder(32);
+            }
+            char character = 0;
+            boolean done = false;
+            while (!done) {
+                if (this.position >= this.LENGTH) {
+                    throw this.createException();
+                }
+                character = this.CONTENT.charAt(this.position);
+                this.position++;
+                switch (character) {
+                case '"':
+                    done = true;
+                    break;
+                case '\\':
+                    if (this.position >= this.LENGTH) {
+                        throw this.createException();
+                    }
+                    character = this.CONTENT.charAt(this.position);
+                    this.position++;
+                    if (character == 'u') {
+                        if (this.position + 4 > this.LENGTH) {
+                            throw this.createException();
+                        }
+                        if (decode) {
+                            try {
+                                character = (char) Integer.parseInt(
+                                        this.CONTENT.substring(this.position, this.position + 4), 16);
+                            } catch (NumberFormatException exception) {
+                                throw this.createException();
+                            }
+                        }
+                        this.position = this.position + 4;
+                    } else {
+                        character = JSONScanner.getEscapedCharacter(character);
+                    }
+                    if (decode) {
+                        buffer.append(character);
+                    }
+                    break;
+                default:
+                    if (decode) {
+                        buffer.append(character);
+                    }
+                    break;
+                }
+            }
+
+            String text = null;
+            if (decode) {
+                text = buffer.toString();
+            }
+
+            return text;
+        }
+
+        /**
+         * This function scans a literal value (number, true, false or null).
+         *
+         * @return The literal text
+         */
+        private String scanLiteral() {
+            int startPosition = this.position;
+            char character = 0;
+            boolean done = false;
+            while (!done && this.position < this.LENGTH) {
+                character = this.CONTENT.charAt(this.position);
+                switch (character) {
+                case ',':
+                case '}':
+                case ']':
+                case ' ':
+                case '\t':
+                case '\r':
+                case '\n':
+                    done = true;
+                    break;
+                default:
+                    this.position++;
+                    break;
+                }
+            }
+            if (this.position == startPosition) {
+                throw this.createException();
+            }
+
+            return this.CONTENT.substring(startPosition, this.position);
+        }
+
+        /**
+         * This function skips whitespace characters.
+         */
+        private void skipWhitespace() {
+            char character = 0;
+            while (this.position < this.LENGTH) {
+                character = this.CONTENT.charAt(this.position);
+                if (character == ' ' || character == '\t' || character == '\r' || character == '\n') {
+                    this.position++;
+                } else {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * This function returns the current character.
+         *
+         * @return The current character
+         */
+        private char peek() {
+            if (this.position >= this.LENGTH) {
+                throw this.createException();
+            }
+
+            return this.CONTENT.charAt(this.position);
+        }
+
+        /**
+         * This function creates the exception thrown for invalid JSON text.
+         *
+         * @return The exception
+         */
+        private FaxException createException() {
+            return new FaxException("Unable to parse HTTP response text as JSON, invalid data at position: "
+                    + this.position);
+        }
+
+        /**
+         * This function returns the character represented by the escape sequence character.
+         *
+         * @param character
+         *            The character following the '\'
+         * @return The escaped character
+         */
+        private static char getEscapedCharacter(char character) {
+            char escapedCharacter = character;
+            switch (character) {
+            case 'b':
+                escapedCharacter = '\b';
+                break;
+            case 'f':
+                escapedCharacter = '\f';
+                break;
+            case 'n':
+                escapedCharacter = '\n';
+                break;
+            case 'r':
+                escapedCharacter = '\r';
+                break;
+            case 't':
+                escapedCharacter = '\t';
+                break;
+            default:
+                break;
+            }
+
+            return escapedCharacter;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package org.fax4j.spi.http;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
 import org.fax4j.common.Fax4JProvider;
 import org.fax4j.common.FaxActionType;
+import org.fax4j.spi.http.HTTPRequest.StreamContent;
+import org.fax4j.util.CompiledTemplate;
+import org.fax4j.util.CompiledTemplate.TemplateParameter;
 import org.fax4j.util.IOHelper;
 import org.fax4j.util.SpiUtil;
 
@@ -23,6 +30,8 @@ import org.fax4j.util.SpiUtil;
  * The template parameters are than updated with the values from the fax4j configuration or FaxJob data.<br>
  * All template parameters are defined as ${templatename} variables, for example:
  * http://www.mydomain.com/myresource?faxnum=<b>${target.address}</b><br>
+ * The file content is sent as is (the raw file bytes) whether it is streamed or not, the rest of the HTTP content is
+ * ISO-8859-1 encoded.<br>
  * <br>
  * Below table describes the template parameters.<br>
  * <b>Template Parameters:</b>
@@ -80,6 +89,14 @@ import org.fax4j.util.SpiUtil;
  * <td>false</td>
  * </tr>
  * <tr>
+ * <td>org.fax4j.spi.http.template.stream.threshold</td>
+ * <td>The fax file size (in bytes) from which the file content template parameter is streamed from the disk directly
+ * to the HTTP request instead of being loaded into memory (negative value to disable streaming).</td>
+ * <td>1048576</td>
+ * <td>1048576</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
  * <td>org.fax4j.spi.http.submit.template.url</td>
  * <td>The URL pointing to the submit fax job template.</td>
  * <td>none</td>
@@ -117,23 +134,33 @@ import org.fax4j.util.SpiUtil;
  * </table>
  *
  * @author Sagie Gur-Ari
- * @version 1.03
+ * @version 1.05
  * @since 0.42.4
  */
 public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequestConverter {
     /** The HTTP request template map */
     private Map<String, String> httpRequestTemplateMap;
+    /** The file size from which the file content is streamed */
+    private long streamThreshold;
+    /** The compiled templates cache */
+    private final ConcurrentMap<String, CompiledTemplate> COMPILED_TEMPLATES;
+    /** The default file size from which the file content is streamed */
+    private static final long DEFAULT_STREAM_THRESHOLD = 1048576;
+    /** The content encoding (same as the HTTP default used for string content, keeps the file bytes as is) */
+    private static final String CONTENT_ENCODING = "ISO-8859-1";
 
     /**
      * This class holds the configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.01
+     * @version 1.02
      * @since 0.42.4
      */
     public enum FaxJob2HTTPRequestConverterConfigurationConstants {
         /** The template encoding property key */
         TEMPLATE_ENCODING_PROPERTY_KEY("org.fax4j.spi.{0}.template.encoding"),
+        /** The template file content stream threshold property key */
+        TEMPLATE_STREAM_THRESHOLD_PROPERTY_KEY("org.fax4j.spi.{0}.template.stream.threshold"),
         /** The submit fax job template URL property key */
         SUBMIT_FAX_JOB_TEMPLATE_PROPERTY_KEY("org.fax4j.spi.{0}.submit.template.url"),
         /** The suspend fax job template URL property key */
@@ -174,6 +201,8 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
      */
     public TemplateFaxJob2HTTPRequestConverter() {
         super(Fax4JProvider.FAX4J_PROVIDER);
+
+        this.COMPILED_TEMPLATES = new ConcurrentHashMap<String, CompiledTemplate>();
     }
 
     /**
@@ -198,6 +227,14 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
         String encoding = this.getConfigurationValue(
                 FaxJob2HTTPRequestConverterConfigurationConstants.TEMPLATE_ENCODING_PROPERTY_KEY);
 
+        // get stream threshold
+        String value = this.getConfigurationValue(
+                FaxJob2HTTPRequestConverterConfigurationConstants.TEMPLATE_STREAM_THRESHOLD_PROPERTY_KEY);
+        this.streamThreshold = TemplateFaxJob2HTTPRequestConverter.DEFAULT_STREAM_THRESHOLD;
+        if (value != null) {
+            this.streamThreshold = Long.parseLong(value);
+        }
+
         String templateName = null;
         String urlStr = null;
         URL url = null;
@@ -268,7 +305,9 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
     }
 
     /**
-     * This function formats the provided template.
+     * This function formats the provided template.<br>
+     * The file content is read as is (each file byte is mapped to a single ISO-8859-1 character), so the HTTP content
+     * is the same as the streamed content of large files (see createStreamContent).
      *
      * @param template
      *            The template
@@ -277,7 +316,102 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
      * @return The formatted template
      */
     protected String formatTemplate(String template, FaxJob faxJob) {
-        return SpiUtil.formatTemplate(template, faxJob, null, true, false);
+        String text = null;
+        File file = faxJob.getFile();
+        if ((template != null) && (file != null)) {
+            // get compiled template
+            CompiledTemplate compiledTemplate = SpiUtil.getCompiledTemplate(template, this.COMPILED_TEMPLATES);
+
+            if (compiledTemplate.containsParameter(TemplateParameter.FILE)) {
+                // read file content
+                String fileContent = null;
+                try {
+                    fileContent = new String(IOHelper.readFile(file),
+                            TemplateFaxJob2HTTPRequestConverter.CONTENT_ENCODING);
+                } catch (IOException exception) {
+                    throw new FaxException("Error while reading file.", exception);
+                }
+
+                // format template
+                String[] textParts = compiledTemplate.formatAroundFileParameter(faxJob, null);
+                StringBuilder buffer = new StringBuilder(textParts[0]);
+                for (int index = 1; index < textParts.length; index++) {
+                    buffer.append(fileContent);
+                    buffer.append(textParts[index]);
+                }
+                text = buffer.toString();
+            }
+        }
+
+        if (text == null) {
+            text = this.formatTemplate(template, faxJob, false, true, false);
+        }
+
+        return text;
+    }
+
+    /**
+     * This function formats the provided template.<br>
+     * The template is compiled only once and reused for the next invocations.
+     *
+     * @param template
+     *            The template
+     * @param faxJob
+     *            The fax job object
+     * @param urlEncode
+     *            True to URL encode the template values
+     * @param getFileContent
+     *            True to get the file content, false to get the file path for the file template parameter
+     * @param fullFilePath
+     *            If getFileContent=false, the param will be replaced to the file name (full path in case this is true,
+     *            or just the name in case of false)
+     * @return The formatted template
+     */
+    protected String formatTemplate(String template, FaxJob faxJob, boolean urlEncode, boolean getFileContent,
+            boolean fullFilePath) {
+        String text = null;
+        if (template != null) {
+            // get compiled template
+            CompiledTemplate compiledTemplate = SpiUtil.getCompiledTemplate(template, this.COMPILED_TEMPLATES);
+
+            // format template
+            if (urlEncode) {
+                text = compiledTemplate.format(faxJob, SpiUtil.URL_ENCODER, getFileContent, fullFilePath);
+            } else {
+                text = compiledTemplate.format(faxJob, null, getFileContent, fullFilePath);
+            }
+        }
+
+        return text;
+    }
+
+    /**
+     * This function creates the streamed HTTP request content in case the template contains the file content
+     * parameter and the fax file size reached the configured stream threshold.<br>
+     * The template values are formatted once and the file content is written directly from the disk to the HTTP
+     * request stream.
+     *
+     * @param template
+     *            The template
+     * @param faxJob
+     *            The fax job object
+     * @return The stream content (null if the content should not be streamed)
+     */
+    protected StreamContent createStreamContent(String template, FaxJob faxJob) {
+        StreamContent streamContent = null;
+        File file = faxJob.getFile();
+        if ((this.streamThreshold >= 0) && (file != null) && (file.length() >= this.streamThreshold)) {
+            // get compiled template
+            CompiledTemplate compiledTemplate = SpiUtil.getCompiledTemplate(template, this.COMPILED_TEMPLATES);
+
+            if (compiledTemplate.containsParameter(TemplateParameter.FILE)) {
+                String[] textParts = compiledTemplate.formatAroundFileParameter(faxJob, null);
+                streamContent = new FileStreamContent(file, textParts,
+                        TemplateFaxJob2HTTPRequestConverter.CONTENT_ENCODING, "text/plain; charset=ISO-8859-1");
+            }
+        }
+
+        return streamContent;
     }
 
     /**
@@ -296,7 +430,7 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
         String resourceTemplate = faxClientSpi.getHTTPResource(faxActionType);
 
         // format resource
-        String resource = SpiUtil.formatTemplate(resourceTemplate, faxJob, SpiUtil.URL_ENCODER, false, false);
+        String resource = this.formatTemplate(resourceTemplate, faxJob, true, false, false);
 
         return resource;
     }
@@ -315,7 +449,7 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
         String urlParametersTemplate = faxClientSpi.getHTTPURLParameters();
 
         // format URL parameters
-        String urlParameters = SpiUtil.formatTemplate(urlParametersTemplate, faxJob, SpiUtil.URL_ENCODER, false, false);
+        String urlParameters = this.formatTemplate(urlParametersTemplate, faxJob, true, false, false);
 
         return urlParameters;
     }
@@ -343,8 +477,12 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
 
         HTTPRequest httpRequest = null;
         if (template != null) {
-            // format template
-            String content = this.formatTemplate(template, faxJob);
+            // format template (large files are streamed instead of loaded into memory)
+            StreamContent streamContent = this.createStreamContent(template, faxJob);
+            String content = null;
+            if (streamContent == null) {
+                content = this.formatTemplate(template, faxJob);
+            }
 
             // format resource
             String resource = this.formatHTTPResource(faxClientSpi, faxActionType, faxJob);
@@ -357,7 +495,11 @@ public class TemplateFaxJob2HTTPRequestConverter extends AbstractFaxJob2HTTPRequ
 
             // setup HTTP request
             httpRequest.setResource(resource);
-            httpRequest.setContent(content);
+            if (streamContent == null) {
+                httpRequest.setContent(content);
+            } else {
+                httpRequest.setContent(streamContent);
+            }
             httpRequest.setParametersText(parametersText);
         }
 
@@ -2,8 +2,19 @@ package org.fax4j.spi.http;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -72,6 +83,30 @@ import org.w3c.dom.Document;
  * <td>false</td>
  * </tr>
  * <tr>
+ * <td>org.fax4j.spi.http.bulk.status.xml.output.path</td>
+ * <td>The bulk status XML output path used to locate each fax job status string value from the bulk status response
+ * (the ${fax.job.id} parameter is replaced with the fax job ID).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.fax.job.id.xml.output.path</td>
+ * <td>The callback XML path used to locate the fax job ID from the status callbacks sent by the fax service provider
+ * (if not defined, the submit output path is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.callback.status.xml.output.path</td>
+ * <td>The callback XML path used to locate the fax job status string value from the status callbacks sent by the fax
+ * service provider (if not defined, the get status output path is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
  * <td>org.fax4j.spi.http.xml.pending.status.mappings</td>
  * <td>The mapping between the output fax status string value to the fax4j FaxJobStatus.PENDING enum value (format is:
  * value1;value2;value3).</td>
@@ -118,18 +153,42 @@ import org.w3c.dom.Document;
  * <td>none</td>
  * <td>false</td>
  * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.http.xml.streaming.parser</td>
+ * <td>True to extract the fax job ID/status and error values with a single streaming (StAX) pass over the response
+ * instead of building a DOM document. Only simple element paths are extracted by the streaming parser, other paths
+ * (for example paths with XPath predicates or attributes) are evaluated on a DOM document.</td>
+ * <td>false</td>
+ * <td>false</td>
+ * <td>false</td>
+ * </tr>
  * </table>
+ * <br>
+ * The configured paths are converted to XPath expressions once when the handler is initialized, the XML parsers and
+ * compiled XPath expressions are kept per thread and reused for the following responses.
  *
  * @author Sagie Gur-Ari
- * @version 1.0
+ * @version 1.03
  * @since 0.42.8
  */
 public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<Document> {
+    /** The document builder factory (used only while holding its lock) */
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+    /** The XPath factory (used only while holding its lock) */
+    private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
+    /** The simple path element name pattern (paths supported by the streaming parser) */
+    private static final Pattern SIMPLE_PATH_PART_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_.\\-]*");
+    /** The parser context of each thread */
+    private final ThreadLocal<XMLParserContext> PARSER_CONTEXT;
+    /** The configured paths to XPath expression text mapping */
+    private Map<String, String> configuredXPaths;
+    /** True to use the streaming parser */
+    private boolean useStreamingParser;
     /**
      * This class holds the configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.0
+     * @version 1.03
      * @since 0.42.8
      */
     public enum XMLHTTPResponseHandlerConfigurationConstants {
@@ -143,6 +202,12 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
         CANCEL_XML_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.cancel.xml.output.path"),
         /** The get fax job status XML output path property key */
         GET_STATUS_XML_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.xml.output.path"),
+        /** The bulk fax job status XML output path property key */
+        BULK_STATUS_XML_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.bulk.status.xml.output.path"),
+        /** The callback fax job ID output property key */
+        CALLBACK_FAX_JOB_ID_XML_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.callback.fax.job.id.xml.output.path"),
+        /** The callback fax job status output property key */
+        CALLBACK_STATUS_XML_OUTPUT_PROPERTY_KEY("org.fax4j.spi.{0}.callback.status.xml.output.path"),
         /** The FaxJobStatus.PENDING status mapping property key */
         PENDING_STATUS_MAPPING_PROPERTY_KEY("org.fax4j.spi.{0}.xml.pending.status.mappings"),
         /** The FaxJobStatus.IN_PROGRESS status mapping property key */
@@ -154,7 +219,9 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
         /** The error detection value property key */
         ERROR_DETECTION_VALUE_PROPERTY_KEY("org.fax4j.spi.{0}.xml.error.detection.value"),
         /** The error message path property key */
-        ERROR_MESSAGE_PATH_PROPERTY_KEY("org.fax4j.spi.{0}.xml.error.message.path");
+        ERROR_MESSAGE_PATH_PROPERTY_KEY("org.fax4j.spi.{0}.xml.error.message.path"),
+        /** The streaming parser flag property key */
+        STREAMING_PARSER_PROPERTY_KEY("org.fax4j.spi.{0}.xml.streaming.parser");
 
         /** The string value */
         private String value;
@@ -185,6 +252,51 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
      */
     public XMLHTTPResponseHandler() {
         super();
+
+        this.PARSER_CONTEXT = new ThreadLocal<XMLParserContext>();
+    }
+
+    /**
+     * This function initializes the component.
+     */
+    @Override
+    protected void initializeImpl() {
+        super.initializeImpl();
+
+        // get streaming parser flag
+        String value = this.getConfigurationValue(XMLHTTPResponseHandlerConfigurationConstants.STREAMING_PARSER_PROPERTY_KEY);
+        this.useStreamingParser = Boolean.parseBoolean(value);
+
+        // convert and validate all configured paths once
+        Enum<?>[] configurationKeys = new Enum<?>[] {
+                XMLHTTPResponseHandlerConfigurationConstants.SUBMIT_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.SUSPEND_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.RESUME_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.CANCEL_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.GET_STATUS_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.CALLBACK_FAX_JOB_ID_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.CALLBACK_STATUS_XML_OUTPUT_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.ERROR_DETECTION_PATH_PROPERTY_KEY,
+                XMLHTTPResponseHandlerConfigurationConstants.ERROR_MESSAGE_PATH_PROPERTY_KEY };
+        Map<String, String> xpaths = new HashMap<String, String>();
+        XPath xpath = XMLHTTPResponseHandler.createXPath();
+        String path = null;
+        String xpathExpressionStr = null;
+        for (int index = 0; index < configurationKeys.length; index++) {
+            path = this.getConfigurationValue(configurationKeys[index]);
+            if (path != null) {
+                xpathExpressionStr = XMLHTTPResponseHandler.convertToXPath(path);
+                try {
+                    // validate expression
+                    xpath.compile(xpathExpressionStr);
+                } catch (XPathExpressionException exception) {
+                    throw new FaxException("Unable to parse xpath expression: " + path, exception);
+                }
+
+                xpaths.put(path, xpathExpressionStr);
+            }
+        }
+        this.configuredXPaths = Collections.unmodifiableMap(xpaths);
     }
 
     /**
@@ -221,6 +333,36 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
         this.populateStatusString2FaxStatusMappings(faxJobStatuses, configurationKeys);
     }
 
+    /**
+     * Returns the bulk status path configuration key.
+     *
+     * @return The bulk status path configuration key
+     */
+    @Override
+    protected Enum<?> getBulkStatusPathPropertyKey() {
+        return XMLHTTPResponseHandlerConfigurationConstants.BULK_STATUS_XML_OUTPUT_PROPERTY_KEY;
+    }
+
+    /**
+     * Returns the callback fax job ID path configuration key.
+     *
+     * @return The callback fax job ID path configuration key
+     */
+    @Override
+    protected Enum<?> getCallbackFaxJobIDPathPropertyKey() {
+        return XMLHTTPResponseHandlerConfigurationConstants.CALLBACK_FAX_JOB_ID_XML_OUTPUT_PROPERTY_KEY;
+    }
+
+    /**
+     * Returns the callback fax job status path configuration key.
+     *
+     * @return The callback fax job status path configuration key
+     */
+    @Override
+    protected Enum<?> getCallbackStatusPathPropertyKey() {
+        return XMLHTTPResponseHandlerConfigurationConstants.CALLBACK_STATUS_XML_OUTPUT_PROPERTY_KEY;
+    }
+
     /**
      * Returns the error detection path configuration key.
      *
@@ -251,6 +393,61 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
         return XMLHTTPResponseHandlerConfigurationConstants.ERROR_MESSAGE_PATH_PROPERTY_KEY;
     }
 
+    /**
+     * This function returns the requested value from the HTTP response content.<br>
+     * The path is a set of key names seperated by ';'.<br>
+     * In case the streaming parser is enabled and all needed paths are simple element paths, the values are extracted
+     * in a single streaming pass without building a DOM document.
+     *
+     * @param httpResponse
+     *            The HTTP response
+     * @param path
+     *            The path to the value (elements seperated by ;)
+     * @return The value (null if not found)
+     */
+    @Override
+    protected String findValue(HTTPResponse httpResponse, String path) {
+        String value = null;
+        if (path != null && httpResponse != null && this.useStreamingParser && this.isStreamingSupported(path)) {
+            String content = httpResponse.getContent();
+            if (content != null) {
+                // extract all needed values in a single pass
+                String errorDetectionPath = this.getErrorDetectionPath();
+                String errorMessagePath = this.getErrorMessagePath();
+                String[] values = this.findValuesStreaming(content,
+                        new String[] { errorDetectionPath, errorMessagePath, path });
+
+                // look for an error
+                if (this.isErrorValue(values[0])) {
+                    String errorMessage = values[0];
+                    if (values[1] != null) {
+                        errorMessage = values[1];
+                    }
+                    throw new FaxException("Error found in response: " + errorMessage);
+                }
+
+                value = values[2];
+            }
+        } else {
+            value = super.findValue(httpResponse, path);
+        }
+
+        return value;
+    }
+
+    /**
+     * This function returns true if the streaming parser can extract the provided path and the error paths.
+     *
+     * @param path
+     *            The path to the value (elements seperated by ;)
+     * @return True if the streaming parser can be used
+     */
+    protected boolean isStreamingSupported(String path) {
+        return XMLHTTPResponseHandler.isSimplePath(path)
+                && XMLHTTPResponseHandler.isSimplePath(this.getErrorDetectionPath())
+                && XMLHTTPResponseHandler.isSimplePath(this.getErrorMessagePath());
+    }
+
     /**
      * This function returns the requested value from the object data.<br>
      * The path is a set of key names seperated by ';'.
@@ -263,28 +460,22 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
      */
     @Override
     protected String findValueImpl(Document object, String path) {
-        // split path to parts
-        String[] pathParts = path.split(AbstractMappingHTTPResponseHandler.VALUES_SEPERATOR);
-        int pathPartsAmount = pathParts.length;
-        String pathPart = null;
-        StringBuilder buffer = new StringBuilder(500);
-        for (int index = 0; index < pathPartsAmount; index++) {
-            // get next path part
-            pathPart = pathParts[index];
-
-            if (pathPart.length() > 0) {
-                buffer.append("/");
-                buffer.append(pathPart);
-            }
-        }
-        String xpathExpressionStr = buffer.toString();
-
-        XPathFactory xpathFactory = XPathFactory.newInstance();
-        XPath xpath = xpathFactory.newXPath();
+        // get compiled expression (configured paths are compiled once per thread)
+        XMLParserContext parserContext = this.getParserContext();
+        XPathExpression xpathExpression = parserContext.EXPRESSIONS.get(path);
         String value = null;
         try {
-            // compile path to xpath
-            XPathExpression xpathExpression = xpath.compile(xpathExpressionStr);
+            if (xpathExpression == null) {
+                String xpathExpressionStr = this.configuredXPaths.get(path);
+                if (xpathExpressionStr == null) {
+                    // dynamic paths (for example bulk status paths) are not cached
+                    xpathExpressionStr = XMLHTTPResponseHandler.convertToXPath(path);
+                    xpathExpression = parserContext.XPATH.compile(xpathExpressionStr);
+                } else {
+                    xpathExpression = parserContext.XPATH.compile(xpathExpressionStr);
+                    parserContext.EXPRESSIONS.put(path, xpathExpression);
+                }
+            }
 
             // find value
             value = xpathExpression.evaluate(object);
@@ -316,9 +507,8 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
             InputStream inputStream = new ByteArrayInputStream(data);
 
             try {
-                // parse XML
-                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+                // parse XML (the document builder is reused by the current thread)
+                DocumentBuilder documentBuilder = this.getParserContext().getDocumentBuilder();
                 document = documentBuilder.parse(inputStream);
             } catch (Exception exception) {
                 throw new FaxException("Unable to parse HTTP response text as XML.", exception);
@@ -330,4 +520,286 @@ public class XMLHTTPResponseHandler extends AbstractMappingHTTPResponseHandler<D
 
         return document;
     }
+
+    /**
+     * This function extracts the values of the provided simple element paths in a single streaming pass over the XML
+     * content.<br>
+     * Same as XPath string values, the value of an element is the concatenated text of the element and all of its
+     * child elements and only the first matching element is used.
+     *
+     * @param content
+     *            The XML content
+     * @param paths
+     *            The simple element paths (null paths are ignored)
+     * @return The trimmed values (null for paths which were not found or have no text), same order as the paths
+     */
+    protected String[] findValuesStreaming(String content, String[] paths) {
+        // convert paths to element name arrays
+        int amount = paths.length;
+        String[][] pathElements = new String[amount][];
+        int remaining = 0;
+        for (int index = 0; index < amount; index++) {
+            if (paths[index] != null) {
+                pathElements[index] = XMLHTTPResponseHandler.getPathElements(paths[index]);
+                remaining++;
+            }
+        }
+
+        // get response encoding
+        String encoding = this.getResponseDataEncoding();
+        byte[] data = IOHelper.convertStringToBinary(content, encoding);
+        InputStream inputStream = new ByteArrayInputStream(data);
+
+        String[] values = new String[amount];
+        StringBuilder[] captures = new StringBuilder[amount];
+        int[] captureDepths = new int[amount];
+        boolean[] done = new boolean[amount];
+        List<String> elementStack = new ArrayList<String>();
+        XMLStreamReader reader = null;
+        try {
+            reader = this.getParserContext().getXMLInputFactory().createXMLStreamReader(inputStream);
+
+            int depth = 0;
+            int event = 0;
+            while (remaining > 0 && reader.hasNext()) {
+                event = reader.next();
+                switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    // add element to stack
+                    String prefix = reader.getPrefix();
+                    String name = reader.getLocalName();
+                    if (prefix != null && prefix.length() > 0) {
+                        name = prefix + ":" + name;
+                    }
+                    elementStack.add(name);
+                    depth++;
+
+                    // start capturing text of matching elements
+                    for (int index = 0; index < amount; index++) {
+                        if (pathElements[index] != null && !done[index] && captures[index] == null
+                                && XMLHTTPResponseHandler.isMatchingPath(elementStack, pathElements[index])) {
+                            captures[index] = new StringBuilder();
+                            captureDepths[index] = depth;
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    for (int index = 0; index < amount; index++) {
+                        if (captures[index] != null) {
+                            captures[index].append(reader.getText());
+                        }
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    // end captures of the closed element
+                    for (int index = 0; index < amount; index++) {
+                        if (captures[index] != null && captureDepths[index] == depth) {
+                            values[index] = captures[index].toString().trim();
+                            if (values[index].length() == 0) {
+                                values[index] = null;
+                            }
+                            captures[index] = null;
+                            done[index] = true;
+                            remaining--;
+                        }
+                    }
+
+                    elementStack.remove(elementStack.size() - 1);
+                    depth--;
+                    break;
+                default:
+                    break;
+                }
+            }
+        } catch (XMLStreamException exception) {
+            throw new FaxException("Unable to parse HTTP response text as XML.", exception);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException exception) { // NOPMD
+                    // ignore
+                }
+            }
+            IOHelper.closeResource(inputStream);
+        }
+
+        return values;
+    }
+
+    /**
+     * This function returns the parser context of the current thread.
+     *
+     * @return The parser context
+     */
+    protected XMLParserContext getParserContext() {
+        XMLParserContext parserContext = this.PARSER_CONTEXT.get();
+        if (parserContext == null) {
+            parserContext = new XMLParserContext(XMLHTTPResponseHandler.createXPath());
+            this.PARSER_CONTEXT.set(parserContext);
+        }
+
+        return parserContext;
+    }
+
+    /**
+     * This function creates a new XPath object.
+     *
+     * @return The XPath object
+     */
+    private static XPath createXPath() {
+        synchronized (XMLHTTPResponseHandler.XPATH_FACTORY) {
+            return XMLHTTPResponseHandler.XPATH_FACTORY.newXPath();
+        }
+    }
+
+    /**
+     * This function converts the path to the XPath expression text.
+     *
+     * @param path
+     *            The path (elements seperated by ;)
+     * @return The XPath expression text
+     */
+    private static String convertToXPath(String path) {
+        // split path to parts
+        String[] pathParts = path.split(AbstractMappingHTTPResponseHandler.VALUES_SEPERATOR);
+        int pathPartsAmount = pathParts.length;
+        String pathPart = null;
+        StringBuilder buffer = new StringBuilder(500);
+        for (int index = 0; index < pathPartsAmount; index++) {
+            // get next path part
+            pathPart = pathParts[index];
+
+            if (pathPart.length() > 0) {
+                buffer.append("/");
+                buffer.append(pathPart);
+            }
+        }
+        String xpathExpressionStr = buffer.toString();
+
+        return xpathExpressionStr;
+    }
+
+    /**
+     * This function returns the element names of the path.
+     *
+     * @param path
+     *            The path (elements seperated by ;)
+     * @return The element names
+     */
+    private static String[] getPathElements(String path) {
+        String[] pathParts = path.split(AbstractMappingHTTPResponseHandler.VALUES_SEPERATOR);
+        List<String> elements = new ArrayList<String>(pathParts.length);
+        for (int index = 0; index < pathParts.length; index++) {
+            if (pathParts[index].length() > 0) {
+                elements.add(pathParts[index]);
+            }
+        }
+
+        return elements.toArray(new String[elements.size()]);
+    }
+
+    /**
+     * This function returns true if the path is a simple absolute element path (or null).
+     *
+     * @param path
+     *            The path (elements seperated by ;)
+     * @return True if simple path
+     */
+    private static boolean isSimplePath(String path) {
+        boolean simplePath = true;
+        if (path != null) {
+            String[] elements = XMLHTTPResponseHandler.getPathElements(path);
+            simplePath = elements.length > 0;
+            for (int index = 0; index < elements.length && simplePath; index++) {
+                simplePath = XMLHTTPResponseHandler.SIMPLE_PATH_PART_PATTERN.matcher(elements[index]).matches();
+            }
+        }
+
+        return simplePath;
+    }
+
+    /**
+     * This function returns true if the current element stack matches the path elements.
+     *
+     * @param elementStack
+     *            The current element stack (root element first)
+     * @param pathElements
+     *            The path elements
+     * @return True if matching
+     */
+    private static boolean isMatchingPath(List<String> elementStack, String[] pathElements) {
+        boolean matching = elementStack.size() == pathElements.length;
+        for (int index = 0; index < pathElements.length && matching; index++) {
+            matching = pathElements[index].equals(elementStack.get(index));
+        }
+
+        return matching;
+    }
+
+    /**
+     * This class holds the XML parsers and compiled XPath expressions used by a single thread.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class XMLParserContext {
+        /** The XPath object */
+        protected final XPath XPATH;
+        /** The compiled XPath expressions of the configured paths */
+        protected final Map<String, XPathExpression> EXPRESSIONS;
+        /** The document builder */
+        private DocumentBuilder documentBuilder;
+        /** The streaming parser factory */
+        private XMLInputFactory xmlInputFactory;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param xpath
+         *            The XPath object
+         */
+        protected XMLParserContext(XPath xpath) {
+            super();
+
+            this.XPATH = xpath;
+            this.EXPRESSIONS = new HashMap<String, XPathExpression>();
+        }
+
+        /**
+         * This function returns the document builder (reset for reuse).
+         *
+         * @return The document builder
+         * @throws ParserConfigurationException
+         *             Any parser configuration exception
+         */
+        protected DocumentBuilder getDocumentBuilder() throws ParserConfigurationException {
+            if (this.documentBuilder == null) {
+                synchronized (XMLHTTPResponseHandler.DOCUMENT_BUILDER_FACTORY) {
+                    this.documentBuilder = XMLHTTPResponseHandler.DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+                }
+            } else {
+                this.documentBuilder.reset();
+            }
+
+            return this.documentBuilder;
+        }
+
+        /**
+         * This function returns the streaming parser factory.
+         *
+         * @return The streaming parser factory
+         */
+        protected XMLInputFactory getXMLInputFactory() {
+            if (this.xmlInputFactory == null) {
+                this.xmlInputFactory = XMLInputFactory.newInstance();
+                this.xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            }
+
+            return this.xmlInputFactory;
+        }
+    }
 }
@@ -4,11 +4,19 @@ import gnu.hylafax.HylaFAXClient;
 import gnu.hylafax.HylaFAXClientProtocol;
 import gnu.hylafax.Job;
 import java.io.Closeable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
 import org.fax4j.spi.AbstractFax4JClientSpi;
 import org.fax4j.util.Connection;
 import org.fax4j.util.ConnectionFactory;
+import org.fax4j.util.PooledConnectionFactory;
 import org.fax4j.util.ReflectionHelper;
 
 /**
@@ -98,12 +106,54 @@ import org.fax4j.util.ReflectionHelper;
  * <td>none</td>
  * <td>true</td>
  * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.min.idle</td>
+ * <td>The min amount of idle clients kept open (only used by the pooled connection factory)</td>
+ * <td>1</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.max.size</td>
+ * <td>The max amount of open clients (only used by the pooled connection factory)</td>
+ * <td>5</td>
+ * <td>5</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.borrow.timeout</td>
+ * <td>The max time in millies to wait for a free client (only used by the pooled connection factory)</td>
+ * <td>30000</td>
+ * <td>30000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.idle.timeout</td>
+ * <td>The time in millies after which idle clients are closed (only used by the pooled connection factory)</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.status.snapshot.ttl</td>
+ * <td>The time in millies in which the fax server queues snapshot is reused by fax job status queries and polling
+ * cycles (0 to fetch the queues on every query)</td>
+ * <td>1000</td>
+ * <td>1000</td>
+ * <td>false</td>
+ * </tr>
  * </table>
  * <br>
+ * Fax monitor events are supported. The fax job statuses are taken from a snapshot of the fax server send and done
+ * queues, which is fetched with a single job listing per queue regardless of the amount of monitored fax jobs and is
+ * shared by all the status queries made within the snapshot TTL.<br>
+ * <br>
  * <b>Limitations:</b><br>
  * <ul>
  * <li>See http://sourceforge.net/projects/gnu-hylafax/ web site.
  * <li>Works only with HylaFax fax servers.
+ * <li>When using a pooled connection factory, the fax job is created on the fax server only when submitted (HylaFAX
+ * job parameters are bound to the client session), therefore the fax job ID is not available before submitting.
  * </ul>
  * <br>
  * <b>Dependencies:</b><br>
@@ -113,7 +163,7 @@ import org.fax4j.util.ReflectionHelper;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.12
+ * @version 1.16
  * @since 0.1
  */
 public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
@@ -121,14 +171,26 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
     private ConnectionFactory<HylaFAXClient> connectionFactory;
     /** The connection used to connect to the HylaFax client */
     private Connection<HylaFAXClient> connection;
+    /** The time in millies in which the fax job status snapshot is reused */
+    private long faxJobStatusSnapshotTTL;
+    /** The last fax job status snapshot */
+    private volatile FaxJobStatusSnapshot faxJobStatusSnapshot;
+    /** The fax job status snapshot version, incremented whenever this SPI changes the fax server queues */
+    private final AtomicLong FAX_JOB_STATUS_SNAPSHOT_VERSION;
+    /** The fax job status snapshot lock, only one snapshot is fetched at a time */
+    private final Object FAX_JOB_STATUS_SNAPSHOT_LOCK;
     /** The fax server default port */
     public static final int DEFAULT_PORT_PROPERTY_VALUE = HylaFAXClientProtocol.DEFAULT_PORT;
+    /** The job format used to list the fax job IDs and states */
+    public static final String JOB_STATUS_LIST_FORMAT = "%j %a";
+    /** The queues holding the fax jobs */
+    private static final String[] JOB_QUEUES = new String[] { "sendq", "doneq" };
 
     /**
      * This class holds the SPI configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.03
+     * @version 1.05
      * @since 0.1
      */
     public enum FaxClientSpiConfigurationConstants {
@@ -147,7 +209,17 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
         /** The mode property key */
         MODE_PROPERTY_KEY("org.fax4j.spi.hylafax.mode"),
         /** The type property key */
-        TYPE_PROPERTY_KEY("org.fax4j.spi.hylafax.type");
+        TYPE_PROPERTY_KEY("org.fax4j.spi.hylafax.type"),
+        /** The pool min idle clients property key */
+        POOL_MIN_IDLE_PROPERTY_KEY("org.fax4j.spi.hylafax.pool.min.idle"),
+        /** The pool max size property key */
+        POOL_MAX_SIZE_PROPERTY_KEY("org.fax4j.spi.hylafax.pool.max.size"),
+        /** The pool borrow timeout property key */
+        POOL_BORROW_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.hylafax.pool.borrow.timeout"),
+        /** The pool idle timeout property key */
+        POOL_IDLE_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.hylafax.pool.idle.timeout"),
+        /** The fax job status snapshot TTL property key */
+        STATUS_SNAPSHOT_TTL_PROPERTY_KEY("org.fax4j.spi.hylafax.status.snapshot.ttl");
 
         /** The string value */
         private String value;
@@ -178,6 +250,9 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
      */
     public HylaFaxClientSpi() {
         super();
+
+        this.FAX_JOB_STATUS_SNAPSHOT_VERSION = new AtomicLong();
+        this.FAX_JOB_STATUS_SNAPSHOT_LOCK = new Object();
     }
 
     /**
@@ -195,6 +270,26 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
         if (this.connectionFactory == null) {
             throw new FaxException("HylaFAX connection factory is not available.");
         }
+
+        // get fax job status snapshot TTL
+        String value = this.getConfigurationValue(FaxClientSpiConfigurationConstants.STATUS_SNAPSHOT_TTL_PROPERTY_KEY);
+        this.faxJobStatusSnapshotTTL = 1000;
+        if (value != null) {
+            this.faxJobStatusSnapshotTTL = Long.parseLong(value);
+            if (this.faxJobStatusSnapshotTTL < 0) {
+                throw new FaxException("Status snapshot TTL set to an invalid value: " + this.faxJobStatusSnapshotTTL);
+            }
+        }
+    }
+
+    /**
+     * This function returns true if the fax monitor events are supported by this SPI.
+     *
+     * @return True if the fax monitor events are supported by this SPI
+     */
+    @Override
+    public boolean isFaxMonitorEventsSupported() {
+        return true;
     }
 
     /**
@@ -216,7 +311,65 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
     }
 
     /**
-     * Returns an instance of the hyla fax client.
+     * This function returns true if the connection factory hands out pooled connections.
+     *
+     * @return True if the connection factory is pooled
+     */
+    protected final boolean isPooledConnectionFactory() {
+        return this.connectionFactory instanceof PooledConnectionFactory<?>;
+    }
+
+    /**
+     * This function returns the connection to use for the next fax action.<br>
+     * In case of a pooled connection factory, a connection is borrowed from the pool, otherwise the single shared
+     * connection is returned.<br>
+     * The connection must be released using the releaseConnection function once the fax action is done (also in
+     * case the fax action failed).
+     *
+     * @return The connection
+     */
+    protected Connection<HylaFAXClient> acquireConnection() {
+        Connection<HylaFAXClient> hylaFAXConnection = null;
+        if (this.isPooledConnectionFactory()) {
+            hylaFAXConnection = this.connectionFactory.createConnection();
+        } else {
+            synchronized (this) {
+                if (this.connection == null) {
+                    // create new connection
+                    this.connection = this.connectionFactory.createConnection();
+                }
+
+                hylaFAXConnection = this.connection;
+            }
+        }
+
+        return hylaFAXConnection;
+    }
+
+    /**
+     * This function releases the connection acquired for a fax action.<br>
+     * Pooled connections are returned to the pool (or discarded in case the fax action failed, as the client session
+     * state is unknown), while the single shared connection is kept open.
+     *
+     * @param hylaFAXConnection
+     *            The connection
+     * @param failed
+     *            True if the fax action failed
+     */
+    protected void releaseConnection(Connection<HylaFAXClient> hylaFAXConnection, boolean failed) {
+        if (hylaFAXConnection != null && this.isPooledConnectionFactory()) {
+            if (failed) {
+                ((PooledConnectionFactory<HylaFAXClient>) this.connectionFactory).discardConnection(hylaFAXConnection);
+            } else {
+                this.connectionFactory.releaseConnection(hylaFAXConnection);
+            }
+        }
+    }
+
+    /**
+     * Returns an instance of the hyla fax client.<br>
+     * This function returns the client of the single shared connection, fax actions use the acquireConnection
+     * function instead.
      *
      * @return The client instance
      */
@@ -259,18 +412,23 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
      */
     @Override
     protected FaxJob createFaxJobImpl() {
-        // get client
-        HylaFAXClient client = this.getHylaFAXClient();
-
-        FaxJob faxJob = null;
-        try {
-            // create job
-            Job job = client.createJob();
-            faxJob = new HylaFaxJob(job);
-        } catch (RuntimeException exception) {
-            throw exception;
-        } catch (Exception exception) {
-            throw new FaxException("General error.", exception);
+        HylaFaxJob faxJob = null;
+        if (this.isPooledConnectionFactory()) {
+            // the job is created on the fax server by the submit action, so no client is held until then
+            faxJob = new HylaFaxJob();
+        } else {
+            try {
+                // get client
+                HylaFAXClient client = this.getHylaFAXClient();
+
+                // create job
+                Job job = client.createJob();
+                faxJob = new HylaFaxJob(job);
+            } catch (RuntimeException exception) {
+                throw exception;
+            } catch (Exception exception) {
+                throw new FaxException("General error.", exception);
+            }
         }
 
         return faxJob;
@@ -288,15 +446,35 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
         // get fax job
         HylaFaxJob hylaFaxJob = (HylaFaxJob) faxJob;
 
-        // get client
-        HylaFAXClient client = this.getHylaFAXClient();
+        // get connection
+        Connection<HylaFAXClient> hylaFAXConnection = this.acquireConnection();
 
+        boolean failed = true;
         try {
+            // get client
+            HylaFAXClient client = hylaFAXConnection.getResource();
+
+            // create the job on the fax server if not yet created
+            if (hylaFaxJob.getHylaFaxJob() == null) {
+                hylaFaxJob.setHylaFaxJob(client.createJob());
+            }
+
             this.submitFaxJob(hylaFaxJob, client);
+
+            // the fax server queues were changed
+            this.invalidateFaxJobStatusSnapshot();
+            failed = false;
         } catch (FaxException exception) {
             throw exception;
         } catch (Exception exception) {
             throw new FaxException("General error.", exception);
+        } finally {
+            if (this.isPooledConnectionFactory()) {
+                // the internal job is bound to the borrowed client session
+                hylaFaxJob.detachHylaFaxJob();
+            }
+
+            this.releaseConnection(hylaFAXConnection, failed);
         }
     }
 
@@ -311,15 +489,25 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
         // get fax job
         HylaFaxJob hylaFaxJob = (HylaFaxJob) faxJob;
 
-        // get client
-        HylaFAXClient client = this.getHylaFAXClient();
+        // get connection
+        Connection<HylaFAXClient> hylaFAXConnection = this.acquireConnection();
 
+        boolean failed = true;
         try {
+            // get client
+            HylaFAXClient client = hylaFAXConnection.getResource();
+
             this.suspendFaxJob(hylaFaxJob, client);
+
+            // the fax server queues were changed
+            this.invalidateFaxJobStatusSnapshot();
+            failed = false;
         } catch (FaxException exception) {
             throw exception;
         } catch (Exception exception) {
             throw new FaxException("General error.", exception);
+        } finally {
+            this.releaseConnection(hylaFAXConnection, failed);
         }
     }
 
@@ -334,15 +522,25 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
         // get fax job
         HylaFaxJob hylaFaxJob = (HylaFaxJob) faxJob;
 
-        // get client
-        HylaFAXClient client = this.getHylaFAXClient();
+        // get connection
+        Connection<HylaFAXClient> hylaFAXConnection = this.acquireConnection();
 
+        boolean failed = true;
         try {
+            // get client
+            HylaFAXClient client = hylaFAXConnection.getResource();
+
             this.resumeFaxJob(hylaFaxJob, client);
+
+            // the fax server queues were changed
+            this.invalidateFaxJobStatusSnapshot();
+            failed = false;
         } catch (FaxException exception) {
             throw exception;
         } catch (Exception exception) {
             throw new FaxException("General error.", exception);
+        } finally {
+            this.releaseConnection(hylaFAXConnection, failed);
         }
     }
 
@@ -357,15 +555,25 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
         // get fax job
         HylaFaxJob hylaFaxJob = (HylaFaxJob) faxJob;
 
-        // get client
-        HylaFAXClient client = this.getHylaFAXClient();
+        // get connection
+        Connection<HylaFAXClient> hylaFAXConnection = this.acquireConnection();
 
+        boolean failed = true;
         try {
+            // get client
+            HylaFAXClient client = hylaFAXConnection.getResource();
+
             this.cancelFaxJob(hylaFaxJob, client);
+
+            // the fax server queues were changed
+            this.invalidateFaxJobStatusSnapshot();
+            failed = false;
         } catch (FaxException exception) {
             throw exception;
         } catch (Exception exception) {
             throw new FaxException("General error.", exception);
+        } finally {
+            this.releaseConnection(hylaFAXConnection, failed);
         }
     }
 
@@ -404,7 +612,7 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
      */
     protected void suspendFaxJob(HylaFaxJob faxJob, HylaFAXClient client) throws Exception {
         // get job
-        Job job = faxJob.getHylaFaxJob();
+        Job job = this.getHylaFaxJob(faxJob, client);
 
         // suspend job
         client.suspend(job);
@@ -422,7 +630,7 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
      */
     protected void resumeFaxJob(HylaFaxJob faxJob, HylaFAXClient client) throws Exception {
         // get job
-        Job job = faxJob.getHylaFaxJob();
+        Job job = this.getHylaFaxJob(faxJob, client);
 
         // get job ID
         long faxJobID = job.getId();
@@ -443,9 +651,310 @@ public class HylaFaxClientSpi extends AbstractFax4JClientSpi {
      */
     protected void cancelFaxJob(HylaFaxJob faxJob, HylaFAXClient client) throws Exception {
         // get job
-        Job job = faxJob.getHylaFaxJob();
+        Job job = this.getHylaFaxJob(faxJob, client);
 
         // cancel job
         client.kill(job);
     }
+
+    /**
+     * This function returns the internal hylafax job of the provided fax job.<br>
+     * Detached fax jobs are selected by their fax job ID using the provided client, as their internal hylafax job
+     * was bound to the client session which submitted them.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @param client
+     *            The client instance
+     * @return The internal hylafax job
+     * @throws Exception
+     *             Any exception
+     */
+    protected Job getHylaFaxJob(HylaFaxJob faxJob, HylaFAXClient client) throws Exception {
+        Job job = faxJob.getHylaFaxJob();
+        if (job == null) {
+            String faxJobID = faxJob.getID();
+            if (faxJobID == null) {
+                throw new FaxException("Fax job was not submitted.");
+            }
+
+            // select job on this client session
+            job = client.getJob(Long.parseLong(faxJobID));
+        }
+
+        return job;
+    }
+
+    /**
+     * This function returns the fax job status.<br>
+     * The status is taken from the fax server queues snapshot.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @return The fax job status
+     */
+    @Override
+    protected FaxJobStatus getFaxJobStatusImpl(FaxJob faxJob) {
+        // get all fax job statuses (rate limit permit was already taken by the caller)
+        Map<String, FaxJobStatus> faxJobStatusMap = this.getFaxJobStatusSnapshot(false);
+
+        FaxJobStatus faxJobStatus = faxJobStatusMap.get(faxJob.getID());
+        if (faxJobStatus == null) {
+            faxJobStatus = FaxJobStatus.UNKNOWN;
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This function polls the new statues for the provided fax jobs using a single job list query per queue.<br>
+     * The cost of each polling cycle does not depend on the amount of polled fax jobs.
+     *
+     * @param faxJobs
+     *            The fax jobs to poll
+     * @return The fax job statues
+     */
+    @Override
+    protected FaxJobStatus[] pollForFaxJobStatuesInBulk(FaxJob[] faxJobs) {
+        // get all fax job statuses
+        Map<String, FaxJobStatus> faxJobStatusMap = this.getFaxJobStatusSnapshot(true);
+
+        // get requested fax job statuses
+        int amount = faxJobs.length;
+        FaxJobStatus[] faxJobStatuses = new FaxJobStatus[amount];
+        FaxJobStatus faxJobStatus = null;
+        for (int index = 0; index < amount; index++) {
+            faxJobStatus = faxJobStatusMap.get(faxJobs[index].getID());
+            if (faxJobStatus == null) {
+                faxJobStatus = FaxJobStatus.UNKNOWN;
+            }
+
+            faxJobStatuses[index] = faxJobStatus;
+        }
+
+        return faxJobStatuses;
+    }
+
+    /**
+     * This function returns the statuses of all fax jobs found in the fax server queues.<br>
+     * The last fetched snapshot is reused in case it was fetched within the snapshot TTL and the fax server queues
+     * were not changed by this SPI since, otherwise a new snapshot is fetched (concurrent callers wait for the same
+     * snapshot instead of fetching the queues again).<br>
+     * Status polling requests acquire the status polling rate limit permit before fetching a new snapshot, other
+     * requests are rate limited by the caller (the fax client SPI interceptor).
+     *
+     * @param polling
+     *            True if invoked by the fax job monitor status polling
+     * @return The fax job ID to fax job status map (read only)
+     */
+    protected Map<String, FaxJobStatus> getFaxJobStatusSnapshot(boolean polling) {
+        FaxJobStatusSnapshot snapshot = this.faxJobStatusSnapshot;
+        if (!this.isValidFaxJobStatusSnapshot(snapshot)) {
+            synchronized (this.FAX_JOB_STATUS_SNAPSHOT_LOCK) {
+                // snapshot may have been fetched while waiting for the lock
+                snapshot = this.faxJobStatusSnapshot;
+                if (!this.isValidFaxJobStatusSnapshot(snapshot)) {
+                    if (polling) {
+                        // wait for rate limit
+                        this.acquireStatusPollingPermit();
+                    }
+
+                    long version = this.FAX_JOB_STATUS_SNAPSHOT_VERSION.get();
+                    Map<String, FaxJobStatus> faxJobStatusMap = this.fetchFaxJobStatuses();
+
+                    snapshot = new FaxJobStatusSnapshot(Collections.unmodifiableMap(faxJobStatusMap),
+                            System.currentTimeMillis(), version);
+                    this.faxJobStatusSnapshot = snapshot;
+                }
+            }
+        }
+
+        return snapshot.FAX_JOB_STATUSES;
+    }
+
+    /**
+     * This function returns true if the provided snapshot can be reused.
+     *
+     * @param snapshot
+     *            The snapshot (may be null)
+     * @return True if the snapshot can be reused
+     */
+    protected boolean isValidFaxJobStatusSnapshot(FaxJobStatusSnapshot snapshot) {
+        boolean valid = false;
+        if (snapshot != null && snapshot.VERSION == this.FAX_JOB_STATUS_SNAPSHOT_VERSION.get()) {
+            long age = System.currentTimeMillis() - snapshot.TIME;
+            valid = age >= 0 && age < this.faxJobStatusSnapshotTTL;
+        }
+
+        return valid;
+    }
+
+    /**
+     * This function invalidates the current fax job status snapshot.<br>
+     * It is invoked whenever this SPI changes the fax server queues.
+     */
+    protected void invalidateFaxJobStatusSnapshot() {
+        this.FAX_JOB_STATUS_SNAPSHOT_VERSION.incrementAndGet();
+    }
+
+    /**
+     * This function fetches the statuses of all fax jobs found in the fax server queues.
+     *
+     * @return The fax job ID to fax job status map
+     */
+    protected Map<String, FaxJobStatus> fetchFaxJobStatuses() {
+        // get connection
+        Connection<HylaFAXClient> hylaFAXConnection = this.acquireConnection();
+
+        // get all fax job statuses
+        Map<String, FaxJobStatus> faxJobStatusMap = null;
+        boolean failed = true;
+        try {
+            // get client
+            HylaFAXClient client = hylaFAXConnection.getResource();
+
+            faxJobStatusMap = this.getFaxJobStatuses(client);
+            failed = false;
+        } catch (FaxException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new FaxException("General error.", exception);
+        } finally {
+            this.releaseConnection(hylaFAXConnection, failed);
+        }
+
+        return faxJobStatusMap;
+    }
+
+    /**
+     * This function returns the statuses of all fax jobs found in the fax server queues.
+     *
+     * @param client
+     *            The client instance
+     * @return The fax job ID to fax job status map
+     * @throws Exception
+     *             Any exception
+     */
+    protected Map<String, FaxJobStatus> getFaxJobStatuses(HylaFAXClient client) throws Exception {
+        Map<String, FaxJobStatus> faxJobStatusMap = new HashMap<String, FaxJobStatus>();
+
+        // the job format is a connection state, so the format and listing are done together
+        synchronized (client) {
+            String previousJobFormat = client.jobfmt();
+            client.jobfmt(HylaFaxClientSpi.JOB_STATUS_LIST_FORMAT);
+            try {
+                List<?> lines = null;
+                for (int index = 0; index < HylaFaxClientSpi.JOB_QUEUES.length; index++) {
+                    // get queue listing
+                    lines = client.getList(HylaFaxClientSpi.JOB_QUEUES[index]);
+
+                    if (lines != null) {
+                        this.updateFaxJobStatuses(lines, faxJobStatusMap);
+                    }
+                }
+            } finally {
+                if (previousJobFormat != null) {
+                    client.jobfmt(previousJobFormat);
+                }
+            }
+        }
+
+        return faxJobStatusMap;
+    }
+
+    /**
+     * This function parses the queue listing lines (in the JOB_STATUS_LIST_FORMAT format) and updates the fax job
+     * statuses map.
+     *
+     * @param lines
+     *            The queue listing lines
+     * @param faxJobStatusMap
+     *            The fax job ID to fax job status map
+     */
+    protected void updateFaxJobStatuses(List<?> lines, Map<String, FaxJobStatus> faxJobStatusMap) {
+        Iterator<?> iterator = lines.iterator();
+        Object object = null;
+        String line = null;
+        String[] parts = null;
+        while (iterator.hasNext()) {
+            // get next line
+            object = iterator.next();
+
+            if (object != null) {
+                // split line
+                line = String.valueOf(object).trim();
+                parts = line.split("\\s+");
+
+                if (parts.length >= 2 && parts[1].length() > 0) {
+                    faxJobStatusMap.put(parts[0], this.getFaxJobStatusFromJobState(parts[1].charAt(0)));
+                }
+            }
+        }
+    }
+
+    /**
+     * This function returns the fax job status based on the hylafax job state symbol.
+     *
+     * @param jobState
+     *            The hylafax job state symbol
+     * @return The fax job status
+     */
+    protected FaxJobStatus getFaxJobStatusFromJobState(char jobState) {
+        FaxJobStatus faxJobStatus = null;
+        switch (jobState) {
+        case 'T': // suspended
+        case 'P': // pending
+        case 'S': // sleeping
+        case 'B': // blocked
+        case 'W': // waiting
+            faxJobStatus = FaxJobStatus.PENDING;
+            break;
+        case 'R': // running
+            faxJobStatus = FaxJobStatus.IN_PROGRESS;
+            break;
+        case 'F': // failed
+            faxJobStatus = FaxJobStatus.ERROR;
+            break;
+        case 'D': // done
+        default:
+            faxJobStatus = FaxJobStatus.UNKNOWN;
+            break;
+        }
+
+        return faxJobStatus;
+    }
+
+    /**
+     * This class holds a snapshot of the fax job statuses found in the fax server queues.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class FaxJobStatusSnapshot {
+        /** The fax job ID to fax job status map */
+        protected final Map<String, FaxJobStatus> FAX_JOB_STATUSES;
+        /** The time the snapshot was fetched */
+        protected final long TIME;
+        /** The snapshot version */
+        protected final long VERSION;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param faxJobStatuses
+         *            The fax job ID to fax job status map
+         * @param time
+         *            The time the snapshot was fetched
+         * @param version
+         *            The snapshot version
+         */
+        protected FaxJobStatusSnapshot(Map<String, FaxJobStatus> faxJobStatuses, long time, long version) {
+            super();
+
+            this.FAX_JOB_STATUSES = faxJobStatuses;
+            this.TIME = time;
+            this.VERSION = version;
+        }
+    }
 }
@@ -2,21 +2,49 @@ package org.fax4j.spi.hylafax;
 
 import gnu.hylafax.Job;
 import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import org.fax4j.FaxException;
 import org.fax4j.spi.AbstractFaxJob;
 
 /**
- * This class provides the hylafax implementation of the fax job.
+ * This class provides the hylafax implementation of the fax job.<br>
+ * Fax jobs which are not yet created on the fax server (used with pooled connection factories, where each fax action
+ * borrows its own client) hold the job parameters locally until the job is created on the fax server as part of the
+ * submit action.<br>
+ * Once submitted, such fax jobs are detached from the internal hylafax job (which is bound to the borrowed client
+ * session) and only keep the fax job ID and the job parameters which were set locally, further fax actions select
+ * the job by its ID on their own borrowed client.
  * 
  * @author Sagie Gur-Ari
- * @version 1.07
+ * @version 1.08
  * @since 0.1
  */
 public class HylaFaxJob extends AbstractFaxJob {
-    /** The internal hylafax job */
-    private final Job JOB;
+    /** The internal hylafax job (null until created on the fax server or once detached) */
+    private Job job;
+    /** The fax job ID of a detached fax job */
+    private String detachedID;
+    /** The job parameters held until the job is created on the fax server (and kept once detached) */
+    private final Map<String, String> PENDING_PARAMETERS;
     /** The file to fax */
     private File file;
+    /** The priority job parameter */
+    private static final String PRIORITY_PARAMETER = "SCHEDPRI";
+    /** The target address job parameter */
+    private static final String TARGET_ADDRESS_PARAMETER = "DIALSTRING";
+    /** The sender name job parameter */
+    private static final String SENDER_NAME_PARAMETER = "FROMUSER";
+
+    /**
+     * This is the class constructor.<br>
+     * The job is created on the fax server once submitted.
+     */
+    public HylaFaxJob() {
+        this(null);
+    }
 
     /**
      * This is the class constructor.
@@ -28,7 +56,8 @@ public class HylaFaxJob extends AbstractFaxJob {
         super();
 
         // get job
-        this.JOB = job;
+        this.job = job;
+        this.PENDING_PARAMETERS = new LinkedHashMap<String, String>();
     }
 
     /**
@@ -53,7 +82,55 @@ public class HylaFaxJob extends AbstractFaxJob {
      * @return The internal hylafax job
      */
     protected Job getHylaFaxJob() {
-        return this.JOB;
+        return this.job;
+    }
+
+    /**
+     * Sets the internal hylafax job which was created on the fax server.<br>
+     * The job parameters held by this fax job are set in the internal hylafax job and kept locally in case the fax
+     * job is detached later on.
+     * 
+     * @param job
+     *            The internal hylafax job
+     * @throws Exception
+     *             Any exception
+     */
+    protected void setHylaFaxJob(Job job) throws Exception {
+        if ((this.job != null) || (this.detachedID != null)) {
+            throw new FaxException("Fax job already created.");
+        }
+
+        // set pending parameters
+        Iterator<Entry<String, String>> iterator = this.PENDING_PARAMETERS.entrySet().iterator();
+        Entry<String, String> entry = null;
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            job.setProperty(entry.getKey(), entry.getValue());
+        }
+
+        this.job = job;
+    }
+
+    /**
+     * This function detaches this fax job from the internal hylafax job.<br>
+     * The internal hylafax job is bound to the client session which created it, so once that client is released,
+     * the fax job only keeps the fax job ID and the locally set job parameters (changes made to the job parameters of
+     * a detached fax job are not sent to the fax server).
+     */
+    protected void detachHylaFaxJob() {
+        if (this.job != null) {
+            this.detachedID = String.valueOf(this.job.getId());
+            this.job = null;
+        }
+    }
+
+    /**
+     * This function returns true if the fax job was detached from the internal hylafax job.
+     * 
+     * @return True if detached
+     */
+    protected boolean isDetached() {
+        return this.detachedID != null;
     }
 
     /**
@@ -62,7 +139,12 @@ public class HylaFaxJob extends AbstractFaxJob {
      * @return The fax job ID
      */
     public String getID() {
-        return String.valueOf(this.JOB.getId());
+        String id = this.detachedID;
+        if (this.job != null) {
+            id = String.valueOf(this.job.getId());
+        }
+
+        return id;
     }
 
     /**
@@ -102,7 +184,14 @@ public class HylaFaxJob extends AbstractFaxJob {
     public FaxJobPriority getPriority() {
         int priority = Job.PRIORITY_NORMAL;
         try {
-            priority = this.JOB.getPriority();
+            if (this.job == null) {
+                String value = this.PENDING_PARAMETERS.get(HylaFaxJob.PRIORITY_PARAMETER);
+                if (value != null) {
+                    priority = Integer.parseInt(value);
+                }
+            } else {
+                priority = this.job.getPriority();
+            }
         } catch (Exception exception) {
             throw new FaxException("Error while extracting job priority.", exception);
         }
@@ -128,11 +217,15 @@ public class HylaFaxJob extends AbstractFaxJob {
      */
     public void setPriority(FaxJobPriority priority) {
         try {
+            int value = Job.PRIORITY_NORMAL;
             if (priority == FaxJobPriority.HIGH_PRIORITY) {
-                this.JOB.setPriority(Job.PRIORITY_HIGH);
-            } else {
-                this.JOB.setPriority(Job.PRIORITY_NORMAL);
+                value = Job.PRIORITY_HIGH;
+            }
+
+            if (this.job != null) {
+                this.job.setPriority(value);
             }
+            this.PENDING_PARAMETERS.put(HylaFaxJob.PRIORITY_PARAMETER, String.valueOf(value));
         } catch (Exception exception) {
             throw new FaxException("Error while setting job priority.", exception);
         }
@@ -146,7 +239,11 @@ public class HylaFaxJob extends AbstractFaxJob {
     public String getTargetAddress() {
         String value = null;
         try {
-            value = this.JOB.getDialstring();
+            if (this.job == null) {
+                value = this.PENDING_PARAMETERS.get(HylaFaxJob.TARGET_ADDRESS_PARAMETER);
+            } else {
+                value = this.job.getDialstring();
+            }
         } catch (Exception exception) {
             throw new FaxException("Error while extracting job target address.", exception);
         }
@@ -162,7 +259,10 @@ public class HylaFaxJob extends AbstractFaxJob {
      */
     public void setTargetAddress(String targetAddress) {
         try {
-            this.JOB.setDialstring(targetAddress);
+            if (this.job != null) {
+                this.job.setDialstring(targetAddress);
+            }
+            this.PENDING_PARAMETERS.put(HylaFaxJob.TARGET_ADDRESS_PARAMETER, targetAddress);
         } catch (Exception exception) {
             throw new FaxException("Error while setting job target address.", exception);
         }
@@ -195,7 +295,11 @@ public class HylaFaxJob extends AbstractFaxJob {
     public String getSenderName() {
         String value = null;
         try {
-            value = this.JOB.getFromUser();
+            if (this.job == null) {
+                value = this.PENDING_PARAMETERS.get(HylaFaxJob.SENDER_NAME_PARAMETER);
+            } else {
+                value = this.job.getFromUser();
+            }
         } catch (Exception exception) {
             throw new FaxException("Error while extracting job sender name.", exception);
         }
@@ -211,7 +315,10 @@ public class HylaFaxJob extends AbstractFaxJob {
      */
     public void setSenderName(String senderName) {
         try {
-            this.JOB.setFromUser(senderName);
+            if (this.job != null) {
+                this.job.setFromUser(senderName);
+            }
+            this.PENDING_PARAMETERS.put(HylaFaxJob.SENDER_NAME_PARAMETER, senderName);
         } catch (Exception exception) {
             throw new FaxException("Error while setting job sender name.", exception);
         }
@@ -265,7 +372,10 @@ public class HylaFaxJob extends AbstractFaxJob {
      */
     public void setProperty(String key, String value) {
         try {
-            this.JOB.setProperty(key, value);
+            if (this.job != null) {
+                this.job.setProperty(key, value);
+            }
+            this.PENDING_PARAMETERS.put(key, value);
         } catch (Exception exception) {
             throw new FaxException("Error while setting job property.", exception);
         }
@@ -283,7 +393,11 @@ public class HylaFaxJob extends AbstractFaxJob {
     public String getProperty(String key, String defaultValue) {
         String value = null;
         try {
-            value = this.JOB.getProperty(key);
+            if (this.job == null) {
+                value = this.PENDING_PARAMETERS.get(key);
+            } else {
+                value = this.job.getProperty(key);
+            }
         } catch (Exception exception) {
             throw new FaxException("Error while extracting job property.", exception);
         }
@@ -0,0 +1,224 @@
+package org.fax4j.spi.hylafax;
+
+import gnu.hylafax.HylaFAXClient;
+import org.fax4j.spi.hylafax.HylaFaxClientSpi.FaxClientSpiConfigurationConstants;
+import org.fax4j.util.CloseableResourceManager;
+import org.fax4j.util.Connection;
+import org.fax4j.util.ConnectionPool;
+import org.fax4j.util.ConnectionPool.ResourceHandler;
+import org.fax4j.util.PooledConnectionFactory;
+import org.fax4j.util.ThreadPoolHelper;
+
+/**
+ * Provides a pooled implementation of the HaylaFAX connection factory.<br>
+ * Instead of a single HylaFAX client shared by all threads, each fax action borrows a HylaFAX client from the pool
+ * and returns it once done, which enables several threads to invoke HylaFAX actions at the same time.<br>
+ * Idle clients are validated with a NOOP command before being reused and are closed once idle for more than the idle
+ * timeout.<br>
+ * To use this factory, set the org.fax4j.spi.hylafax.connection.factory.class.name property to
+ * org.fax4j.spi.hylafax.PooledHylaFAXClientConnectionFactory.<br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.min.idle</td>
+ * <td>The min amount of idle clients kept open</td>
+ * <td>1</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.max.size</td>
+ * <td>The max amount of open clients</td>
+ * <td>5</td>
+ * <td>5</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.borrow.timeout</td>
+ * <td>The max time in millies to wait for a free client</td>
+ * <td>30000</td>
+ * <td>30000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.hylafax.pool.idle.timeout</td>
+ * <td>The time in millies after which idle clients are closed (0 to disable)</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class PooledHylaFAXClientConnectionFactory extends HylaFAXClientConnectionFactoryImpl
+        implements PooledConnectionFactory<HylaFAXClient> {
+    /** The clients pool */
+    private ConnectionPool<HylaFAXClient> pool;
+
+    /**
+     * This is the class constructor.
+     */
+    public PooledHylaFAXClientConnectionFactory() {
+        super();
+    }
+
+    /**
+     * This function initializes the connection factory.
+     */
+    @Override
+    protected void initializeImpl() {
+        super.initializeImpl();
+
+        // get pool configuration
+        int minIdle = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_MIN_IDLE_PROPERTY_KEY), 1);
+        int maxSize = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_MAX_SIZE_PROPERTY_KEY), 5);
+        long borrowTimeout = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_BORROW_TIMEOUT_PROPERTY_KEY), 30000);
+        long idleTimeout = ThreadPoolHelper.parseSize(this.factoryConfigurationHolder
+                .getConfigurationValue(FaxClientSpiConfigurationConstants.POOL_IDLE_TIMEOUT_PROPERTY_KEY), 60000);
+
+        // create pool
+        this.pool = new ConnectionPool<HylaFAXClient>(new HylaFAXClientResourceHandler(this), minIdle, maxSize,
+                borrowTimeout, idleTimeout);
+
+        // close idle clients on shutdown
+        CloseableResourceManager.registerCloseable(this.pool);
+    }
+
+    /**
+     * Returns the clients pool.
+     *
+     * @return The clients pool
+     */
+    protected final ConnectionPool<HylaFAXClient> getPool() {
+        return this.pool;
+    }
+
+    /**
+     * Borrows a client from the pool and returns a connection holding it.<br>
+     * The connection must be released once the fax action is done.
+     *
+     * @return The connection
+     */
+    @Override
+    public Connection<HylaFAXClient> createConnection() {
+        // borrow client
+        HylaFAXClient client = this.pool.borrowResource();
+
+        // create connection
+        Connection<HylaFAXClient> connection = this.createConnectionForResource(client);
+
+        return connection;
+    }
+
+    /**
+     * Returns the client held by the connection to the pool.
+     *
+     * @param connection
+     *            The connection
+     */
+    @Override
+    public void releaseConnection(Connection<HylaFAXClient> connection) {
+        if (connection != null) {
+            this.pool.returnResource(connection.getResource(), true);
+        }
+    }
+
+    /**
+     * Releases the client held by the connection without returning it to the pool.
+     *
+     * @param connection
+     *            The connection
+     */
+    public void discardConnection(Connection<HylaFAXClient> connection) {
+        if (connection != null) {
+            this.pool.returnResource(connection.getResource(), false);
+        }
+    }
+
+    /**
+     * This function returns true if the client is still connected.
+     *
+     * @param client
+     *            The client
+     * @return True if the client is valid
+     */
+    protected boolean validateClient(HylaFAXClient client) {
+        boolean valid = true;
+        try {
+            client.noop();
+        } catch (Exception exception) {
+            this.LOGGER.logDebug(new Object[] { "Pooled client is no longer valid." }, exception);
+            valid = false;
+        }
+
+        return valid;
+    }
+
+    /**
+     * This class connects the clients pool to the connection factory.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class HylaFAXClientResourceHandler implements ResourceHandler<HylaFAXClient> {
+        /** The connection factory */
+        private final PooledHylaFAXClientConnectionFactory FACTORY;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param factory
+         *            The connection factory
+         */
+        protected HylaFAXClientResourceHandler(PooledHylaFAXClientConnectionFactory factory) {
+            super();
+
+            this.FACTORY = factory;
+        }
+
+        /**
+         * Creates and returns a new client.
+         *
+         * @return The client
+         */
+        public HylaFAXClient createResource() {
+            return this.FACTORY.createResourceImpl();
+        }
+
+        /**
+         * This function returns true if the idle client can be reused.
+         *
+         * @param resource
+         *            The client
+         * @return True if the client is valid
+         */
+        public boolean validateResource(HylaFAXClient resource) {
+            return this.FACTORY.validateClient(resource);
+        }
+
+        /**
+         * Releases the client.
+         *
+         * @param resource
+         *            The client
+         */
+        public void releaseResource(HylaFAXClient resource) {
+            this.FACTORY.releaseResource(resource);
+        }
+    }
+}
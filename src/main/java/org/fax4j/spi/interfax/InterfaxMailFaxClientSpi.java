@@ -1,5 +1,6 @@
 package org.fax4j.spi.interfax;
 
+import javax.mail.BodyPart;
 import javax.mail.Message;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
@@ -95,7 +96,7 @@ import org.fax4j.spi.email.MailResourcesHolder;
  *
  *
  * @author Sagie Gur-Ari
- * @version 1.04
+ * @version 1.05
  * @since 0.1
  */
 public class InterfaxMailFaxClientSpi extends MailFaxClientSpi {
@@ -167,15 +168,48 @@ public class InterfaxMailFaxClientSpi extends MailFaxClientSpi {
      */
     @Override
     protected Message createSubmitFaxJobMessage(FaxJob faxJob, MailResourcesHolder mailResourcesHolder) {
-        // set from
-        String from = faxJob.getSenderEmail();
-        if (from == null || from.length() == 0) {
-            throw new FaxException("From address not provided.");
-        }
+        // validate from
+        this.validateFromAddress(faxJob);
 
         // create message
         Message message = super.createSubmitFaxJobMessage(faxJob, mailResourcesHolder);
 
         return message;
     }
+
+    /**
+     * This function will create the submit fax job message with the provided attachment.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     * @param mailResourcesHolder
+     *            The mail resources holder
+     * @param attachment
+     *            The file attachment body part
+     * @return The message to send
+     */
+    @Override
+    protected Message createSubmitFaxJobMessage(FaxJob faxJob, MailResourcesHolder mailResourcesHolder,
+            BodyPart attachment) {
+        // validate from
+        this.validateFromAddress(faxJob);
+
+        // create message
+        Message message = super.createSubmitFaxJobMessage(faxJob, mailResourcesHolder, attachment);
+
+        return message;
+    }
+
+    /**
+     * This function validates the fax job from address is provided.
+     *
+     * @param faxJob
+     *            The fax job object containing the needed information
+     */
+    protected void validateFromAddress(FaxJob faxJob) {
+        String from = faxJob.getSenderEmail();
+        if (from == null || from.length() == 0) {
+            throw new FaxException("From address not provided.");
+        }
+    }
 }
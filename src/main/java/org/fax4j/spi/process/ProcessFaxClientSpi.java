@@ -1,10 +1,15 @@
 package org.fax4j.spi.process;
 
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
 import org.fax4j.FaxJobStatus;
 import org.fax4j.common.FaxActionType;
 import org.fax4j.spi.AbstractFax4JClientSpi;
+import org.fax4j.util.CompiledTemplate;
 import org.fax4j.util.ProcessExecutorHelper;
 import org.fax4j.util.ProcessExecutorHelper.ProcessOutput;
 import org.fax4j.util.ReflectionHelper;
@@ -54,6 +59,9 @@ import org.fax4j.util.SpiUtil;
  * <br>
  * In case there is no template defined for a certain fax action, this class will throw an UnsupportedOperationException
  * exception.<br>
+ * By default a new process is started for each fax action, in order to send the commands to long lived worker processes
+ * instead, set org.fax4j.process.executer.class.name to org.fax4j.util.WorkerProcessExecutor and define the worker
+ * command (see WorkerProcessExecutor for the worker protocol).<br>
  * <br>
  * The configuration of the fax4j framework is made up of 3 layers.<br>
  * The configuration is based on simple properties.<br>
@@ -116,6 +124,46 @@ import org.fax4j.util.SpiUtil;
  * <td>false</td>
  * </tr>
  * <tr>
+ * <td>org.fax4j.spi.process.submit.timeout</td>
+ * <td>The max time in millies to wait for the submit fax job process to end before killing it (if not defined, the
+ * org.fax4j.process.executer.timeout value is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.process.suspend.timeout</td>
+ * <td>The max time in millies to wait for the suspend fax job process to end before killing it (if not defined, the
+ * org.fax4j.process.executer.timeout value is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.process.resume.timeout</td>
+ * <td>The max time in millies to wait for the resume fax job process to end before killing it (if not defined, the
+ * org.fax4j.process.executer.timeout value is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.process.cancel.timeout</td>
+ * <td>The max time in millies to wait for the cancel fax job process to end before killing it (if not defined, the
+ * org.fax4j.process.executer.timeout value is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.spi.process.get.status.timeout</td>
+ * <td>The max time in millies to wait for the get fax job status process to end before killing it (if not defined, the
+ * org.fax4j.process.executer.timeout value is used).</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
  * <td>org.fax4j.spi.process.output.validator</td>
  * <td>The process output validator class name.</td>
  * <td>org.fax4j.spi.process.ExitCodeProcessOutputValidator</td>
@@ -152,7 +200,7 @@ import org.fax4j.util.SpiUtil;
  * <br>
  *
  * @author Sagie Gur-Ari
- * @version 1.13
+ * @version 1.16
  * @since 0.21e
  */
 public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
@@ -164,6 +212,10 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
     protected boolean useWindowsCommandPrefix;
     /** The windows command prefix value */
     private String windowsCommandPrefix;
+    /** The compiled templates cache */
+    private final ConcurrentMap<String, CompiledTemplate> COMPILED_TEMPLATES;
+    /** The process timeouts per fax action */
+    private Map<FaxActionType, Long> processTimeouts;
     /** The windows execute prefix */
     protected static final String WINDOWS_EXECUTE_PREFIX_DEFAULT_VALUE = "rundll32 SHELL32.DLL,ShellExec_RunDLL";
 
@@ -171,7 +223,7 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
      * This class holds the SPI configuration constants.
      *
      * @author Sagie Gur-Ari
-     * @version 1.02
+     * @version 1.03
      * @since 0.21e
      */
     public enum FaxClientSpiConfigurationConstants {
@@ -185,6 +237,16 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
         CANCEL_FAX_JOB_TEMPLATE_PRE_FORMAT_PROPERTY_KEY("org.fax4j.spi.{0}.cancel.template.command"),
         /** The get status fax job template command property key */
         GET_STATUS_FAX_JOB_TEMPLATE_PRE_FORMAT_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.template.command"),
+        /** The submit fax job process timeout property key */
+        SUBMIT_FAX_JOB_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.submit.timeout"),
+        /** The suspend fax job process timeout property key */
+        SUSPEND_FAX_JOB_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.suspend.timeout"),
+        /** The resume fax job process timeout property key */
+        RESUME_FAX_JOB_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.resume.timeout"),
+        /** The cancel fax job process timeout property key */
+        CANCEL_FAX_JOB_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.cancel.timeout"),
+        /** The get status fax job process timeout property key */
+        GET_STATUS_FAX_JOB_TIMEOUT_PROPERTY_KEY("org.fax4j.spi.{0}.get.status.timeout"),
         /** The process output validator property key */
         PROCESS_OUTPUT_VALIDATOR_PRE_FORMAT_PROPERTY_KEY("org.fax4j.spi.{0}.output.validator"),
         /** The process output handler property key */
@@ -225,6 +287,8 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
      */
     public ProcessFaxClientSpi() {
         super();
+
+        this.COMPILED_TEMPLATES = new ConcurrentHashMap<String, CompiledTemplate>();
     }
 
     /**
@@ -251,6 +315,53 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
 
         // create process output handler
         this.processOutputHandler = this.createProcessOutputHandler();
+
+        // get process timeouts
+        this.processTimeouts = new EnumMap<FaxActionType, Long>(FaxActionType.class);
+        this.initializeProcessTimeout(FaxActionType.SUBMIT_FAX_JOB,
+                FaxClientSpiConfigurationConstants.SUBMIT_FAX_JOB_TIMEOUT_PROPERTY_KEY);
+        this.initializeProcessTimeout(FaxActionType.SUSPEND_FAX_JOB,
+                FaxClientSpiConfigurationConstants.SUSPEND_FAX_JOB_TIMEOUT_PROPERTY_KEY);
+        this.initializeProcessTimeout(FaxActionType.RESUME_FAX_JOB,
+                FaxClientSpiConfigurationConstants.RESUME_FAX_JOB_TIMEOUT_PROPERTY_KEY);
+        this.initializeProcessTimeout(FaxActionType.CANCEL_FAX_JOB,
+                FaxClientSpiConfigurationConstants.CANCEL_FAX_JOB_TIMEOUT_PROPERTY_KEY);
+        this.initializeProcessTimeout(FaxActionType.GET_FAX_JOB_STATUS,
+                FaxClientSpiConfigurationConstants.GET_STATUS_FAX_JOB_TIMEOUT_PROPERTY_KEY);
+    }
+
+    /**
+     * This function reads the process timeout of the provided fax action from the configuration.
+     *
+     * @param faxActionType
+     *            The fax action type
+     * @param key
+     *            The timeout property key
+     */
+    private void initializeProcessTimeout(FaxActionType faxActionType, FaxClientSpiConfigurationConstants key) {
+        String value = this.getConfigurationValue(key);
+        if (value != null) {
+            this.processTimeouts.put(faxActionType, Long.valueOf(value));
+        }
+    }
+
+    /**
+     * This function returns the process timeout of the provided fax action.
+     *
+     * @param faxActionType
+     *            The fax action type
+     * @return The process timeout in millies (0 to use the process executer configuration)
+     */
+    protected long getProcessTimeout(FaxActionType faxActionType) {
+        long timeout = 0;
+        if (this.processTimeouts != null) {
+            Long value = this.processTimeouts.get(faxActionType);
+            if (value != null) {
+                timeout = value.longValue();
+            }
+        }
+
+        return timeout;
     }
 
     /**
@@ -462,8 +573,9 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
             updatedCommand = buffer.toString();
         }
 
-        // execute process
-        ProcessOutput processOutput = ProcessExecutorHelper.executeProcess(this, updatedCommand);
+        // execute process (hung processes are killed once the action timeout is reached)
+        long timeout = this.getProcessTimeout(faxActionType);
+        ProcessOutput processOutput = ProcessExecutorHelper.executeProcess(this, updatedCommand, timeout);
 
         // validate output (if not valid, an exception should be thrown)
         this.validateProcessOutput(processOutput, faxActionType);
@@ -484,7 +596,16 @@ public class ProcessFaxClientSpi extends AbstractFax4JClientSpi {
      * @return The formatted template
      */
     protected String formatTemplate(String template, FaxJob faxJob) {
-        return SpiUtil.formatTemplate(template, faxJob, null, false, true);
+        String text = null;
+        if (template != null) {
+            // get compiled template (templates are compiled once)
+            CompiledTemplate compiledTemplate = SpiUtil.getCompiledTemplate(template, this.COMPILED_TEMPLATES);
+
+            // format template
+            text = compiledTemplate.format(faxJob, null, false, true);
+        }
+
+        return text;
     }
 
     /**
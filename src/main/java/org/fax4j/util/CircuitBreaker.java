@@ -0,0 +1,280 @@
+package org.fax4j.util;
+
+import org.fax4j.FaxException;
+
+/**
+ * This class provides a count based circuit breaker.<br>
+ * The circuit breaker records the outcome of the last calls in a sliding window and opens once the failure rate or the
+ * slow call rate reaches the configured thresholds.<br>
+ * While open, no calls are permitted until the open duration passes, after which the circuit breaker moves to half
+ * open and permits a limited amount of probe calls.<br>
+ * Based on the probe calls outcome, the circuit breaker closes again or goes back to open.<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class CircuitBreaker {
+    /** The sliding window size */
+    private final int WINDOW_SIZE;
+    /** The minimum amount of recorded calls before the rates are checked */
+    private final int MINIMUM_CALLS;
+    /** The failure rate threshold (percentage) */
+    private final int FAILURE_RATE_THRESHOLD;
+    /** The slow call duration in millies (0 to disable slow call detection) */
+    private final long SLOW_CALL_DURATION;
+    /** The slow call rate threshold (percentage) */
+    private final int SLOW_CALL_RATE_THRESHOLD;
+    /** The open state duration in millies */
+    private final long OPEN_DURATION;
+    /** The amount of probe calls permitted while half open */
+    private final int HALF_OPEN_CALLS;
+    /** The failed flags of the recorded calls */
+    private final boolean[] FAILED_CALLS;
+    /** The slow flags of the recorded calls */
+    private final boolean[] SLOW_CALLS;
+    /** The current state */
+    private State state;
+    /** The next sliding window position */
+    private int position;
+    /** The amount of recorded calls */
+    private int recordedCalls;
+    /** The amount of failed calls in the sliding window */
+    private int failedCalls;
+    /** The amount of slow calls in the sliding window */
+    private int slowCalls;
+    /** The time the circuit breaker opened */
+    private long openTime;
+    /** The amount of permitted probe calls since the circuit breaker became half open */
+    private int permittedProbeCalls;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param windowSize
+     *            The sliding window size
+     * @param minimumCalls
+     *            The minimum amount of recorded calls before the rates are checked
+     * @param failureRateThreshold
+     *            The failure rate threshold (percentage)
+     * @param slowCallDuration
+     *            The slow call duration in millies (0 to disable slow call detection)
+     * @param slowCallRateThreshold
+     *            The slow call rate threshold (percentage)
+     * @param openDuration
+     *            The open state duration in millies
+     * @param halfOpenCalls
+     *            The amount of probe calls permitted while half open (up to the window size)
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long slowCallDuration,
+            int slowCallRateThreshold, long openDuration, int halfOpenCalls) {
+        super();
+
+        if (windowSize <= 0) {
+            throw new FaxException("Invalid circuit breaker window size: " + windowSize);
+        }
+        if (halfOpenCalls <= 0 || halfOpenCalls > windowSize) {
+            throw new FaxException("Invalid circuit breaker half open calls: " + halfOpenCalls
+                    + " (must be between 1 and the window size: " + windowSize + ")");
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100) {
+            throw new FaxException("Invalid circuit breaker failure rate threshold: " + failureRateThreshold);
+        }
+        if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+            throw new FaxException("Invalid circuit breaker slow call rate threshold: " + slowCallRateThreshold);
+        }
+
+        this.WINDOW_SIZE = windowSize;
+        this.MINIMUM_CALLS = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.FAILURE_RATE_THRESHOLD = failureRateThreshold;
+        this.SLOW_CALL_DURATION = slowCallDuration;
+        this.SLOW_CALL_RATE_THRESHOLD = slowCallRateThreshold;
+        this.OPEN_DURATION = openDuration;
+        this.HALF_OPEN_CALLS = halfOpenCalls;
+        this.FAILED_CALLS = new boolean[windowSize];
+        this.SLOW_CALLS = new boolean[windowSize];
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * This function returns the current state.
+     *
+     * @return The current state
+     */
+    public synchronized State getState() {
+        this.updateState(System.currentTimeMillis());
+
+        return this.state;
+    }
+
+    /**
+     * This function returns true if a call is currently permitted.<br>
+     * In case the call is permitted, the caller must record the call outcome (see recordCall) or release the
+     * permission (see releasePermission) if the call was not made.
+     *
+     * @return True if the call is permitted
+     */
+    public synchronized boolean tryAcquirePermission() {
+        this.updateState(System.currentTimeMillis());
+
+        boolean permitted = true;
+        switch (this.state) {
+        case OPEN:
+            permitted = false;
+            break;
+        case HALF_OPEN:
+            permitted = this.permittedProbeCalls < this.HALF_OPEN_CALLS;
+            if (permitted) {
+                this.permittedProbeCalls++;
+            }
+            break;
+        default:
+            break;
+        }
+
+        return permitted;
+    }
+
+    /**
+     * This function releases a permission which was acquired but not used for a call.
+     */
+    public synchronized void releasePermission() {
+        if (this.state == State.HALF_OPEN && this.permittedProbeCalls > 0) {
+            this.permittedProbeCalls--;
+        }
+    }
+
+    /**
+     * This function records the outcome of a permitted call.
+     *
+     * @param duration
+     *            The call duration in millies
+     * @param failed
+     *            True if the call failed
+     */
+    public synchronized void recordCall(long duration, boolean failed) {
+        boolean slow = this.SLOW_CALL_DURATION > 0 && duration >= this.SLOW_CALL_DURATION;
+
+        switch (this.state) {
+        case CLOSED:
+            this.addToWindow(failed, slow);
+            if (this.recordedCalls >= this.MINIMUM_CALLS && this.isThresholdReached(this.recordedCalls)) {
+                this.open(System.currentTimeMillis());
+            }
+            break;
+        case HALF_OPEN:
+            this.addToWindow(failed, slow);
+            if (this.recordedCalls >= this.HALF_OPEN_CALLS) {
+                if (this.isThresholdReached(this.recordedCalls)) {
+                    this.open(System.currentTimeMillis());
+                } else {
+                    this.transition(State.CLOSED);
+                }
+            }
+            break;
+        default:
+            // calls which started before the circuit breaker opened are ignored
+            break;
+        }
+    }
+
+    /**
+     * This function moves from open to half open in case the open duration passed.
+     *
+     * @param currentTime
+     *            The current time
+     */
+    private void updateState(long currentTime) {
+        if (this.state == State.OPEN && currentTime - this.openTime >= this.OPEN_DURATION) {
+            this.transition(State.HALF_OPEN);
+        }
+    }
+
+    /**
+     * This function opens the circuit breaker.
+     *
+     * @param currentTime
+     *            The current time
+     */
+    private void open(long currentTime) {
+        this.transition(State.OPEN);
+        this.openTime = currentTime;
+    }
+
+    /**
+     * This function moves to the provided state and resets the sliding window.
+     *
+     * @param newState
+     *            The new state
+     */
+    private void transition(State newState) {
+        this.state = newState;
+        this.position = 0;
+        this.recordedCalls = 0;
+        this.failedCalls = 0;
+        this.slowCalls = 0;
+        this.permittedProbeCalls = 0;
+    }
+
+    /**
+     * This function adds the call outcome to the sliding window.
+     *
+     * @param failed
+     *            True if the call failed
+     * @param slow
+     *            True if the call was slow
+     */
+    private void addToWindow(boolean failed, boolean slow) {
+        // remove oldest outcome
+        if (this.recordedCalls == this.WINDOW_SIZE) {
+            if (this.FAILED_CALLS[this.position]) {
+                this.failedCalls--;
+            }
+            if (this.SLOW_CALLS[this.position]) {
+                this.slowCalls--;
+            }
+        } else {
+            this.recordedCalls++;
+        }
+
+        // add outcome
+        this.FAILED_CALLS[this.position] = failed;
+        this.SLOW_CALLS[this.position] = slow;
+        if (failed) {
+            this.failedCalls++;
+        }
+        if (slow) {
+            this.slowCalls++;
+        }
+        this.position = (this.position + 1) % this.WINDOW_SIZE;
+    }
+
+    /**
+     * This function returns true if the failure rate or slow call rate reached the thresholds.
+     *
+     * @param calls
+     *            The amount of calls to calculate the rates by
+     * @return True if a threshold was reached
+     */
+    private boolean isThresholdReached(int calls) {
+        return (this.failedCalls * 100) >= (this.FAILURE_RATE_THRESHOLD * calls)
+                || (this.slowCalls * 100) >= (this.SLOW_CALL_RATE_THRESHOLD * calls);
+    }
+
+    /**
+     * The circuit breaker states.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public enum State {
+        /** Calls are permitted and recorded */
+        CLOSED,
+        /** Calls are not permitted */
+        OPEN,
+        /** A limited amount of probe calls are permitted */
+        HALF_OPEN
+    }
+}
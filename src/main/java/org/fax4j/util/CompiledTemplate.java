@@ -0,0 +1,407 @@
+package org.fax4j.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.common.Logger;
+import org.fax4j.common.LoggerManager;
+import org.fax4j.util.SpiUtil.TemplateParameterEncoder;
+
+/**
+ * This class holds a template which was parsed once into text and parameter segments.<br>
+ * Formatting a compiled template only appends the segments and the fax job values to a thread buffer (no search and
+ * replace passes over the whole template).<br>
+ * Template parameters are defined as ${name} (see SpiUtil template parameter constants), unknown parameters are kept
+ * as is in the formatted text.<br>
+ * Compiled templates are immutable and can be used by multiple threads.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.01
+ * @since 0.46.0
+ */
+public final class CompiledTemplate {
+    /** The max buffer capacity kept for reuse by the formatting threads */
+    private static final int MAX_REUSED_BUFFER_SIZE = 16384;
+    /** The formatting buffer of each thread */
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>();
+    /** The template */
+    private final String TEMPLATE;
+    /** The text segments (one more than the parameter segments) */
+    private final String[] TEXT_SEGMENTS;
+    /** The parameter segments (each placed after the text segment with the same index) */
+    private final TemplateParameter[] PARAMETER_SEGMENTS;
+    /** True if the template contains the file parameter */
+    private final boolean CONTAINS_FILE_PARAMETER;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param template
+     *            The template
+     * @param textSegments
+     *            The text segments
+     * @param parameterSegments
+     *            The parameter segments
+     */
+    private CompiledTemplate(String template, String[] textSegments, TemplateParameter[] parameterSegments) {
+        super();
+
+        this.TEMPLATE = template;
+        this.TEXT_SEGMENTS = textSegments;
+        this.PARAMETER_SEGMENTS = parameterSegments;
+
+        boolean containsFileParameter = false;
+        for (int index = 0; index < parameterSegments.length; index++) {
+            if (parameterSegments[index] == TemplateParameter.FILE) {
+                containsFileParameter = true;
+                break;
+            }
+        }
+        this.CONTAINS_FILE_PARAMETER = containsFileParameter;
+    }
+
+    /**
+     * This function parses the provided template into a compiled template.
+     *
+     * @param template
+     *            The template
+     * @return The compiled template (null if the template is null)
+     */
+    public static CompiledTemplate compile(String template) {
+        CompiledTemplate compiledTemplate = null;
+        if (template != null) {
+            List<String> textSegments = new ArrayList<String>();
+            List<TemplateParameter> parameterSegments = new ArrayList<TemplateParameter>();
+
+            StringBuilder text = new StringBuilder(template.length());
+            int prefixLength = SpiUtil.TEMPLATE_PARAMETER_PREFIX.length();
+            int position = 0;
+            int prefixIndex = 0;
+            int suffixIndex = 0;
+            TemplateParameter parameter = null;
+            while (position < template.length()) {
+                // find next parameter
+                prefixIndex = template.indexOf(SpiUtil.TEMPLATE_PARAMETER_PREFIX, position);
+                suffixIndex = -1;
+                if (prefixIndex != -1) {
+                    suffixIndex = template.indexOf(SpiUtil.TEMPLATE_PARAMETER_SUFFIX, prefixIndex + prefixLength);
+                }
+
+                if (suffixIndex == -1) {
+                    // no more parameters
+                    text.append(template, position, template.length());
+                    position = template.length();
+                } else {
+                    text.append(template, position, prefixIndex);
+
+                    // get parameter
+                    parameter = TemplateParameter.getTemplateParameter(template.substring(prefixIndex + prefixLength,
+                            suffixIndex));
+                    if (parameter == null) {
+                        // keep unknown parameters as text
+                        text.append(template, prefixIndex, prefixIndex + prefixLength);
+                        position = prefixIndex + prefixLength;
+                    } else {
+                        textSegments.add(text.toString());
+                        text.setLength(0);
+                        parameterSegments.add(parameter);
+                        position = suffixIndex + SpiUtil.TEMPLATE_PARAMETER_SUFFIX.length();
+                    }
+                }
+            }
+            textSegments.add(text.toString());
+
+            compiledTemplate = new CompiledTemplate(template, textSegments.toArray(new String[textSegments.size()]),
+                    parameterSegments.toArray(new TemplateParameter[parameterSegments.size()]));
+        }
+
+        return compiledTemplate;
+    }
+
+    /**
+     * This function returns the template.
+     *
+     * @return The template
+     */
+    public String getTemplate() {
+        return this.TEMPLATE;
+    }
+
+    /**
+     * This function returns true if the template contains the provided parameter.
+     *
+     * @param parameter
+     *            The template parameter
+     * @return True if the template contains the parameter
+     */
+    public boolean containsParameter(TemplateParameter parameter) {
+        boolean found = false;
+        for (int index = 0; index < this.PARAMETER_SEGMENTS.length; index++) {
+            if (this.PARAMETER_SEGMENTS[index] == parameter) {
+                found = true;
+                break;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * This function formats the template.
+     *
+     * @param faxJob
+     *            The fax job object
+     * @param encoder
+     *            The encoder that encodes the template values (may be null)
+     * @param getFileContent
+     *            True to get the file content, false to get the file path for the file template parameter
+     * @param fullFilePath
+     *            If getFileContent=false, the param will be replaced to the file name (full path in case this is true,
+     *            or just the name in case of false)
+     * @return The formatted template
+     */
+    public String format(FaxJob faxJob, TemplateParameterEncoder encoder, boolean getFileContent,
+            boolean fullFilePath) {
+        // get logger
+        LoggerManager loggerManager = LoggerManager.getInstance();
+        Logger logger = loggerManager.getLogger();
+
+        // log
+        logger.logDebug(new Object[] { "Formatting template:", Logger.SYSTEM_EOL, this.TEMPLATE }, null);
+
+        String text = this.TEXT_SEGMENTS[0];
+        if (this.PARAMETER_SEGMENTS.length > 0) {
+            // get file value (read once)
+            String fileValue = null;
+            if (this.CONTAINS_FILE_PARAMETER) {
+                fileValue = CompiledTemplate.getFileParameterValue(faxJob, getFileContent, fullFilePath);
+                fileValue = CompiledTemplate.encodeValue(fileValue, encoder);
+            }
+
+            // get buffer
+            StringBuilder buffer = BUFFER.get();
+            if (buffer == null) {
+                buffer = new StringBuilder(Math.max(this.TEMPLATE.length() * 2, 256));
+                BUFFER.set(buffer);
+            }
+
+            try {
+                // render
+                buffer.append(this.TEXT_SEGMENTS[0]);
+                TemplateParameter parameter = null;
+                for (int index = 0; index < this.PARAMETER_SEGMENTS.length; index++) {
+                    parameter = this.PARAMETER_SEGMENTS[index];
+                    if (parameter == TemplateParameter.FILE) {
+                        buffer.append(fileValue);
+                    } else {
+                        buffer.append(CompiledTemplate.encodeValue(parameter.getValue(faxJob), encoder));
+                    }
+                    buffer.append(this.TEXT_SEGMENTS[index + 1]);
+                }
+
+                text = buffer.toString();
+            } finally {
+                buffer.setLength(0);
+                if (buffer.capacity() > CompiledTemplate.MAX_REUSED_BUFFER_SIZE) {
+                    // do not keep large buffers (for example after file content formatting)
+                    BUFFER.remove();
+                }
+            }
+        }
+
+        // log
+        logger.logDebug(new Object[] { "Formated template:", Logger.SYSTEM_EOL, text }, null);
+
+        return text;
+    }
+
+    /**
+     * This function formats the template without the file parameter values.<br>
+     * The returned text parts are the formatted template split at each file parameter, so that the file content can
+     * be streamed between them instead of being loaded into memory.
+     *
+     * @param faxJob
+     *            The fax job object
+     * @param encoder
+     *            The encoder that encodes the template values (may be null)
+     * @return The formatted text parts (one more than the amount of file parameters)
+     */
+    public String[] formatAroundFileParameter(FaxJob faxJob, TemplateParameterEncoder encoder) {
+        List<String> textParts = new ArrayList<String>();
+        StringBuilder buffer = new StringBuilder(Math.max(this.TEMPLATE.length(), 16));
+        buffer.append(this.TEXT_SEGMENTS[0]);
+        TemplateParameter parameter = null;
+        for (int index = 0; index < this.PARAMETER_SEGMENTS.length; index++) {
+            parameter = this.PARAMETER_SEGMENTS[index];
+            if (parameter == TemplateParameter.FILE) {
+                textParts.add(buffer.toString());
+                buffer.setLength(0);
+            } else {
+                buffer.append(CompiledTemplate.encodeValue(parameter.getValue(faxJob), encoder));
+            }
+            buffer.append(this.TEXT_SEGMENTS[index + 1]);
+        }
+        textParts.add(buffer.toString());
+
+        return textParts.toArray(new String[textParts.size()]);
+    }
+
+    /**
+     * This function returns the encoded template value.
+     *
+     * @param value
+     *            The value
+     * @param encoder
+     *            The encoder that encodes the template values (may be null)
+     * @return The encoded value (empty string for null values)
+     */
+    private static String encodeValue(String value, TemplateParameterEncoder encoder) {
+        String updatedValue = value;
+        if (updatedValue == null) {
+            updatedValue = SpiUtil.EMPTY_STRING;
+        } else if (encoder != null) {
+            updatedValue = encoder.encodeTemplateParameter(updatedValue);
+        }
+
+        return updatedValue;
+    }
+
+    /**
+     * This function returns the file parameter value.
+     *
+     * @param faxJob
+     *            The fax job object
+     * @param getFileContent
+     *            True to get the file content, false to get the file path
+     * @param fullFilePath
+     *            If getFileContent=false, full path in case this is true, or just the name in case of false
+     * @return The file parameter value
+     */
+    private static String getFileParameterValue(FaxJob faxJob, boolean getFileContent, boolean fullFilePath) {
+        String value = null;
+        if (getFileContent) {
+            File file = faxJob.getFile();
+            if (file != null) {
+                try {
+                    // read file (only text files supported)
+                    value = IOHelper.readTextFile(file);
+                } catch (IOException exception) {
+                    throw new FaxException("Error while reading file.", exception);
+                }
+            }
+        } else if (fullFilePath) {
+            value = faxJob.getFilePath();
+        } else {
+            File file = faxJob.getFile();
+            value = file.getName();
+        }
+
+        return value;
+    }
+
+    /**
+     * This enum holds the supported template parameters.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public enum TemplateParameter {
+        /** The file template parameter */
+        FILE(SpiUtil.FILE_TEMPLATE_PARAMETER),
+        /** The target address template parameter */
+        TARGET_ADDRESS(SpiUtil.TARGET_ADDRESS_TEMPLATE_PARAMETER),
+        /** The target name template parameter */
+        TARGET_NAME(SpiUtil.TARGET_NAME_TEMPLATE_PARAMETER),
+        /** The sender name template parameter */
+        SENDER_NAME(SpiUtil.SENDER_NAME_TEMPLATE_PARAMETER),
+        /** The sender fax number template parameter */
+        SENDER_FAX_NUMBER(SpiUtil.SENDER_FAX_NUMBER_TEMPLATE_PARAMETER),
+        /** The sender email template parameter */
+        SENDER_EMAIL(SpiUtil.SENDER_EMAIL_TEMPLATE_PARAMETER),
+        /** The fax job ID template parameter */
+        FAX_JOB_ID(SpiUtil.FAX_JOB_ID_TEMPLATE_PARAMETER);
+
+        /** The string value */
+        private String value;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param value
+         *            The string value
+         */
+        TemplateParameter(String value) {
+            this.value = value;
+        }
+
+        /**
+         * This function returns the template parameter for the provided parameter name.
+         *
+         * @param name
+         *            The parameter name
+         * @return The template parameter (null if not supported)
+         */
+        public static TemplateParameter getTemplateParameter(String name) {
+            TemplateParameter[] parameters = TemplateParameter.values();
+            TemplateParameter parameter = null;
+            for (int index = 0; index < parameters.length; index++) {
+                if (parameters[index].value.equals(name)) {
+                    parameter = parameters[index];
+                    break;
+                }
+            }
+
+            return parameter;
+        }
+
+        /**
+         * This function returns the fax job value of this template parameter (not supported for the file
+         * parameter).
+         *
+         * @param faxJob
+         *            The fax job object
+         * @return The value
+         */
+        protected String getValue(FaxJob faxJob) {
+            String output = null;
+            switch (this) {
+            case TARGET_ADDRESS:
+                output = faxJob.getTargetAddress();
+                break;
+            case TARGET_NAME:
+                output = faxJob.getTargetName();
+                break;
+            case SENDER_NAME:
+                output = faxJob.getSenderName();
+                break;
+            case SENDER_FAX_NUMBER:
+                output = faxJob.getSenderFaxNumber();
+                break;
+            case SENDER_EMAIL:
+                output = faxJob.getSenderEmail();
+                break;
+            case FAX_JOB_ID:
+                output = faxJob.getID();
+                break;
+            default:
+                throw new FaxException("Template parameter: " + this + " value not supported.");
+            }
+
+            return output;
+        }
+
+        /**
+         * This function returns the string value.
+         *
+         * @return The string value
+         */
+        @Override
+        public final String toString() {
+            return this.value;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package org.fax4j.util;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxException;
+
+/**
+ * This class provides a simple bounded pool of connection resources.<br>
+ * Resources are borrowed and returned by the caller threads, up to the max pool size resources can be used at the
+ * same time and additional callers will wait up to the borrow timeout for a resource to be returned.<br>
+ * Idle resources are validated before they are handed out and resources which are idle for more than the idle
+ * timeout are released (apart of the min idle resources which are kept open).<br>
+ * The most recently returned resources are handed out first, so that unneeded resources become idle and get evicted.
+ *
+ * @param <T>
+ *            The resource type
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class ConnectionPool<T> extends AbstractCloseable {
+    /** The resource handler */
+    private final ResourceHandler<T> RESOURCE_HANDLER;
+    /** The min amount of idle resources kept open */
+    private final int MIN_IDLE;
+    /** The max amount of resources */
+    private final int MAX_SIZE;
+    /** The max time in millies to wait for a resource */
+    private final long BORROW_TIMEOUT;
+    /** The time in millies after which idle resources are released (0 to disable) */
+    private final long IDLE_TIMEOUT;
+    /** The permits of the borrowed resources */
+    private final Semaphore PERMITS;
+    /** The idle resources (most recently used first) */
+    private final LinkedList<PooledResource<T>> IDLE_RESOURCES;
+    /** True once the pool is closed */
+    private volatile boolean closed;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param resourceHandler
+     *            The resource handler
+     * @param minIdle
+     *            The min amount of idle resources kept open
+     * @param maxSize
+     *            The max amount of resources
+     * @param borrowTimeout
+     *            The max time in millies to wait for a resource
+     * @param idleTimeout
+     *            The time in millies after which idle resources are released (0 to disable)
+     */
+    public ConnectionPool(ResourceHandler<T> resourceHandler, int minIdle, int maxSize, long borrowTimeout,
+            long idleTimeout) {
+        super();
+
+        if (resourceHandler == null) {
+            throw new FaxException("Resource handler not provided.");
+        }
+        if (maxSize <= 0) {
+            throw new FaxException("Invalid pool max size: " + maxSize);
+        }
+        if (minIdle < 0 || minIdle > maxSize) {
+            throw new FaxException("Invalid pool min idle size: " + minIdle);
+        }
+
+        this.RESOURCE_HANDLER = resourceHandler;
+        this.MIN_IDLE = minIdle;
+        this.MAX_SIZE = maxSize;
+        this.BORROW_TIMEOUT = borrowTimeout;
+        this.IDLE_TIMEOUT = idleTimeout;
+        this.PERMITS = new Semaphore(maxSize, true);
+        this.IDLE_RESOURCES = new LinkedList<PooledResource<T>>();
+        this.closed = false;
+    }
+
+    /**
+     * This function borrows a resource from the pool.<br>
+     * An idle resource is reused if available and valid, otherwise a new resource is created.<br>
+     * The resource must be returned to the pool once no longer used.
+     *
+     * @return The resource
+     */
+    public T borrowResource() {
+        if (this.closed) {
+            throw new FaxException("Connection pool is closed.");
+        }
+
+        // wait for permit
+        boolean permitAcquired = false;
+        try {
+            permitAcquired = this.PERMITS.tryAcquire(this.BORROW_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new FaxException("Interrupted while waiting for pooled connection.", exception);
+        }
+        if (!permitAcquired) {
+            throw new FaxException("Timeout while waiting for pooled connection, all " + this.MAX_SIZE
+                    + " connections are in use.");
+        }
+
+        T resource = null;
+        try {
+            PooledResource<T> pooledResource = null;
+            while (resource == null) {
+                // get most recently used idle resource
+                synchronized (this.IDLE_RESOURCES) {
+                    pooledResource = this.IDLE_RESOURCES.poll();
+                }
+
+                if (pooledResource == null) {
+                    // create new resource
+                    resource = this.RESOURCE_HANDLER.createResource();
+                    if (resource == null) {
+                        throw new FaxException("Unable to create pooled resource.");
+                    }
+                } else if (this.isExpired(pooledResource, System.currentTimeMillis())
+                        || !this.RESOURCE_HANDLER.validateResource(pooledResource.RESOURCE)) {
+                    // drop stale resource
+                    this.RESOURCE_HANDLER.releaseResource(pooledResource.RESOURCE);
+                } else {
+                    resource = pooledResource.RESOURCE;
+                }
+            }
+        } finally {
+            if (resource == null) {
+                this.PERMITS.release();
+            }
+        }
+
+        return resource;
+    }
+
+    /**
+     * This function returns a borrowed resource to the pool.
+     *
+     * @param resource
+     *            The resource
+     * @param valid
+     *            False if the resource should be released and not reused
+     */
+    public void returnResource(T resource, boolean valid) {
+        if (resource != null) {
+            try {
+                boolean release = this.closed || !valid;
+                if (!release) {
+                    synchronized (this.IDLE_RESOURCES) {
+                        this.IDLE_RESOURCES.addFirst(new PooledResource<T>(resource, System.currentTimeMillis()));
+                    }
+                }
+                if (release) {
+                    this.RESOURCE_HANDLER.releaseResource(resource);
+                }
+            } finally {
+                this.PERMITS.release();
+            }
+
+            // release old idle resources
+            this.evictIdleResources();
+        }
+    }
+
+    /**
+     * This function releases the resources which are idle for more than the idle timeout (apart of the min idle
+     * resources).
+     */
+    public void evictIdleResources() {
+        if (this.IDLE_TIMEOUT > 0) {
+            List<PooledResource<T>> expiredResources = new LinkedList<PooledResource<T>>();
+            long now = System.currentTimeMillis();
+            synchronized (this.IDLE_RESOURCES) {
+                // oldest resources are at the end of the list
+                PooledResource<T> pooledResource = null;
+                while (this.IDLE_RESOURCES.size() > this.MIN_IDLE) {
+                    pooledResource = this.IDLE_RESOURCES.getLast();
+                    if (!this.isExpired(pooledResource, now)) {
+                        break;
+                    }
+
+                    expiredResources.add(this.IDLE_RESOURCES.removeLast());
+                }
+            }
+
+            // release outside of the lock
+            for (int index = 0; index < expiredResources.size(); index++) {
+                this.RESOURCE_HANDLER.releaseResource(expiredResources.get(index).RESOURCE);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of idle resources.
+     *
+     * @return The amount of idle resources
+     */
+    public int getIdleCount() {
+        synchronized (this.IDLE_RESOURCES) {
+            return this.IDLE_RESOURCES.size();
+        }
+    }
+
+    /**
+     * Returns the amount of borrowed resources.
+     *
+     * @return The amount of borrowed resources
+     */
+    public int getActiveCount() {
+        return this.MAX_SIZE - this.PERMITS.availablePermits();
+    }
+
+    /**
+     * This function returns true if the pooled resource is idle for more than the idle timeout.
+     *
+     * @param pooledResource
+     *            The pooled resource
+     * @param now
+     *            The current time
+     * @return True if expired
+     */
+    private boolean isExpired(PooledResource<T> pooledResource, long now) {
+        return this.IDLE_TIMEOUT > 0 && now - pooledResource.LAST_USED_TIME > this.IDLE_TIMEOUT;
+    }
+
+    /**
+     * Closes the pool and releases all idle resources.<br>
+     * Borrowed resources are released once returned.
+     */
+    @Override
+    protected void closeImpl() {
+        this.closed = true;
+
+        List<PooledResource<T>> idleResources = null;
+        synchronized (this.IDLE_RESOURCES) {
+            idleResources = new LinkedList<PooledResource<T>>(this.IDLE_RESOURCES);
+            this.IDLE_RESOURCES.clear();
+        }
+
+        for (int index = 0; index < idleResources.size(); index++) {
+            this.RESOURCE_HANDLER.releaseResource(idleResources.get(index).RESOURCE);
+        }
+    }
+
+    /**
+     * This interface defines the pooled resources life cycle functions.
+     *
+     * @param <T>
+     *            The resource type
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public static interface ResourceHandler<T> {
+        /**
+         * Creates and returns a new resource.
+         *
+         * @return The resource
+         */
+        T createResource();
+
+        /**
+         * This function returns true if the idle resource can be reused.
+         *
+         * @param resource
+         *            The resource
+         * @return True if the resource is valid
+         */
+        boolean validateResource(T resource);
+
+        /**
+         * Releases the resource.
+         *
+         * @param resource
+         *            The resource
+         */
+        void releaseResource(T resource);
+    }
+
+    /**
+     * This class holds an idle resource.
+     *
+     * @param <T>
+     *            The resource type
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class PooledResource<T> {
+        /** The resource */
+        protected final T RESOURCE;
+        /** The time the resource was returned to the pool */
+        protected final long LAST_USED_TIME;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param resource
+         *            The resource
+         * @param lastUsedTime
+         *            The time the resource was returned to the pool
+         */
+        protected PooledResource(T resource, long lastUsedTime) {
+            super();
+
+            this.RESOURCE = resource;
+            this.LAST_USED_TIME = lastUsedTime;
+        }
+    }
+}
@@ -1,23 +1,62 @@
 package org.fax4j.util;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.LinkedList;
 import java.util.List;
 import org.fax4j.FaxException;
 import org.fax4j.common.ConfigurationHolder;
-import org.fax4j.util.IOHelper.OutputReadThread;
 import org.fax4j.util.ProcessExecutorHelper.ProcessOutput;
 
 /**
  * The process executer enables to execute native processes.<br>
- * This class provides the default implementation of the executer.
+ * This class provides the default implementation of the executer.<br>
+ * The process output is polled by the invoking thread (no additional threads are used per process) into capped
+ * buffers, in case the output exceeds the max size, only the last part of the output is kept.<br>
+ * Processes which did not end before the configured timeout are killed.<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.process.executer.timeout</td>
+ * <td>The max time in millies to wait for the process to end before killing it (0 for no timeout).</td>
+ * <td>0</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.process.executer.output.max.size</td>
+ * <td>The max amount of bytes kept for the process output and for the process error output (0 for unlimited).</td>
+ * <td>1048576</td>
+ * <td>1048576</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
  *
  * @author Sagie Gur-Ari
- * @version 1.02
+ * @version 1.03
  * @since 0.40.1
  */
 public class DefaultProcessExecutor extends AbstractProcessExecutor {
+    /** The default max output size */
+    private static final int DEFAULT_OUTPUT_MAX_SIZE = 1048576;
+    /** The read buffer size */
+    private static final int READ_BUFFER_SIZE = 4096;
+    /** The min time in millies to wait between process output polls */
+    private static final long MIN_POLL_INTERVAL = 1;
+    /** The max time in millies to wait between process output polls */
+    private static final long MAX_POLL_INTERVAL = 50;
+
     /**
      * This is the class constructor.
      */
@@ -26,7 +65,9 @@ public class DefaultProcessExecutor extends AbstractProcessExecutor {
     }
 
     /**
-     * This function executes the given command and returns the process output.
+     * This function executes the given command and returns the process output.<br>
+     * The process output is polled by the invoking thread into capped buffers and the process is killed in case it
+     * did not end before the configured timeout.
      *
      * @param configurationHolder
      *            The configuration holder used when invoking the process
@@ -41,34 +82,217 @@ public class DefaultProcessExecutor extends AbstractProcessExecutor {
     @Override
     protected ProcessOutput executeProcessImpl(ConfigurationHolder configurationHolder, String command)
             throws IOException, InterruptedException {
+        // get configuration
+        long timeout = DefaultProcessExecutor.parseLong(
+                configurationHolder.getConfigurationValue(ProcessExecutor.PROCESS_TIMEOUT_PROPERTY_KEY), 0);
+        long maxOutputSize = DefaultProcessExecutor.parseLong(
+                configurationHolder.getConfigurationValue(ProcessExecutor.PROCESS_OUTPUT_MAX_SIZE_PROPERTY_KEY),
+                DefaultProcessExecutor.DEFAULT_OUTPUT_MAX_SIZE);
+        if (maxOutputSize < 0 || maxOutputSize > Integer.MAX_VALUE) {
+            throw new FaxException("Invalid process output max size: " + maxOutputSize);
+        }
+
         // parse command
         List<String> commandList = this.parseCommand(configurationHolder, command);
 
         // invoke process
         ProcessBuilder processBuilder = new ProcessBuilder(commandList);
         Process process = processBuilder.start();
+        InputStream outputStream = process.getInputStream();
+        InputStream errorStream = process.getErrorStream();
+
+        OutputStream outputBuffer = DefaultProcessExecutor.createOutputBuffer((int) maxOutputSize);
+        OutputStream errorBuffer = DefaultProcessExecutor.createOutputBuffer((int) maxOutputSize);
+        byte[] buffer = new byte[DefaultProcessExecutor.READ_BUFFER_SIZE];
+        long endTime = System.currentTimeMillis() + timeout;
+        long pollInterval = DefaultProcessExecutor.MIN_POLL_INTERVAL;
+        Integer exitCode = null;
+        boolean timedOut = false;
+        try {
+            do {
+                // read available output (the process would block in case its output is not read)
+                boolean read = DefaultProcessExecutor.readAvailable(outputStream, outputBuffer, buffer);
+                read = DefaultProcessExecutor.readAvailable(errorStream, errorBuffer, buffer) || read;
+
+                exitCode = DefaultProcessExecutor.getExitCode(process);
+                if (exitCode == null) {
+                    if (timeout > 0 && System.currentTimeMillis() >= endTime) {
+                        // the process is still running after the timeout was reached
+                        timedOut = true;
+                    } else if (read) {
+                        pollInterval = DefaultProcessExecutor.MIN_POLL_INTERVAL;
+                    } else {
+                        // wait for more output
+                        Thread.sleep(pollInterval);
+                        pollInterval = Math.min(pollInterval * 2, DefaultProcessExecutor.MAX_POLL_INTERVAL);
+                    }
+                }
+            } while (exitCode == null && !timedOut);
+
+            if (exitCode != null) {
+                // read the remaining output
+                boolean read = false;
+                do {
+                    read = DefaultProcessExecutor.readAvailable(outputStream, outputBuffer, buffer);
+                    read = DefaultProcessExecutor.readAvailable(errorStream, errorBuffer, buffer) || read;
+                } while (read);
+            }
+        } finally {
+            if (exitCode == null) {
+                // kill timed out process (or process which was left due to an error)
+                process.destroy();
+            }
 
-        // read output
-        InputStream inputStream = process.getInputStream();
-        OutputReadThread outputThread = new OutputReadThread(inputStream);
-        outputThread.start();
-        inputStream = process.getErrorStream();
-        OutputReadThread errorThread = new OutputReadThread(inputStream);
-        errorThread.start();
+            IOHelper.closeResource(outputStream);
+            IOHelper.closeResource(errorStream);
+        }
 
-        // wait for process to end
-        int exitCode = process.waitFor();
+        if (timedOut) {
+            throw new FaxException("Process did not end after: " + timeout + " millies and was killed, command: "
+                    + command);
+        }
 
         // get output
-        String outputText = outputThread.getText();
-        String errorText = errorThread.getText();
+        String encoding = IOHelper.getDefaultEncoding();
+        String outputText = DefaultProcessExecutor.getOutputText(outputBuffer, encoding);
+        String errorText = DefaultProcessExecutor.getOutputText(errorBuffer, encoding);
+        if (DefaultProcessExecutor.isTruncated(outputBuffer) || DefaultProcessExecutor.isTruncated(errorBuffer)) {
+            this.LOGGER.logInfo(new Object[] { "Process output exceeded: ", String.valueOf(maxOutputSize),
+                    " bytes and was truncated, command: ", command }, null);
+        }
 
         // create output
-        ProcessOutput processOutput = new ProcessOutput(outputText, errorText, exitCode);
+        ProcessOutput processOutput = new ProcessOutput(outputText, errorText, exitCode.intValue());
 
         return processOutput;
     }
 
+    /**
+     * This function reads the data currently available in the input stream (without blocking) into the provided
+     * output buffer.
+     *
+     * @param inputStream
+     *            The input stream to read from
+     * @param outputStream
+     *            The output buffer
+     * @param buffer
+     *            The read buffer
+     * @return True if any data was read
+     */
+    private static boolean readAvailable(InputStream inputStream, OutputStream outputStream, byte[] buffer) {
+        boolean read = false;
+        try {
+            int available = inputStream.available();
+            while (available > 0) {
+                int count = inputStream.read(buffer, 0, Math.min(available, buffer.length));
+                if (count > 0) {
+                    outputStream.write(buffer, 0, count);
+                    read = true;
+                    available = inputStream.available();
+                } else {
+                    available = 0;
+                }
+            }
+        } catch (IOException exception) { // NOPMD
+            // ignore (stream closed)
+        }
+
+        return read;
+    }
+
+    /**
+     * This function returns the process exit code or null in case the process is still running.
+     *
+     * @param process
+     *            The process
+     * @return The process exit code (null if still running)
+     */
+    private static Integer getExitCode(Process process) {
+        Integer exitCode = null;
+        try {
+            exitCode = Integer.valueOf(process.exitValue());
+        } catch (IllegalThreadStateException exception) { // NOPMD
+            // process still running
+        }
+
+        return exitCode;
+    }
+
+    /**
+     * This function creates the process output buffer.
+     *
+     * @param maxOutputSize
+     *            The max output size (0 for unlimited)
+     * @return The output buffer
+     */
+    private static OutputStream createOutputBuffer(int maxOutputSize) {
+        OutputStream outputBuffer = null;
+        if (maxOutputSize == 0) {
+            outputBuffer = new ByteArrayOutputStream(DefaultProcessExecutor.READ_BUFFER_SIZE);
+        } else {
+            outputBuffer = new RingBufferOutputStream(maxOutputSize);
+        }
+
+        return outputBuffer;
+    }
+
+    /**
+     * This function returns the text held by the output buffer.
+     *
+     * @param outputBuffer
+     *            The output buffer
+     * @param encoding
+     *            The text encoding
+     * @return The output text
+     * @throws IOException
+     *             Any IO exception
+     */
+    private static String getOutputText(OutputStream outputBuffer, String encoding) throws IOException {
+        String text = null;
+        if (outputBuffer instanceof RingBufferOutputStream) {
+            text = ((RingBufferOutputStream) outputBuffer).toString(encoding);
+        } else {
+            text = ((ByteArrayOutputStream) outputBuffer).toString(encoding);
+        }
+
+        return text;
+    }
+
+    /**
+     * This function returns true if the output buffer dropped part of the output.
+     *
+     * @param outputBuffer
+     *            The output buffer
+     * @return True if the output was truncated
+     */
+    private static boolean isTruncated(OutputStream outputBuffer) {
+        boolean truncated = false;
+        if (outputBuffer instanceof RingBufferOutputStream) {
+            truncated = ((RingBufferOutputStream) outputBuffer).isTruncated();
+        }
+
+        return truncated;
+    }
+
+    /**
+     * This function returns the long value of the provided configuration value or the default value in case the
+     * configuration value is not provided.
+     *
+     * @param value
+     *            The configuration value (may be null)
+     * @param defaultValue
+     *            The default value
+     * @return The long value
+     */
+    private static long parseLong(String value, long defaultValue) {
+        long output = defaultValue;
+        if (value != null && value.length() > 0) {
+            output = Long.parseLong(value);
+        }
+
+        return output;
+    }
+
     /**
      * This function parsers the command and converts to a command array.
      *
@@ -0,0 +1,748 @@
+package org.fax4j.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob.FaxJobPriority;
+
+/**
+ * This class provides an append only journal of outbound fax jobs.<br>
+ * Each fax job is written as an enqueue record and once it was handled, an acknowledge record is appended.<br>
+ * When the journal is opened, all records are replayed and the fax jobs which were not acknowledged are returned so
+ * they can be submitted again.<br>
+ * Each record holds a checksum, so a record which was partially written (for example when the JVM crashed) is detected
+ * and the journal is truncated to the last valid record.<br>
+ * The keys of the acknowledged records are remembered (up to the max acknowledged keys, oldest keys are forgotten
+ * first) so callers can detect records which were already handled.<br>
+ * Once the journal file grows above the max size, it is compacted by rewriting only the pending records and the
+ * remembered acknowledged keys to a new journal file.<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class FaxJobJournal extends AbstractCloseable {
+    /** The journal file name */
+    public static final String JOURNAL_FILE_NAME = "fax4j.journal";
+    /** The enqueue record type */
+    private static final byte ENQUEUE_RECORD_TYPE = 1;
+    /** The acknowledge record type */
+    private static final byte ACKNOWLEDGE_RECORD_TYPE = 2;
+    /** The record header size (length and checksum) */
+    private static final int RECORD_HEADER_SIZE = 8;
+    /** The journal file */
+    private final File FILE;
+    /** True to force each write to the disk */
+    private final boolean SYNC;
+    /** The max journal size before compaction */
+    private final long MAX_SIZE;
+    /** The max amount of remembered acknowledged keys */
+    private final int MAX_ACKNOWLEDGED_KEYS;
+    /** The pending records (key is the record key) */
+    private final Map<String, JournalRecord> PENDING_RECORDS;
+    /** The remembered acknowledged keys (in acknowledge order) */
+    private final Set<String> ACKNOWLEDGED_KEYS;
+    /** The journal size after which the journal is compacted */
+    private long compactSize;
+    /** The journal file */
+    private RandomAccessFile journalFile;
+    /** The journal file channel */
+    private FileChannel channel;
+
+    /**
+     * This is the class constructor.<br>
+     * The journal is replayed and the pending records can be fetched using the getPendingRecords function.<br>
+     * Up to 100000 acknowledged keys are remembered.
+     *
+     * @param directory
+     *            The journal directory
+     * @param sync
+     *            True to force each write to the disk
+     * @param maxSize
+     *            The max journal size in bytes before compaction
+     */
+    public FaxJobJournal(File directory, boolean sync, long maxSize) {
+        this(directory, sync, maxSize, 100000);
+    }
+
+    /**
+     * This is the class constructor.<br>
+     * The journal is replayed and the pending records can be fetched using the getPendingRecords function.
+     *
+     * @param directory
+     *            The journal directory
+     * @param sync
+     *            True to force each write to the disk
+     * @param maxSize
+     *            The max journal size in bytes before compaction
+     * @param maxAcknowledgedKeys
+     *            The max amount of remembered acknowledged keys
+     */
+    public FaxJobJournal(File directory, boolean sync, long maxSize, int maxAcknowledgedKeys) {
+        super();
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new FaxException("Unable to create journal directory: " + directory.getPath());
+        }
+
+        this.FILE = new File(directory, FaxJobJournal.JOURNAL_FILE_NAME);
+        this.SYNC = sync;
+        this.MAX_SIZE = maxSize;
+        this.MAX_ACKNOWLEDGED_KEYS = maxAcknowledgedKeys;
+        this.compactSize = maxSize;
+        this.PENDING_RECORDS = new LinkedHashMap<String, JournalRecord>();
+        this.ACKNOWLEDGED_KEYS = new LinkedHashSet<String>();
+
+        try {
+            // replay journal
+            long validSize = this.replay();
+
+            // open for append
+            this.journalFile = new RandomAccessFile(this.FILE, "rw");
+            if (this.journalFile.length() != validSize) {
+                this.journalFile.setLength(validSize);
+            }
+            this.channel = this.journalFile.getChannel();
+            this.channel.position(validSize);
+        } catch (IOException exception) {
+            throw new FaxException("Unable to open journal: " + this.FILE.getPath(), exception);
+        }
+    }
+
+    /**
+     * This function returns the pending records (records which were not acknowledged).
+     *
+     * @return The pending records
+     */
+    public synchronized List<JournalRecord> getPendingRecords() {
+        return new ArrayList<JournalRecord>(this.PENDING_RECORDS.values());
+    }
+
+    /**
+     * This function returns true if a record with the provided key is pending or its acknowledged key is remembered.
+     *
+     * @param key
+     *            The record key
+     * @return True if the key is known
+     */
+    public synchronized boolean containsKey(String key) {
+        return this.PENDING_RECORDS.containsKey(key) || this.ACKNOWLEDGED_KEYS.contains(key);
+    }
+
+    /**
+     * This function appends the provided records to the journal.<br>
+     * All records are written with a single disk write (and a single force in case sync is enabled).
+     *
+     * @param records
+     *            The records to append
+     */
+    public synchronized void append(JournalRecord[] records) {
+        this.validateOpen();
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(records.length * 512);
+        try {
+            for (int index = 0; index < records.length; index++) {
+                FaxJobJournal.writeRecord(buffer, FaxJobJournal.ENQUEUE_RECORD_TYPE, records[index]);
+            }
+            this.write(buffer.toByteArray());
+        } catch (IOException exception) {
+            throw new FaxException("Unable to write to journal.", exception);
+        }
+
+        for (int index = 0; index < records.length; index++) {
+            this.PENDING_RECORDS.put(records[index].getKey(), records[index]);
+        }
+    }
+
+    /**
+     * This function appends the provided record to the journal unless a record with the same key is pending or its
+     * acknowledged key is remembered.<br>
+     * The key check and the append are done as a single operation, so concurrent callers can not append the same key
+     * twice.
+     *
+     * @param record
+     *            The record to append
+     * @return True if the record was appended, false if the key is already known
+     */
+    public synchronized boolean appendIfAbsent(JournalRecord record) {
+        boolean append = !this.containsKey(record.getKey());
+        if (append) {
+            this.append(new JournalRecord[] { record });
+        }
+
+        return append;
+    }
+
+    /**
+     * This function appends an acknowledge record for the provided key.<br>
+     * Acknowledged records will not be replayed.
+     *
+     * @param key
+     *            The record key
+     */
+    public synchronized void acknowledge(String key) {
+        this.validateOpen();
+
+        if (this.PENDING_RECORDS.remove(key) != null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+            try {
+                FaxJobJournal.writeRecord(buffer, FaxJobJournal.ACKNOWLEDGE_RECORD_TYPE, new JournalRecord(key));
+                this.write(buffer.toByteArray());
+
+                this.addAcknowledgedKey(key);
+
+                // compact journal
+                if (this.channel.size() > this.compactSize) {
+                    this.compact();
+                }
+            } catch (IOException exception) {
+                throw new FaxException("Unable to write to journal.", exception);
+            }
+        }
+    }
+
+    /**
+     * This function returns the amount of pending records.
+     *
+     * @return The amount of pending records
+     */
+    public synchronized int getPendingRecordsCount() {
+        return this.PENDING_RECORDS.size();
+    }
+
+    /**
+     * This function closes the journal.
+     */
+    @Override
+    protected synchronized void closeImpl() {
+        IOHelper.closeResource(this.journalFile);
+    }
+
+    /**
+     * This function remembers the provided acknowledged key, the oldest key is forgotten once the max acknowledged
+     * keys is reached.
+     *
+     * @param key
+     *            The record key
+     */
+    private void addAcknowledgedKey(String key) {
+        this.ACKNOWLEDGED_KEYS.remove(key);
+        this.ACKNOWLEDGED_KEYS.add(key);
+        if (this.ACKNOWLEDGED_KEYS.size() > this.MAX_ACKNOWLEDGED_KEYS) {
+            Iterator<String> iterator = this.ACKNOWLEDGED_KEYS.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * This function validates the journal is open.
+     */
+    private void validateOpen() {
+        if (!this.channel.isOpen()) {
+            throw new FaxException("Journal is closed: " + this.FILE.getPath());
+        }
+    }
+
+    /**
+     * This function writes the provided data to the journal.
+     *
+     * @param data
+     *            The data
+     * @throws IOException
+     *             Any IO exception
+     */
+    private void write(byte[] data) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(data);
+        while (byteBuffer.hasRemaining()) {
+            this.channel.write(byteBuffer);
+        }
+
+        if (this.SYNC) {
+            this.channel.force(false);
+        }
+    }
+
+    /**
+     * This function rewrites the remembered acknowledged keys and the pending records to a new journal file which
+     * replaces the current journal file.<br>
+     * In case the compacted journal is still above half the max size (many remembered keys), the next compaction is
+     * delayed until the journal doubles in size, so compaction is not done on every acknowledge.
+     *
+     * @throws IOException
+     *             Any IO exception
+     */
+    private void compact() throws IOException {
+        // write pending records to temporary file
+        File compactFile = new File(this.FILE.getPath() + ".compact");
+        RandomAccessFile compactJournalFile = new RandomAccessFile(compactFile, "rw");
+        try {
+            compactJournalFile.setLength(0);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(this.PENDING_RECORDS.size() * 512
+                    + this.ACKNOWLEDGED_KEYS.size() * 64 + 16);
+            Iterator<String> keyIterator = this.ACKNOWLEDGED_KEYS.iterator();
+            while (keyIterator.hasNext()) {
+                FaxJobJournal.writeRecord(buffer, FaxJobJournal.ACKNOWLEDGE_RECORD_TYPE,
+                        new JournalRecord(keyIterator.next()));
+            }
+            Iterator<JournalRecord> iterator = this.PENDING_RECORDS.values().iterator();
+            while (iterator.hasNext()) {
+                FaxJobJournal.writeRecord(buffer, FaxJobJournal.ENQUEUE_RECORD_TYPE, iterator.next());
+            }
+            compactJournalFile.write(buffer.toByteArray());
+            compactJournalFile.getChannel().force(true);
+        } finally {
+            IOHelper.closeResource(compactJournalFile);
+        }
+
+        // replace journal file
+        IOHelper.closeResource(this.journalFile);
+        if (!this.FILE.delete() || !compactFile.renameTo(this.FILE)) {
+            throw new IOException("Unable to replace journal file: " + this.FILE.getPath());
+        }
+        this.journalFile = new RandomAccessFile(this.FILE, "rw");
+        this.channel = this.journalFile.getChannel();
+        long size = this.channel.size();
+        this.channel.position(size);
+        this.compactSize = Math.max(this.MAX_SIZE, size * 2);
+    }
+
+    /**
+     * This function replays the journal and populates the pending records.
+     *
+     * @return The size of the valid part of the journal
+     * @throws IOException
+     *             Any IO exception
+     */
+    private long replay() throws IOException {
+        // recover from interrupted compaction
+        File compactFile = new File(this.FILE.getPath() + ".compact");
+        if (compactFile.exists()) {
+            if (this.FILE.exists()) {
+                compactFile.delete();
+            } else {
+                compactFile.renameTo(this.FILE);
+            }
+        }
+
+        long validSize = 0;
+        if (this.FILE.exists()) {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(this.FILE)));
+            try {
+                CRC32 crc = new CRC32();
+                byte[] data = null;
+                while (true) {
+                    // read header
+                    int length = 0;
+                    int checksum = 0;
+                    try {
+                        length = inputStream.readInt();
+                        checksum = inputStream.readInt();
+                    } catch (EOFException exception) {
+                        break;
+                    }
+                    if (length <= 0) {
+                        break;
+                    }
+
+                    // read data
+                    data = new byte[length];
+                    if (FaxJobJournal.readFully(inputStream, data) != length) {
+                        break;
+                    }
+
+                    // validate checksum
+                    crc.reset();
+                    crc.update(data);
+                    if (((int) crc.getValue()) != checksum) {
+                        break;
+                    }
+
+                    this.replayRecord(data);
+                    validSize = validSize + FaxJobJournal.RECORD_HEADER_SIZE + length;
+                }
+            } finally {
+                IOHelper.closeResource(inputStream);
+            }
+        }
+
+        return validSize;
+    }
+
+    /**
+     * This function replays a single record.
+     *
+     * @param data
+     *            The record data
+     * @throws IOException
+     *             Any IO exception
+     */
+    private void replayRecord(byte[] data) throws IOException {
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(data));
+        byte type = inputStream.readByte();
+        String key = FaxJobJournal.readString(inputStream);
+        switch (type) {
+        case FaxJobJournal.ENQUEUE_RECORD_TYPE:
+            JournalRecord record = new JournalRecord(key);
+            record.filePath = FaxJobJournal.readString(inputStream);
+            String priority = FaxJobJournal.readString(inputStream);
+            if (priority != null) {
+                record.priority = FaxJobPriority.valueOf(priority);
+            }
+            record.targetAddress = FaxJobJournal.readString(inputStream);
+            record.targetName = FaxJobJournal.readString(inputStream);
+            record.senderName = FaxJobJournal.readString(inputStream);
+            record.senderFaxNumber = FaxJobJournal.readString(inputStream);
+            record.senderEmail = FaxJobJournal.readString(inputStream);
+            int amount = inputStream.readInt();
+            for (int index = 0; index < amount; index++) {
+                record.properties.setProperty(FaxJobJournal.readString(inputStream),
+                        FaxJobJournal.readString(inputStream));
+            }
+
+            if (!this.ACKNOWLEDGED_KEYS.contains(key)) {
+                this.PENDING_RECORDS.put(key, record);
+            }
+            break;
+        case FaxJobJournal.ACKNOWLEDGE_RECORD_TYPE:
+            this.PENDING_RECORDS.remove(key);
+            this.addAcknowledgedKey(key);
+            break;
+        default:
+            throw new IOException("Unsupported journal record type: " + type);
+        }
+    }
+
+    /**
+     * This function writes the provided record.
+     *
+     * @param outputStream
+     *            The output stream
+     * @param type
+     *            The record type
+     * @param record
+     *            The record
+     * @throws IOException
+     *             Any IO exception
+     */
+    private static void writeRecord(ByteArrayOutputStream outputStream, byte type, JournalRecord record)
+            throws IOException {
+        // write data
+        ByteArrayOutputStream dataBuffer = new ByteArrayOutputStream(512);
+        DataOutputStream dataOutputStream = new DataOutputStream(dataBuffer);
+        dataOutputStream.writeByte(type);
+        FaxJobJournal.writeString(dataOutputStream, record.getKey());
+        if (type == FaxJobJournal.ENQUEUE_RECORD_TYPE) {
+            FaxJobJournal.writeString(dataOutputStream, record.filePath);
+            String priority = null;
+            if (record.priority != null) {
+                priority = record.priority.name();
+            }
+            FaxJobJournal.writeString(dataOutputStream, priority);
+            FaxJobJournal.writeString(dataOutputStream, record.targetAddress);
+            FaxJobJournal.writeString(dataOutputStream, record.targetName);
+            FaxJobJournal.writeString(dataOutputStream, record.senderName);
+            FaxJobJournal.writeString(dataOutputStream, record.senderFaxNumber);
+            FaxJobJournal.writeString(dataOutputStream, record.senderEmail);
+            dataOutputStream.writeInt(record.properties.size());
+            Iterator<Entry<Object, Object>> iterator = record.properties.entrySet().iterator();
+            Entry<Object, Object> entry = null;
+            while (iterator.hasNext()) {
+                entry = iterator.next();
+                FaxJobJournal.writeString(dataOutputStream, String.valueOf(entry.getKey()));
+                FaxJobJournal.writeString(dataOutputStream, String.valueOf(entry.getValue()));
+            }
+        }
+        dataOutputStream.flush();
+        byte[] data = dataBuffer.toByteArray();
+
+        // write header
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        DataOutputStream headerOutputStream = new DataOutputStream(outputStream);
+        headerOutputStream.writeInt(data.length);
+        headerOutputStream.writeInt((int) crc.getValue());
+        headerOutputStream.write(data);
+        headerOutputStream.flush();
+    }
+
+    /**
+     * This function writes the provided string (null values are supported).
+     *
+     * @param outputStream
+     *            The output stream
+     * @param text
+     *            The text
+     * @throws IOException
+     *             Any IO exception
+     */
+    private static void writeString(DataOutputStream outputStream, String text) throws IOException {
+        if (text == null) {
+            outputStream.writeInt(-1);
+        } else {
+            byte[] data = text.getBytes("UTF-8");
+            outputStream.writeInt(data.length);
+            outputStream.write(data);
+        }
+    }
+
+    /**
+     * This function reads a string written by the writeString function.
+     *
+     * @param inputStream
+     *            The input stream
+     * @return The text
+     * @throws IOException
+     *             Any IO exception
+     */
+    private static String readString(DataInputStream inputStream) throws IOException {
+        String text = null;
+        int length = inputStream.readInt();
+        if (length >= 0) {
+            byte[] data = new byte[length];
+            inputStream.readFully(data);
+            text = new String(data, "UTF-8");
+        }
+
+        return text;
+    }
+
+    /**
+     * This function reads as much data as possible to the provided buffer.
+     *
+     * @param inputStream
+     *            The input stream
+     * @param data
+     *            The buffer
+     * @return The amount of bytes read
+     * @throws IOException
+     *             Any IO exception
+     */
+    private static int readFully(InputStream inputStream, byte[] data) throws IOException {
+        int offset = 0;
+        int read = 0;
+        while (offset < data.length) {
+            read = inputStream.read(data, offset, data.length - offset);
+            if (read == -1) {
+                break;
+            }
+            offset = offset + read;
+        }
+
+        return offset;
+    }
+
+    /**
+     * This class holds a single journal record.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public static class JournalRecord {
+        /** The record key */
+        private final String KEY;
+        /** The fax job file path */
+        private String filePath;
+        /** The fax job priority */
+        private FaxJobPriority priority;
+        /** The fax job target address */
+        private String targetAddress;
+        /** The fax job target name */
+        private String targetName;
+        /** The fax job sender name */
+        private String senderName;
+        /** The fax job sender fax number */
+        private String senderFaxNumber;
+        /** The fax job sender email */
+        private String senderEmail;
+        /** The fax job properties */
+        private final Properties properties;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param key
+         *            The record key (idempotency key)
+         */
+        public JournalRecord(String key) {
+            super();
+
+            this.KEY = key;
+            this.properties = new Properties();
+        }
+
+        /**
+         * This function returns the record key.
+         *
+         * @return The record key
+         */
+        public String getKey() {
+            return this.KEY;
+        }
+
+        /**
+         * This function returns the fax job file path.
+         *
+         * @return The fax job file path
+         */
+        public String getFilePath() {
+            return this.filePath;
+        }
+
+        /**
+         * This function sets the fax job file path.
+         *
+         * @param filePath
+         *            The fax job file path
+         */
+        public void setFilePath(String filePath) {
+            this.filePath = filePath;
+        }
+
+        /**
+         * This function returns the fax job priority.
+         *
+         * @return The fax job priority
+         */
+        public FaxJobPriority getPriority() {
+            return this.priority;
+        }
+
+        /**
+         * This function sets the fax job priority.
+         *
+         * @param priority
+         *            The fax job priority
+         */
+        public void setPriority(FaxJobPriority priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * This function returns the fax job target address.
+         *
+         * @return The fax job target address
+         */
+        public String getTargetAddress() {
+            return this.targetAddress;
+        }
+
+        /**
+         * This function sets the fax job target address.
+         *
+         * @param targetAddress
+         *            The fax job target address
+         */
+        public void setTargetAddress(String targetAddress) {
+            this.targetAddress = targetAddress;
+        }
+
+        /**
+         * This function returns the fax job target name.
+         *
+         * @return The fax job target name
+         */
+        public String getTargetName() {
+            return this.targetName;
+        }
+
+        /**
+         * This function sets the fax job target name.
+         *
+         * @param targetName
+         *            The fax job target name
+         */
+        public void setTargetName(String targetName) {
+            this.targetName = targetName;
+        }
+
+        /**
+         * This function returns the fax job sender name.
+         *
+         * @return The fax job sender name
+         */
+        public String getSenderName() {
+            return this.senderName;
+        }
+
+        /**
+         * This function sets the fax job sender name.
+         *
+         * @param senderName
+         *            The fax job sender name
+         */
+        public void setSenderName(String senderName) {
+            this.senderName = senderName;
+        }
+
+        /**
+         * This function returns the fax job sender fax number.
+         *
+         * @return The fax job sender fax number
+         */
+        public String getSenderFaxNumber() {
+            return this.senderFaxNumber;
+        }
+
+        /**
+         * This function sets the fax job sender fax number.
+         *
+         * @param senderFaxNumber
+         *            The fax job sender fax number
+         */
+        public void setSenderFaxNumber(String senderFaxNumber) {
+            this.senderFaxNumber = senderFaxNumber;
+        }
+
+        /**
+         * This function returns the fax job sender email.
+         *
+         * @return The fax job sender email
+         */
+        public String getSenderEmail() {
+            return this.senderEmail;
+        }
+
+        /**
+         * This function sets the fax job sender email.
+         *
+         * @param senderEmail
+         *            The fax job sender email
+         */
+        public void setSenderEmail(String senderEmail) {
+            this.senderEmail = senderEmail;
+        }
+
+        /**
+         * This function returns the fax job properties.
+         *
+         * @return The fax job properties
+         */
+        public Properties getProperties() {
+            return this.properties;
+        }
+    }
+}
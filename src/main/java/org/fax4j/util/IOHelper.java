@@ -23,7 +23,7 @@ import org.fax4j.common.LoggerManager;
  * This is an internal IO utility class.
  *
  * @author Sagie Gur-Ari
- * @version 1.02
+ * @version 1.03
  * @since 0.40.6
  */
 public final class IOHelper {
@@ -31,6 +31,8 @@ public final class IOHelper {
     private static final String DEFAULT_ENCODING = IOHelper.getDefaultEncodingImpl();
     /** The temporary directory */
     private static final File FAX4J_TEMPORARY_DIRECTORY = IOHelper.getFax4jInternalTemporaryDirectoryImpl();
+    /** The buffer size used when streaming file content */
+    private static final int STREAM_BUFFER_SIZE = 8192;
 
     /**
      * This is the default constructor.
@@ -415,6 +417,40 @@ public final class IOHelper {
         }
     }
 
+    /**
+     * Writes the file content to the output stream in chunks (the file content is never fully loaded into
+     * memory).<br>
+     * The output stream is not closed by this function.
+     *
+     * @param file
+     *            The file to read from
+     * @param outputStream
+     *            The output stream to write to
+     * @throws IOException
+     *             Any IO exception
+     */
+    public static void writeFileToStream(File file, OutputStream outputStream) throws IOException {
+        InputStream inputStream = null;
+        try {
+            // create stream to file
+            inputStream = new FileInputStream(file);
+
+            byte[] buffer = new byte[IOHelper.STREAM_BUFFER_SIZE];
+            int read = -1;
+            do {
+                // read next buffer
+                read = inputStream.read(buffer);
+
+                if (read != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+            } while (read != -1);
+        } finally {
+            // close file stream
+            IOHelper.closeResource(inputStream);
+        }
+    }
+
     /**
      * This function returns the file object of the first location in which the requested file is found.
      *
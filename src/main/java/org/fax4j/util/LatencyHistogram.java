@@ -0,0 +1,199 @@
+package org.fax4j.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class provides a lock free histogram of non negative long values (such as latencies).<br>
+ * Values are counted in log-linear buckets (8 buckets for each power of 2), so the memory usage is fixed and the
+ * percentile values are accurate up to 12.5% of the value.<br>
+ * Recording a value only updates atomic counters, therefore this class is thread safe and can be used on hot paths by
+ * many threads.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class LatencyHistogram {
+    /** The amount of sub buckets bits (8 buckets for each power of 2) */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** The amount of sub buckets for each power of 2 */
+    private static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+    /** The amount of buckets (enough for all positive long values) */
+    private static final int BUCKETS_AMOUNT = (64 - LatencyHistogram.SUB_BUCKET_BITS) * LatencyHistogram.SUB_BUCKETS;
+    /** The bucket counters */
+    private final AtomicLongArray BUCKETS;
+    /** The amount of recorded values */
+    private final AtomicLong COUNT;
+    /** The sum of all recorded values */
+    private final AtomicLong TOTAL;
+    /** The max recorded value */
+    private final AtomicLong MAX;
+
+    /**
+     * This is the default constructor.
+     */
+    public LatencyHistogram() {
+        super();
+
+        this.BUCKETS = new AtomicLongArray(LatencyHistogram.BUCKETS_AMOUNT);
+        this.COUNT = new AtomicLong();
+        this.TOTAL = new AtomicLong();
+        this.MAX = new AtomicLong();
+    }
+
+    /**
+     * This function records the provided value.<br>
+     * Negative values are recorded as 0.
+     *
+     * @param value
+     *            The value
+     */
+    public void record(long value) {
+        long updatedValue = Math.max(0, value);
+
+        this.BUCKETS.incrementAndGet(LatencyHistogram.getBucketIndex(updatedValue));
+        this.COUNT.incrementAndGet();
+        this.TOTAL.addAndGet(updatedValue);
+
+        // update max
+        long max = this.MAX.get();
+        while (updatedValue > max) {
+            if (this.MAX.compareAndSet(max, updatedValue)) {
+                break;
+            }
+            max = this.MAX.get();
+        }
+    }
+
+    /**
+     * This function returns the amount of recorded values.
+     *
+     * @return The amount of recorded values
+     */
+    public long getCount() {
+        return this.COUNT.get();
+    }
+
+    /**
+     * This function returns the max recorded value.
+     *
+     * @return The max value (0 if no values were recorded)
+     */
+    public long getMax() {
+        return this.MAX.get();
+    }
+
+    /**
+     * This function returns the mean of the recorded values.
+     *
+     * @return The mean value (0 if no values were recorded)
+     */
+    public double getMean() {
+        // read total first so the mean is never overestimated due to concurrent updates
+        long total = this.TOTAL.get();
+        long count = this.COUNT.get();
+
+        double mean = 0;
+        if (count > 0) {
+            mean = (double) total / count;
+        }
+
+        return mean;
+    }
+
+    /**
+     * This function returns the value at the provided percentile.
+     *
+     * @param percentile
+     *            The percentile (between 0 and 100)
+     * @return The value (0 if no values were recorded)
+     */
+    public long getPercentile(double percentile) {
+        return this.getPercentiles(new double[] { percentile })[0];
+    }
+
+    /**
+     * This function returns the values at the provided percentiles.<br>
+     * All the values are calculated from the same view of the histogram.
+     *
+     * @param percentiles
+     *            The percentiles (between 0 and 100)
+     * @return The values (0 if no values were recorded), same order as the percentiles
+     */
+    public long[] getPercentiles(double[] percentiles) {
+        // copy buckets
+        long[] buckets = new long[LatencyHistogram.BUCKETS_AMOUNT];
+        long count = 0;
+        for (int index = 0; index < buckets.length; index++) {
+            buckets[index] = this.BUCKETS.get(index);
+            count = count + buckets[index];
+        }
+        long max = this.MAX.get();
+
+        long[] values = new long[percentiles.length];
+        if (count > 0) {
+            for (int index = 0; index < percentiles.length; index++) {
+                double percentile = Math.min(100, Math.max(0, percentiles[index]));
+                long rank = Math.max(1, (long) Math.ceil((percentile / 100) * count));
+
+                // find the bucket holding the value with the requested rank
+                long currentCount = 0;
+                int bucketIndex = 0;
+                for (; bucketIndex < buckets.length; bucketIndex++) {
+                    currentCount = currentCount + buckets[bucketIndex];
+                    if (currentCount >= rank) {
+                        break;
+                    }
+                }
+
+                values[index] = Math.min(max, LatencyHistogram.getBucketUpperBound(bucketIndex));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * This function returns the bucket index of the provided value.
+     *
+     * @param value
+     *            The non negative value
+     * @return The bucket index
+     */
+    private static int getBucketIndex(long value) {
+        int bucketIndex = (int) value;
+        if (value >= LatencyHistogram.SUB_BUCKETS) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - LatencyHistogram.SUB_BUCKET_BITS))
+                    & (LatencyHistogram.SUB_BUCKETS - 1);
+            bucketIndex = ((exponent - LatencyHistogram.SUB_BUCKET_BITS + 1) * LatencyHistogram.SUB_BUCKETS)
+                    + subBucket;
+        }
+
+        return bucketIndex;
+    }
+
+    /**
+     * This function returns the highest value counted by the provided bucket.
+     *
+     * @param bucketIndex
+     *            The bucket index
+     * @return The highest bucket value
+     */
+    private static long getBucketUpperBound(int bucketIndex) {
+        long upperBound = bucketIndex;
+        if (bucketIndex >= LatencyHistogram.SUB_BUCKETS) {
+            int exponent = (bucketIndex / LatencyHistogram.SUB_BUCKETS) + LatencyHistogram.SUB_BUCKET_BITS - 1;
+            int subBucket = bucketIndex % LatencyHistogram.SUB_BUCKETS;
+            int shift = exponent - LatencyHistogram.SUB_BUCKET_BITS;
+            long lowerBound = ((long) (LatencyHistogram.SUB_BUCKETS + subBucket)) << shift;
+            upperBound = lowerBound + (1L << shift) - 1;
+            if (upperBound < 0) {
+                upperBound = Long.MAX_VALUE;
+            }
+        }
+
+        return upperBound;
+    }
+}
@@ -0,0 +1,25 @@
+package org.fax4j.util;
+
+/**
+ * This interface marks connection factories which hand out pooled connections.<br>
+ * Connections created by such factories are borrowed from the pool per operation and must be released (via the
+ * releaseConnection function or by closing the connection) as soon as the operation is done, so they can be reused by
+ * other threads.
+ *
+ * @param <T>
+ *            The connection resource type
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public interface PooledConnectionFactory<T> extends ConnectionFactory<T> {
+    /**
+     * This function releases the provided connection without returning it to the pool.<br>
+     * This function should be invoked in case the connection is no longer usable (for example after a network
+     * failure), so that a new connection will be created instead.
+     *
+     * @param connection
+     *            The connection
+     */
+    void discardConnection(Connection<T> connection);
+}
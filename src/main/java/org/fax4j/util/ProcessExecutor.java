@@ -9,12 +9,16 @@ import org.fax4j.util.ProcessExecutorHelper.ProcessOutput;
  * Implementing classes must be statless and thread safe.
  *
  * @author Sagie Gur-Ari
- * @version 1.01
+ * @version 1.02
  * @since 0.40.1
  */
 public interface ProcessExecutor {
     /** The process executer class name property key */
     String PROCESS_EXECUTER_CLASS_NAME_PROPERTY_KEY = "org.fax4j.process.executer.class.name";
+    /** The process timeout property key */
+    String PROCESS_TIMEOUT_PROPERTY_KEY = "org.fax4j.process.executer.timeout";
+    /** The process output max size property key */
+    String PROCESS_OUTPUT_MAX_SIZE_PROPERTY_KEY = "org.fax4j.process.executer.output.max.size";
 
     /**
      * This function executes the given command and returns the process output.
@@ -9,7 +9,7 @@ import org.fax4j.common.ConfigurationHolder;
  * This is an internal process execution utility class.
  * 
  * @author Sagie Gur-Ari
- * @version 1.03
+ * @version 1.04
  * @since 0.40.6
  */
 public final class ProcessExecutorHelper {
@@ -64,6 +64,105 @@ public final class ProcessExecutorHelper {
         return processOutput;
     }
 
+    /**
+     * This function executes the given command and returns the process output.<br>
+     * The provided timeout overrides the process executer timeout configuration for this invocation.
+     *
+     * @param configurationHolder
+     *            The configuration holder used when invoking the process
+     * @param command
+     *            The command to execute
+     * @param timeout
+     *            The max time in millies to wait for the process to end (0 to use the executer configuration)
+     * @return The process output
+     */
+    public static ProcessOutput executeProcess(ConfigurationHolder configurationHolder, String command,
+            long timeout) {
+        ConfigurationHolder updatedConfigurationHolder = configurationHolder;
+        if (timeout > 0 && configurationHolder != null) {
+            updatedConfigurationHolder = new ProcessTimeoutConfigurationHolder(configurationHolder, timeout);
+        }
+
+        return ProcessExecutorHelper.executeProcess(updatedConfigurationHolder, command);
+    }
+
+    /**
+     * This configuration holder returns a specific process timeout and delegates all other configuration values to
+     * the original configuration holder.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class ProcessTimeoutConfigurationHolder implements ConfigurationHolder {
+        /** The original configuration holder */
+        private final ConfigurationHolder CONFIGURATION_HOLDER;
+        /** The process timeout */
+        private final String TIMEOUT;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param configurationHolder
+         *            The original configuration holder
+         * @param timeout
+         *            The process timeout
+         */
+        protected ProcessTimeoutConfigurationHolder(ConfigurationHolder configurationHolder, long timeout) {
+            super();
+
+            this.CONFIGURATION_HOLDER = configurationHolder;
+            this.TIMEOUT = String.valueOf(timeout);
+        }
+
+        /**
+         * Returns the property part.
+         *
+         * @return The property part
+         */
+        public String getPropertyPart() {
+            return this.CONFIGURATION_HOLDER.getPropertyPart();
+        }
+
+        /**
+         * Returns the configuration.
+         *
+         * @return The configuration
+         */
+        public Map<String, String> getConfiguration() {
+            return this.CONFIGURATION_HOLDER.getConfiguration();
+        }
+
+        /**
+         * Returns the value from the configuration.
+         *
+         * @param key
+         *            The property key
+         * @return The property value
+         */
+        public String getConfigurationValue(String key) {
+            String value = null;
+            if (ProcessExecutor.PROCESS_TIMEOUT_PROPERTY_KEY.equals(key)) {
+                value = this.TIMEOUT;
+            } else {
+                value = this.CONFIGURATION_HOLDER.getConfigurationValue(key);
+            }
+
+            return value;
+        }
+
+        /**
+         * Returns the value from the configuration.
+         *
+         * @param key
+         *            The property key
+         * @return The property value
+         */
+        public String getConfigurationValue(Enum<?> key) {
+            return this.CONFIGURATION_HOLDER.getConfigurationValue(key);
+        }
+    }
+
     /**
      * This holds the process output.
      * 
@@ -0,0 +1,138 @@
+package org.fax4j.util;
+
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import org.fax4j.FaxException;
+
+/**
+ * This output stream holds up to a fixed amount of the most recently written bytes in memory.<br>
+ * Once the capacity is reached, the oldest bytes are overwritten, so memory usage does not depend on the amount of
+ * data written to the stream.<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class RingBufferOutputStream extends OutputStream {
+    /** The buffer */
+    private final byte[] BUFFER;
+    /** The next write position */
+    private int position;
+    /** The amount of bytes held */
+    private int size;
+    /** The total amount of bytes written */
+    private long totalSize;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param capacity
+     *            The max amount of bytes held
+     */
+    public RingBufferOutputStream(int capacity) {
+        super();
+
+        if (capacity <= 0) {
+            throw new FaxException("Invalid capacity: " + capacity);
+        }
+
+        this.BUFFER = new byte[capacity];
+        this.position = 0;
+        this.size = 0;
+        this.totalSize = 0;
+    }
+
+    /**
+     * Writes the byte to the buffer.
+     *
+     * @param data
+     *            The byte to write
+     */
+    @Override
+    public synchronized void write(int data) {
+        this.BUFFER[this.position] = (byte) data;
+        this.position = (this.position + 1) % this.BUFFER.length;
+        if (this.size < this.BUFFER.length) {
+            this.size++;
+        }
+        this.totalSize++;
+    }
+
+    /**
+     * Writes the bytes to the buffer.
+     *
+     * @param data
+     *            The data to write
+     * @param offset
+     *            The data offset
+     * @param length
+     *            The amount of bytes to write
+     */
+    @Override
+    public synchronized void write(byte[] data, int offset, int length) {
+        int capacity = this.BUFFER.length;
+        this.totalSize = this.totalSize + length;
+
+        // only the last bytes which fit the buffer are kept
+        int updatedOffset = offset;
+        int updatedLength = length;
+        if (updatedLength > capacity) {
+            updatedOffset = updatedOffset + updatedLength - capacity;
+            updatedLength = capacity;
+        }
+
+        // copy in up to 2 parts (until the buffer end and from the buffer start)
+        int firstPart = Math.min(updatedLength, capacity - this.position);
+        System.arraycopy(data, updatedOffset, this.BUFFER, this.position, firstPart);
+        System.arraycopy(data, updatedOffset + firstPart, this.BUFFER, 0, updatedLength - firstPart);
+        this.position = (this.position + updatedLength) % capacity;
+        this.size = Math.min(capacity, this.size + updatedLength);
+    }
+
+    /**
+     * This function returns true if some of the written bytes were overwritten.
+     *
+     * @return True if truncated
+     */
+    public synchronized boolean isTruncated() {
+        return this.totalSize > this.size;
+    }
+
+    /**
+     * This function returns the total amount of bytes written to the stream.
+     *
+     * @return The total amount of bytes written
+     */
+    public synchronized long getTotalSize() {
+        return this.totalSize;
+    }
+
+    /**
+     * This function returns the bytes held by the buffer (oldest first).
+     *
+     * @return The bytes
+     */
+    public synchronized byte[] toByteArray() {
+        byte[] data = new byte[this.size];
+        int start = (this.position - this.size + this.BUFFER.length) % this.BUFFER.length;
+        int firstPart = Math.min(this.size, this.BUFFER.length - start);
+        System.arraycopy(this.BUFFER, start, data, 0, firstPart);
+        System.arraycopy(this.BUFFER, 0, data, firstPart, this.size - firstPart);
+
+        return data;
+    }
+
+    /**
+     * This function returns the text held by the buffer.
+     *
+     * @param encoding
+     *            The text encoding
+     * @return The text
+     * @throws UnsupportedEncodingException
+     *             In case encoding is not supported
+     */
+    public String toString(String encoding) throws UnsupportedEncodingException {
+        return new String(this.toByteArray(), encoding);
+    }
+}
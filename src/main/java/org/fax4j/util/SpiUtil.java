@@ -1,24 +1,27 @@
 package org.fax4j.util;
 
-import java.io.File;
-import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentMap;
 import org.fax4j.FaxException;
 import org.fax4j.FaxJob;
-import org.fax4j.common.Logger;
-import org.fax4j.common.LoggerManager;
+import org.fax4j.FaxRejectedException;
+import org.fax4j.FaxUnsupportedOperationException;
+import org.fax4j.FaxValidationException;
 
 /**
  * This is an internal general utility class.
  *
  * @author Sagie Gur-Ari
- * @version 1.07
+ * @version 1.08
  * @since 0.21e
  */
 public final class SpiUtil {
@@ -66,7 +69,7 @@ public final class SpiUtil {
             + SpiUtil.SENDER_EMAIL_TEMPLATE_PARAMETER + SpiUtil.TEMPLATE_PARAMETER_SUFFIX;
     /** The fax job ID template parameter */
     public static final String FAX_JOB_ID_TEMPLATE_PARAMETER_STRING = SpiUtil.TEMPLATE_PARAMETER_PREFIX
-            + SpiUtil.SENDER_EMAIL_TEMPLATE_PARAMETER + SpiUtil.TEMPLATE_PARAMETER_SUFFIX;
+            + SpiUtil.FAX_JOB_ID_TEMPLATE_PARAMETER + SpiUtil.TEMPLATE_PARAMETER_SUFFIX;
 
     /**
      * This is the default constructor.
@@ -105,7 +108,9 @@ public final class SpiUtil {
     }
 
     /**
-     * This function formats the provided template.
+     * This function formats the provided template.<br>
+     * The template is parsed for each invocation, callers which format the same templates many times should use
+     * compiled templates (see getCompiledTemplate).
      *
      * @param template
      *            The template
@@ -122,50 +127,42 @@ public final class SpiUtil {
      */
     public static String formatTemplate(String template, FaxJob faxJob, TemplateParameterEncoder encoder,
             boolean getFileContent, boolean fullFilePath) {
-        // get logger
-        LoggerManager loggerManager = LoggerManager.getInstance();
-        Logger logger = loggerManager.getLogger();
+        String text = null;
+        if (template != null) {
+            // compile template
+            CompiledTemplate compiledTemplate = CompiledTemplate.compile(template);
 
-        // log
-        logger.logDebug(new Object[] { "Formatting template:", Logger.SYSTEM_EOL, template }, null);
+            // format template
+            text = compiledTemplate.format(faxJob, encoder, getFileContent, fullFilePath);
+        }
 
-        String text = template;
-        if (text != null) {
-            String value = null;
-            if (text.indexOf(SpiUtil.FILE_TEMPLATE_PARAMETER_STRING) != -1) {
-                if (getFileContent) {
-                    value = SpiUtil.getFileParameterValue(faxJob);
-                } else if (fullFilePath) {
-                    value = faxJob.getFilePath();
-                } else {
-                    File file = faxJob.getFile();
-                    value = file.getName();
+        return text;
+    }
+
+    /**
+     * This function returns the compiled template for the provided template.<br>
+     * The template is compiled only once and stored in the provided cache.
+     *
+     * @param template
+     *            The template
+     * @param cache
+     *            The compiled templates cache
+     * @return The compiled template (null if the template is null)
+     */
+    public static CompiledTemplate getCompiledTemplate(String template, ConcurrentMap<String, CompiledTemplate> cache) {
+        CompiledTemplate compiledTemplate = null;
+        if (template != null) {
+            compiledTemplate = cache.get(template);
+            if (compiledTemplate == null) {
+                compiledTemplate = CompiledTemplate.compile(template);
+                CompiledTemplate existingCompiledTemplate = cache.putIfAbsent(template, compiledTemplate);
+                if (existingCompiledTemplate != null) {
+                    compiledTemplate = existingCompiledTemplate;
                 }
-                text = SpiUtil.replaceTemplateParameter(text, SpiUtil.FILE_TEMPLATE_PARAMETER_STRING, value, encoder);
             }
-            value = faxJob.getTargetAddress();
-            text = SpiUtil.replaceTemplateParameter(text, SpiUtil.TARGET_ADDRESS_TEMPLATE_PARAMETER_STRING, value,
-                    encoder);
-            value = faxJob.getTargetName();
-            text = SpiUtil.replaceTemplateParameter(text, SpiUtil.TARGET_NAME_TEMPLATE_PARAMETER_STRING, value,
-                    encoder);
-            value = faxJob.getSenderName();
-            text = SpiUtil.replaceTemplateParameter(text, SpiUtil.SENDER_NAME_TEMPLATE_PARAMETER_STRING, value,
-                    encoder);
-            value = faxJob.getSenderFaxNumber();
-            text = SpiUtil.replaceTemplateParameter(text, SpiUtil.SENDER_FAX_NUMBER_TEMPLATE_PARAMETER_STRING, value,
-                    encoder);
-            value = faxJob.getSenderEmail();
-            text = SpiUtil.replaceTemplateParameter(text, SpiUtil.SENDER_EMAIL_TEMPLATE_PARAMETER_STRING, value,
-                    encoder);
-            value = faxJob.getID();
-            text = SpiUtil.replaceTemplateParameter(text, SpiUtil.FAX_JOB_ID_TEMPLATE_PARAMETER_STRING, value, encoder);
         }
 
-        // log
-        logger.logDebug(new Object[] { "Formated template:", Logger.SYSTEM_EOL, text }, null);
-
-        return text;
+        return compiledTemplate;
     }
 
     /**
@@ -238,25 +235,43 @@ public final class SpiUtil {
     }
 
     /**
-     * This function returns the file parameter value based on the file content.
+     * This function returns true if the provided error was caused by the caller (for example invalid input or an
+     * unsupported operation) and not by the fax client SPI (vendor).
      *
-     * @param faxJob
-     *            The fax job object
-     * @return The file parameter value
+     * @param throwable
+     *            The error
+     * @return True if the error was caused by the caller
      */
-    private static String getFileParameterValue(FaxJob faxJob) {
-        String value = null;
-        File file = faxJob.getFile();
-        if (file != null) {
-            try {
-                // read file (only text files supported)
-                value = IOHelper.readTextFile(faxJob.getFile());
-            } catch (IOException exception) {
-                throw new FaxException("Error while reading file.", exception);
+    public static boolean isCallerError(Throwable throwable) {
+        return (throwable instanceof FaxValidationException) || (throwable instanceof FaxUnsupportedOperationException)
+                || (throwable instanceof UnsupportedOperationException);
+    }
+
+    /**
+     * This function returns true if the provided submit error is known to happen before the fax job reached the
+     * vendor, so the fax job can be submitted again without being sent twice.<br>
+     * Only rejected fax actions (circuit breaker, bulkhead or rate limit) and connection errors (vendor host not found
+     * or not reachable) found in the error or its causes are considered safe.
+     *
+     * @param throwable
+     *            The submit error
+     * @return True if the fax job can be submitted again
+     */
+    public static boolean isSubmitRetrySafe(Throwable throwable) {
+        boolean safe = false;
+        Throwable cause = throwable;
+        while ((cause != null) && (!safe)) {
+            safe = (cause instanceof FaxRejectedException) || (cause instanceof ConnectException)
+                    || (cause instanceof UnknownHostException) || (cause instanceof NoRouteToHostException);
+
+            if (cause.getCause() == cause) {
+                cause = null;
+            } else {
+                cause = cause.getCause();
             }
         }
 
-        return value;
+        return safe;
     }
 
     /**
@@ -0,0 +1,143 @@
+package org.fax4j.util;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fax4j.FaxException;
+
+/**
+ * Holds general functions for creating the internal fax4j thread pools.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public final class ThreadPoolHelper {
+    /** The time in millies after which idle pool threads are released */
+    public static final long IDLE_THREAD_TIMEOUT = 60000;
+
+    /**
+     * This is the default constructor.
+     */
+    private ThreadPoolHelper() {
+        super();
+    }
+
+    /**
+     * This function creates a new bounded thread pool.<br>
+     * The pool threads are daemon threads which are released when idle.<br>
+     * Once the pool threads are busy and the queue is full, new tasks will be rejected.
+     *
+     * @param name
+     *            The pool name (used as the thread name prefix)
+     * @param poolSize
+     *            The maximum amount of threads
+     * @param queueSize
+     *            The maximum amount of queued tasks
+     * @param threadPriority
+     *            The pool threads priority
+     * @return The thread pool
+     */
+    public static ThreadPoolExecutor createThreadPool(String name, int poolSize, int queueSize, int threadPriority) {
+        if (poolSize <= 0) {
+            throw new FaxException("Invalid pool size: " + poolSize + " provided for thread pool: " + name);
+        }
+        if (queueSize <= 0) {
+            throw new FaxException("Invalid queue size: " + queueSize + " provided for thread pool: " + name);
+        }
+
+        // create thread factory
+        ThreadFactory threadFactory = new DaemonThreadFactory(name, threadPriority);
+
+        // create pool
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(poolSize, poolSize,
+                ThreadPoolHelper.IDLE_THREAD_TIMEOUT, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        threadPool.allowCoreThreadTimeOut(true);
+
+        return threadPool;
+    }
+
+    /**
+     * This function creates a new bounded thread pool with normal priority threads.
+     *
+     * @param name
+     *            The pool name (used as the thread name prefix)
+     * @param poolSize
+     *            The maximum amount of threads
+     * @param queueSize
+     *            The maximum amount of queued tasks
+     * @return The thread pool
+     */
+    public static ThreadPoolExecutor createThreadPool(String name, int poolSize, int queueSize) {
+        return ThreadPoolHelper.createThreadPool(name, poolSize, queueSize, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * This function returns the integer value of the provided configuration value or the default value in case the
+     * configuration value is not provided.
+     *
+     * @param value
+     *            The configuration value (may be null)
+     * @param defaultValue
+     *            The default value
+     * @return The integer value
+     */
+    public static int parseSize(String value, int defaultValue) {
+        int size = defaultValue;
+        if (value != null) {
+            size = Integer.parseInt(value);
+        }
+
+        return size;
+    }
+
+    /**
+     * This thread factory creates named daemon threads.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    public static class DaemonThreadFactory implements ThreadFactory {
+        /** The thread name prefix */
+        private final String NAME;
+        /** The thread priority */
+        private final int PRIORITY;
+        /** The thread counter */
+        private final AtomicInteger COUNTER;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param name
+         *            The thread name prefix
+         * @param priority
+         *            The thread priority
+         */
+        public DaemonThreadFactory(String name, int priority) {
+            super();
+
+            this.NAME = name;
+            this.PRIORITY = priority;
+            this.COUNTER = new AtomicInteger(0);
+        }
+
+        /**
+         * Creates a new daemon thread.
+         *
+         * @param runnable
+         *            The runnable to invoke
+         * @return The new thread
+         */
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, this.NAME + " " + this.COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(this.PRIORITY);
+
+            return thread;
+        }
+    }
+}
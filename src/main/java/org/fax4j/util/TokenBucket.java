@@ -0,0 +1,152 @@
+package org.fax4j.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.fax4j.FaxException;
+import org.fax4j.FaxRejectedException;
+
+/**
+ * This class provides a token bucket rate limiter.<br>
+ * Tokens are added to the bucket at a constant rate up to the bucket capacity (the burst size).<br>
+ * Callers which find the bucket empty reserve the next future token and wait for it, therefore waiting callers are
+ * served in the order they arrived (fair queue).<br>
+ * In case the amount of waiting callers reached the max queue size, or the expected wait is longer than the max wait,
+ * the caller is rejected immediately with a FaxRejectedException.<br>
+ * This class is thread safe.
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class TokenBucket {
+    /** The interval between tokens in nanoseconds */
+    private final long INTERVAL;
+    /** The bucket capacity */
+    private final double CAPACITY;
+    /** The max amount of waiting callers */
+    private final int MAX_QUEUE_SIZE;
+    /** The max wait in nanoseconds */
+    private final long MAX_WAIT;
+    /** The amount of stored tokens */
+    private double storedTokens;
+    /** The time (nanoseconds) the next token is available */
+    private long nextTokenTime;
+    /** The amount of waiting callers */
+    private int queueSize;
+
+    /**
+     * This is the class constructor.
+     *
+     * @param rate
+     *            The amount of tokens added per second
+     * @param burst
+     *            The bucket capacity (max amount of tokens which can be acquired without waiting)
+     * @param maxQueueSize
+     *            The max amount of waiting callers (0 to never wait)
+     * @param maxWait
+     *            The max time in millies a caller may wait for a token
+     */
+    public TokenBucket(double rate, int burst, int maxQueueSize, long maxWait) {
+        super();
+
+        if (rate <= 0) {
+            throw new FaxException("Invalid token bucket rate: " + rate);
+        }
+        if (burst <= 0) {
+            throw new FaxException("Invalid token bucket burst: " + burst);
+        }
+
+        this.INTERVAL = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        this.CAPACITY = burst;
+        this.MAX_QUEUE_SIZE = Math.max(0, maxQueueSize);
+        this.MAX_WAIT = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWait));
+        this.storedTokens = burst;
+        this.nextTokenTime = System.nanoTime();
+    }
+
+    /**
+     * This function acquires a single token and waits for it if needed.
+     *
+     * @throws FaxRejectedException
+     *             In case the token could not be acquired (queue full, max wait exceeded or interrupted)
+     */
+    public void acquire() {
+        long waitTime = this.reserve(System.nanoTime(), true);
+        if (waitTime < 0) {
+            throw new FaxRejectedException("Rate limit exceeded, queue is full or max wait exceeded.");
+        }
+
+        if (waitTime > 0) {
+            try {
+                long endTime = System.nanoTime() + waitTime;
+                long remaining = waitTime;
+                while (remaining > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                    if (Thread.interrupted()) {
+                        Thread.currentThread().interrupt();
+                        throw new FaxRejectedException("Interrupted while waiting for rate limit token.");
+                    }
+                    remaining = endTime - System.nanoTime();
+                }
+            } finally {
+                synchronized (this) {
+                    this.queueSize--;
+                }
+            }
+        }
+    }
+
+    /**
+     * This function acquires a single token only if it is available without waiting.
+     *
+     * @return True if the token was acquired
+     */
+    public boolean tryAcquire() {
+        return this.reserve(System.nanoTime(), false) == 0;
+    }
+
+    /**
+     * This function returns the amount of callers waiting for a token.
+     *
+     * @return The amount of waiting callers
+     */
+    public synchronized int getQueueSize() {
+        return this.queueSize;
+    }
+
+    /**
+     * This function reserves the next token.
+     *
+     * @param currentTime
+     *            The current time in nanoseconds
+     * @param wait
+     *            True if the caller is willing to wait for the token
+     * @return The time in nanoseconds the caller needs to wait (-1 if rejected)
+     */
+    private synchronized long reserve(long currentTime, boolean wait) {
+        // refill
+        if (currentTime > this.nextTokenTime) {
+            double newTokens = (currentTime - this.nextTokenTime) / (double) this.INTERVAL;
+            this.storedTokens = Math.min(this.CAPACITY, this.storedTokens + newTokens);
+            this.nextTokenTime = currentTime;
+        }
+
+        long waitTime = 0;
+        if (this.storedTokens >= 1) {
+            this.storedTokens--;
+        } else {
+            // reserve next future token
+            long tokenTime = this.nextTokenTime + (long) ((1 - this.storedTokens) * this.INTERVAL);
+            waitTime = Math.max(1, tokenTime - currentTime);
+            if ((!wait) || this.queueSize >= this.MAX_QUEUE_SIZE || waitTime > this.MAX_WAIT) {
+                waitTime = -1;
+            } else {
+                this.nextTokenTime = tokenTime;
+                this.storedTokens = 0;
+                this.queueSize++;
+            }
+        }
+
+        return waitTime;
+    }
+}
@@ -0,0 +1,508 @@
+package org.fax4j.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.fax4j.FaxException;
+import org.fax4j.common.ConfigurationHolder;
+import org.fax4j.common.Logger;
+import org.fax4j.common.LoggerManager;
+import org.fax4j.util.ConnectionPool.ResourceHandler;
+import org.fax4j.util.ProcessExecutorHelper.ProcessOutput;
+
+/**
+ * The process executer enables to execute native processes.<br>
+ * This implementation sends the commands to long lived worker processes instead of starting a new process for each
+ * command.<br>
+ * The worker processes are started once (using the configured worker command) and read the commands from their
+ * standard input, one command per line.<br>
+ * For each command, the worker writes the response lines to its standard output:
+ * <ul>
+ * <li>O &lt;text&gt; - A line of the command output text
+ * <li>E &lt;text&gt; - A line of the command error text
+ * <li>X &lt;exit code&gt; - The command exit code (ends the response)
+ * </ul>
+ * Each worker handles one command at a time, commands invoked by multiple threads are sent to different workers (up
+ * to the worker pool size).<br>
+ * The worker response is bound by the process timeout (org.fax4j.process.executer.timeout or the SPI action timeout),
+ * workers which did not respond in time are stopped and removed from the pool.<br>
+ * In case the worker command is not defined, each command is invoked by a new process (same as the default
+ * executer).<br>
+ * To use this executer, set the org.fax4j.process.executer.class.name to this class name.<br>
+ * <br>
+ * Below table describes the configuration values relevant for this class.<br>
+ * <b>Configuration:</b>
+ * <table summary="" border="1">
+ * <tr>
+ * <td>Name</td>
+ * <td>Description</td>
+ * <td>Preconfigured Value</td>
+ * <td>Default Value</td>
+ * <td>Mandatory</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.process.worker.command</td>
+ * <td>The command used to start the worker processes.</td>
+ * <td>none</td>
+ * <td>none</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.process.worker.pool.size</td>
+ * <td>The max amount of worker processes.</td>
+ * <td>1</td>
+ * <td>1</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.process.worker.borrow.timeout</td>
+ * <td>The max time in millies to wait for a free worker process.</td>
+ * <td>60000</td>
+ * <td>60000</td>
+ * <td>false</td>
+ * </tr>
+ * <tr>
+ * <td>org.fax4j.process.worker.idle.timeout</td>
+ * <td>The time in millies after which idle worker processes are stopped (0 to never stop idle workers).</td>
+ * <td>0</td>
+ * <td>0</td>
+ * <td>false</td>
+ * </tr>
+ * </table>
+ *
+ * @author Sagie Gur-Ari
+ * @version 1.0
+ * @since 0.46.0
+ */
+public class WorkerProcessExecutor extends DefaultProcessExecutor {
+    /** The worker command property key */
+    public static final String WORKER_COMMAND_PROPERTY_KEY = "org.fax4j.process.worker.command";
+    /** The worker pool size property key */
+    public static final String WORKER_POOL_SIZE_PROPERTY_KEY = "org.fax4j.process.worker.pool.size";
+    /** The worker borrow timeout property key */
+    public static final String WORKER_BORROW_TIMEOUT_PROPERTY_KEY = "org.fax4j.process.worker.borrow.timeout";
+    /** The worker idle timeout property key */
+    public static final String WORKER_IDLE_TIMEOUT_PROPERTY_KEY = "org.fax4j.process.worker.idle.timeout";
+    /** The output text response line prefix */
+    public static final String OUTPUT_LINE_PREFIX = "O ";
+    /** The error text response line prefix */
+    public static final String ERROR_LINE_PREFIX = "E ";
+    /** The exit code response line prefix */
+    public static final String EXIT_CODE_LINE_PREFIX = "X ";
+    /** The default worker pool size */
+    private static final int DEFAULT_POOL_SIZE = 1;
+    /** The default worker borrow timeout */
+    private static final long DEFAULT_BORROW_TIMEOUT = 60000;
+    /** The default worker idle timeout */
+    private static final long DEFAULT_IDLE_TIMEOUT = 0;
+    /** The min time in millies to wait between worker response polls */
+    private static final long MIN_POLL_INTERVAL = 1;
+    /** The max time in millies to wait between worker response polls */
+    private static final long MAX_POLL_INTERVAL = 50;
+    /** The worker pools (mapped by the worker command) */
+    private static final ConcurrentMap<String, ConnectionPool<WorkerProcess>> WORKER_POOLS =
+            new ConcurrentHashMap<String, ConnectionPool<WorkerProcess>>();
+
+    /**
+     * This is the class constructor.
+     */
+    public WorkerProcessExecutor() {
+        super();
+    }
+
+    /**
+     * This function executes the given command and returns the process output.
+     *
+     * @param configurationHolder
+     *            The configuration holder used when invoking the process
+     * @param command
+     *            The command to execute
+     * @return The process output
+     * @throws IOException
+     *             Any IO exception
+     * @throws InterruptedException
+     *             If thread interrupted during waitFor for the process
+     */
+    @Override
+    protected ProcessOutput executeProcessImpl(ConfigurationHolder configurationHolder, String command)
+            throws IOException, InterruptedException {
+        // get worker command
+        String workerCommand = configurationHolder
+                .getConfigurationValue(WorkerProcessExecutor.WORKER_COMMAND_PROPERTY_KEY);
+
+        ProcessOutput processOutput = null;
+        if (workerCommand == null || workerCommand.trim().length() == 0) {
+            // no workers, start new process
+            processOutput = super.executeProcessImpl(configurationHolder, command);
+        } else {
+            // get timeout (the worker response is not bound in case no timeout is defined)
+            long timeout = WorkerProcessExecutor.parseTime(
+                    configurationHolder.getConfigurationValue(ProcessExecutor.PROCESS_TIMEOUT_PROPERTY_KEY), 0);
+
+            // get worker
+            ConnectionPool<WorkerProcess> workerPool = this.getWorkerPool(configurationHolder, workerCommand.trim());
+            WorkerProcess workerProcess = workerPool.borrowResource();
+
+            boolean valid = false;
+            try {
+                // execute command
+                processOutput = workerProcess.executeCommand(command, timeout);
+
+                valid = true;
+            } finally {
+                // workers with broken protocol state or which did not respond in time are stopped
+                workerPool.returnResource(workerProcess, valid);
+            }
+        }
+
+        return processOutput;
+    }
+
+    /**
+     * This function returns the worker pool for the provided worker command (the pool is created on first use).
+     *
+     * @param configurationHolder
+     *            The configuration holder used when invoking the process
+     * @param workerCommand
+     *            The worker command
+     * @return The worker pool
+     */
+    protected ConnectionPool<WorkerProcess> getWorkerPool(ConfigurationHolder configurationHolder,
+            String workerCommand) {
+        ConnectionPool<WorkerProcess> workerPool = WorkerProcessExecutor.WORKER_POOLS.get(workerCommand);
+        if (workerPool == null) {
+            // get pool configuration
+            int poolSize = ThreadPoolHelper.parseSize(
+                    configurationHolder.getConfigurationValue(WorkerProcessExecutor.WORKER_POOL_SIZE_PROPERTY_KEY),
+                    WorkerProcessExecutor.DEFAULT_POOL_SIZE);
+            long borrowTimeout = WorkerProcessExecutor.parseTime(
+                    configurationHolder.getConfigurationValue(WorkerProcessExecutor.WORKER_BORROW_TIMEOUT_PROPERTY_KEY),
+                    WorkerProcessExecutor.DEFAULT_BORROW_TIMEOUT);
+            long idleTimeout = WorkerProcessExecutor.parseTime(
+                    configurationHolder.getConfigurationValue(WorkerProcessExecutor.WORKER_IDLE_TIMEOUT_PROPERTY_KEY),
+                    WorkerProcessExecutor.DEFAULT_IDLE_TIMEOUT);
+
+            // parse worker command
+            List<String> commandList = this.parseCommand(configurationHolder, workerCommand);
+
+            // create pool
+            ConnectionPool<WorkerProcess> newWorkerPool = new ConnectionPool<WorkerProcess>(
+                    new WorkerProcessHandler(commandList), Math.min(1, poolSize), poolSize, borrowTimeout,
+                    idleTimeout);
+            workerPool = WorkerProcessExecutor.WORKER_POOLS.putIfAbsent(workerCommand, newWorkerPool);
+            if (workerPool == null) {
+                workerPool = newWorkerPool;
+
+                // stop workers on shutdown
+                CloseableResourceManager.registerCloseable(workerPool);
+            }
+        }
+
+        return workerPool;
+    }
+
+    /**
+     * This function returns the time value of the provided configuration value or the default value in case the
+     * configuration value is not provided.
+     *
+     * @param value
+     *            The configuration value (may be null)
+     * @param defaultValue
+     *            The default value
+     * @return The time value
+     */
+    private static long parseTime(String value, long defaultValue) {
+        long time = defaultValue;
+        if (value != null && value.length() > 0) {
+            time = Long.parseLong(value);
+        }
+
+        return time;
+    }
+
+    /**
+     * This class creates and stops the worker processes.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class WorkerProcessHandler implements ResourceHandler<WorkerProcess> {
+        /** The worker command */
+        private final List<String> COMMAND;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param command
+         *            The worker command
+         */
+        protected WorkerProcessHandler(List<String> command) {
+            super();
+
+            this.COMMAND = command;
+        }
+
+        /**
+         * Starts a new worker process.
+         *
+         * @return The worker process
+         */
+        public WorkerProcess createResource() {
+            WorkerProcess workerProcess = null;
+            try {
+                workerProcess = new WorkerProcess(this.COMMAND);
+            } catch (IOException exception) {
+                throw new FaxException("Unable to start worker process: " + this.COMMAND, exception);
+            }
+
+            return workerProcess;
+        }
+
+        /**
+         * This function returns true if the worker process is still running.
+         *
+         * @param resource
+         *            The worker process
+         * @return True if the worker process is running
+         */
+        public boolean validateResource(WorkerProcess resource) {
+            return resource.isAlive();
+        }
+
+        /**
+         * Stops the worker process.
+         *
+         * @param resource
+         *            The worker process
+         */
+        public void releaseResource(WorkerProcess resource) {
+            resource.stop();
+        }
+    }
+
+    /**
+     * This class holds a running worker process.<br>
+     * This class is not thread safe, each worker process is used by one thread at a time.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    protected static class WorkerProcess {
+        /** The process */
+        private final Process PROCESS;
+        /** The process input writer */
+        private final Writer WRITER;
+        /** The process output reader */
+        private final BufferedReader READER;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param command
+         *            The worker command
+         * @throws IOException
+         *             Any IO exception
+         */
+        protected WorkerProcess(List<String> command) throws IOException {
+            super();
+
+            // start process
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            this.PROCESS = processBuilder.start();
+
+            String encoding = IOHelper.getDefaultEncoding();
+            this.WRITER = IOHelper.createWriter(this.PROCESS.getOutputStream(), encoding);
+            this.READER = new BufferedReader(IOHelper.createReader(this.PROCESS.getInputStream(), encoding));
+
+            // discard errors written outside of the protocol so the worker never blocks on them
+            Thread drainThread = new ErrorStreamDrainThread(this.PROCESS.getErrorStream());
+            drainThread.start();
+        }
+
+        /**
+         * This function sends the command to the worker process and returns the command output.
+         *
+         * @param command
+         *            The command to execute
+         * @param timeout
+         *            The max time in millies to wait for the worker response (0 for no timeout)
+         * @return The process output
+         * @throws IOException
+         *             Any IO exception
+         * @throws InterruptedException
+         *             If thread interrupted while waiting for the worker response
+         */
+        protected ProcessOutput executeCommand(String command, long timeout)
+                throws IOException, InterruptedException {
+            // send command (single line)
+            String line = command.replace('\r', ' ').replace('\n', ' ');
+            this.WRITER.write(line);
+            this.WRITER.write('\n');
+            this.WRITER.flush();
+
+            // read response
+            long endTime = System.currentTimeMillis() + timeout;
+            StringBuilder outputBuffer = new StringBuilder();
+            StringBuilder errorBuffer = new StringBuilder();
+            Integer exitCode = null;
+            do {
+                if (timeout > 0) {
+                    line = this.readLine(endTime);
+                    if (line == null && this.isAlive()) {
+                        throw new FaxException("Worker process did not respond after: " + timeout
+                                + " millies and was stopped, command: " + command);
+                    }
+                } else {
+                    line = this.READER.readLine();
+                }
+
+                if (line == null) {
+                    throw new IOException("Worker process ended while executing command: " + command);
+                } else if (line.startsWith(WorkerProcessExecutor.OUTPUT_LINE_PREFIX)) {
+                    outputBuffer.append(line, WorkerProcessExecutor.OUTPUT_LINE_PREFIX.length(), line.length());
+                    outputBuffer.append(Logger.SYSTEM_EOL);
+                } else if (line.startsWith(WorkerProcessExecutor.ERROR_LINE_PREFIX)) {
+                    errorBuffer.append(line, WorkerProcessExecutor.ERROR_LINE_PREFIX.length(), line.length());
+                    errorBuffer.append(Logger.SYSTEM_EOL);
+                } else if (line.startsWith(WorkerProcessExecutor.EXIT_CODE_LINE_PREFIX)) {
+                    try {
+                        exitCode = Integer.valueOf(
+                                line.substring(WorkerProcessExecutor.EXIT_CODE_LINE_PREFIX.length()).trim());
+                    } catch (NumberFormatException exception) {
+                        throw new IOException("Invalid worker process exit code line: " + line);
+                    }
+                } else {
+                    throw new IOException("Invalid worker process response line: " + line);
+                }
+            } while (exitCode == null);
+
+            // create output
+            ProcessOutput processOutput = new ProcessOutput(outputBuffer.toString(), errorBuffer.toString(),
+                    exitCode.intValue());
+
+            return processOutput;
+        }
+
+        /**
+         * This function reads the next response line without blocking beyond the provided end time.<br>
+         * The worker output is polled, so a hung worker can not block the invoking thread.
+         *
+         * @param endTime
+         *            The time (in millies) after which the read is stopped
+         * @return The response line (null if the worker ended or did not respond in time)
+         * @throws IOException
+         *             Any IO exception
+         * @throws InterruptedException
+         *             If thread interrupted while waiting for the worker response
+         */
+        protected String readLine(long endTime) throws IOException, InterruptedException {
+            StringBuilder buffer = new StringBuilder();
+            String line = null;
+            long pollInterval = WorkerProcessExecutor.MIN_POLL_INTERVAL;
+            boolean done = false;
+            do {
+                if (this.READER.ready()) {
+                    // read next character (ready ensures the read does not block)
+                    int character = this.READER.read();
+                    if (character == -1) {
+                        done = true;
+                    } else if (character == '\n') {
+                        line = buffer.toString();
+                        done = true;
+                    } else if (character != '\r') {
+                        buffer.append((char) character);
+                    }
+                    pollInterval = WorkerProcessExecutor.MIN_POLL_INTERVAL;
+                } else if ((!this.isAlive()) || (System.currentTimeMillis() >= endTime)) {
+                    done = true;
+                } else {
+                    // wait for more output
+                    Thread.sleep(pollInterval);
+                    pollInterval = Math.min(pollInterval * 2, WorkerProcessExecutor.MAX_POLL_INTERVAL);
+                }
+            } while (!done);
+
+            return line;
+        }
+
+        /**
+         * This function returns true if the worker process is still running.
+         *
+         * @return True if running
+         */
+        protected boolean isAlive() {
+            boolean alive = false;
+            try {
+                this.PROCESS.exitValue();
+            } catch (IllegalThreadStateException exception) {
+                alive = true;
+            }
+
+            return alive;
+        }
+
+        /**
+         * Stops the worker process.
+         */
+        protected void stop() {
+            // closing the input enables the worker to end gracefully
+            IOHelper.closeResource(this.WRITER);
+            IOHelper.closeResource(this.READER);
+
+            this.PROCESS.destroy();
+        }
+    }
+
+    /**
+     * This thread reads and discards the worker process error stream.
+     *
+     * @author Sagie Gur-Ari
+     * @version 1.0
+     * @since 0.46.0
+     */
+    private static class ErrorStreamDrainThread extends Thread {
+        /** The input stream to read from */
+        private final InputStream INPUT_STREAM;
+
+        /**
+         * This is the class constructor.
+         *
+         * @param inputStream
+         *            The input stream to read from
+         */
+        protected ErrorStreamDrainThread(InputStream inputStream) {
+            super("fax4j worker process error reader");
+
+            this.INPUT_STREAM = inputStream;
+            this.setDaemon(true);
+        }
+
+        /**
+         * Reads the data from the stream until the process ends.
+         */
+        @Override
+        public void run() {
+            byte[] buffer = new byte[1024];
+            int read = -1;
+            try {
+                do {
+                    read = this.INPUT_STREAM.read(buffer);
+                    if (read > 0) {
+                        LoggerManager.getInstance().getLogger().logDebug(
+                                new Object[] { "Worker process error output: ", new String(buffer, 0, read) }, null);
+                    }
+                } while (read != -1);
+            } catch (IOException exception) { // NOPMD
+                // ignore
+            } finally {
+                IOHelper.closeResource(this.INPUT_STREAM);
+            }
+        }
+    }
+}
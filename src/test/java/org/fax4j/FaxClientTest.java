@@ -5,16 +5,21 @@ import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.fax4j.FaxClientActionEvent.FaxClientActionEventID;
 import org.fax4j.FaxJob.FaxJobPriority;
 import org.fax4j.FaxMonitorEvent.FaxMonitorEventID;
 import org.fax4j.common.Fax4JProvider;
+import org.fax4j.common.FaxActionType;
 import org.fax4j.common.Logger;
 import org.fax4j.spi.AbstractFaxClientSpi;
 import org.fax4j.spi.FaxClientSpi;
 import org.fax4j.spi.FaxJobImpl;
 import org.fax4j.spi.FaxJobMonitor;
 import org.fax4j.spi.FaxJobMonitorImpl;
+import org.fax4j.spi.MetricsFaxClientSpiInterceptor;
 import org.fax4j.test.TestUtil;
 import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
 import org.fax4j.test.TestUtil.TestFaxClientActionEventListener;
@@ -103,6 +108,10 @@ public class FaxClientTest {
                 // empty
             }
 
+            public void submitFaxJobs(FaxJob[] faxJobs) {
+                // empty
+            }
+
             public void suspendFaxJob(FaxJob faxJob) {
                 // empty
             }
@@ -222,6 +231,56 @@ public class FaxClientTest {
         Assert.assertEquals(FaxClientActionEventID.CREATE_FAX_JOB, faxClientActionEventID);
     }
 
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobsTest() throws Exception {
+        // data setup
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.type.map.test", EmptyFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.proxy.interceptor.list", "metrics");
+        configuration.setProperty(MetricsFaxClientSpiInterceptor.METRICS_NAME_PROPERTY_KEY, "submitFaxJobsTest");
+        configuration.setProperty(MetricsFaxClientSpiInterceptor.JMX_ENABLED_PROPERTY_KEY, "false");
+        File file = File.createTempFile("temp_", ".txt");
+        IOHelper.writeTextFile("TEST_DATA", file);
+        file.deleteOnExit();
+
+        // the batch submission goes through the fax client SPI proxy
+        FaxClient faxClient = FaxClientFactory.createFaxClient("test", configuration);
+        final int[] submitted = new int[1];
+        faxClient.addFaxClientActionEventListener(new TestFaxClientActionEventListener() {
+            @Override
+            public void faxJobSubmitted(FaxClientActionEvent event) {
+                submitted[0]++;
+            }
+        });
+        FaxJob[] faxJobs = new FaxJob[] { faxClient.createFaxJob(), faxClient.createFaxJob() };
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index].setFile(file);
+            faxJobs[index].setTargetAddress("555-555" + index);
+        }
+        faxClient.submitFaxJobs(faxJobs);
+        Assert.assertEquals(2, submitted[0]);
+        Assert.assertEquals(1, MetricsFaxClientSpiInterceptor.getFaxActionMetrics("submitFaxJobsTest",
+                FaxActionType.SUBMIT_FAX_JOB).getInvocationCount());
+
+        // all fax jobs are validated before submitting the first one
+        faxJobs[1].setTargetAddress(null);
+        try {
+            faxClient.submitFaxJobs(faxJobs);
+            Assert.fail("Expected validation error");
+        } catch (FaxValidationException exception) {
+            // expected
+        }
+        Assert.assertEquals(2, submitted[0]);
+
+        file.delete();
+    }
+
     /**
      * Test
      * 
@@ -355,4 +414,56 @@ public class FaxClientTest {
         FaxJobStatus faxJobStatus = listener.getLastFaxJobStatus();
         Assert.assertNotNull(faxJobStatus);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobAsyncTest() throws Exception {
+        File file = File.createTempFile("temp_", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("TEST_DATA", file);
+
+        FaxClientSpi faxClientSpi = TestUtil.createFaxClientSpi(EmptyFaxClientSpi.class.getName(), null);
+        FaxClient faxClient = new FaxClient(faxClientSpi);
+        TestFaxClientActionEventListener listener = new TestFaxClientActionEventListener();
+        faxClient.addFaxClientActionEventListener(listener);
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setTargetAddress("123");
+        faxJob.setFile(file);
+        Future<FaxJob> future = faxClient.submitFaxJobAsync(faxJob);
+        Assert.assertNotNull(future);
+        FaxJob output = future.get(5, TimeUnit.SECONDS);
+
+        file.delete();
+
+        Assert.assertSame(faxJob, output);
+        Assert.assertNotNull(output.getID());
+        Assert.assertEquals(FaxClientActionEventID.SUBMIT_FAX_JOB, listener.getLastFaxEventID());
+
+        Future<FaxJobStatus> statusFuture = faxClient.getFaxJobStatusAsync(output);
+        Assert.assertNotNull(statusFuture.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobAsyncErrorTest() throws Exception {
+        FaxClientSpi faxClientSpi = TestUtil.createFaxClientSpi(EmptyFaxClientSpi.class.getName(), null);
+        FaxClient faxClient = new FaxClient(faxClientSpi);
+        Future<FaxJob> future = faxClient.submitFaxJobAsync(new FaxJobImpl());
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException exception) {
+            Assert.assertEquals(FaxValidationException.class, exception.getCause().getClass());
+        }
+    }
+}
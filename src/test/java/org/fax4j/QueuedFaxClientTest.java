@@ -0,0 +1,240 @@
+package org.fax4j;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.fax4j.util.IOHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class QueuedFaxClientTest {
+    /**
+     * This function deletes the provided directory and its content.
+     *
+     * @param directory
+     *            The directory
+     */
+    private static void deleteDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (int index = 0; index < files.length; index++) {
+                QueuedFaxClientTest.deleteDirectory(files[index]);
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobTest() throws Exception {
+        // data setup
+        File directory = File.createTempFile("fax4j_queue_", ".dir");
+        directory.delete();
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.type.map.test", EmptyFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.client.class.name", QueuedFaxClient.class.getName());
+        configuration.setProperty(QueuedFaxClient.QUEUE_DIRECTORY_PROPERTY_KEY, directory.getPath());
+        File file = File.createTempFile("temp_", ".txt");
+        IOHelper.writeTextFile("TEST_DATA", file);
+        file.deleteOnExit();
+
+        QueuedFaxClient faxClient = (QueuedFaxClient) FaxClientFactory.createFaxClient("test", configuration);
+        FaxJob faxJob = faxClient.createFaxJob();
+        Assert.assertEquals(FaxJobImpl.class, faxJob.getClass());
+        faxJob.setFile(file);
+        faxJob.setTargetAddress("555-555");
+        String key = faxClient.queueFaxJob(faxJob, null);
+        Assert.assertNotNull(key);
+
+        // the key is not added to the fax job
+        Assert.assertTrue(((FaxJobImpl) faxJob).getProperties().isEmpty());
+
+        // same idempotency key is ignored
+        Assert.assertEquals(key, faxClient.queueFaxJob(faxJob, key));
+
+        File spoolDirectory = new File(directory, "spool");
+        for (int index = 0; (index < 100) && ((faxClient.getQueueSize() > 0) || (spoolDirectory.list().length > 0));
+                index++) {
+            Thread.sleep(50);
+        }
+        faxClient.shutdown();
+        Assert.assertEquals(0, faxClient.getQueueSize());
+        Assert.assertEquals(0, spoolDirectory.list().length);
+
+        file.delete();
+        QueuedFaxClientTest.deleteDirectory(directory);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void spoolFileTest() throws Exception {
+        // data setup
+        File directory = File.createTempFile("fax4j_queue_", ".dir");
+        directory.delete();
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.type.map.test", EmptyFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.client.class.name", QueuedFaxClient.class.getName());
+        configuration.setProperty(QueuedFaxClient.QUEUE_DIRECTORY_PROPERTY_KEY, directory.getPath());
+        configuration.setProperty(QueuedFaxClient.QUEUE_WORKERS_PROPERTY_KEY, "1");
+        File file = File.createTempFile("temp_", ".txt");
+        IOHelper.writeTextFile("TEST_DATA", file);
+        file.deleteOnExit();
+
+        QueuedFaxClient faxClient = (QueuedFaxClient) FaxClientFactory.createFaxClient("test", configuration);
+        FaxJob faxJob = faxClient.createFaxJob();
+        faxJob.setFile(file);
+        faxJob.setTargetAddress("555-555");
+        faxClient.shutdown();
+        try {
+            faxClient.queueFaxJob(faxJob, "../../escape");
+            Assert.fail("Shutdown fax client should not queue fax jobs");
+        } catch (FaxException exception) {
+            // expected
+        }
+
+        // queue the fax job without submitting it
+        faxClient = new QueuedFaxClient(faxClient.getFaxClientSpi()) {
+            @Override
+            protected void submitQueuedFaxJob(QueuedFaxJob queuedFaxJob) {
+                // keep the fax job queued
+            }
+        };
+        faxClient.queueFaxJob(faxJob, "../../escape");
+        faxClient.shutdown();
+
+        // the document is spooled under the key hash with the original file name
+        File spoolDirectory = new File(directory, "spool");
+        File[] spoolDirectories = spoolDirectory.listFiles();
+        Assert.assertEquals(1, spoolDirectories.length);
+        Assert.assertTrue(spoolDirectories[0].isDirectory());
+        Assert.assertEquals(64, spoolDirectories[0].getName().length());
+        Assert.assertTrue(new File(spoolDirectories[0], file.getName()).isFile());
+        Assert.assertFalse(new File(directory.getParentFile(), "escape").exists());
+
+        // orphan spooled documents are removed on startup
+        File orphanDirectory = new File(spoolDirectory, "orphan");
+        orphanDirectory.mkdir();
+        IOHelper.writeTextFile("TEST_DATA", new File(orphanDirectory, "orphan.txt"));
+        faxClient = new QueuedFaxClient(faxClient.getFaxClientSpi()) {
+            @Override
+            protected void submitQueuedFaxJob(QueuedFaxJob queuedFaxJob) {
+                // keep the fax job queued
+            }
+        };
+        Assert.assertEquals(1, faxClient.getQueueSize());
+        faxClient.shutdown();
+        Assert.assertFalse(orphanDirectory.exists());
+        Assert.assertTrue(spoolDirectories[0].exists());
+
+        file.delete();
+        QueuedFaxClientTest.deleteDirectory(directory);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void retryTest() throws Exception {
+        // data setup
+        File directory = File.createTempFile("fax4j_queue_", ".dir");
+        directory.delete();
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.type.map.test", FailingFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.client.class.name", QueuedFaxClient.class.getName());
+        configuration.setProperty("org.fax4j.proxy.enabled", "false");
+        configuration.setProperty(QueuedFaxClient.QUEUE_DIRECTORY_PROPERTY_KEY, directory.getPath());
+        configuration.setProperty(QueuedFaxClient.QUEUE_MAX_ATTEMPTS_PROPERTY_KEY, "3");
+        configuration.setProperty(QueuedFaxClient.QUEUE_RETRY_DELAY_PROPERTY_KEY, "10");
+        File file = File.createTempFile("temp_", ".txt");
+        IOHelper.writeTextFile("TEST_DATA", file);
+        file.deleteOnExit();
+
+        QueuedFaxClient faxClient = (QueuedFaxClient) FaxClientFactory.createFaxClient("test", configuration);
+        String[] targetAddresses = new String[] { "connect", "unsafe", "unsupported", "rejected" };
+        for (int index = 0; index < targetAddresses.length; index++) {
+            FaxJob faxJob = faxClient.createFaxJob();
+            faxJob.setFile(file);
+            faxJob.setTargetAddress(targetAddresses[index]);
+            faxClient.queueFaxJob(faxJob, targetAddresses[index]);
+        }
+
+        for (int index = 0; (index < 100) && (faxClient.getQueueSize() > 0); index++) {
+            Thread.sleep(50);
+        }
+        faxClient.shutdown();
+        Assert.assertEquals(0, faxClient.getQueueSize());
+        Assert.assertEquals(4, new File(directory, "failed").list().length);
+
+        // only errors which happened before the vendor accepted the fax job are retried
+        Assert.assertEquals(3, FailingFaxClientSpi.ATTEMPTS.get("connect").get());
+        Assert.assertEquals(1, FailingFaxClientSpi.ATTEMPTS.get("unsafe").get());
+        Assert.assertEquals(1, FailingFaxClientSpi.ATTEMPTS.get("unsupported").get());
+        Assert.assertEquals(3, FailingFaxClientSpi.ATTEMPTS.get("rejected").get());
+
+        file.delete();
+        QueuedFaxClientTest.deleteDirectory(directory);
+    }
+
+    /**
+     * Test SPI which fails based on the fax job target address.
+     *
+     * @author Sagie Gur-Ari
+     */
+    public static class FailingFaxClientSpi extends EmptyFaxClientSpi {
+        /** The submit attempts per target address */
+        protected static final ConcurrentMap<String, AtomicInteger> ATTEMPTS = new ConcurrentHashMap<String,
+                AtomicInteger>();
+
+        /**
+         * This is the class constructor.
+         */
+        public FailingFaxClientSpi() {
+            super();
+        }
+
+        /**
+         * This function will submit a new fax job.
+         *
+         * @param faxJob
+         *            The fax job object containing the needed information
+         */
+        @Override
+        protected void submitFaxJobImpl(FaxJob faxJob) {
+            String targetAddress = faxJob.getTargetAddress();
+            FailingFaxClientSpi.ATTEMPTS.putIfAbsent(targetAddress, new AtomicInteger());
+            FailingFaxClientSpi.ATTEMPTS.get(targetAddress).incrementAndGet();
+
+            if (targetAddress.equals("connect")) {
+                throw new FaxException("Test error", new ConnectException("Connection refused"));
+            } else if (targetAddress.equals("unsupported")) {
+                throw new FaxUnsupportedOperationException("Test error");
+            } else if (targetAddress.equals("rejected")) {
+                throw new FaxRejectedException("Test error");
+            }
+            throw new FaxException("Test error");
+        }
+    }
+}
@@ -344,4 +344,33 @@ public class AbstractFax4JClientSpiTest {
         faxJob.setFilePath(".");
         this.faxClientSpi.submitFaxJob(faxJob);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void pollForFaxJobStatuesInParallelTest() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.polling.pool.size", "3");
+        FaxClientSpi spi = TestUtil.createFaxClientSpi(EmptyFaxClientSpi.class.getName(), configuration);
+        FaxJob[] faxJobs = new FaxJob[10];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setID(String.valueOf(index));
+        }
+        faxJobs[5] = null;
+        FaxJobStatus[] output = spi.pollForFaxJobStatues(faxJobs);
+        Assert.assertNotNull(output);
+        Assert.assertEquals(faxJobs.length, output.length);
+        for (int index = 0; index < faxJobs.length; index++) {
+            if (index == 5) {
+                Assert.assertEquals(FaxJobStatus.UNKNOWN, output[index]);
+            } else {
+                Assert.assertEquals(FaxJobStatus.PENDING, output[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.fax4j.spi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.common.Logger;
+import org.fax4j.spi.ConcurrentFaxJobMonitorImpl.FaxJobPollSchedule;
+import org.fax4j.spi.ConcurrentFaxJobMonitorImpl.SpiMonitorData;
+import org.fax4j.test.TestUtil;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.fax4j.util.LibraryConfigurationLoader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ * 
+ * @author Sagie Gur-Ari
+ */
+public class ConcurrentFaxJobMonitorImplTest {
+    /** The monitor */
+    private ConcurrentFaxJobMonitorImpl faxJobMonitor;
+    /** The fax client SPI */
+    private FaxClientSpi faxClientSpi;
+
+    /**
+     * Sets up the SPI instance.
+     */
+    @Before
+    public void setUp() {
+        this.faxClientSpi = TestUtil.createFaxClientSpi(EmptyFaxClientSpi.class.getName(), null);
+        this.faxJobMonitor = this.createFaxJobMonitor(false);
+    }
+
+    /**
+     * Creates a new monitor.
+     * 
+     * @param adaptive
+     *            True for adaptive polling mode
+     * @return The monitor
+     */
+    private ConcurrentFaxJobMonitorImpl createFaxJobMonitor(boolean adaptive) {
+        ConcurrentFaxJobMonitorImpl monitor = new ConcurrentFaxJobMonitorImpl();
+        Logger logger = this.faxClientSpi.getLogger();
+        Map<String, String> configuration = LibraryConfigurationLoader.getSystemConfiguration();
+        Map<String, String> map = new HashMap<String, String>(configuration);
+        map.put("org.fax4j.monitor.polling.interval", "60000");
+        map.put("org.fax4j.monitor.polling.pool.size", "2");
+        map.put("org.fax4j.monitor.polling.adaptive", String.valueOf(adaptive));
+        map.put("org.fax4j.monitor.polling.adaptive.initial.interval", "20");
+        map.put("org.fax4j.monitor.polling.adaptive.max.interval", "100");
+        map.put("org.fax4j.monitor.polling.adaptive.backoff.factor", "2");
+        monitor.initialize(map, logger);
+
+        return monitor;
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void monitorOnOffTest() throws Exception {
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID("123");
+        Assert.assertFalse(this.faxJobMonitor.isMonitoring(this.faxClientSpi));
+        this.faxJobMonitor.monitorFaxJob(this.faxClientSpi, faxJob);
+        Assert.assertTrue(this.faxJobMonitor.isMonitoring(this.faxClientSpi));
+        this.faxJobMonitor.stopMonitoringAllFaxJobs(this.faxClientSpi);
+        Assert.assertFalse(this.faxJobMonitor.isMonitoring(this.faxClientSpi));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void runPollingCycleSingleSPITest() throws Exception {
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID("123");
+        this.faxJobMonitor.monitorFaxJob(this.faxClientSpi, faxJob);
+        this.faxJobMonitor.runPollingCycle(this.faxClientSpi);
+        String currentStatus = faxJob.getProperty("test.status", null);
+        Assert.assertNotNull(currentStatus);
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, FaxJobStatus.valueOf(currentStatus));
+        Assert.assertTrue(this.faxJobMonitor.isMonitoring(this.faxClientSpi));
+        this.faxJobMonitor.runPollingCycle(this.faxClientSpi);
+        currentStatus = faxJob.getProperty("test.status", null);
+        Assert.assertNotNull(currentStatus);
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, FaxJobStatus.valueOf(currentStatus));
+        Assert.assertFalse(this.faxJobMonitor.isMonitoring(this.faxClientSpi));
+        this.faxJobMonitor.runPollingCycle(this.faxClientSpi);
+        Assert.assertFalse(this.faxJobMonitor.isMonitoring(this.faxClientSpi));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void runPollingCycleMultiSPITest() throws Exception {
+        FaxClientSpi[] faxClientSpis = new FaxClientSpi[10];
+        for (int index = 0; index < faxClientSpis.length; index++) {
+            faxClientSpis[index] = TestUtil.createFaxClientSpi(EmptyFaxClientSpi.class.getName(), null);
+        }
+        FaxJob[] faxJobs = new FaxJob[faxClientSpis.length * 10];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setID(String.valueOf(index));
+            this.faxJobMonitor.monitorFaxJob(faxClientSpis[index % 10], faxJobs[index]);
+        }
+        this.faxJobMonitor.runPollingCycle(faxClientSpis[0]);
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS,
+                FaxJobStatus.valueOf(faxJobs[0].getProperty("test.status", null)));
+        Assert.assertEquals(FaxJobStatus.PENDING, FaxJobStatus.valueOf(faxJobs[1].getProperty("test.status", null)));
+        this.faxJobMonitor.runPollingCycle(faxClientSpis[0]);
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, FaxJobStatus.valueOf(faxJobs[0].getProperty("test.status", null)));
+        Assert.assertFalse(this.faxJobMonitor.isMonitoring(faxClientSpis[0]));
+        for (int index = 1; index < faxClientSpis.length; index++) {
+            Assert.assertTrue(this.faxJobMonitor.isMonitoring(faxClientSpis[index]));
+            this.faxJobMonitor.stopMonitoringAllFaxJobs(faxClientSpis[index]);
+        }
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void adaptivePollingTest() throws Exception {
+        ConcurrentFaxJobMonitorImpl monitor = this.createFaxJobMonitor(true);
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID("123");
+        monitor.monitorFaxJob(this.faxClientSpi, faxJob);
+        Assert.assertTrue(monitor.isMonitoring(this.faxClientSpi));
+        for (int index = 0; (index < 100) && (monitor.isMonitoring(this.faxClientSpi)); index++) {
+            Thread.sleep(20);
+        }
+        Assert.assertFalse(monitor.isMonitoring(this.faxClientSpi));
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, FaxJobStatus.valueOf(faxJob.getProperty("test.status", null)));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void adaptiveRescheduleTest() throws Exception {
+        ConcurrentFaxJobMonitorImpl monitor = this.createFaxJobMonitor(true);
+        SpiMonitorData spiData = new SpiMonitorData();
+        FaxJob faxJob = new FaxJobImpl();
+        FaxJobPollSchedule pollSchedule = new FaxJobPollSchedule(faxJob, 20);
+        List<FaxJobPollSchedule> pollSchedules = new ArrayList<FaxJobPollSchedule>();
+        pollSchedules.add(pollSchedule);
+        FaxJobStatus[] previous = new FaxJobStatus[] { FaxJobStatus.PENDING };
+
+        monitor.reschedule(spiData, pollSchedules, previous, new FaxJobStatus[] { FaxJobStatus.PENDING });
+        Assert.assertEquals(40, pollSchedule.interval);
+        Assert.assertSame(pollSchedule, spiData.pollSchedules.peek());
+        monitor.reschedule(spiData, pollSchedules, previous, null);
+        Assert.assertEquals(80, pollSchedule.interval);
+        monitor.reschedule(spiData, pollSchedules, previous, new FaxJobStatus[] { FaxJobStatus.PENDING });
+        Assert.assertEquals(100, pollSchedule.interval);
+        monitor.reschedule(spiData, pollSchedules, previous, new FaxJobStatus[] { FaxJobStatus.IN_PROGRESS });
+        Assert.assertEquals(20, pollSchedule.interval);
+    }
+}
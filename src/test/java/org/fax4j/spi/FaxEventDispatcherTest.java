@@ -0,0 +1,207 @@
+package org.fax4j.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.common.SimpleLogger;
+import org.fax4j.spi.FaxEventDispatcher.OverflowPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class FaxEventDispatcherTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void dispatchOrderTest() throws Exception {
+        FaxEventDispatcher dispatcher = new FaxEventDispatcher(4, 16, OverflowPolicy.BLOCK, new SimpleLogger());
+        Object[] keys = new Object[] { new Object(), new Object(), new Object() };
+        final List<List<Integer>> results = new ArrayList<List<Integer>>();
+        final CountDownLatch latch = new CountDownLatch(keys.length * 100);
+        for (int index = 0; index < keys.length; index++) {
+            results.add(new ArrayList<Integer>());
+        }
+        for (int value = 0; value < 100; value++) {
+            for (int index = 0; index < keys.length; index++) {
+                final List<Integer> result = results.get(index);
+                final int number = value;
+                dispatcher.dispatch(keys[index], new Runnable() {
+                    public void run() {
+                        synchronized (result) {
+                            result.add(Integer.valueOf(number));
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int index = 0; index < keys.length; index++) {
+            List<Integer> result = results.get(index);
+            synchronized (result) {
+                Assert.assertEquals(100, result.size());
+                for (int value = 0; value < 100; value++) {
+                    Assert.assertEquals(value, result.get(value).intValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void dispatchOverflowTest() throws Exception {
+        FaxEventDispatcher dispatcher = new FaxEventDispatcher(1, 2, OverflowPolicy.DROP_NEWEST, new SimpleLogger());
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Object key = new Object();
+
+        // block the consumer thread
+        dispatcher.dispatch(key, new Runnable() {
+            public void run() {
+                startLatch.countDown();
+                try {
+                    blockLatch.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Assert.assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+
+        // fill the ring and overflow
+        Runnable emptyTask = new Runnable() {
+            public void run() {
+                // empty
+            }
+        };
+        for (int index = 0; index < 5; index++) {
+            dispatcher.dispatch(key, emptyTask);
+        }
+        Assert.assertEquals(2, dispatcher.getPendingEventsCount());
+        Assert.assertEquals(3, dispatcher.getDroppedEventsCount());
+        blockLatch.countDown();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void dispatchFromConsumerTest() throws Exception {
+        final FaxEventDispatcher dispatcher = new FaxEventDispatcher(1, 1, OverflowPolicy.BLOCK,
+                new SimpleLogger());
+        final Object key = new Object();
+        final List<Integer> result = new ArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(4);
+
+        // listener which fires events into its own full ring
+        dispatcher.dispatch(key, new Runnable() {
+            public void run() {
+                for (int value = 1; value < 4; value++) {
+                    final int number = value;
+                    dispatcher.dispatch(key, new Runnable() {
+                        public void run() {
+                            synchronized (result) {
+                                result.add(Integer.valueOf(number));
+                            }
+                            latch.countDown();
+                        }
+                    });
+                }
+                latch.countDown();
+            }
+        });
+
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        synchronized (result) {
+            Assert.assertEquals(3, result.size());
+            for (int value = 0; value < 3; value++) {
+                Assert.assertEquals(value + 1, result.get(value).intValue());
+            }
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void idleConsumerTest() throws Exception {
+        FaxEventDispatcher dispatcher = new FaxEventDispatcher(1, 4, OverflowPolicy.BLOCK, new SimpleLogger(), 50);
+        final List<Thread> threads = new ArrayList<Thread>();
+        Object key = new Object();
+        for (int index = 0; index < 2; index++) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            dispatcher.dispatch(key, new Runnable() {
+                public void run() {
+                    synchronized (threads) {
+                        threads.add(Thread.currentThread());
+                    }
+                    latch.countDown();
+                }
+            });
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            // idle consumer thread is released
+            Thread thread = null;
+            synchronized (threads) {
+                thread = threads.get(index);
+            }
+            thread.join(10000);
+            Assert.assertFalse(thread.isAlive());
+        }
+        Assert.assertNotSame(threads.get(0), threads.get(1));
+
+        // closed dispatcher rejects new events
+        dispatcher.close();
+        try {
+            dispatcher.dispatch(key, new Runnable() {
+                public void run() {
+                    // empty
+                }
+            });
+            Assert.fail();
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void routingHashTest() throws Exception {
+        FaxJob faxJob1 = new FaxJobImpl();
+        FaxJob faxJob2 = new FaxJobImpl();
+        Assert.assertEquals(System.identityHashCode(faxJob1), FaxEventDispatcher.getRoutingHash(faxJob1));
+
+        // fax job instances with the same ID are routed together
+        faxJob1.setID("123");
+        faxJob2.setID("123");
+        Assert.assertEquals(FaxEventDispatcher.getRoutingHash(faxJob1), FaxEventDispatcher.getRoutingHash(faxJob2));
+    }
+}
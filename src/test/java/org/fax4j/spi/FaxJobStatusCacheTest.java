@@ -0,0 +1,218 @@
+package org.fax4j.spi;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class FaxJobStatusCacheTest {
+    /**
+     * This function creates a new fax job.
+     *
+     * @param id
+     *            The fax job ID
+     * @return The fax job
+     */
+    private static FaxJob createFaxJob(String id) {
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID(id);
+
+        return faxJob;
+    }
+
+    /**
+     * This function creates a loader which counts its invocations.
+     *
+     * @param counter
+     *            The invocations counter
+     * @param faxJobStatus
+     *            The returned fax job status
+     * @return The loader
+     */
+    private static Callable<FaxJobStatus> createLoader(final AtomicInteger counter, final FaxJobStatus faxJobStatus) {
+        return new Callable<FaxJobStatus>() {
+            public FaxJobStatus call() {
+                counter.incrementAndGet();
+                return faxJobStatus;
+            }
+        };
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void ttlTest() throws Exception {
+        FaxJobStatusCache cache = new FaxJobStatusCache(0, 60000, 100);
+        FaxJob faxJob = FaxJobStatusCacheTest.createFaxJob("1");
+        AtomicInteger counter = new AtomicInteger();
+
+        // non terminal statuses are not cached
+        Callable<FaxJobStatus> loader = FaxJobStatusCacheTest.createLoader(counter, FaxJobStatus.IN_PROGRESS);
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(2, counter.get());
+        Assert.assertEquals(0, cache.size());
+
+        // terminal statuses are cached
+        loader = FaxJobStatusCacheTest.createLoader(counter, FaxJobStatus.ERROR);
+        Assert.assertEquals(FaxJobStatus.ERROR, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(FaxJobStatus.ERROR, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(3, counter.get());
+        Assert.assertEquals(1, cache.size());
+
+        cache.invalidate(faxJob);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(FaxJobStatus.ERROR, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(4, counter.get());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void putFaxJobStatusesTest() throws Exception {
+        FaxJobStatusCache cache = new FaxJobStatusCache(60000, 60000, 2);
+        FaxJob[] faxJobs = new FaxJob[] { FaxJobStatusCacheTest.createFaxJob("1"),
+                FaxJobStatusCacheTest.createFaxJob("2"), FaxJobStatusCacheTest.createFaxJob("3") };
+        cache.putFaxJobStatuses(new FaxJob[] { faxJobs[0], faxJobs[1] },
+                new FaxJobStatus[] { FaxJobStatus.PENDING, null });
+        Assert.assertEquals(1, cache.size());
+
+        AtomicInteger counter = new AtomicInteger();
+        Callable<FaxJobStatus> loader = FaxJobStatusCacheTest.createLoader(counter, FaxJobStatus.IN_PROGRESS);
+        Assert.assertEquals(FaxJobStatus.PENDING, cache.getFaxJobStatus(faxJobs[0], loader));
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, cache.getFaxJobStatus(faxJobs[1], loader));
+        Assert.assertEquals(1, counter.get());
+
+        // refresh ignores the cached status
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, cache.refreshFaxJobStatus(faxJobs[0], loader));
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, cache.getFaxJobStatus(faxJobs[0], loader));
+        Assert.assertEquals(2, counter.get());
+
+        // max size is enforced
+        cache.putFaxJobStatuses(new FaxJob[] { faxJobs[2] }, new FaxJobStatus[] { FaxJobStatus.PENDING });
+        Assert.assertEquals(2, cache.size());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void singleFlightTest() throws Exception {
+        final FaxJobStatusCache cache = new FaxJobStatusCache(0, 0, 100);
+        final FaxJob faxJob = FaxJobStatusCacheTest.createFaxJob("1");
+        final AtomicInteger counter = new AtomicInteger();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        final Callable<FaxJobStatus> loader = new Callable<FaxJobStatus>() {
+            public FaxJobStatus call() throws Exception {
+                counter.incrementAndGet();
+                startLatch.countDown();
+                blockLatch.await();
+                return FaxJobStatus.PENDING;
+            }
+        };
+
+        // start the in flight request
+        final FaxJobStatus[] results = new FaxJobStatus[5];
+        final CountDownLatch doneLatch = new CountDownLatch(results.length);
+        Thread[] threads = new Thread[results.length];
+        for (int index = 0; index < threads.length; index++) {
+            final int resultIndex = index;
+            threads[index] = new Thread(new Runnable() {
+                public void run() {
+                    results[resultIndex] = cache.getFaxJobStatus(faxJob, loader);
+                    doneLatch.countDown();
+                }
+            });
+        }
+        threads[0].start();
+        Assert.assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+
+        // join the in flight request
+        for (int index = 1; index < threads.length; index++) {
+            threads[index].start();
+        }
+        Thread.sleep(200);
+        blockLatch.countDown();
+
+        Assert.assertTrue(doneLatch.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, counter.get());
+        for (int index = 0; index < results.length; index++) {
+            Assert.assertEquals(FaxJobStatus.PENDING, results[index]);
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invalidateInFlightTest() throws Exception {
+        final FaxJobStatusCache cache = new FaxJobStatusCache(60000, 60000, 100);
+        final FaxJob faxJob = FaxJobStatusCacheTest.createFaxJob("1");
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        final Callable<FaxJobStatus> staleLoader = new Callable<FaxJobStatus>() {
+            public FaxJobStatus call() throws Exception {
+                startLatch.countDown();
+                blockLatch.await();
+                return FaxJobStatus.IN_PROGRESS;
+            }
+        };
+
+        // start a status request and invalidate while it is in flight (for example cancel)
+        final FaxJobStatus[] results = new FaxJobStatus[1];
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                results[0] = cache.getFaxJobStatus(faxJob, staleLoader);
+            }
+        });
+        thread.start();
+        Assert.assertTrue(startLatch.await(10, TimeUnit.SECONDS));
+        cache.invalidate(faxJob);
+
+        // new lookups do not join the stale request
+        AtomicInteger counter = new AtomicInteger();
+        Callable<FaxJobStatus> loader = FaxJobStatusCacheTest.createLoader(counter, FaxJobStatus.ERROR);
+        Assert.assertEquals(FaxJobStatus.ERROR, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(1, counter.get());
+
+        // the stale status is returned but not cached
+        blockLatch.countDown();
+        thread.join(10000);
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, results[0]);
+        Assert.assertEquals(FaxJobStatus.ERROR, cache.getFaxJobStatus(faxJob, loader));
+        Assert.assertEquals(1, counter.get());
+
+        // stale poll results are not cached
+        long requestVersion = cache.getVersion();
+        cache.invalidate(faxJob);
+        cache.putFaxJobStatuses(new FaxJob[] { faxJob }, new FaxJobStatus[] { FaxJobStatus.PENDING }, requestVersion);
+        Assert.assertEquals(0, cache.size());
+        cache.putFaxJobStatuses(new FaxJob[] { faxJob }, new FaxJobStatus[] { FaxJobStatus.PENDING },
+                cache.getVersion());
+        Assert.assertEquals(FaxJobStatus.PENDING, cache.getFaxJobStatus(faxJob, loader));
+    }
+}
@@ -0,0 +1,167 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import org.fax4j.FaxException;
+import org.fax4j.FaxRejectedException;
+import org.fax4j.spi.FaxClientSpiProxy.FaxClientSpiProxyEventType;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.fax4j.test.TestUtil.TestFaxClientSpiInterceptor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class InterceptorChainFaxClientSpiProxyImplTest {
+    /** The proxy impl */
+    private InterceptorChainFaxClientSpiProxyImpl proxy;
+    /** The proxied fax client SPI */
+    private FaxClientSpi faxClientSpi;
+    /** The interceptor */
+    private TestFaxClientSpiInterceptor interceptor;
+    /** The selective interceptor */
+    private TestSelectiveFaxClientSpiInterceptor selectiveInterceptor;
+
+    /**
+     * Sets up the SPI instance.
+     */
+    @Before
+    public void setUp() {
+        this.proxy = new InterceptorChainFaxClientSpiProxyImpl();
+        this.interceptor = new TestFaxClientSpiInterceptor();
+        this.selectiveInterceptor = new TestSelectiveFaxClientSpiInterceptor();
+        this.proxy.initialize(new EmptyFaxClientSpi(true),
+                new FaxClientSpiInterceptor[] { this.interceptor, this.selectiveInterceptor });
+        this.faxClientSpi = (FaxClientSpi) Proxy.newProxyInstance(FaxClientSpi.class.getClassLoader(),
+                new Class[] { FaxClientSpi.class }, this.proxy);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invokeValidTest() throws Exception {
+        Assert.assertNotNull(this.faxClientSpi.getLogger());
+        Assert.assertNotNull(this.faxClientSpi.getLogger());
+        Assert.assertEquals(2, this.interceptor.preCount);
+        Assert.assertEquals(2, this.interceptor.postCount);
+        Assert.assertEquals(0, this.interceptor.onErrorCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.preCount);
+        Assert.assertEquals(2, this.selectiveInterceptor.postCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.onErrorCount);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invokeErrorTest() throws Exception {
+        try {
+            this.faxClientSpi.submitFaxJob(null);
+            Assert.fail();
+        } catch (FaxException exception) {
+            // expected
+        }
+        Assert.assertEquals(1, this.interceptor.preCount);
+        Assert.assertEquals(0, this.interceptor.postCount);
+        Assert.assertEquals(1, this.interceptor.onErrorCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.preCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.postCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.onErrorCount);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invokePreErrorTest() throws Exception {
+        TestFaxClientSpiInterceptor rejectingInterceptor = new TestFaxClientSpiInterceptor() {
+            @Override
+            public void preMethodInvocation(Method method, Object[] arguments) {
+                super.preMethodInvocation(method, arguments);
+                throw new FaxRejectedException("Rejected.");
+            }
+        };
+        TestFaxClientSpiInterceptor lastInterceptor = new TestFaxClientSpiInterceptor();
+        InterceptorChainFaxClientSpiProxyImpl rejectingProxy = new InterceptorChainFaxClientSpiProxyImpl();
+        rejectingProxy.initialize(new EmptyFaxClientSpi(true), new FaxClientSpiInterceptor[] { this.interceptor,
+                this.selectiveInterceptor, rejectingInterceptor, lastInterceptor });
+        FaxClientSpi rejectingFaxClientSpi = (FaxClientSpi) Proxy.newProxyInstance(
+                FaxClientSpi.class.getClassLoader(), new Class[] { FaxClientSpi.class }, rejectingProxy);
+
+        try {
+            rejectingFaxClientSpi.getLogger();
+            Assert.fail();
+        } catch (FaxRejectedException exception) {
+            // expected
+        }
+
+        // only interceptors invoked for the pre event get the error event
+        Assert.assertEquals(1, this.interceptor.preCount);
+        Assert.assertEquals(1, this.interceptor.onErrorCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.onErrorCount);
+        Assert.assertEquals(1, rejectingInterceptor.preCount);
+        Assert.assertEquals(0, rejectingInterceptor.onErrorCount);
+        Assert.assertEquals(0, lastInterceptor.preCount);
+        Assert.assertEquals(0, lastInterceptor.onErrorCount);
+        Assert.assertEquals(0, lastInterceptor.postCount);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invokeInterceptorsTest() throws Exception {
+        Method method = FaxClientSpi.class.getMethod("getLogger");
+        this.proxy.invokeInterceptors(FaxClientSpiProxyEventType.PRE_EVENT_TYPE, method, null, null, null);
+        this.proxy.invokeInterceptors(FaxClientSpiProxyEventType.POST_EVENT_TYPE, method, null, null, null);
+        Assert.assertEquals(1, this.interceptor.preCount);
+        Assert.assertEquals(1, this.interceptor.postCount);
+        Assert.assertEquals(0, this.selectiveInterceptor.preCount);
+        Assert.assertEquals(1, this.selectiveInterceptor.postCount);
+    }
+
+    /**
+     * Selective interceptor which is only interested in post events of the getLogger method.
+     *
+     * @author Sagie Gur-Ari
+     */
+    private static class TestSelectiveFaxClientSpiInterceptor extends TestFaxClientSpiInterceptor implements
+            SelectiveFaxClientSpiInterceptor {
+        /**
+         * This is the class constructor.
+         */
+        public TestSelectiveFaxClientSpiInterceptor() {
+            super();
+        }
+
+        /**
+         * This function returns true if the interceptor should be invoked for the provided method and event type.
+         *
+         * @param method
+         *            The fax client SPI method
+         * @param eventType
+         *            The event type
+         * @return True if the interceptor should be invoked
+         */
+        public boolean isInterested(Method method, FaxClientSpiProxyEventType eventType) {
+            return method.getName().equals("getLogger") && eventType == FaxClientSpiProxyEventType.POST_EVENT_TYPE;
+        }
+    }
+}
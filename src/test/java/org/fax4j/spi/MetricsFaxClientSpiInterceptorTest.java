@@ -0,0 +1,93 @@
+package org.fax4j.spi;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.List;
+import javax.management.ObjectName;
+import org.fax4j.FaxJob;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class MetricsFaxClientSpiInterceptorTest {
+    /** The interceptor */
+    private MetricsFaxClientSpiInterceptor interceptor;
+
+    /**
+     * Sets up the interceptor instance.
+     */
+    @Before
+    public void setUp() {
+        this.interceptor = new MetricsFaxClientSpiInterceptor();
+        this.interceptor.initialize(new EmptyFaxClientSpi(true));
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void isInterestedTest() throws Exception {
+        Method method = FaxClientSpi.class.getMethod("submitFaxJob", FaxJob.class);
+        Assert.assertTrue(this.interceptor.isInterested(method,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.PRE_EVENT_TYPE));
+        method = FaxClientSpi.class.getMethod("getLogger");
+        Assert.assertFalse(this.interceptor.isInterested(method,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.PRE_EVENT_TYPE));
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void recordInvocationTest() throws Exception {
+        FaxActionMetrics metrics = MetricsFaxClientSpiInterceptor.getFaxActionMetrics("EmptyFaxClientSpi",
+                FaxActionType.CANCEL_FAX_JOB);
+        Assert.assertNotNull(metrics);
+        long count = metrics.getInvocationCount();
+        long errorCount = metrics.getErrorCount();
+
+        Method method = FaxClientSpi.class.getMethod("cancelFaxJob", FaxJob.class);
+        this.interceptor.preMethodInvocation(method, null);
+        Thread.sleep(5);
+        this.interceptor.postMethodInvocation(method, null, null);
+        this.interceptor.preMethodInvocation(method, null);
+        this.interceptor.onMethodInvocationError(method, null, new RuntimeException());
+
+        Assert.assertEquals(count + 2, metrics.getInvocationCount());
+        Assert.assertEquals(errorCount + 1, metrics.getErrorCount());
+        Assert.assertTrue(metrics.getMaxLatency() >= 4);
+
+        // snapshot
+        List<FaxActionMetrics.Snapshot> snapshots = MetricsFaxClientSpiInterceptor.getFaxActionMetricsSnapshots();
+        boolean found = false;
+        for (int index = 0; index < snapshots.size(); index++) {
+            FaxActionMetrics.Snapshot snapshot = snapshots.get(index);
+            if (snapshot.getName().equals("EmptyFaxClientSpi")
+                    && snapshot.getFaxActionType() == FaxActionType.CANCEL_FAX_JOB) {
+                found = true;
+                Assert.assertEquals(count + 2, snapshot.getInvocationCount());
+                Assert.assertTrue(snapshot.get99thPercentileLatency() >= snapshot.get50thPercentileLatency());
+            }
+        }
+        Assert.assertTrue(found);
+
+        // JMX
+        ObjectName objectName = new ObjectName("org.fax4j:type=FaxActionMetrics,name=EmptyFaxClientSpi,action="
+                + FaxActionType.CANCEL_FAX_JOB.name());
+        Object value = ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "InvocationCount");
+        Assert.assertEquals(Long.valueOf(count + 2), value);
+    }
+}
@@ -0,0 +1,101 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxRejectedException;
+import org.fax4j.common.FaxActionType;
+import org.fax4j.common.LogLevel;
+import org.fax4j.common.Logger;
+import org.fax4j.common.SimpleLogger;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class RateLimitFaxClientSpiInterceptorTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void rateLimitTest() throws Exception {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.name", "rateLimitTest");
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.get_fax_job_status.rate", "1");
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.get_fax_job_status.burst", "2");
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.queue.size", "0");
+        Logger logger = new SimpleLogger();
+        logger.setLogLevel(LogLevel.NONE);
+        EmptyFaxClientSpi faxClientSpi = new EmptyFaxClientSpi(false);
+        faxClientSpi.initialize(configuration, logger, new FaxJobMonitorImpl());
+
+        RateLimitFaxClientSpiInterceptor interceptor = new RateLimitFaxClientSpiInterceptor();
+        interceptor.initialize(faxClientSpi);
+        Assert.assertNull(RateLimitFaxClientSpiInterceptor.getTokenBucket("rateLimitTest", null));
+        Assert.assertNotNull(RateLimitFaxClientSpiInterceptor.getTokenBucket("rateLimitTest",
+                FaxActionType.GET_FAX_JOB_STATUS));
+
+        // only rate limited actions are intercepted
+        Method submitMethod = FaxClientSpi.class.getMethod("submitFaxJob", FaxJob.class);
+        Assert.assertFalse(interceptor.isInterested(submitMethod,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.PRE_EVENT_TYPE));
+        Method statusMethod = FaxClientSpi.class.getMethod("getFaxJobStatus", FaxJob.class);
+        Assert.assertTrue(interceptor.isInterested(statusMethod,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.PRE_EVENT_TYPE));
+        Assert.assertFalse(interceptor.isInterested(statusMethod,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.POST_EVENT_TYPE));
+
+        // monitor polling shares the budget
+        interceptor.preMethodInvocation(statusMethod, null);
+        faxClientSpi.acquireStatusPollingPermit();
+        try {
+            interceptor.preMethodInvocation(statusMethod, null);
+            Assert.fail("Rate limit should be exceeded");
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void batchRateLimitTest() throws Exception {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.name", "batchRateLimitTest");
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.submit_fax_job.rate", "1");
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.submit_fax_job.burst", "3");
+        configuration.put("org.fax4j.proxy.interceptor.rate.limit.queue.size", "0");
+        Logger logger = new SimpleLogger();
+        logger.setLogLevel(LogLevel.NONE);
+        EmptyFaxClientSpi faxClientSpi = new EmptyFaxClientSpi(false);
+        faxClientSpi.initialize(configuration, logger, new FaxJobMonitorImpl());
+
+        RateLimitFaxClientSpiInterceptor interceptor = new RateLimitFaxClientSpiInterceptor();
+        interceptor.initialize(faxClientSpi);
+
+        // batch submissions take a token per fax job
+        Method batchMethod = FaxClientSpi.class.getMethod("submitFaxJobs", FaxJob[].class);
+        Assert.assertTrue(interceptor.isInterested(batchMethod,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.PRE_EVENT_TYPE));
+        interceptor.preMethodInvocation(batchMethod, new Object[] { new FaxJob[3] });
+        try {
+            interceptor.preMethodInvocation(FaxClientSpi.class.getMethod("submitFaxJob", FaxJob.class), null);
+            Assert.fail("Rate limit should be exceeded");
+        } catch (FaxRejectedException exception) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.fax4j.spi;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxUnsupportedOperationException;
+import org.fax4j.FaxValidationException;
+import org.fax4j.common.LogLevel;
+import org.fax4j.common.Logger;
+import org.fax4j.common.SimpleLogger;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.fax4j.util.CircuitBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class ResilienceFaxClientSpiInterceptorTest {
+    /**
+     * This function creates a new interceptor.
+     *
+     * @param name
+     *            The resilience name
+     * @return The interceptor
+     */
+    private ResilienceFaxClientSpiInterceptor createInterceptor(String name) {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ResilienceFaxClientSpiInterceptor.RESILIENCE_NAME_PROPERTY_KEY, name);
+
+        return this.createInterceptor(configuration);
+    }
+
+    /**
+     * This function creates a new interceptor.
+     *
+     * @param configuration
+     *            The SPI configuration
+     * @return The interceptor
+     */
+    private ResilienceFaxClientSpiInterceptor createInterceptor(Map<String, String> configuration) {
+        configuration.put(ResilienceFaxClientSpiInterceptor.MINIMUM_CALLS_PROPERTY_KEY, "2");
+        configuration.put(ResilienceFaxClientSpiInterceptor.OPEN_DURATION_PROPERTY_KEY, "60000");
+        configuration.put(ResilienceFaxClientSpiInterceptor.MAX_CONCURRENT_CALLS_PROPERTY_KEY, "1");
+        Logger logger = new SimpleLogger();
+        logger.setLogLevel(LogLevel.NONE);
+        EmptyFaxClientSpi faxClientSpi = new EmptyFaxClientSpi(false);
+        faxClientSpi.initialize(configuration, logger, new FaxJobMonitorImpl());
+
+        ResilienceFaxClientSpiInterceptor interceptor = new ResilienceFaxClientSpiInterceptor();
+        interceptor.initialize(faxClientSpi);
+
+        return interceptor;
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void bulkheadTest() throws Exception {
+        ResilienceFaxClientSpiInterceptor interceptor = this.createInterceptor("bulkheadTest");
+        Method method = FaxClientSpi.class.getMethod("submitFaxJob", FaxJob.class);
+        interceptor.preMethodInvocation(method, null);
+        try {
+            interceptor.preMethodInvocation(method, null);
+            Assert.fail("Bulkhead should be full");
+        } catch (FaxException exception) {
+            // expected
+        }
+        interceptor.postMethodInvocation(method, null, null);
+        interceptor.preMethodInvocation(method, null);
+        interceptor.postMethodInvocation(method, null, null);
+
+        // non fax action methods are not limited
+        method = FaxClientSpi.class.getMethod("getLogger");
+        Assert.assertFalse(interceptor.isInterested(method,
+                FaxClientSpiProxy.FaxClientSpiProxyEventType.PRE_EVENT_TYPE));
+        interceptor.preMethodInvocation(method, null);
+        interceptor.preMethodInvocation(method, null);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void circuitBreakerSharedTest() throws Exception {
+        ResilienceFaxClientSpiInterceptor interceptor1 = this.createInterceptor("circuitBreakerSharedTest");
+        ResilienceFaxClientSpiInterceptor interceptor2 = this.createInterceptor("circuitBreakerSharedTest");
+        Method method = FaxClientSpi.class.getMethod("getFaxJobStatus", FaxJob.class);
+        interceptor1.preMethodInvocation(method, null);
+        interceptor1.onMethodInvocationError(method, null, new FaxException("test"));
+        interceptor2.preMethodInvocation(method, null);
+        interceptor2.onMethodInvocationError(method, null, new FaxException("test"));
+
+        Assert.assertEquals(CircuitBreaker.State.OPEN,
+                ResilienceFaxClientSpiInterceptor.getCircuitBreaker("circuitBreakerSharedTest").getState());
+        try {
+            interceptor1.preMethodInvocation(method, null);
+            Assert.fail("Circuit breaker should be open");
+        } catch (FaxException exception) {
+            // expected
+        }
+
+        // bulkhead permit released on rejection
+        interceptor1.onMethodInvocationError(method, null, null);
+        Assert.assertEquals(CircuitBreaker.State.OPEN,
+                ResilienceFaxClientSpiInterceptor.getCircuitBreaker("circuitBreakerSharedTest").getState());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void callerErrorTest() throws Exception {
+        ResilienceFaxClientSpiInterceptor interceptor = this.createInterceptor("callerErrorTest");
+        Method method = FaxClientSpi.class.getMethod("submitFaxJob", FaxJob.class);
+        interceptor.preMethodInvocation(method, null);
+        interceptor.onMethodInvocationError(method, null, new FaxValidationException("test"));
+        interceptor.preMethodInvocation(method, null);
+        interceptor.onMethodInvocationError(method, null, new FaxUnsupportedOperationException("test"));
+        interceptor.preMethodInvocation(method, null);
+        interceptor.onMethodInvocationError(method, null, new UnsupportedOperationException("test"));
+
+        // caller errors are not vendor failures
+        Assert.assertEquals(CircuitBreaker.State.CLOSED,
+                ResilienceFaxClientSpiInterceptor.getCircuitBreaker("callerErrorTest").getState());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void defaultNameTest() throws Exception {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(FaxClientSpiFactory.SPI_TYPE_PROPERTY_KEY, "defaultNameTest");
+        this.createInterceptor(configuration);
+
+        // the shared state is created per vendor key (SPI type) and not per SPI class
+        Assert.assertNotNull(ResilienceFaxClientSpiInterceptor.getCircuitBreaker("defaultNameTest"));
+    }
+}
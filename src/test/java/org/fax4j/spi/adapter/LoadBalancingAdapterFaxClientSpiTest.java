@@ -0,0 +1,403 @@
+package org.fax4j.spi.adapter;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.util.Properties;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.FaxValidationException;
+import org.fax4j.spi.FaxClientSpi;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.spi.RateLimitFaxClientSpiInterceptor;
+import org.fax4j.test.TestUtil;
+import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
+import org.fax4j.util.IOHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class LoadBalancingAdapterFaxClientSpiTest {
+    /**
+     * This function creates a new load balancing SPI.
+     *
+     * @param strategy
+     *            The load balancing strategy
+     * @param failingType
+     *            The type mapped to the failing SPI (null for none)
+     * @return The SPI
+     */
+    private LoadBalancingAdapterFaxClientSpi createFaxClientSpi(String strategy, String failingType) {
+        return this.createFaxClientSpi(strategy, failingType, FailingFaxClientSpi.class);
+    }
+
+    /**
+     * This function creates a new load balancing SPI.
+     *
+     * @param strategy
+     *            The load balancing strategy
+     * @param failingType
+     *            The type mapped to the failing SPI (null for none)
+     * @param failingClass
+     *            The failing SPI class
+     * @return The SPI
+     */
+    private LoadBalancingAdapterFaxClientSpi createFaxClientSpi(String strategy, String failingType,
+            Class<?> failingClass) {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.adapter.internal.spi.types", "empty1;empty2;missing");
+        configuration.setProperty("org.fax4j.spi.type.map.empty1", EmptyFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.spi.type.map.empty2", EmptyFaxClientSpi.class.getName());
+        if (failingType != null) {
+            configuration.setProperty("org.fax4j.spi.type.map." + failingType, failingClass.getName());
+        }
+        configuration.setProperty("org.fax4j.spi.empty1.stable", "true");
+        configuration.setProperty("org.fax4j.spi.empty2.stable", "true");
+        configuration.setProperty("org.fax4j.spi.adapter.load.balancing.strategy", strategy);
+        configuration.setProperty("org.fax4j.spi.adapter.load.balancing.weight.empty1", "3");
+
+        return (LoadBalancingAdapterFaxClientSpi) TestUtil
+                .createFaxClientSpi(LoadBalancingAdapterFaxClientSpi.class.getName(), configuration);
+    }
+
+    /**
+     * This function creates a new fax job.
+     *
+     * @param faxClientSpi
+     *            The SPI
+     * @return The fax job
+     * @throws Exception
+     *             Any exception
+     */
+    private FaxJob createFaxJob(LoadBalancingAdapterFaxClientSpi faxClientSpi) throws Exception {
+        File file = File.createTempFile("fax4j_", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("abc", file);
+
+        FaxJob faxJob = faxClientSpi.createFaxJobImpl();
+        faxJob.setFile(file);
+        faxJob.setTargetAddress("12345");
+
+        return faxJob;
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void weightedRoundRobinTest() throws Exception {
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = this.createFaxClientSpi("round-robin", null);
+        LoadBalancingAdapterFaxClientSpi.ChildFaxClientSpi[] children = faxClientSpi.getChildFaxClientSpis();
+        Assert.assertEquals(2, children.length);
+        Assert.assertEquals("empty1", children[0].TYPE);
+
+        int[] counters = new int[2];
+        for (int index = 0; index < 8; index++) {
+            FaxJob faxJob = this.createFaxJob(faxClientSpi);
+            faxClientSpi.submitFaxJobImpl(faxJob);
+            Assert.assertNotNull(faxJob.getID());
+            String owner = faxClientSpi.getOwner(faxJob, true).TYPE;
+            counters[owner.equals("empty1") ? 0 : 1]++;
+        }
+        Assert.assertEquals(6, counters[0]);
+        Assert.assertEquals(2, counters[1]);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void pinningTest() throws Exception {
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = this.createFaxClientSpi("least-in-flight", null);
+        FaxJob faxJob = this.createFaxJob(faxClientSpi);
+        faxClientSpi.submitFaxJobImpl(faxJob);
+        String owner = ((LoadBalancingFaxJob) faxJob).getOwnerType();
+        Assert.assertNotNull(owner);
+        Assert.assertEquals(owner, faxClientSpi.getOwner(faxJob, true).TYPE);
+
+        // new fax job instance with the same ID
+        FaxJob faxJobByID = new FaxJobImpl();
+        faxJobByID.setID(faxJob.getID());
+        Assert.assertEquals(owner, faxClientSpi.getOwner(faxJobByID, true).TYPE);
+        Assert.assertEquals(FaxJobStatus.PENDING, faxClientSpi.getFaxJobStatusImpl(faxJobByID));
+        faxClientSpi.cancelFaxJobImpl(faxJobByID);
+
+        FaxJob[] faxJobs = new FaxJob[] { faxJob, new FaxJobImpl() };
+        FaxJobStatus[] faxJobStatuses = faxClientSpi.pollForFaxJobStatuesImpl(faxJobs);
+
+        // both fax job instances are backed by the same child SPI fax job
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, faxJobStatuses[0]);
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, faxJobStatuses[1]);
+
+        // unknown fax job
+        FaxJob unknownFaxJob = new FaxJobImpl();
+        unknownFaxJob.setID("unknown");
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, faxClientSpi.getFaxJobStatusImpl(unknownFaxJob));
+        try {
+            faxClientSpi.cancelFaxJobImpl(unknownFaxJob);
+            Assert.fail("Owner should not be found");
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void failoverTest() throws Exception {
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = this.createFaxClientSpi("ewma", "empty2");
+        for (int index = 0; index < 4; index++) {
+            FaxJob faxJob = this.createFaxJob(faxClientSpi);
+            faxClientSpi.submitFaxJobImpl(faxJob);
+            Assert.assertEquals("empty1", faxClientSpi.getOwner(faxJob, true).TYPE);
+        }
+
+        // failed child is moved to the end of the candidates list
+        LoadBalancingAdapterFaxClientSpi.ChildFaxClientSpi[] candidates = faxClientSpi.getCandidates();
+        Assert.assertEquals("empty1", candidates[0].TYPE);
+        Assert.assertEquals("empty2", candidates[1].TYPE);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void noFailoverAfterUnsafeErrorTest() throws Exception {
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = this.createFaxClientSpi("round-robin", "empty1",
+                UnsafeFailingFaxClientSpi.class);
+        FaxJob faxJob = this.createFaxJob(faxClientSpi);
+        try {
+            faxClientSpi.submitFaxJobImpl(faxJob);
+            Assert.fail("Fax job should not be submitted to another SPI");
+        } catch (FaxException exception) {
+            Assert.assertEquals("Test error", exception.getMessage());
+        }
+        Assert.assertNull(faxJob.getID());
+        Assert.assertNull(faxClientSpi.getOwner(faxJob, false));
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void validationErrorTest() throws Exception {
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = this.createFaxClientSpi("round-robin", null);
+        FaxJob faxJob = this.createFaxJob(faxClientSpi);
+        faxJob.setTargetAddress(null);
+        try {
+            faxClientSpi.submitFaxJobImpl(faxJob);
+            Assert.fail("Invalid fax job should not be submitted");
+        } catch (FaxValidationException exception) {
+            // expected
+        }
+
+        // caller errors do not mark the child SPIs as unhealthy
+        LoadBalancingAdapterFaxClientSpi.ChildFaxClientSpi[] children = faxClientSpi.getChildFaxClientSpis();
+        long currentTime = System.currentTimeMillis();
+        for (int index = 0; index < children.length; index++) {
+            Assert.assertTrue(children[index].isHealthy(currentTime));
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void childFaxJobTest() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.adapter.internal.spi.types", "custom");
+        configuration.setProperty("org.fax4j.spi.type.map.custom", CustomFaxJobFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.spi.custom.stable", "true");
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = (LoadBalancingAdapterFaxClientSpi) TestUtil
+                .createFaxClientSpi(LoadBalancingAdapterFaxClientSpi.class.getName(), configuration);
+
+        FaxJob faxJob = this.createFaxJob(faxClientSpi);
+        faxJob.setSenderName("sender");
+        faxJob.setProperty("test.key", "test.value");
+        faxClientSpi.submitFaxJobImpl(faxJob);
+
+        FaxJob childFaxJob = ((LoadBalancingFaxJob) faxJob).getFaxJob();
+        Assert.assertTrue(childFaxJob instanceof CustomFaxJob);
+        Assert.assertEquals(childFaxJob.getID(), faxJob.getID());
+        Assert.assertEquals("12345", childFaxJob.getTargetAddress());
+        Assert.assertEquals("sender", childFaxJob.getSenderName());
+        Assert.assertEquals("test.value", childFaxJob.getProperty("test.key", null));
+
+        // actions are provided with the child SPI fax job
+        faxClientSpi.cancelFaxJobImpl(faxJob);
+        FaxJob faxJobByID = new FaxJobImpl();
+        faxJobByID.setID(faxJob.getID());
+        Assert.assertSame(childFaxJob, faxClientSpi.getChildFaxJob(faxJobByID));
+        faxClientSpi.cancelFaxJobImpl(faxJobByID);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void statusPollingRateLimitTest() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.adapter.internal.spi.types", "empty1");
+        configuration.setProperty("org.fax4j.spi.type.map.empty1", EmptyFaxClientSpi.class.getName());
+        configuration.setProperty("org.fax4j.spi.empty1.stable", "true");
+        configuration.setProperty("org.fax4j.proxy.interceptor.rate.limit.name", "statusPollingRateLimitTest");
+        configuration.setProperty("org.fax4j.proxy.interceptor.rate.limit.get_fax_job_status.rate", "0.001");
+        configuration.setProperty("org.fax4j.proxy.interceptor.rate.limit.get_fax_job_status.burst", "2");
+        configuration.setProperty("org.fax4j.proxy.interceptor.rate.limit.queue.size", "0");
+        LoadBalancingAdapterFaxClientSpi faxClientSpi = (LoadBalancingAdapterFaxClientSpi) TestUtil
+                .createFaxClientSpi(LoadBalancingAdapterFaxClientSpi.class.getName(), configuration);
+        RateLimitFaxClientSpiInterceptor interceptor = new RateLimitFaxClientSpiInterceptor();
+        interceptor.initialize(faxClientSpi);
+
+        FaxJob faxJob = this.createFaxJob(faxClientSpi);
+        faxClientSpi.submitFaxJobImpl(faxJob);
+
+        // the child SPI polling shares the get status budget
+        faxClientSpi.pollForFaxJobStatuesImpl(new FaxJob[] { faxJob });
+        faxClientSpi.pollForFaxJobStatuesImpl(new FaxJob[] { faxJob });
+        Method statusMethod = FaxClientSpi.class.getMethod("getFaxJobStatus", FaxJob.class);
+        try {
+            interceptor.preMethodInvocation(statusMethod, null);
+            Assert.fail("Rate limit should be exceeded");
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+
+    /**
+     * Test SPI which fails to submit fax jobs.
+     *
+     * @author Sagie Gur-Ari
+     */
+    public static class FailingFaxClientSpi extends EmptyFaxClientSpi {
+        /**
+         * This is the class constructor.
+         */
+        public FailingFaxClientSpi() {
+            super();
+        }
+
+        /**
+         * This function will submit a new fax job.
+         *
+         * @param faxJob
+         *            The fax job object containing the needed information
+         */
+        @Override
+        protected void submitFaxJobImpl(FaxJob faxJob) {
+            throw new FaxException("Test error", new ConnectException("Connection refused"));
+        }
+    }
+
+    /**
+     * Test SPI which fails to submit fax jobs after the vendor may have received them.
+     *
+     * @author Sagie Gur-Ari
+     */
+    public static class UnsafeFailingFaxClientSpi extends EmptyFaxClientSpi {
+        /**
+         * This is the class constructor.
+         */
+        public UnsafeFailingFaxClientSpi() {
+            super();
+        }
+
+        /**
+         * This function will submit a new fax job.
+         *
+         * @param faxJob
+         *            The fax job object containing the needed information
+         */
+        @Override
+        protected void submitFaxJobImpl(FaxJob faxJob) {
+            throw new FaxException("Test error");
+        }
+    }
+
+    /**
+     * Test fax job of the custom fax job SPI.
+     *
+     * @author Sagie Gur-Ari
+     */
+    public static class CustomFaxJob extends FaxJobImpl {
+        /**
+         * This is the class constructor.
+         */
+        public CustomFaxJob() {
+            super();
+        }
+    }
+
+    /**
+     * Test SPI which requires its own fax job implementation.
+     *
+     * @author Sagie Gur-Ari
+     */
+    public static class CustomFaxJobFaxClientSpi extends EmptyFaxClientSpi {
+        /**
+         * This is the class constructor.
+         */
+        public CustomFaxJobFaxClientSpi() {
+            super();
+        }
+
+        /**
+         * This function creates a new fax job instance to be used by the caller to submit a new fax job and so on.
+         *
+         * @return The fax job instance
+         */
+        @Override
+        protected FaxJob createFaxJobImpl() {
+            return new CustomFaxJob();
+        }
+
+        /**
+         * This function will submit a new fax job.
+         *
+         * @param faxJob
+         *            The fax job object containing the needed information
+         */
+        @Override
+        protected void submitFaxJobImpl(FaxJob faxJob) {
+            super.submitFaxJobImpl((CustomFaxJob) faxJob);
+        }
+
+        /**
+         * This function will cancel an existing fax job.
+         *
+         * @param faxJob
+         *            The fax job object containing the needed information
+         */
+        @Override
+        protected void cancelFaxJobImpl(FaxJob faxJob) {
+            super.cancelFaxJobImpl((CustomFaxJob) faxJob);
+        }
+    }
+}
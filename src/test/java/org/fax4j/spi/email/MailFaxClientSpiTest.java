@@ -1,10 +1,13 @@
 package org.fax4j.spi.email;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.text.MessageFormat;
+import java.util.Arrays;
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
 import javax.activation.FileDataSource;
+import javax.mail.BodyPart;
 import javax.mail.Message;
 import javax.mail.Message.RecipientType;
 import javax.mail.Multipart;
@@ -219,6 +222,81 @@ public class MailFaxClientSpiTest extends PredefinedMailFaxClientSpiTest {
         this.faxClientSpi.submitFaxJob(faxJob);
     }
 
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobsTest() throws Exception {
+        File file = File.createTempFile("temp_", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("abc", file);
+        FaxJob[] faxJobs = new FaxJob[3];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setTargetAddress("12" + index);
+            faxJobs[index].setSenderEmail("aaa@aaaaaa.com");
+            faxJobs[index].setFilePath(file.getPath());
+        }
+
+        this.faxClientSpi.submitFaxJobs(faxJobs);
+
+        file.delete();
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void submitFaxJobsNoFileTest() throws Exception {
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setTargetAddress("123");
+
+        this.faxClientSpi.submitFaxJobs(new FaxJob[] { faxJob });
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void createEncodedFileAttachmentBodyPartTest() throws Exception {
+        File file = File.createTempFile("temp_", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("abc", file);
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setTargetAddress("123");
+        faxJob.setFilePath(file.getPath());
+
+        BodyPart attachment = this.faxClientSpi.createEncodedFileAttachmentBodyPart(file);
+        Assert.assertTrue(((MailFaxClientSpi.EncodedMimeBodyPart) attachment).isEncoded());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        attachment.writeTo(outputStream);
+        byte[] encoded = outputStream.toByteArray();
+        Assert.assertTrue(encoded.length > 0);
+
+        // encoded content is not affected by file changes
+        IOHelper.writeTextFile("abcdef", file);
+        outputStream = new ByteArrayOutputStream();
+        attachment.writeTo(outputStream);
+        Assert.assertTrue(Arrays.equals(encoded, outputStream.toByteArray()));
+
+        MailResourcesHolder holder = this.faxClientSpi.getMailConnection().getResource();
+        Message message1 = this.faxClientSpi.createSubmitFaxJobMessage(faxJob, holder, attachment);
+        Message message2 = this.faxClientSpi.createSubmitFaxJobMessage(faxJob, holder, attachment);
+        Assert.assertSame(attachment, ((Multipart) message1.getContent()).getBodyPart(0));
+        Assert.assertSame(attachment, ((Multipart) message2.getContent()).getBodyPart(0));
+
+        file.delete();
+    }
+
     /**
      * Test
      * 
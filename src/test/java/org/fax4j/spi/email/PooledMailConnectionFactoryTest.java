@@ -0,0 +1,334 @@
+package org.fax4j.spi.email;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import org.fax4j.FaxClientActionEvent;
+import org.fax4j.FaxException;
+import org.fax4j.FaxJob;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.test.TestUtil;
+import org.fax4j.test.TestUtil.TestFaxClientActionEventListener;
+import org.fax4j.util.Connection;
+import org.fax4j.util.IOHelper;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ * 
+ * @author Sagie Gur-Ari
+ */
+public class PooledMailConnectionFactoryTest {
+    /** The configuration */
+    private Properties configuration;
+    /** The connection factory to test */
+    private PooledMailConnectionFactory connectionFactory;
+
+    /**
+     * Sets up the test objects.
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.configuration = new Properties();
+        this.configuration.setProperty("org.fax4j.spi.mail.address.template", "{0}@myprovider.com");
+        this.configuration.setProperty("org.fax4j.spi.mail.subject.template", "fax:{0}");
+        this.configuration.setProperty("org.fax4j.spi.mail.connection.factory.class.name",
+                TestPooledMailConnectionFactory.class.getName());
+        this.configuration.setProperty("org.fax4j.spi.mail.pool.min.idle", "0");
+        this.configuration.setProperty("org.fax4j.spi.mail.pool.max.size", "2");
+        this.configuration.setProperty("org.fax4j.spi.mail.pool.borrow.timeout", "100");
+        this.configuration.setProperty("org.fax4j.spi.mail.pool.max.messages.per.connection", "2");
+        this.configuration.setProperty("mail.transport.protocol", "smtp");
+        this.configuration.setProperty("mail.smtp.host", "localhost");
+
+        this.connectionFactory = new TestPooledMailConnectionFactory();
+        MailFaxClientSpi faxClientSpi = (MailFaxClientSpi) TestUtil.createFaxClientSpi(MailFaxClientSpi.class.getName(),
+                this.configuration);
+        this.connectionFactory.initialize(faxClientSpi);
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void reuseConnectionTest() throws Exception {
+        Connection<MailResourcesHolder> connection = this.connectionFactory.createConnection();
+        MailResourcesHolder holder = connection.getResource();
+        Assert.assertTrue(holder.getTransport().isConnected());
+        connection.close();
+        Assert.assertEquals(1, this.connectionFactory.getPool().getIdleCount());
+        Assert.assertTrue(holder.getTransport().isConnected());
+
+        connection = this.connectionFactory.createConnection();
+        Assert.assertSame(holder, connection.getResource());
+        this.connectionFactory.releaseConnection(connection);
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void maxMessagesPerConnectionTest() throws Exception {
+        Connection<MailResourcesHolder> connection = this.connectionFactory.createConnection();
+        MailResourcesHolder holder = connection.getResource();
+        holder.incrementMessageCount();
+        holder.incrementMessageCount();
+        this.connectionFactory.releaseConnection(connection);
+        Assert.assertEquals(0, this.connectionFactory.getPool().getIdleCount());
+        Assert.assertFalse(holder.getTransport().isConnected());
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void reconnectTest() throws Exception {
+        Connection<MailResourcesHolder> connection = this.connectionFactory.createConnection();
+        MailResourcesHolder holder = connection.getResource();
+        this.connectionFactory.releaseConnection(connection);
+        holder.getTransport().close();
+
+        connection = this.connectionFactory.createConnection();
+        Assert.assertNotSame(holder, connection.getResource());
+        Assert.assertTrue(connection.getResource().getTransport().isConnected());
+        this.connectionFactory.discardConnection(connection);
+        Assert.assertEquals(0, this.connectionFactory.getPool().getIdleCount());
+        Assert.assertEquals(0, this.connectionFactory.getPool().getActiveCount());
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void sendMailFailureTest() throws Exception {
+        MailFaxClientSpi faxClientSpi = (MailFaxClientSpi) TestUtil.createFaxClientSpi(MailFaxClientSpi.class.getName(),
+                this.configuration);
+        Connection<MailResourcesHolder> connection = faxClientSpi.getMailConnection();
+        TestTransport transport = (TestTransport) connection.getResource().getTransport();
+        transport.fail = true;
+
+        FaxJob faxJob = new FaxJobImpl();
+        Message message = new MimeMessage(connection.getResource().getSession());
+        message.setText("test");
+        try {
+            faxClientSpi.sendMail(faxJob, connection, message);
+            Assert.fail("Expected exception");
+        } catch (FaxException exception) {
+            // expected
+        }
+
+        // the failed transport is discarded and the message is not sent again
+        Assert.assertFalse(transport.isConnected());
+        Assert.assertEquals(0, transport.sentMessages);
+
+        connection = faxClientSpi.getMailConnection();
+        TestTransport newTransport = (TestTransport) connection.getResource().getTransport();
+        Assert.assertNotSame(transport, newTransport);
+        Assert.assertEquals(0, newTransport.sentMessages);
+        faxClientSpi.closeMailConnection(connection);
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void releaseConnectionOnErrorTest() throws Exception {
+        MailFaxClientSpi faxClientSpi = (MailFaxClientSpi) TestUtil.createFaxClientSpi(MailFaxClientSpi.class.getName(),
+                this.configuration);
+        FaxJob faxJob = new FaxJobImpl();
+        for (int index = 0; index < 3; index++) {
+            try {
+                faxClientSpi.suspendFaxJobImpl(faxJob);
+                Assert.fail("Expected exception");
+            } catch (FaxException exception) {
+                // expected (not supported)
+            }
+            try {
+                faxClientSpi.submitFaxJobImpl(faxJob);
+                Assert.fail("Expected exception");
+            } catch (RuntimeException exception) {
+                // expected (no file to attach)
+            }
+        }
+
+        // all connections were returned to the pool
+        Connection<MailResourcesHolder> connection1 = faxClientSpi.getMailConnection();
+        Connection<MailResourcesHolder> connection2 = faxClientSpi.getMailConnection();
+        faxClientSpi.closeMailConnection(connection1);
+        faxClientSpi.closeMailConnection(connection2);
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobsTest() throws Exception {
+        File file = File.createTempFile("temp_", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("abc", file);
+        FaxJob[] faxJobs = new FaxJob[3];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setTargetAddress("12" + index);
+            faxJobs[index].setFilePath(file.getPath());
+        }
+
+        this.configuration.setProperty("org.fax4j.spi.mail.pool.max.messages.per.connection", "0");
+        MailFaxClientSpi faxClientSpi = (MailFaxClientSpi) TestUtil.createFaxClientSpi(MailFaxClientSpi.class.getName(),
+                this.configuration);
+        faxClientSpi.submitFaxJobs(faxJobs);
+
+        // all messages sent using the same transport
+        Connection<MailResourcesHolder> connection = faxClientSpi.getMailConnection();
+        TestTransport transport = (TestTransport) connection.getResource().getTransport();
+        Assert.assertEquals(3, transport.sentMessages);
+        Assert.assertEquals(3, connection.getResource().getMessageCount());
+        faxClientSpi.closeMailConnection(connection);
+
+        file.delete();
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void submitFaxJobsPartialFailureTest() throws Exception {
+        File file = File.createTempFile("temp_", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("abc", file);
+        FaxJob[] faxJobs = new FaxJob[3];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setTargetAddress("12" + index);
+            faxJobs[index].setFilePath(file.getPath());
+        }
+
+        this.configuration.setProperty("org.fax4j.spi.mail.pool.max.messages.per.connection", "0");
+        MailFaxClientSpi faxClientSpi = (MailFaxClientSpi) TestUtil.createFaxClientSpi(MailFaxClientSpi.class.getName(),
+                this.configuration);
+        final AtomicInteger submittedCount = new AtomicInteger();
+        faxClientSpi.addFaxClientActionEventListener(new TestFaxClientActionEventListener() {
+            @Override
+            public void faxJobSubmitted(FaxClientActionEvent event) {
+                submittedCount.incrementAndGet();
+            }
+        });
+
+        // fail the third message
+        Connection<MailResourcesHolder> connection = faxClientSpi.getMailConnection();
+        TestTransport transport = (TestTransport) connection.getResource().getTransport();
+        transport.failAt = 2;
+        faxClientSpi.closeMailConnection(connection);
+
+        try {
+            faxClientSpi.submitFaxJobs(faxJobs);
+            Assert.fail("Expected exception");
+        } catch (FaxException exception) {
+            Assert.assertEquals("Unable to send message: 3 out of: 3", exception.getMessage());
+        }
+
+        // the sent fax jobs are completed and the failed transport is discarded
+        Assert.assertEquals(2, submittedCount.get());
+        Assert.assertEquals(2, transport.sentMessages);
+        Assert.assertFalse(transport.isConnected());
+
+        file.delete();
+    }
+
+    /**
+     * Helper class
+     * 
+     * @author Sagie Gur-Ari
+     */
+    public static class TestPooledMailConnectionFactory extends PooledMailConnectionFactory {
+        /**
+         * This function returns a transport for the provided session.
+         * 
+         * @param session
+         *            The mail session
+         * @return The mail transport
+         */
+        @Override
+        protected Transport createTransport(Session session) {
+            return new TestTransport(session);
+        }
+    }
+
+    /**
+     * Helper class
+     * 
+     * @author Sagie Gur-Ari
+     */
+    private static class TestTransport extends Transport {
+        /** True while connected */
+        private boolean connected;
+        /** True to fail sending messages */
+        protected boolean fail;
+        /** The amount of sent messages after which sending fails (-1 to disable) */
+        protected int failAt = -1;
+        /** The sent messages counter */
+        protected int sentMessages;
+
+        /**
+         * This is the class constructor.
+         * 
+         * @param session
+         *            The mail session
+         */
+        public TestTransport(Session session) {
+            super(session, null);
+
+            this.connected = true;
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+            if (this.fail || this.sentMessages == this.failAt) {
+                throw new MessagingException("Connection reset.");
+            }
+            this.sentMessages++;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return this.connected;
+        }
+
+        @Override
+        public void close() throws MessagingException {
+            this.connected = false;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package org.fax4j.spi.http;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.util.Properties;
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethodBase;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PostMethod;
@@ -12,6 +14,7 @@ import org.apache.commons.httpclient.methods.PutMethod;
 import org.apache.commons.httpclient.methods.RequestEntity;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.commons.httpclient.methods.multipart.MultipartRequestEntity;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.fax4j.FaxException;
 import org.fax4j.spi.http.HTTPClient.HTTPMethod;
 import org.fax4j.spi.http.HTTPRequest.ContentPart;
@@ -53,6 +56,40 @@ public class ApacheHTTPClientTest {
         Assert.assertNotNull(output);
     }
 
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void createHttpClientPooledTest() throws Exception {
+        HttpClient output = this.client.createHttpClient();
+        Assert.assertNotNull(output);
+        Assert.assertEquals(MultiThreadedHttpConnectionManager.class, output.getHttpConnectionManager().getClass());
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void getHttpClientSharedTest() throws Exception {
+        CommonHTTPClientConfiguration configuration = new CommonHTTPClientConfiguration();
+        configuration.setConnectionPoolMaxTotal(50);
+        configuration.setConnectionPoolMaxPerHost(30);
+        configuration.setConnectionPoolStaleCheckEnabled(false);
+        HttpClient output = this.client.getHttpClient(configuration);
+        Assert.assertNotNull(output);
+        Assert.assertSame(output, this.client.getHttpClient(configuration));
+        HttpConnectionManagerParams params = output.getHttpConnectionManager().getParams();
+        Assert.assertEquals(50, params.getMaxTotalConnections());
+        Assert.assertEquals(30, params.getDefaultMaxConnectionsPerHost());
+        Assert.assertFalse(params.isStaleCheckingEnabled());
+    }
+
     /**
      * Test
      * 
@@ -430,6 +467,30 @@ public class ApacheHTTPClientTest {
         Assert.assertNull(output);
     }
 
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void createStreamRequestContentWithDataTest() throws Exception {
+        File file = File.createTempFile("stream_junit", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("TEST_DATA", file);
+        HTTPRequest httpRequest = new HTTPRequest();
+        httpRequest.setContent(new FileStreamContent(file, "binary/octet-stream"));
+        RequestEntity output = this.client.createStreamRequestContent(httpRequest);
+        Assert.assertNotNull(output);
+        Assert.assertTrue(output.isRepeatable());
+        Assert.assertEquals(9, output.getContentLength());
+        Assert.assertEquals("binary/octet-stream", output.getContentType());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        output.writeRequest(outputStream);
+        file.delete();
+        Assert.assertEquals("TEST_DATA", new String(outputStream.toByteArray(), "UTF-8"));
+    }
+
     /**
      * Test
      * 
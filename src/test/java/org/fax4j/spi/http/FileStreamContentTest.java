@@ -0,0 +1,73 @@
+package org.fax4j.spi.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import org.fax4j.FaxException;
+import org.fax4j.util.IOHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ * 
+ * @author Sagie Gur-Ari
+ */
+public class FileStreamContentTest {
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void writeFileOnlyTest() throws Exception {
+        File file = File.createTempFile("stream_junit", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("TEST_DATA", file);
+        FileStreamContent streamContent = new FileStreamContent(file, "binary/octet-stream");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        streamContent.writeTo(outputStream);
+        file.delete();
+
+        Assert.assertEquals("binary/octet-stream", streamContent.getContentType());
+        Assert.assertEquals(9, streamContent.getContentLength());
+        Assert.assertEquals("TEST_DATA", new String(outputStream.toByteArray(), "UTF-8"));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void writeWithTextPartsTest() throws Exception {
+        File file = File.createTempFile("stream_junit", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("TEST_DATA", file);
+        FileStreamContent streamContent = new FileStreamContent(file, new String[] { "a:", "\nb:", "" }, "UTF-8",
+                "text/plain");
+
+        // write twice to validate the content is repeatable
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        streamContent.writeTo(outputStream);
+        streamContent.writeTo(outputStream);
+        file.delete();
+
+        Assert.assertEquals(23, streamContent.getContentLength());
+        Assert.assertEquals("a:TEST_DATA\nb:TEST_DATAa:TEST_DATA\nb:TEST_DATA",
+                new String(outputStream.toByteArray(), "UTF-8"));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void missingFileTest() throws Exception {
+        new FileStreamContent(new File("missing_fax4j_junit_file.txt"), "text/plain");
+    }
+}
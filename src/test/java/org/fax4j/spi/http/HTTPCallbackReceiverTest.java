@@ -0,0 +1,280 @@
+package org.fax4j.spi.http;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.FaxMonitorEvent;
+import org.fax4j.FaxMonitorEventListener;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.test.TestUtil;
+import org.fax4j.test.TestUtil.TestHTTPClient;
+import org.fax4j.util.IOHelper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class HTTPCallbackReceiverTest {
+    /** The fax client SPI */
+    private HTTPFaxClientSpi faxClientSpi;
+    /** The received fax monitor events */
+    private List<FaxMonitorEvent> events;
+
+    /**
+     * Sets up the SPI instance.
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.http.callback.port", "0");
+        configuration.setProperty("org.fax4j.spi.http.callback.host", "localhost");
+        this.faxClientSpi = HTTPCallbackReceiverTest.createFaxClientSpi(configuration);
+
+        this.events = new ArrayList<FaxMonitorEvent>();
+        this.faxClientSpi.addFaxMonitorEventListener(new FaxMonitorEventListener() {
+            public void faxJobStatusChanged(FaxMonitorEvent event) {
+                synchronized (HTTPCallbackReceiverTest.this.events) {
+                    HTTPCallbackReceiverTest.this.events.add(event);
+                }
+            }
+        });
+    }
+
+    /**
+     * This function creates a new SPI with a callback receiver.
+     *
+     * @param callbackConfiguration
+     *            The callback receiver configuration
+     * @return The SPI
+     */
+    private static HTTPFaxClientSpi createFaxClientSpi(Properties callbackConfiguration) {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.http.client.class.name", TestHTTPClient.class.getName());
+        configuration.setProperty("org.fax4j.spi.http.response.handler.class.name",
+                JSONHTTPResponseHandler.class.getName());
+        configuration.setProperty("org.fax4j.spi.http.host.name", "localhost");
+        configuration.setProperty("org.fax4j.spi.http.callback.fax.job.id.json.output.path", "fax;id");
+        configuration.setProperty("org.fax4j.spi.http.callback.status.json.output.path", "fax;status");
+        configuration.setProperty("org.fax4j.spi.http.json.inprogress.status.mappings", "sending");
+        configuration.setProperty("org.fax4j.spi.http.json.error.status.mappings", "failed");
+        configuration.putAll(callbackConfiguration);
+
+        return (HTTPFaxClientSpi) TestUtil.createFaxClientSpi(HTTPFaxClientSpi.class.getName(), configuration);
+    }
+
+    /**
+     * Closes the callback receiver.
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        IOHelper.closeResource(this.faxClientSpi.getHTTPCallbackReceiver());
+    }
+
+    /**
+     * Sends the callback to the receiver.
+     *
+     * @param content
+     *            The callback body
+     * @return The HTTP status code
+     * @throws Exception
+     *             Any exception
+     */
+    private int sendCallback(String content) throws Exception {
+        return HTTPCallbackReceiverTest.sendCallback(this.faxClientSpi.getHTTPCallbackReceiver().getPort(), content,
+                null);
+    }
+
+    /**
+     * Sends the callback to the receiver.
+     *
+     * @param port
+     *            The receiver port
+     * @param content
+     *            The callback body
+     * @param signature
+     *            The callback signature (null for none)
+     * @return The HTTP status code
+     * @throws Exception
+     *             Any exception
+     */
+    private static int sendCallback(int port, String content, String signature) throws Exception {
+        URL url = new URL("http://localhost:" + port + "/fax4j/callback");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            if (signature != null) {
+                connection.setRequestProperty(HTTPCallbackReceiver.DEFAULT_SIGNATURE_HEADER, signature);
+            }
+            connection.setDoOutput(true);
+            OutputStream outputStream = connection.getOutputStream();
+            try {
+                outputStream.write(content.getBytes("UTF-8"));
+            } finally {
+                outputStream.close();
+            }
+
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void callbackFiresStatusChangeTest() throws Exception {
+        Assert.assertTrue(this.faxClientSpi.isFaxMonitorEventsSupported());
+
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID("123");
+        HTTPCallbackReceiver receiver = this.faxClientSpi.getHTTPCallbackReceiver();
+        receiver.monitorFaxJob(faxJob);
+        Assert.assertEquals(1, receiver.getMonitoredFaxJobsCount());
+
+        Assert.assertEquals(200, this.sendCallback("{\"fax\":{\"id\":\"123\",\"status\":\"sending\"}}"));
+        Assert.assertEquals(200, this.sendCallback("{\"fax\":{\"id\":\"123\",\"status\":\"sending\"}}"));
+        Assert.assertEquals(1, this.events.size());
+        Assert.assertSame(faxJob, this.events.get(0).getFaxJob());
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, this.events.get(0).getFaxJobStatus());
+        Assert.assertEquals(1, receiver.getMonitoredFaxJobsCount());
+
+        Assert.assertEquals(200, this.sendCallback("{\"fax\":{\"id\":\"123\",\"status\":\"failed\"}}"));
+        Assert.assertEquals(2, this.events.size());
+        Assert.assertEquals(FaxJobStatus.ERROR, this.events.get(1).getFaxJobStatus());
+        Assert.assertEquals(0, receiver.getMonitoredFaxJobsCount());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invalidCallbackTest() throws Exception {
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID("123");
+        HTTPCallbackReceiver receiver = this.faxClientSpi.getHTTPCallbackReceiver();
+        receiver.monitorFaxJob(faxJob);
+
+        Assert.assertEquals(400, this.sendCallback("{\"fax\":{\"status\":\"sending\"}}"));
+        Assert.assertEquals(200, this.sendCallback("{\"fax\":{\"id\":\"456\",\"status\":\"sending\"}}"));
+        Assert.assertEquals(200, this.sendCallback("{\"fax\":{\"id\":\"123\",\"status\":\"unmapped\"}}"));
+        Assert.assertEquals(0, this.events.size());
+        Assert.assertEquals(1, receiver.getMonitoredFaxJobsCount());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void sharedReceiverTest() throws Exception {
+        // get free port
+        ServerSocket serverSocket = new ServerSocket(0);
+        int port = serverSocket.getLocalPort();
+        serverSocket.close();
+
+        // fax clients with the same configuration share the receiver server (bound to the loopback interface)
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.http.callback.port", String.valueOf(port));
+        HTTPFaxClientSpi faxClientSpi1 = HTTPCallbackReceiverTest.createFaxClientSpi(configuration);
+        HTTPFaxClientSpi faxClientSpi2 = HTTPCallbackReceiverTest.createFaxClientSpi(configuration);
+        HTTPCallbackReceiver receiver1 = faxClientSpi1.getHTTPCallbackReceiver();
+        HTTPCallbackReceiver receiver2 = faxClientSpi2.getHTTPCallbackReceiver();
+        try {
+            Assert.assertEquals(port, receiver1.getPort());
+            Assert.assertEquals(port, receiver2.getPort());
+            Assert.assertTrue(receiver1.getAddress().getAddress().isLoopbackAddress());
+
+            final List<FaxMonitorEvent> receivedEvents = new ArrayList<FaxMonitorEvent>();
+            faxClientSpi2.addFaxMonitorEventListener(new FaxMonitorEventListener() {
+                public void faxJobStatusChanged(FaxMonitorEvent event) {
+                    synchronized (receivedEvents) {
+                        receivedEvents.add(event);
+                    }
+                }
+            });
+            FaxJob faxJob = new FaxJobImpl();
+            faxJob.setID("123");
+            receiver2.monitorFaxJob(faxJob);
+
+            // the server is kept as long as any receiver is open
+            receiver1.close();
+            Assert.assertEquals(200, HTTPCallbackReceiverTest.sendCallback(port,
+                    "{\"fax\":{\"id\":\"123\",\"status\":\"sending\"}}", null));
+            synchronized (receivedEvents) {
+                Assert.assertEquals(1, receivedEvents.size());
+                Assert.assertEquals(FaxJobStatus.IN_PROGRESS, receivedEvents.get(0).getFaxJobStatus());
+            }
+        } finally {
+            IOHelper.closeResource(receiver1);
+            IOHelper.closeResource(receiver2);
+        }
+
+        // port is released once all receivers are closed
+        serverSocket = new ServerSocket(port);
+        serverSocket.close();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void signatureTest() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.http.callback.port", "0");
+        configuration.setProperty("org.fax4j.spi.http.callback.secret", "mysecret");
+        HTTPFaxClientSpi signedFaxClientSpi = HTTPCallbackReceiverTest.createFaxClientSpi(configuration);
+        HTTPCallbackReceiver receiver = signedFaxClientSpi.getHTTPCallbackReceiver();
+        try {
+            String content = "{\"fax\":{\"id\":\"123\",\"status\":\"sending\"}}";
+
+            // create signature
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec("mysecret".getBytes("UTF-8"), "HmacSHA256"));
+            byte[] hash = mac.doFinal(content.getBytes("UTF-8"));
+            StringBuilder buffer = new StringBuilder();
+            for (int index = 0; index < hash.length; index++) {
+                buffer.append(String.format("%02X", Integer.valueOf(hash[index] & 0xFF)));
+            }
+            String signature = buffer.toString();
+
+            int port = receiver.getPort();
+            Assert.assertEquals(401, HTTPCallbackReceiverTest.sendCallback(port, content, null));
+            Assert.assertEquals(401, HTTPCallbackReceiverTest.sendCallback(port, content, "abcd"));
+            Assert.assertEquals(401, HTTPCallbackReceiverTest.sendCallback(port, content + " ", signature));
+            Assert.assertEquals(200, HTTPCallbackReceiverTest.sendCallback(port, content, signature));
+        } finally {
+            IOHelper.closeResource(receiver);
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class JSONHTTPResponseHandlerTest {
         Map<String, String> configuration = new HashMap<String, String>();
         configuration.put("org.fax4j.spi.http.submit.json.output.path", "part1;part2;;;part3;element");
         configuration.put("org.fax4j.spi.http.get.status.json.output.path", "element");
+        configuration.put("org.fax4j.spi.http.bulk.status.json.output.path", "statuses;${fax.job.id};status");
         configuration.put("org.fax4j.spi.http.json.pending.status.mappings", "PENDING;pending123");
         configuration.put("org.fax4j.spi.http.json.error.status.mappings", "ERROR");
         configuration.put("org.fax4j.spi.http.json.error.detection.path", "err_flag");
@@ -311,4 +312,94 @@ public class JSONHTTPResponseHandlerTest {
         Assert.assertNotNull(output);
         Assert.assertEquals("some message", output);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void getFaxJobStatusesTest() throws Exception {
+        String text = "{\"statuses\": {\"1\": {\"status\": \"PENDING\"}, \"2\": {\"status\": \"ERROR\"}}}";
+        this.httpResponse.setContent(text);
+        FaxJob[] faxJobs = new FaxJob[3];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setID(String.valueOf(index + 1));
+        }
+        FaxJobStatus[] output = this.handler.getFaxJobStatuses(this.httpResponse, faxJobs);
+        Assert.assertNotNull(output);
+        Assert.assertEquals(3, output.length);
+        Assert.assertEquals(FaxJobStatus.PENDING, output[0]);
+        Assert.assertEquals(FaxJobStatus.ERROR, output[1]);
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, output[2]);
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void findValueArrayIndexTest() throws Exception {
+        String text = "{\"part1\": [{\"element\": \"v0\"}, {\"element\": \"v1\"}], \"list\": [\"a\", \"b\"]}";
+        this.httpResponse.setContent(text);
+        Assert.assertEquals("v1", this.handler.findValue(this.httpResponse, "part1;1;element"));
+        Assert.assertEquals("b", this.handler.findValue(this.httpResponse, "list;1"));
+        Assert.assertNull(this.handler.findValue(this.httpResponse, "part1;5;element"));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void findValueStreamingParserTest() throws Exception {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.spi.http.submit.json.output.path", "part1;part2;;;part3;element");
+        configuration.put("org.fax4j.spi.http.bulk.status.json.output.path", "statuses;${fax.job.id};status");
+        configuration.put("org.fax4j.spi.http.json.pending.status.mappings", "PENDING");
+        configuration.put("org.fax4j.spi.http.json.error.status.mappings", "ERROR");
+        configuration.put("org.fax4j.spi.http.json.error.detection.path", "err_flag");
+        configuration.put("org.fax4j.spi.http.json.error.detection.value", "error");
+        configuration.put("org.fax4j.spi.http.json.error.message.path", "err_message");
+        configuration.put("org.fax4j.spi.http.json.streaming.parser", "true");
+        JSONHTTPResponseHandler streamingHandler = new JSONHTTPResponseHandler();
+        streamingHandler.setPropertyPart(HTTPFaxClientSpi.HTTP_PROPERTY_PART);
+        streamingHandler.initialize(configuration);
+
+        String text = "{\"part1\": {\"mem1\": [1, {\"a\": null}], \"part2\": {\"part3\": {"
+                + "\"element\": \"e_\\u0076alue\"}}}}";
+        this.httpResponse.setContent(text);
+        FaxJob faxJob = new FaxJobImpl();
+        streamingHandler.updateFaxJob(faxJob, this.httpResponse, FaxActionType.SUBMIT_FAX_JOB);
+        Assert.assertEquals("e_value", faxJob.getID());
+        Assert.assertNull(streamingHandler.findValue(this.httpResponse, "part1;mem2"));
+        Assert.assertEquals("1", streamingHandler.findValue(this.httpResponse, "part1;mem1;0"));
+
+        text = "{\"statuses\": [{\"status\": \"PENDING\"}, {\"status\": \"ERROR\"}]}";
+        this.httpResponse.setContent(text);
+        FaxJob[] faxJobs = new FaxJob[3];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setID(String.valueOf(index));
+        }
+        FaxJobStatus[] output = streamingHandler.getFaxJobStatuses(this.httpResponse, faxJobs);
+        Assert.assertEquals(FaxJobStatus.PENDING, output[0]);
+        Assert.assertEquals(FaxJobStatus.ERROR, output[1]);
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, output[2]);
+
+        text = "{\"err_flag\": \"error\", \"err_message\": \"some message\"}";
+        this.httpResponse.setContent(text);
+        try {
+            streamingHandler.updateFaxJob(new FaxJobImpl(), this.httpResponse, FaxActionType.SUBMIT_FAX_JOB);
+            Assert.fail();
+        } catch (FaxException exception) {
+            Assert.assertEquals("Error found in response: some message", exception.getMessage());
+        }
+    }
+}
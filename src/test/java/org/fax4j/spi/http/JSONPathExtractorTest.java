@@ -0,0 +1,59 @@
+package org.fax4j.spi.http;
+
+import org.fax4j.FaxException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class JSONPathExtractorTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void extractTest() throws Exception {
+        JSONPathExtractor extractor = new JSONPathExtractor(new String[] { "a;b", null, "a;c;1;d", "a;c", "x",
+                "a;e" });
+        String[] values = extractor.extract(
+                "{\"skip\": {\"b\": [\"}\\\"\", 1]}, \"a\": {\"b\": \" text \", \"c\": [{}, {\"d\": true}],"
+                        + " \"e\": null}, \"x\": -1.5e3}");
+        Assert.assertEquals(6, values.length);
+        Assert.assertEquals("text", values[0]);
+        Assert.assertNull(values[1]);
+        Assert.assertEquals("true", values[2]);
+        Assert.assertEquals("[{}, {\"d\": true}]", values[3]);
+        Assert.assertEquals("-1.5e3", values[4]);
+        Assert.assertNull(values[5]);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void extractStopsOnceFoundTest() throws Exception {
+        JSONPathExtractor extractor = new JSONPathExtractor(new String[] { "id" });
+        String[] values = extractor.extract("{\"id\": \"123\", \"id\": \"456\", invalid");
+        Assert.assertEquals("123", values[0]);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void extractInvalidTextTest() throws Exception {
+        JSONPathExtractor extractor = new JSONPathExtractor(new String[] { "id" });
+        extractor.extract("{\"other\": \"123\"");
+    }
+}
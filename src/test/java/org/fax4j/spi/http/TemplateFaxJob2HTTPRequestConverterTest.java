@@ -1,10 +1,14 @@
 package org.fax4j.spi.http;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.util.Properties;
+import org.apache.commons.httpclient.methods.RequestEntity;
 import org.fax4j.FaxJob;
 import org.fax4j.common.FaxActionType;
 import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.spi.http.HTTPRequest.ContentType;
+import org.fax4j.spi.http.HTTPRequest.StreamContent;
 import org.fax4j.spi.http.TemplateFaxJob2HTTPRequestConverter.FaxJob2HTTPRequestConverterConfigurationConstants;
 import org.fax4j.test.TestUtil;
 import org.fax4j.test.TestUtil.TestHTTPClient;
@@ -103,6 +107,94 @@ public class TemplateFaxJob2HTTPRequestConverterTest {
                 output.getContentAsString());
     }
 
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void createHTTPRequestStreamContentTest() throws Exception {
+        this.configuration.setProperty("org.fax4j.spi.http.template.stream.threshold", "0");
+        this.faxClientSpi = (HTTPFaxClientSpi) TestUtil.createFaxClientSpi(HTTPFaxClientSpi.class.getName(),
+                this.configuration);
+        this.converter = (TemplateFaxJob2HTTPRequestConverter) this.faxClientSpi.getFaxJob2HTTPRequestConverter();
+
+        File file = File.createTempFile("text_junit", ".txt");
+        file.deleteOnExit();
+        IOHelper.writeTextFile("TEST_DATA", file);
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setFilePath(file.getPath());
+        faxJob.setTargetName("TEST_TARGET_NAME");
+        HTTPRequest output = this.converter.createHTTPRequest(this.faxClientSpi, FaxActionType.SUBMIT_FAX_JOB,
+                FaxJob2HTTPRequestConverterConfigurationConstants.SUBMIT_FAX_JOB_TEMPLATE_PROPERTY_KEY, faxJob);
+
+        Assert.assertNotNull(output);
+        Assert.assertEquals(ContentType.STREAM, output.getContentType());
+        StreamContent streamContent = output.getContentAsStream();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        streamContent.writeTo(outputStream);
+        byte[] content = outputStream.toByteArray();
+
+        file.delete();
+
+        Assert.assertEquals(content.length, streamContent.getContentLength());
+        Assert.assertEquals(
+                "submit\ntarget.address=\ntarget.name=TEST_TARGET_NAME\nsender.name=\nsender.fax.number=\nsender.email=\nCONTENT:\nTEST_DATA",
+                new String(content, "ISO-8859-1"));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void createHTTPRequestNonASCIIContentTest() throws Exception {
+        File file = File.createTempFile("text_junit", ".txt");
+        file.deleteOnExit();
+        byte[] fileContent = "TEST_DATA \u00e9\u00fc\u20ac\u05d0".getBytes("UTF-8");
+        IOHelper.writeFile(fileContent, file);
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setFilePath(file.getPath());
+        faxJob.setTargetName("TEST_TARGET_NAME");
+
+        // string content (file below the stream threshold)
+        HTTPRequest output = this.converter.createHTTPRequest(this.faxClientSpi, FaxActionType.SUBMIT_FAX_JOB,
+                FaxJob2HTTPRequestConverterConfigurationConstants.SUBMIT_FAX_JOB_TEMPLATE_PROPERTY_KEY, faxJob);
+        Assert.assertEquals(ContentType.STRING, output.getContentType());
+        RequestEntity requestEntity = new ApacheHTTPClient().createStringRequestContent(output);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        requestEntity.writeRequest(outputStream);
+        byte[] stringContent = outputStream.toByteArray();
+
+        // streamed content
+        this.configuration.setProperty("org.fax4j.spi.http.template.stream.threshold", "0");
+        this.faxClientSpi = (HTTPFaxClientSpi) TestUtil.createFaxClientSpi(HTTPFaxClientSpi.class.getName(),
+                this.configuration);
+        this.converter = (TemplateFaxJob2HTTPRequestConverter) this.faxClientSpi.getFaxJob2HTTPRequestConverter();
+        output = this.converter.createHTTPRequest(this.faxClientSpi, FaxActionType.SUBMIT_FAX_JOB,
+                FaxJob2HTTPRequestConverterConfigurationConstants.SUBMIT_FAX_JOB_TEMPLATE_PROPERTY_KEY, faxJob);
+        Assert.assertEquals(ContentType.STREAM, output.getContentType());
+        outputStream = new ByteArrayOutputStream();
+        output.getContentAsStream().writeTo(outputStream);
+        byte[] streamContent = outputStream.toByteArray();
+
+        file.delete();
+
+        Assert.assertEquals(requestEntity.getContentType(), output.getContentAsStream().getContentType());
+
+        // both contents hold the raw file bytes
+        Assert.assertArrayEquals(streamContent, stringContent);
+        byte[] prefix = ("submit\ntarget.address=\ntarget.name=TEST_TARGET_NAME\nsender.name=\nsender.fax.number=\n"
+                + "sender.email=\nCONTENT:\n").getBytes("ISO-8859-1");
+        Assert.assertEquals(prefix.length + fileContent.length, streamContent.length);
+        for (int index = 0; index < fileContent.length; index++) {
+            Assert.assertEquals(fileContent[index], streamContent[prefix.length + index]);
+        }
+    }
+
     /**
      * Test
      * 
@@ -311,4 +311,77 @@ public class XMLHTTPResponseHandlerTest {
         Assert.assertNotNull(output);
         Assert.assertEquals("some message", output);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void findValueCachedExpressionTest() throws Exception {
+        String text = "<part1><part2><part3><element>e_value</element></part3></part2></part1>";
+        for (int index = 0; index < 3; index++) {
+            this.httpResponse.setContent(text);
+            String output = this.handler.findValue(this.httpResponse, "part1;part2;;;part3;element");
+            Assert.assertEquals("e_value", output);
+            output = this.handler.findValue(this.httpResponse, "part1;part2;part3");
+            Assert.assertEquals("e_value", output);
+        }
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void findValueStreamingParserTest() throws Exception {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.spi.http.submit.xml.output.path", "part1;part2;;;part3;element");
+        configuration.put("org.fax4j.spi.http.xml.error.detection.path", "part1;errorobj;err_flag");
+        configuration.put("org.fax4j.spi.http.xml.error.detection.value", "error");
+        configuration.put("org.fax4j.spi.http.xml.error.message.path", "part1;errorobj;err_message");
+        configuration.put("org.fax4j.spi.http.xml.streaming.parser", "true");
+        XMLHTTPResponseHandler streamingHandler = new XMLHTTPResponseHandler();
+        streamingHandler.setPropertyPart(HTTPFaxClientSpi.HTTP_PROPERTY_PART);
+        streamingHandler.initialize(configuration);
+
+        String text = "<part1><mem1>v1</mem1><part2><part3><element>e_<![CDATA[value]]><b>2</b></element>"
+                + "<element>other</element></part3></part2></part1>";
+        this.httpResponse.setContent(text);
+        String output = streamingHandler.findValue(this.httpResponse, "part1;part2;;;part3;element");
+        Assert.assertEquals("e_value2", output);
+        output = streamingHandler.findValue(this.httpResponse, "part1;mem2");
+        Assert.assertNull(output);
+
+        // not simple path (uses DOM)
+        output = streamingHandler.findValue(this.httpResponse, "part1;part2;part3;element[2]");
+        Assert.assertEquals("other", output);
+
+        text = "<part1><errorobj><err_flag>error</err_flag><err_message>some message</err_message></errorobj></part1>";
+        this.httpResponse.setContent(text);
+        try {
+            streamingHandler.findValue(this.httpResponse, "part1;part2;part3;element");
+            Assert.fail();
+        } catch (FaxException exception) {
+            Assert.assertEquals("Error found in response: some message", exception.getMessage());
+        }
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void initializeInvalidPathTest() throws Exception {
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put("org.fax4j.spi.http.submit.xml.output.path", "part1;[[element");
+        XMLHTTPResponseHandler invalidHandler = new XMLHTTPResponseHandler();
+        invalidHandler.setPropertyPart(HTTPFaxClientSpi.HTTP_PROPERTY_PART);
+        invalidHandler.initialize(configuration);
+    }
+}
@@ -1,14 +1,22 @@
 package org.fax4j.spi.hylafax;
 
 import gnu.hylafax.HylaFAXClient;
+import gnu.hylafax.Job;
 import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import org.fax4j.FaxJob;
+import org.fax4j.FaxJobStatus;
+import org.fax4j.spi.FaxJobImpl;
 import org.fax4j.test.TestUtil;
 import org.fax4j.test.TestUtil.TestHylaFAXClientConnectionFactory;
 import org.fax4j.util.IOHelper;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 /**
  * Test Class
@@ -137,4 +145,185 @@ public class HylaFaxClientSpiTest {
         HylaFaxJob faxJob = (HylaFaxJob) this.faxClientSpi.createFaxJobImpl();
         this.faxClientSpi.cancelFaxJobImpl(faxJob);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void pooledFaxJobTest() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.hylafax.connection.factory.class.name",
+                TestPooledHylaFAXClientConnectionFactory.class.getName());
+        configuration.setProperty("org.fax4j.spi.hylafax.host", "TEST_HOST");
+        configuration.setProperty("org.fax4j.spi.hylafax.port", "123");
+        configuration.setProperty("org.fax4j.spi.hylafax.user", "TEST_USER");
+        HylaFaxClientSpi pooledFaxClientSpi = (HylaFaxClientSpi) TestUtil
+                .createFaxClientSpi(HylaFaxClientSpi.class.getName(), configuration);
+
+        HylaFaxJob faxJob = (HylaFaxJob) pooledFaxClientSpi.createFaxJobImpl();
+        Assert.assertNull(faxJob.getHylaFaxJob());
+        faxJob.setTargetAddress("555");
+        faxJob.setFilePath("TEST");
+        pooledFaxClientSpi.submitFaxJobImpl(faxJob);
+
+        // the submitted fax job no longer uses the job bound to the released client session
+        Job job = TestPooledHylaFAXClientConnectionFactory.CLIENT.createJob();
+        Mockito.verify(job).setProperty("DIALSTRING", "555");
+        Assert.assertNull(faxJob.getHylaFaxJob());
+        Assert.assertEquals("123", faxJob.getID());
+        Assert.assertEquals("555", faxJob.getTargetAddress());
+        faxJob.setSenderName("mysender");
+        Assert.assertEquals("mysender", faxJob.getSenderName());
+        Mockito.verify(job, Mockito.never()).setFromUser(Mockito.anyString());
+        Mockito.verify(job, Mockito.never()).getDialstring();
+
+        // further fax actions select the job on the borrowed client
+        pooledFaxClientSpi.cancelFaxJobImpl(faxJob);
+        Mockito.verify(TestPooledHylaFAXClientConnectionFactory.CLIENT).getJob(123);
+        Mockito.verify(TestPooledHylaFAXClientConnectionFactory.CLIENT).kill(Mockito.any(Job.class));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void updateFaxJobStatusesTest() throws Exception {
+        Map<String, FaxJobStatus> faxJobStatusMap = new HashMap<String, FaxJobStatus>();
+        this.faxClientSpi.updateFaxJobStatuses(Arrays.asList(" 1 P", "2 R", "3 F", "4 D", "", "5"), faxJobStatusMap);
+        Assert.assertEquals(4, faxJobStatusMap.size());
+        Assert.assertEquals(FaxJobStatus.PENDING, faxJobStatusMap.get("1"));
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, faxJobStatusMap.get("2"));
+        Assert.assertEquals(FaxJobStatus.ERROR, faxJobStatusMap.get("3"));
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, faxJobStatusMap.get("4"));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void faxJobStatusSnapshotTest() throws Exception {
+        Properties configuration = new Properties();
+        configuration.setProperty("org.fax4j.spi.hylafax.connection.factory.class.name",
+                TestHylaFAXClientConnectionFactory.class.getName());
+        configuration.setProperty("org.fax4j.spi.hylafax.host", "TEST_HOST");
+        configuration.setProperty("org.fax4j.spi.hylafax.user", "TEST_USER");
+        configuration.setProperty("org.fax4j.spi.hylafax.status.snapshot.ttl", "60000");
+        SnapshotHylaFaxClientSpi snapshotFaxClientSpi = (SnapshotHylaFaxClientSpi) TestUtil
+                .createFaxClientSpi(SnapshotHylaFaxClientSpi.class.getName(), configuration);
+        Assert.assertTrue(snapshotFaxClientSpi.isFaxMonitorEventsSupported());
+
+        FaxJob[] faxJobs = new FaxJob[3];
+        for (int index = 0; index < faxJobs.length; index++) {
+            faxJobs[index] = new FaxJobImpl();
+            faxJobs[index].setID(String.valueOf(index + 1));
+        }
+
+        FaxJobStatus[] faxJobStatuses = snapshotFaxClientSpi.pollForFaxJobStatues(faxJobs);
+        Assert.assertEquals(FaxJobStatus.PENDING, faxJobStatuses[0]);
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, faxJobStatuses[1]);
+        Assert.assertEquals(FaxJobStatus.UNKNOWN, faxJobStatuses[2]);
+        Assert.assertEquals(FaxJobStatus.IN_PROGRESS, snapshotFaxClientSpi.getFaxJobStatus(faxJobs[1]));
+        Assert.assertEquals(1, snapshotFaxClientSpi.fetchCount);
+        Assert.assertEquals(1, snapshotFaxClientSpi.permitCount);
+
+        // direct status requests are rate limited by the caller
+        snapshotFaxClientSpi.invalidateFaxJobStatusSnapshot();
+        snapshotFaxClientSpi.getFaxJobStatusImpl(faxJobs[1]);
+        Assert.assertEquals(2, snapshotFaxClientSpi.fetchCount);
+        Assert.assertEquals(1, snapshotFaxClientSpi.permitCount);
+
+        snapshotFaxClientSpi.invalidateFaxJobStatusSnapshot();
+        snapshotFaxClientSpi.pollForFaxJobStatues(faxJobs);
+        Assert.assertEquals(3, snapshotFaxClientSpi.fetchCount);
+        Assert.assertEquals(2, snapshotFaxClientSpi.permitCount);
+    }
+
+    /**
+     * Test pooled connection factory which always creates the same client.
+     * 
+     * @author Sagie Gur-Ari
+     */
+    public static class TestPooledHylaFAXClientConnectionFactory extends PooledHylaFAXClientConnectionFactory {
+        /** The client */
+        protected static final HylaFAXClient CLIENT = Mockito.mock(HylaFAXClient.class);
+
+        static {
+            try {
+                Job job = Mockito.mock(Job.class);
+                Mockito.doReturn(Long.valueOf(123)).when(job).getId();
+                Mockito.when(TestPooledHylaFAXClientConnectionFactory.CLIENT.createJob()).thenReturn(job);
+                Mockito.when(TestPooledHylaFAXClientConnectionFactory.CLIENT.getJob(123)).thenReturn(job);
+            } catch (Exception exception) {
+                throw new RuntimeException(exception);
+            }
+        }
+
+        /**
+         * This is the default constructor.
+         */
+        public TestPooledHylaFAXClientConnectionFactory() {
+            super();
+        }
+
+        /**
+         * Creates and returns the resource.
+         * 
+         * @return The resource
+         */
+        @Override
+        protected HylaFAXClient createResourceImpl() {
+            return TestPooledHylaFAXClientConnectionFactory.CLIENT;
+        }
+    }
+
+    /**
+     * Test SPI which returns fixed fax server queues.
+     * 
+     * @author Sagie Gur-Ari
+     */
+    public static class SnapshotHylaFaxClientSpi extends HylaFaxClientSpi {
+        /** The amount of fetched snapshots */
+        protected int fetchCount;
+        /** The amount of acquired status polling permits */
+        protected int permitCount;
+
+        /**
+         * This is the default constructor.
+         */
+        public SnapshotHylaFaxClientSpi() {
+            super();
+        }
+
+        /**
+         * This function acquires a token from each of the status polling token buckets and waits for them if needed.
+         */
+        @Override
+        protected void acquireStatusPollingPermit() {
+            this.permitCount++;
+        }
+
+        /**
+         * This function fetches the statuses of all fax jobs found in the fax server queues.
+         * 
+         * @return The fax job ID to fax job status map
+         */
+        @Override
+        protected Map<String, FaxJobStatus> fetchFaxJobStatuses() {
+            this.fetchCount++;
+
+            Map<String, FaxJobStatus> faxJobStatusMap = new HashMap<String, FaxJobStatus>();
+            this.updateFaxJobStatuses(Arrays.asList("1 P", "2 R"), faxJobStatusMap);
+
+            return faxJobStatusMap;
+        }
+    }
+}
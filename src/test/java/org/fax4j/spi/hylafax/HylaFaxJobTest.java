@@ -131,4 +131,65 @@ public class HylaFaxJobTest {
         String output = this.faxJob.getSenderEmail();
         Assert.assertNull(output);
     }
-}
\ No newline at end of file
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void pendingParametersTest() throws Exception {
+        HylaFaxJob pendingFaxJob = new HylaFaxJob();
+        Assert.assertNull(pendingFaxJob.getID());
+        pendingFaxJob.setTargetAddress("123456789");
+        pendingFaxJob.setPriority(FaxJobPriority.HIGH_PRIORITY);
+        pendingFaxJob.setProperty("NOTIFY", "done");
+        Assert.assertEquals("123456789", pendingFaxJob.getTargetAddress());
+        Assert.assertEquals(FaxJobPriority.HIGH_PRIORITY, pendingFaxJob.getPriority());
+        Assert.assertEquals("done", pendingFaxJob.getProperty("NOTIFY", null));
+
+        Job job = Mockito.mock(Job.class);
+        Mockito.when(Long.valueOf(job.getId())).thenReturn(Long.valueOf(456));
+        pendingFaxJob.setHylaFaxJob(job);
+        Assert.assertEquals("456", pendingFaxJob.getID());
+        Mockito.verify(job).setProperty("DIALSTRING", "123456789");
+        Mockito.verify(job).setProperty("SCHEDPRI", String.valueOf(Job.PRIORITY_HIGH));
+        Mockito.verify(job).setProperty("NOTIFY", "done");
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void detachTest() throws Exception {
+        HylaFaxJob pendingFaxJob = new HylaFaxJob();
+        pendingFaxJob.setTargetAddress("123456789");
+        pendingFaxJob.setProperty("NOTIFY", "done");
+        Job job = Mockito.mock(Job.class);
+        Mockito.when(Long.valueOf(job.getId())).thenReturn(Long.valueOf(456));
+        pendingFaxJob.setHylaFaxJob(job);
+        Assert.assertFalse(pendingFaxJob.isDetached());
+
+        pendingFaxJob.detachHylaFaxJob();
+        Assert.assertTrue(pendingFaxJob.isDetached());
+        Assert.assertNull(pendingFaxJob.getHylaFaxJob());
+        Assert.assertEquals("456", pendingFaxJob.getID());
+        Assert.assertEquals("123456789", pendingFaxJob.getTargetAddress());
+        Assert.assertEquals("done", pendingFaxJob.getProperty("NOTIFY", null));
+        pendingFaxJob.setProperty("NOTIFY", "none");
+        Assert.assertEquals("none", pendingFaxJob.getProperty("NOTIFY", null));
+        Mockito.verify(job, Mockito.never()).getProperty(Mockito.anyString());
+        Mockito.verify(job, Mockito.never()).setProperty("NOTIFY", "none");
+
+        try {
+            pendingFaxJob.setHylaFaxJob(job);
+            Assert.fail("Fax job already created");
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+}
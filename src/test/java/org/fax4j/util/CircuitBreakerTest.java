@@ -0,0 +1,95 @@
+package org.fax4j.util;
+
+import org.fax4j.FaxException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class CircuitBreakerTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void invalidWindowSizeTest() throws Exception {
+        new CircuitBreaker(0, 1, 50, 0, 50, 1000, 1);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void invalidHalfOpenCallsTest() throws Exception {
+        new CircuitBreaker(2, 1, 50, 0, 50, 1000, 3);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void failureRateTest() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(10, 4, 50, 0, 100, 50, 2);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // below minimum calls
+        for (int index = 0; index < 3; index++) {
+            Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.recordCall(1, true);
+        }
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        // threshold reached
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.recordCall(1, false);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+
+        // half open probes
+        Thread.sleep(60);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.recordCall(1, false);
+        circuitBreaker.recordCall(1, true);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // recover
+        Thread.sleep(60);
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.recordCall(1, false);
+        circuitBreaker.recordCall(1, false);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void slowCallRateTest() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(4, 4, 100, 100, 75, 60000, 1);
+        circuitBreaker.recordCall(500, false);
+        circuitBreaker.recordCall(5, false);
+        circuitBreaker.recordCall(500, false);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.recordCall(500, false);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+}
@@ -0,0 +1,83 @@
+package org.fax4j.util;
+
+import org.fax4j.FaxJob;
+import org.fax4j.spi.FaxJobImpl;
+import org.fax4j.util.CompiledTemplate.TemplateParameter;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ * 
+ * @author Sagie Gur-Ari
+ */
+public class CompiledTemplateTest {
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void compileNullTest() throws Exception {
+        Assert.assertNull(CompiledTemplate.compile(null));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void formatNoParametersTest() throws Exception {
+        CompiledTemplate template = CompiledTemplate.compile("no parameters");
+        Assert.assertEquals("no parameters", template.getTemplate());
+        Assert.assertFalse(template.containsParameter(TemplateParameter.FILE));
+        Assert.assertEquals("no parameters", template.format(new FaxJobImpl(), null, false, true));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void formatTest() throws Exception {
+        CompiledTemplate template = CompiledTemplate
+                .compile("${target.address}-${target.name}:${fax.job.id} ${unknown} ${sender.email}${file}${");
+        Assert.assertTrue(template.containsParameter(TemplateParameter.FILE));
+        Assert.assertTrue(template.containsParameter(TemplateParameter.FAX_JOB_ID));
+        Assert.assertFalse(template.containsParameter(TemplateParameter.SENDER_NAME));
+
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setTargetAddress("123");
+        faxJob.setTargetName("${sender.email}");
+        faxJob.setID("ID1");
+        faxJob.setFilePath("/tmp/file.txt");
+        Assert.assertEquals("123-${sender.email}:ID1 ${unknown} /tmp/file.txt${",
+                template.format(faxJob, null, false, true));
+
+        // same compiled template with different values
+        faxJob = new FaxJobImpl();
+        faxJob.setTargetAddress("456 7");
+        faxJob.setSenderEmail("a@b.com");
+        faxJob.setFilePath("/tmp/file.txt");
+        Assert.assertEquals("456+7-: ${unknown} a%40b.comfile.txt${",
+                template.format(faxJob, SpiUtil.URL_ENCODER, false, false));
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void getTemplateParameterTest() throws Exception {
+        Assert.assertEquals(TemplateParameter.TARGET_ADDRESS, TemplateParameter.getTemplateParameter("target.address"));
+        Assert.assertEquals(TemplateParameter.FAX_JOB_ID, TemplateParameter.getTemplateParameter("fax.job.id"));
+        Assert.assertNull(TemplateParameter.getTemplateParameter("abc"));
+    }
+}
@@ -0,0 +1,146 @@
+package org.fax4j.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.fax4j.FaxException;
+import org.fax4j.util.ConnectionPool.ResourceHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ * 
+ * @author Sagie Gur-Ari
+ */
+public class ConnectionPoolTest {
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void borrowReturnReuseTest() throws Exception {
+        CountingResourceHandler handler = new CountingResourceHandler();
+        ConnectionPool<Integer> pool = new ConnectionPool<Integer>(handler, 0, 2, 100, 0);
+
+        Integer resource = pool.borrowResource();
+        Assert.assertEquals(1, pool.getActiveCount());
+        pool.returnResource(resource, true);
+        Assert.assertEquals(0, pool.getActiveCount());
+        Assert.assertEquals(1, pool.getIdleCount());
+
+        Integer reused = pool.borrowResource();
+        Assert.assertEquals(resource, reused);
+        Assert.assertEquals(1, handler.CREATED.get());
+        pool.returnResource(reused, true);
+
+        pool.close();
+        Assert.assertEquals(0, pool.getIdleCount());
+        Assert.assertEquals(1, handler.RELEASED.get());
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void borrowTimeoutTest() throws Exception {
+        ConnectionPool<Integer> pool = new ConnectionPool<Integer>(new CountingResourceHandler(), 0, 1, 50, 0);
+
+        Integer resource = pool.borrowResource();
+        try {
+            pool.borrowResource();
+            Assert.fail();
+        } catch (FaxException exception) {
+            // expected
+        }
+
+        pool.returnResource(resource, true);
+        Assert.assertEquals(resource, pool.borrowResource());
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void invalidResourceTest() throws Exception {
+        CountingResourceHandler handler = new CountingResourceHandler();
+        ConnectionPool<Integer> pool = new ConnectionPool<Integer>(handler, 0, 2, 100, 0);
+
+        Integer resource = pool.borrowResource();
+        pool.returnResource(resource, true);
+        handler.valid = false;
+
+        Integer other = pool.borrowResource();
+        Assert.assertFalse(resource.equals(other));
+        Assert.assertEquals(2, handler.CREATED.get());
+        Assert.assertEquals(1, handler.RELEASED.get());
+
+        pool.returnResource(other, false);
+        Assert.assertEquals(2, handler.RELEASED.get());
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void evictIdleResourcesTest() throws Exception {
+        CountingResourceHandler handler = new CountingResourceHandler();
+        ConnectionPool<Integer> pool = new ConnectionPool<Integer>(handler, 1, 3, 100, 20);
+
+        Integer resource1 = pool.borrowResource();
+        Integer resource2 = pool.borrowResource();
+        Integer resource3 = pool.borrowResource();
+        pool.returnResource(resource1, true);
+        pool.returnResource(resource2, true);
+        pool.returnResource(resource3, true);
+        Assert.assertEquals(3, pool.getIdleCount());
+
+        Thread.sleep(50);
+        pool.evictIdleResources();
+        Assert.assertEquals(1, pool.getIdleCount());
+        Assert.assertEquals(2, handler.RELEASED.get());
+    }
+
+    /**
+     * Resource handler which creates integer resources.
+     * 
+     * @author Sagie Gur-Ari
+     */
+    private static class CountingResourceHandler implements ResourceHandler<Integer> {
+        /** The created resources counter */
+        protected final AtomicInteger CREATED = new AtomicInteger(0);
+        /** The released resources counter */
+        protected final AtomicInteger RELEASED = new AtomicInteger(0);
+        /** The validation result */
+        protected volatile boolean valid = true;
+
+        /**
+         * This is the class constructor.
+         */
+        public CountingResourceHandler() {
+            super();
+        }
+
+        public Integer createResource() {
+            return Integer.valueOf(this.CREATED.incrementAndGet());
+        }
+
+        public boolean validateResource(Integer resource) {
+            return this.valid;
+        }
+
+        public void releaseResource(Integer resource) {
+            this.RELEASED.incrementAndGet();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package org.fax4j.util;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.fax4j.FaxException;
+import org.fax4j.common.ConfigurationHolderImpl;
 import org.fax4j.spi.FaxClientSpi;
+import org.fax4j.test.TestUtil;
 import org.fax4j.test.TestUtil.EmptyFaxClientSpi;
 import org.fax4j.util.ProcessExecutorHelper.ProcessOutput;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -45,6 +50,84 @@ public class DefaultProcessExecutorTest {
         Assert.assertNotNull(processOutput.getOutputText());
     }
 
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessTimeoutTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ProcessExecutor.PROCESS_TIMEOUT_PROPERTY_KEY, "200");
+        long start = System.currentTimeMillis();
+        try {
+            this.processExecutor.executeProcess(new ConfigurationHolderImpl(configuration), "sleep 10");
+            Assert.fail("Process timeout not detected.");
+        } catch (FaxException exception) {
+            // expected
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessOutputMaxSizeTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ProcessExecutor.PROCESS_OUTPUT_MAX_SIZE_PROPERTY_KEY, "4");
+        ProcessOutput processOutput = this.processExecutor.executeProcess(new ConfigurationHolderImpl(configuration),
+                "echo 123456789");
+        Assert.assertEquals(0, processOutput.getExitCode());
+        Assert.assertEquals("789", processOutput.getOutputText().trim());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessUnlimitedOutputTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ProcessExecutor.PROCESS_OUTPUT_MAX_SIZE_PROPERTY_KEY, "0");
+        ProcessOutput processOutput = this.processExecutor.executeProcess(new ConfigurationHolderImpl(configuration),
+                "echo 123456789");
+        Assert.assertEquals(0, processOutput.getExitCode());
+        Assert.assertEquals("123456789", processOutput.getOutputText().trim());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessLargeOutputTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        // output larger than the pipe buffer must be read while the process is running
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ProcessExecutor.PROCESS_TIMEOUT_PROPERTY_KEY, "10000");
+        configuration.put(ProcessExecutor.PROCESS_OUTPUT_MAX_SIZE_PROPERTY_KEY, "0");
+        ProcessOutput processOutput = this.processExecutor.executeProcess(new ConfigurationHolderImpl(configuration),
+                "head -c 500000 /dev/zero");
+        Assert.assertEquals(0, processOutput.getExitCode());
+        Assert.assertEquals(500000, processOutput.getOutputText().length());
+    }
+
     /**
      * Test
      *
@@ -0,0 +1,213 @@
+package org.fax4j.util;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+import org.fax4j.FaxJob.FaxJobPriority;
+import org.fax4j.util.FaxJobJournal.JournalRecord;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class FaxJobJournalTest {
+    /** The journal directory */
+    private File directory;
+
+    /**
+     * Sets up the journal directory.
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.directory = File.createTempFile("fax4j_journal_", ".dir");
+        this.directory.delete();
+    }
+
+    /**
+     * Deletes the journal directory.
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (int index = 0; index < files.length; index++) {
+                files[index].delete();
+            }
+        }
+        this.directory.delete();
+    }
+
+    /**
+     * This function creates a new record.
+     *
+     * @param key
+     *            The record key
+     * @return The record
+     */
+    private static JournalRecord createRecord(String key) {
+        JournalRecord record = new JournalRecord(key);
+        record.setFilePath("/tmp/" + key);
+        record.setPriority(FaxJobPriority.HIGH_PRIORITY);
+        record.setTargetAddress("555-555");
+        record.setSenderName("sender");
+        record.getProperties().setProperty("myprop", "value-" + key);
+        return record;
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void replayTest() throws Exception {
+        FaxJobJournal journal = new FaxJobJournal(this.directory, true, 1024 * 1024);
+        journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord("a"),
+                FaxJobJournalTest.createRecord("b") });
+        journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord("c") });
+        journal.acknowledge("b");
+        Assert.assertEquals(2, journal.getPendingRecordsCount());
+        journal.close();
+
+        journal = new FaxJobJournal(this.directory, true, 1024 * 1024);
+        List<JournalRecord> records = journal.getPendingRecords();
+        Assert.assertEquals(2, records.size());
+        JournalRecord record = records.get(0);
+        Assert.assertEquals("a", record.getKey());
+        Assert.assertEquals("/tmp/a", record.getFilePath());
+        Assert.assertEquals(FaxJobPriority.HIGH_PRIORITY, record.getPriority());
+        Assert.assertEquals("555-555", record.getTargetAddress());
+        Assert.assertNull(record.getTargetName());
+        Assert.assertEquals("sender", record.getSenderName());
+        Assert.assertEquals("value-a", record.getProperties().getProperty("myprop"));
+        Assert.assertEquals("c", records.get(1).getKey());
+        Assert.assertTrue(journal.containsKey("b"));
+        Assert.assertFalse(journal.containsKey("d"));
+        journal.close();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void truncatedRecordTest() throws Exception {
+        FaxJobJournal journal = new FaxJobJournal(this.directory, false, 1024 * 1024);
+        journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord("a") });
+        journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord("b") });
+        journal.close();
+
+        // simulate crash during write
+        File file = new File(this.directory, FaxJobJournal.JOURNAL_FILE_NAME);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(randomAccessFile.length() - 3);
+        randomAccessFile.close();
+
+        journal = new FaxJobJournal(this.directory, false, 1024 * 1024);
+        List<JournalRecord> records = journal.getPendingRecords();
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals("a", records.get(0).getKey());
+
+        // new records are appended after the last valid record
+        journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord("c") });
+        journal.close();
+        journal = new FaxJobJournal(this.directory, false, 1024 * 1024);
+        Assert.assertEquals(2, journal.getPendingRecordsCount());
+        journal.close();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void appendIfAbsentTest() throws Exception {
+        FaxJobJournal journal = new FaxJobJournal(this.directory, false, 1024 * 1024);
+        Assert.assertTrue(journal.appendIfAbsent(FaxJobJournalTest.createRecord("a")));
+        Assert.assertFalse(journal.appendIfAbsent(FaxJobJournalTest.createRecord("a")));
+        Assert.assertEquals(1, journal.getPendingRecordsCount());
+
+        // acknowledged keys are known as well
+        journal.acknowledge("a");
+        Assert.assertFalse(journal.appendIfAbsent(FaxJobJournalTest.createRecord("a")));
+        Assert.assertEquals(0, journal.getPendingRecordsCount());
+        journal.close();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void compactTest() throws Exception {
+        FaxJobJournal journal = new FaxJobJournal(this.directory, false, 512);
+        for (int index = 0; index < 20; index++) {
+            journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord(String.valueOf(index)) });
+            if (index > 0) {
+                journal.acknowledge(String.valueOf(index - 1));
+            }
+        }
+        journal.close();
+
+        // the compacted journal holds the pending record and the acknowledged keys
+        File file = new File(this.directory, FaxJobJournal.JOURNAL_FILE_NAME);
+        Assert.assertTrue("Size: " + file.length(), file.length() < 1024);
+
+        journal = new FaxJobJournal(this.directory, false, 512);
+        List<JournalRecord> records = journal.getPendingRecords();
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals("19", records.get(0).getKey());
+
+        // acknowledged keys are kept by the compaction
+        for (int index = 0; index < 19; index++) {
+            Assert.assertTrue(journal.containsKey(String.valueOf(index)));
+        }
+        Assert.assertFalse(journal.appendIfAbsent(FaxJobJournalTest.createRecord("0")));
+        journal.close();
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void maxAcknowledgedKeysTest() throws Exception {
+        FaxJobJournal journal = new FaxJobJournal(this.directory, false, 256, 5);
+        for (int index = 0; index < 10; index++) {
+            journal.append(new JournalRecord[] { FaxJobJournalTest.createRecord(String.valueOf(index)) });
+            journal.acknowledge(String.valueOf(index));
+        }
+        Assert.assertFalse(journal.containsKey("4"));
+        Assert.assertTrue(journal.containsKey("5"));
+        Assert.assertTrue(journal.containsKey("9"));
+        journal.close();
+
+        // oldest keys are forgotten after restart as well
+        journal = new FaxJobJournal(this.directory, false, 256, 5);
+        Assert.assertFalse(journal.containsKey("4"));
+        Assert.assertTrue(journal.containsKey("5"));
+        Assert.assertTrue(journal.containsKey("9"));
+        Assert.assertEquals(0, journal.getPendingRecordsCount());
+        journal.close();
+    }
+}
@@ -0,0 +1,66 @@
+package org.fax4j.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class LatencyHistogramTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void emptyHistogramTest() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMax());
+        Assert.assertEquals(0, histogram.getMean(), 0);
+        Assert.assertEquals(0, histogram.getPercentile(99));
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void percentilesTest() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        Assert.assertEquals(1001, histogram.getCount());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(500500d / 1001, histogram.getMean(), 0.0001);
+
+        long[] percentiles = histogram.getPercentiles(new double[] { 0, 50, 99, 100 });
+        Assert.assertEquals(0, percentiles[0]);
+        Assert.assertTrue(percentiles[1] >= 500 && percentiles[1] <= 500 * 1.125);
+        Assert.assertTrue(percentiles[2] >= 990 && percentiles[2] <= 1000);
+        Assert.assertEquals(1000, percentiles[3]);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void largeValuesTest() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(7);
+        Assert.assertEquals(7, histogram.getPercentile(50));
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+    }
+}
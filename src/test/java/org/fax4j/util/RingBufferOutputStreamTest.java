@@ -0,0 +1,49 @@
+package org.fax4j.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class RingBufferOutputStreamTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void writeWithinCapacityTest() throws Exception {
+        RingBufferOutputStream outputStream = new RingBufferOutputStream(10);
+        outputStream.write("abc".getBytes("UTF-8"));
+        outputStream.write('d');
+
+        Assert.assertFalse(outputStream.isTruncated());
+        Assert.assertEquals(4, outputStream.getTotalSize());
+        Assert.assertEquals("abcd", outputStream.toString("UTF-8"));
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void writeOverCapacityTest() throws Exception {
+        RingBufferOutputStream outputStream = new RingBufferOutputStream(5);
+        outputStream.write("abc".getBytes("UTF-8"));
+        outputStream.write("defg".getBytes("UTF-8"));
+
+        Assert.assertTrue(outputStream.isTruncated());
+        Assert.assertEquals(7, outputStream.getTotalSize());
+        Assert.assertEquals("cdefg", outputStream.toString("UTF-8"));
+
+        outputStream.write("0123456789".getBytes("UTF-8"), 2, 8);
+        outputStream.write('X');
+        Assert.assertEquals("6789X", outputStream.toString("UTF-8"));
+    }
+}
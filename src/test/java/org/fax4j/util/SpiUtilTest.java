@@ -4,6 +4,8 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.fax4j.FaxJob;
 import org.fax4j.spi.FaxJobImpl;
 import org.fax4j.util.SpiUtil.TemplateParameterEncoder;
@@ -126,6 +128,40 @@ public class SpiUtilTest {
         Assert.assertEquals("TEST_FILE_NAME", output);
     }
 
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void formatTemplateFaxJobIDTest() throws Exception {
+        String template = "id=${fax.job.id}&email=${sender.email}";
+        FaxJob faxJob = new FaxJobImpl();
+        faxJob.setID("TEST_ID");
+        faxJob.setSenderEmail("TEST_SENDER_EMAIL");
+        TemplateParameterEncoder encoder = null;
+        String output = SpiUtil.formatTemplate(template, faxJob, encoder, false, true);
+        Assert.assertEquals("id=TEST_ID&email=TEST_SENDER_EMAIL", output);
+        Assert.assertEquals("${fax.job.id}", SpiUtil.FAX_JOB_ID_TEMPLATE_PARAMETER_STRING);
+    }
+
+    /**
+     * Test
+     * 
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void getCompiledTemplateTest() throws Exception {
+        ConcurrentMap<String, CompiledTemplate> cache = new ConcurrentHashMap<String, CompiledTemplate>();
+        Assert.assertNull(SpiUtil.getCompiledTemplate(null, cache));
+        CompiledTemplate compiledTemplate = SpiUtil.getCompiledTemplate("${target.address}", cache);
+        Assert.assertNotNull(compiledTemplate);
+        Assert.assertSame(compiledTemplate, SpiUtil.getCompiledTemplate("${target.address}", cache));
+        Assert.assertEquals(1, cache.size());
+    }
+
     /**
      * Test
      * 
@@ -0,0 +1,72 @@
+package org.fax4j.util;
+
+import org.fax4j.FaxException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class TokenBucketTest {
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test(expected = FaxException.class)
+    public void invalidRateTest() throws Exception {
+        new TokenBucket(0, 1, 1, 1000);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void burstTest() throws Exception {
+        TokenBucket tokenBucket = new TokenBucket(1, 3, 0, 0);
+        Assert.assertTrue(tokenBucket.tryAcquire());
+        Assert.assertTrue(tokenBucket.tryAcquire());
+        tokenBucket.acquire();
+        Assert.assertFalse(tokenBucket.tryAcquire());
+        try {
+            tokenBucket.acquire();
+            Assert.fail("Queue should be full");
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void waitTest() throws Exception {
+        TokenBucket tokenBucket = new TokenBucket(20, 1, 5, 1000);
+        long startTime = System.currentTimeMillis();
+        for (int index = 0; index < 5; index++) {
+            tokenBucket.acquire();
+        }
+        long time = System.currentTimeMillis() - startTime;
+        Assert.assertTrue("Time: " + time, time >= 190);
+        Assert.assertEquals(0, tokenBucket.getQueueSize());
+
+        // max wait exceeded
+        tokenBucket = new TokenBucket(1, 1, 5, 100);
+        tokenBucket.acquire();
+        try {
+            tokenBucket.acquire();
+            Assert.fail("Max wait should be exceeded");
+        } catch (FaxException exception) {
+            // expected
+        }
+    }
+}
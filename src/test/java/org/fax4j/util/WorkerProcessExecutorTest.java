@@ -0,0 +1,189 @@
+package org.fax4j.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.fax4j.FaxException;
+import org.fax4j.common.ConfigurationHolder;
+import org.fax4j.common.ConfigurationHolderImpl;
+import org.fax4j.test.TestUtil;
+import org.fax4j.util.ProcessExecutorHelper.ProcessOutput;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test Class
+ *
+ * @author Sagie Gur-Ari
+ */
+public class WorkerProcessExecutorTest {
+    /** The process executer to test */
+    private WorkerProcessExecutor processExecutor;
+
+    /**
+     * Sets up the test objects.
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.processExecutor = new WorkerProcessExecutor();
+    }
+
+    /**
+     * Creates a new configuration holder with the provided worker script.
+     *
+     * @param script
+     *            The worker shell script (null for no worker)
+     * @return The configuration holder
+     * @throws Exception
+     *             Any exception
+     */
+    private ConfigurationHolder createConfigurationHolder(String script) throws Exception {
+        return this.createConfigurationHolder(script, new HashMap<String, String>());
+    }
+
+    /**
+     * Creates a new configuration holder with the provided worker script.
+     *
+     * @param script
+     *            The worker shell script (null for no worker)
+     * @param configuration
+     *            The additional configuration
+     * @return The configuration holder
+     * @throws Exception
+     *             Any exception
+     */
+    private ConfigurationHolder createConfigurationHolder(String script, Map<String, String> configuration)
+            throws Exception {
+        if (script != null) {
+            File file = File.createTempFile("worker_fax4j_junit", ".sh");
+            file.deleteOnExit();
+            IOHelper.writeTextFile(script, file);
+            configuration.put(WorkerProcessExecutor.WORKER_COMMAND_PROPERTY_KEY, "sh " + file.getPath());
+        }
+
+        return new ConfigurationHolderImpl(configuration);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessNoWorkerTest() throws Exception {
+        ProcessOutput processOutput = this.processExecutor.executeProcess(this.createConfigurationHolder(null),
+                "echo");
+        Assert.assertNotNull(processOutput);
+        Assert.assertEquals(0, processOutput.getExitCode());
+        Assert.assertNotNull(processOutput.getOutputText());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessWorkerTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        String script = "count=0\n" + "while IFS= read -r line; do\n" + "count=$((count+1))\n"
+                + "echo \"O $line\"\n" + "echo \"E $count\"\n" + "echo \"X 3\"\n" + "done\n";
+        ConfigurationHolder configurationHolder = this.createConfigurationHolder(script);
+
+        ProcessOutput processOutput = this.processExecutor.executeProcess(configurationHolder, "first command");
+        Assert.assertEquals(3, processOutput.getExitCode());
+        Assert.assertEquals("first command", processOutput.getOutputText().trim());
+        Assert.assertEquals("1", processOutput.getErrorText().trim());
+
+        // same worker is reused
+        processOutput = this.processExecutor.executeProcess(configurationHolder, "second command");
+        Assert.assertEquals(3, processOutput.getExitCode());
+        Assert.assertEquals("second command", processOutput.getOutputText().trim());
+        Assert.assertEquals("2", processOutput.getErrorText().trim());
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessInvalidResponseTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        String script = "while IFS= read -r line; do\n" + "echo \"$line\"\n" + "done\n";
+        ConfigurationHolder configurationHolder = this.createConfigurationHolder(script);
+
+        try {
+            this.processExecutor.executeProcess(configurationHolder, "invalid");
+            Assert.fail("Invalid response not detected.");
+        } catch (IOException exception) {
+            // expected
+        }
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessWorkerTimeoutTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        String script = "while IFS= read -r line; do\n" + "sleep 10\n" + "done\n";
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ProcessExecutor.PROCESS_TIMEOUT_PROPERTY_KEY, "200");
+        ConfigurationHolder configurationHolder = this.createConfigurationHolder(script, configuration);
+
+        // hung workers are stopped and the next command gets a new worker
+        long start = System.currentTimeMillis();
+        for (int index = 0; index < 2; index++) {
+            try {
+                this.processExecutor.executeProcess(configurationHolder, "hung");
+                Assert.fail("Worker timeout not detected.");
+            } catch (FaxException exception) {
+                // expected
+            }
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    /**
+     * Test
+     *
+     * @throws Exception
+     *             Any exception
+     */
+    @Test
+    public void executeProcessWorkerActionTimeoutTest() throws Exception {
+        Assume.assumeTrue(!TestUtil.isWindowsOS());
+
+        String script = "while IFS= read -r line; do\n" + "sleep 10\n" + "done\n";
+        Map<String, String> configuration = new HashMap<String, String>();
+        configuration.put(ProcessExecutor.PROCESS_EXECUTER_CLASS_NAME_PROPERTY_KEY,
+                WorkerProcessExecutor.class.getName());
+        ConfigurationHolder configurationHolder = this.createConfigurationHolder(script, configuration);
+
+        // the SPI action timeout reaches the worker
+        long start = System.currentTimeMillis();
+        try {
+            ProcessExecutorHelper.executeProcess(configurationHolder, "hung", 200);
+            Assert.fail("Worker timeout not detected.");
+        } catch (FaxException exception) {
+            // expected
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+}